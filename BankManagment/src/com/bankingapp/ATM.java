@@ -1,75 +1,186 @@
-package com.bankingapp;
-
-import java.util.InputMismatchException;
-import java.util.Scanner;
-
-public class ATM {
-    /**
-     * The main method that runs the banking application.
-     * It creates a BankAccount instance and starts the ATM interface.
-     * @param args Command line arguments (not used).
-     */
-    public static void main(String[] args) {
-        // Create a new bank account with an initial balance of $500.
-        BankAccount userAccount = new BankAccount(500.00);
-        Scanner scanner = new Scanner(System.in);
-        boolean exit = false;
-
-        System.out.println("Welcome to the Simple Banking App!");
-
-        // Main application loop.
-        while (!exit) {
-            printMenu();
-            System.out.print("Please enter your choice (1-4): ");
-
-            try {
-                int choice = scanner.nextInt();
-
-                switch (choice) {
-                    case 1:
-                        // Display current balance.
-                        System.out.printf("Your current balance is: $%.2f%n", userAccount.getBalance());
-                        break;
-                    case 2:
-                        // Handle deposit.
-                        System.out.print("Enter the amount to deposit: $");
-                        double depositAmount = scanner.nextDouble();
-                        userAccount.deposit(depositAmount);
-                        break;
-                    case 3:
-                        // Handle withdrawal.
-                        System.out.print("Enter the amount to withdraw: $");
-                        double withdrawAmount = scanner.nextDouble();
-                        userAccount.withdraw(withdrawAmount);
-                        break;
-                    case 4:
-                        // Exit the application.
-                        exit = true;
-                        System.out.println("Thank you for using our bank. Goodbye!");
-                        break;
-                    default:
-                        System.out.println("Invalid choice. Please select a number between 1 and 4.");
-                }
-            } catch (InputMismatchException e) {
-                // Handle non-numeric input.
-                System.out.println("Invalid input. Please enter a number.");
-                scanner.next(); // Clear the invalid input from the scanner.
-            }
-            System.out.println(); // Add a newline for better readability.
-        }
-
-        scanner.close(); // Close the scanner to prevent resource leaks.
-    }
-
-    /**
-     * Prints the main menu options to the console.
-     */
-    public static void printMenu() {
-        System.out.println("--- Main Menu ---");
-        System.out.println("1. Check Balance");
-        System.out.println("2. Deposit Money");
-        System.out.println("3. Withdraw Money");
-        System.out.println("4. Exit");
-        System.out.println("-----------------");
-    }
-}
+package com.bankingapp;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Scanner;
+
+public class ATM {
+    // The most accounts the ledger holds; the headless modes open this many.
+    private static final int ACCOUNTS = Integer.getInteger("bank.accounts", 1000);
+    // Worker or request threads for the headless modes.
+    private static final int THREADS = Integer.getInteger("bank.threads", 0);
+
+    /**
+     * The main method that runs the banking application.
+     * It opens the account from its journal, or creates it on first use, and starts the ATM interface.
+     * The journal lives in the directory named by the {@code bank.data} system property, {@code bank-data} by default.
+     * <p>
+     * With arguments it runs headless instead: {@code batch <file>...} runs transaction files (see {@link BatchRunner}),
+     * and {@code serve [port]} serves the accounts over HTTP (see {@link AtmServer}). Both report throughput and
+     * latency when they finish.
+     * @param args Nothing for the console; otherwise the mode and its arguments.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("batch")) {
+            runBatch(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("serve")) {
+            serve(args);
+            return;
+        }
+
+        Path data = Paths.get(System.getProperty("bank.data", "bank-data"));
+        Ledger ledger;
+        try {
+            // Every change waits until it is on disk, so a confirmed deposit survives a crash.
+            ledger = Ledger.open(data, ACCOUNTS, true);
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("Could not open the journal in " + data + " (" + e.getMessage() + "). Changes will not be saved.");
+            ledger = new Ledger(ACCOUNTS);
+        }
+        // On first use, create the bank account with an initial balance of $500.
+        if (ledger.size() == 0) { ledger.openAccount(Money.fromDouble(500.00)); }
+        BankAccount userAccount = new BankAccount(ledger, 0);
+        Scanner scanner = new Scanner(System.in);
+        boolean exit = false;
+
+        System.out.println("Welcome to the Simple Banking App!");
+
+        // Main application loop.
+        while (!exit) {
+            printMenu();
+            System.out.print("Please enter your choice (1-5): ");
+
+            try {
+                int choice = scanner.nextInt();
+
+                switch (choice) {
+                    case 1:
+                        // Display current balance.
+                        System.out.printf("Your current balance is: $%.2f%n", userAccount.getBalance());
+                        break;
+                    case 2:
+                        // Handle deposit.
+                        System.out.print("Enter the amount to deposit: $");
+                        double depositAmount = scanner.nextDouble();
+                        userAccount.deposit(depositAmount);
+                        break;
+                    case 3:
+                        // Handle withdrawal.
+                        System.out.print("Enter the amount to withdraw: $");
+                        double withdrawAmount = scanner.nextDouble();
+                        userAccount.withdraw(withdrawAmount);
+                        break;
+                    case 4:
+                        // Print a statement for a range of dates.
+                        System.out.print("Enter the start date (yyyy-mm-dd): ");
+                        String from = scanner.next();
+                        System.out.print("Enter the end date (yyyy-mm-dd): ");
+                        String to = scanner.next();
+                        try {
+                            userAccount.printStatement(LocalDate.parse(from), LocalDate.parse(to));
+                        } catch (DateTimeParseException e) {
+                            System.out.println("Invalid date. Please use the format yyyy-mm-dd.");
+                        }
+                        break;
+                    case 5:
+                        // Exit the application.
+                        exit = true;
+                        System.out.println("Thank you for using our bank. Goodbye!");
+                        break;
+                    default:
+                        System.out.println("Invalid choice. Please select a number between 1 and 5.");
+                }
+            } catch (InputMismatchException e) {
+                // Handle non-numeric input.
+                System.out.println("Invalid input. Please enter a number.");
+                scanner.next(); // Clear the invalid input from the scanner.
+            }
+            System.out.println(); // Add a newline for better readability.
+        }
+
+        scanner.close(); // Close the scanner to prevent resource leaks.
+        try {
+            ledger.close(); // Write out anything still in memory.
+        } catch (IOException e) {
+            System.out.println("Could not save the journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs transaction files through the accounts and prints how each line went.
+     * Changes reach the journal in the background, and all of them are on disk once the run ends.
+     * @param args "batch" followed by the files.
+     */
+    private static void runBatch(String[] args) throws IOException, InterruptedException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) { files.add(Paths.get(args[i])); }
+        if (files.isEmpty()) {
+            System.out.println("Usage: ATM batch <file>...");
+            return;
+        }
+        try (Ledger ledger = openHeadless(false)) {
+            AtmService service = new AtmService(ledger);
+            int workers = THREADS > 0 ? THREADS : Runtime.getRuntime().availableProcessors();
+            long start = System.nanoTime();
+            long[] counts = new BatchRunner(service, workers).run(files);
+            long elapsed = System.nanoTime() - start;
+
+            Ledger.Result[] results = Ledger.Result.values();
+            for (int i = 0; i < results.length; i++) {
+                if (counts[i] > 0) { System.out.printf("%-20s %,d%n", results[i], counts[i]); }
+            }
+            if (counts[results.length] > 0) { System.out.printf("%-20s %,d%n", "MALFORMED", counts[results.length]); }
+            System.out.println(service.getLatency().summary(elapsed));
+        }
+    }
+
+    /**
+     * Serves the accounts over HTTP until the process is stopped, then prints throughput and latency.
+     * Every change waits until it is on disk, sharing disk writes with the other requests in flight.
+     * @param args "serve", then optionally the port (default 8080).
+     */
+    private static void serve(String[] args) throws IOException {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        Ledger ledger = openHeadless(true);
+        AtmServer server = new AtmServer(new AtmService(ledger), port, THREADS > 0 ? THREADS : 64);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            System.out.println(server.report());
+            try {
+                ledger.close();
+            } catch (IOException e) {
+                System.out.println("Could not save the journal: " + e.getMessage());
+            }
+        }));
+        server.start();
+        System.out.printf("Serving %d accounts on http://127.0.0.1:%d/accounts/%n", ledger.size(), server.getPort());
+    }
+
+    // Opens the journaled ledger and, on first use, its accounts, each with the console's $500 initial balance.
+    private static Ledger openHeadless(boolean waitForDisk) throws IOException {
+        Ledger ledger = Ledger.open(Paths.get(System.getProperty("bank.data", "bank-data")), ACCOUNTS, waitForDisk);
+        while (ledger.size() < ACCOUNTS) { ledger.openAccount(Money.fromDouble(500.00)); }
+        return ledger;
+    }
+
+    /**
+     * Prints the main menu options to the console.
+     */
+    public static void printMenu() {
+        System.out.println("--- Main Menu ---");
+        System.out.println("1. Check Balance");
+        System.out.println("2. Deposit Money");
+        System.out.println("3. Withdraw Money");
+        System.out.println("4. Statement");
+        System.out.println("5. Exit");
+        System.out.println("-----------------");
+    }
+}
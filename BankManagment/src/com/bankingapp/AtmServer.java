@@ -0,0 +1,151 @@
+package com.bankingapp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves an {@link AtmService} over HTTP on the loopback interface, so that many ATM clients can use it at once.
+ * <pre>
+ * GET  /accounts/{n}                             the balance
+ * POST /accounts/{n}/deposit?amount=12.34
+ * POST /accounts/{n}/withdraw?amount=12.34
+ * POST /accounts/{n}/transfer?to={m}&amp;amount=12.34
+ * GET  /stats                                    throughput and latency so far
+ * </pre>
+ * Answers are small JSON objects such as {@code {"account":3,"result":"OK","balance":"510.10"}}. A refused
+ * operation answers 400 for a bad amount, 404 for an unknown account and 409 for insufficient funds.
+ * Requests run on a fixed pool of threads, and nothing is printed while serving.
+ */
+public final class AtmServer {
+    private final AtmService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LatencyHistogram requests = new LatencyHistogram();
+    private final long started = System.nanoTime();
+
+    /**
+     * Creates a server; {@link #start} starts it.
+     * @param service The service to run the operations on.
+     * @param port The port to listen on, or 0 for any free port.
+     * @param threads The number of request threads. Waiting for the journal holds a thread, so more threads than
+     *                cores let more changes share each disk write.
+     * @throws IOException If the port cannot be bound.
+     */
+    public AtmServer(AtmService service, int port, int threads) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/accounts/", this::account);
+        server.createContext("/stats", this::stats);
+    }
+
+    /** Starts serving. */
+    public void start() { server.start(); }
+
+    /** @return The port the server listens on. */
+    public int getPort() { return server.getAddress().getPort(); }
+
+    /** Stops serving, letting requests in progress finish. */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @return Throughput and latency of the requests and of the operations behind them. */
+    public String report() {
+        return "requests: " + requests.summary(System.nanoTime() - started) + System.lineSeparator()
+                + "operations: " + service.report();
+    }
+
+    private void account(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            // /accounts/{n} or /accounts/{n}/{operation}
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            int account = path.length > 2 ? parseAccount(path[2]) : -1;
+            AtmService.Operation operation = path.length == 3 ? AtmService.Operation.BALANCE
+                    : path.length == 4 ? AtmService.Operation.parse(path[3]) : null;
+            boolean get = exchange.getRequestMethod().equals("GET");
+            if (operation == null || operation == AtmService.Operation.BALANCE != get) {
+                send(exchange, 404, "{\"error\":\"Not found\"}");
+                return;
+            }
+
+            long cents = 0;
+            int target = -1;
+            if (operation != AtmService.Operation.BALANCE) {
+                String amount = parameter(exchange, "amount");
+                try {
+                    cents = amount == null ? 0 : Money.parse(amount);
+                } catch (NumberFormatException e) {
+                    cents = 0; // Refused below as an invalid amount
+                }
+                if (operation == AtmService.Operation.TRANSFER) {
+                    String to = parameter(exchange, "to");
+                    target = to == null ? -1 : parseAccount(to);
+                }
+            }
+            Ledger.Result result = service.execute(operation, account, cents, target);
+            int status;
+            switch (result) {
+                case OK: status = 200; break;
+                case UNKNOWN_ACCOUNT: status = 404; break;
+                case INSUFFICIENT_FUNDS: status = 409; break;
+                default: status = 400;
+            }
+            String balance = result == Ledger.Result.UNKNOWN_ACCOUNT ? "" : ",\"balance\":\"" + Money.format(service.balance(account)).replace("$", "") + "\"";
+            send(exchange, status, "{\"account\":" + account + ",\"result\":\"" + result + "\"" + balance + "}");
+        } finally {
+            requests.record(System.nanoTime() - start);
+        }
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        long now = System.nanoTime();
+        LatencyHistogram operations = service.getLatency();
+        send(exchange, 200, String.format("{\"requests\":%d,\"requestsPerSecond\":%.0f,\"p50Micros\":%.1f,\"p99Micros\":%.1f,"
+                        + "\"p999Micros\":%.1f,\"operations\":%d,\"operationP99Micros\":%.1f}",
+                requests.count(), requests.count() / ((now - started) / 1e9), requests.percentile(50) / 1e3,
+                requests.percentile(99) / 1e3, requests.percentile(99.9) / 1e3, operations.count(), operations.percentile(99) / 1e3));
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) { out.write(body); }
+    }
+
+    private static String parameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) { return null; }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) { return pair.substring(equals + 1); }
+        }
+        return null;
+    }
+
+    private static int parseAccount(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.bankingapp;
+
+/**
+ * The ATM's operations without the console: each call returns a result instead of printing one, so that the
+ * batch and server modes can run them from many threads and report on them afterwards.
+ * Every operation's latency goes into a {@link LatencyHistogram}.
+ */
+public final class AtmService {
+    /** Operations an ATM client can ask for. */
+    public enum Operation {
+        BALANCE, DEPOSIT, WITHDRAW, TRANSFER;
+
+        /**
+         * Parses an operation name, ignoring case.
+         * @param name The name, such as "deposit".
+         * @return The operation, or null if there is none by that name.
+         */
+        public static Operation parse(String name) {
+            for (Operation operation : values()) {
+                if (operation.name().equalsIgnoreCase(name)) { return operation; }
+            }
+            return null;
+        }
+    }
+
+    private final Ledger ledger;
+    private final BankAccount[] accounts;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final long started = System.nanoTime();
+
+    /**
+     * Creates the service for the accounts open in a ledger.
+     * @param ledger The ledger.
+     */
+    public AtmService(Ledger ledger) {
+        this.ledger = ledger;
+        this.accounts = new BankAccount[ledger.size()];
+        for (int i = 0; i < accounts.length; i++) { accounts[i] = new BankAccount(ledger, i); }
+    }
+
+    /** @return The ledger holding the accounts. */
+    public Ledger getLedger() { return ledger; }
+
+    /** @return The number of accounts served. */
+    public int size() { return accounts.length; }
+
+    /**
+     * Runs one operation.
+     * @param operation The operation.
+     * @param account The account number.
+     * @param cents The amount; ignored for a balance.
+     * @param target The account to transfer to; ignored otherwise.
+     * @return {@code OK}, or why nothing changed.
+     */
+    public Ledger.Result execute(Operation operation, int account, long cents, int target) {
+        long start = System.nanoTime();
+        Ledger.Result result;
+        if (account < 0 || account >= accounts.length) {
+            result = Ledger.Result.UNKNOWN_ACCOUNT;
+        } else {
+            switch (operation) {
+                case DEPOSIT:
+                    result = accounts[account].depositCents(cents);
+                    break;
+                case WITHDRAW:
+                    result = accounts[account].withdrawCents(cents);
+                    break;
+                case TRANSFER:
+                    result = target < 0 || target >= accounts.length
+                            ? Ledger.Result.UNKNOWN_ACCOUNT : accounts[account].transferCents(accounts[target], cents);
+                    break;
+                default:
+                    result = Ledger.Result.OK; // A balance is read by the caller, with balance()
+            }
+        }
+        latency.record(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Returns an account's balance.
+     * @param account The account number.
+     * @return The balance in cents.
+     */
+    public long balance(int account) {
+        return accounts[account].getBalanceCents();
+    }
+
+    /** @return The latencies of the operations run so far. */
+    public LatencyHistogram getLatency() { return latency; }
+
+    /** @return Throughput and latency since the service started. */
+    public String report() {
+        return latency.summary(System.nanoTime() - started);
+    }
+}
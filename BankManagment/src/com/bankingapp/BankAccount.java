@@ -1,60 +1,152 @@
-package com.bankingapp;
-
-public class BankAccount {
-    // Encapsulate the balance to protect it from direct external modification.
-    private double balance;
-
-    /**
-     * Constructor to create a new bank account with an initial balance.
-     * @param initialBalance The starting balance of the account.
-     */
-    public BankAccount(double initialBalance) {
-        // Validate that the initial balance is not negative.
-        if (initialBalance >= 0) {
-            this.balance = initialBalance;
-        } else {
-            this.balance = 0;
-            System.out.println("Initial balance cannot be negative. Account created with a balance of $0.00.");
-        }
-    }
-
-    /**
-     * Returns the current balance of the account.
-     * @return The current balance.
-     */
-    public double getBalance() {
-        return balance;
-    }
-
-    /**
-     * Deposits a specified amount into the account.
-     * The amount must be a positive value.
-     * @param amount The amount to deposit.
-     */
-    public void deposit(double amount) {
-        if (amount > 0) {
-            balance += amount;
-            System.out.printf("Successfully deposited: $%.2f%n", amount);
-            System.out.printf("Current balance: $%.2f%n", balance);
-        } else {
-            System.out.println("Invalid amount. Deposit amount must be positive.");
-        }
-    }
-
-    /**
-     * Withdraws a specified amount from the account.
-     * The amount must be positive and not exceed the current balance.
-     * @param amount The amount to withdraw.
-     */
-    public void withdraw(double amount) {
-        if (amount <= 0) {
-            System.out.println("Invalid amount. Withdrawal amount must be positive.");
-        } else if (amount > balance) {
-            System.out.printf("Withdrawal failed. Insufficient funds. Current balance is $%.2f%n", balance);
-        } else {
-            balance -= amount;
-            System.out.printf("Successfully withdrew: $%.2f%n", amount);
-            System.out.printf("Remaining balance: $%.2f%n", balance);
-        }
-    }
-}
\ No newline at end of file
+package com.bankingapp;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+public class BankAccount {
+    // The balance lives in a ledger, in whole cents, so that many accounts can change from many threads at once.
+    private final Ledger ledger;
+    private final int number;
+
+    /**
+     * Constructor to create a new bank account with an initial balance.
+     * The account gets a ledger of its own.
+     * @param initialBalance The starting balance of the account.
+     */
+    public BankAccount(double initialBalance) {
+        this.ledger = new Ledger(1);
+        // Validate that the initial balance is not negative.
+        if (initialBalance >= 0) {
+            this.number = ledger.openAccount(Money.fromDouble(initialBalance));
+        } else {
+            this.number = ledger.openAccount(0);
+            System.out.println("Initial balance cannot be negative. Account created with a balance of $0.00.");
+        }
+    }
+
+    /**
+     * Constructor for an account already open in a shared ledger.
+     * @param ledger The ledger holding the account.
+     * @param number The account's number in that ledger.
+     */
+    public BankAccount(Ledger ledger, int number) {
+        ledger.balance(number); // Fails fast if there is no such account
+        this.ledger = ledger;
+        this.number = number;
+    }
+
+    /**
+     * Returns the current balance of the account.
+     * @return The current balance.
+     */
+    public double getBalance() {
+        return Money.toDouble(ledger.balance(number));
+    }
+
+    /** @return The current balance in cents. */
+    public long getBalanceCents() {
+        return ledger.balance(number);
+    }
+
+    /** @return The account's number in its ledger. */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Deposits a specified amount into the account.
+     * The amount must be a positive value.
+     * @param amount The amount to deposit.
+     */
+    public void deposit(double amount) {
+        long cents = toCents(amount);
+        if (depositCents(cents) == Ledger.Result.OK) {
+            System.out.printf("Successfully deposited: %s%n", Money.format(cents));
+            System.out.printf("Current balance: %s%n", Money.format(ledger.balance(number)));
+        } else {
+            System.out.println("Invalid amount. Deposit amount must be positive.");
+        }
+    }
+
+    /**
+     * Withdraws a specified amount from the account.
+     * The amount must be positive and not exceed the current balance.
+     * @param amount The amount to withdraw.
+     */
+    public void withdraw(double amount) {
+        long cents = toCents(amount);
+        switch (withdrawCents(cents)) {
+            case OK:
+                System.out.printf("Successfully withdrew: %s%n", Money.format(cents));
+                System.out.printf("Remaining balance: %s%n", Money.format(ledger.balance(number)));
+                break;
+            case INSUFFICIENT_FUNDS:
+                System.out.printf("Withdrawal failed. Insufficient funds. Current balance is %s%n", Money.format(ledger.balance(number)));
+                break;
+            default:
+                System.out.println("Invalid amount. Withdrawal amount must be positive.");
+        }
+    }
+
+    /**
+     * Deposits an amount without printing anything, for callers that report results themselves.
+     * @param cents The amount in cents; must be positive.
+     * @return {@code OK}, or why nothing changed.
+     */
+    public Ledger.Result depositCents(long cents) {
+        return ledger.deposit(number, cents);
+    }
+
+    /**
+     * Withdraws an amount without printing anything, for callers that report results themselves.
+     * @param cents The amount in cents; must be positive and not exceed the balance.
+     * @return {@code OK}, or why nothing changed.
+     */
+    public Ledger.Result withdrawCents(long cents) {
+        return ledger.withdraw(number, cents);
+    }
+
+    /**
+     * Moves an amount to another account in the same ledger, without printing anything.
+     * @param to The account to pay into.
+     * @param cents The amount in cents; must be positive and not exceed the balance.
+     * @return {@code OK}, or why nothing changed.
+     */
+    public Ledger.Result transferCents(BankAccount to, long cents) {
+        if (to.ledger != ledger) { return Ledger.Result.UNKNOWN_ACCOUNT; }
+        return ledger.transfer(number, to.number, cents);
+    }
+
+    /**
+     * Prints the account's deposits, withdrawals and transfers between two dates, in the local time zone.
+     * Only accounts in a journaled ledger have statements.
+     * @param from The first day, inclusive.
+     * @param to The last day, inclusive.
+     */
+    public void printStatement(LocalDate from, LocalDate to) {
+        ZoneId zone = ZoneId.systemDefault();
+        List<Journal.Entry> entries;
+        try {
+            entries = ledger.statement(number, from.atStartOfDay(zone).toInstant(), to.plusDays(1).atStartOfDay(zone).toInstant().minusMillis(1));
+        } catch (IllegalStateException e) {
+            System.out.println("Statements are not available for this account.");
+            return;
+        }
+        if (entries.isEmpty()) {
+            System.out.printf("No transactions between %s and %s.%n", from, to);
+            return;
+        }
+        System.out.printf("Statement from %s to %s:%n", from, to);
+        for (Journal.Entry entry : entries) { System.out.println(entry); }
+    }
+
+    // Positive amounts in cents; anything else, including amounts too large to hold, as 0, which the ledger refuses.
+    private static long toCents(double amount) {
+        try {
+            return amount > 0 ? Money.fromDouble(amount) : 0;
+        } catch (ArithmeticException | NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.bankingapp;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks that {@link BatchRunner} runs each account's lines in file order, transfers into it included.
+ * <p>
+ * It writes a transaction file in which every line pays money into an empty account by transfer and the next line
+ * takes the same amount out again. Senders are funded and busy, so their workers fall behind; receivers sit on other
+ * workers. Run in order, every withdrawal finds the money there and every receiver ends empty. Any withdrawal that
+ * ran ahead of its transfer shows up as insufficient funds, and the check fails.
+ * <pre>
+ * java -cp out com.bankingapp.BatchOrderCheck [workers] [rounds]
+ * </pre>
+ */
+public class BatchOrderCheck {
+    private static final long OPENING_BALANCE = 100_000_000; // $1,000,000.00
+
+    /**
+     * Runs the check.
+     * @param args Number of workers (default 4) and of transfer-then-withdraw rounds (default 200,000).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        if (workers < 2) { throw new IllegalArgumentException("Needs at least two workers"); }
+
+        // Senders are the accounts on worker 0, receivers those on every other worker.
+        Ledger ledger = new Ledger(workers * 16);
+        for (int i = 0; i < workers * 16; i++) { ledger.openAccount(i % workers == 0 ? OPENING_BALANCE : 0); }
+        long total = ledger.totalBalance();
+
+        Path file = Files.createTempFile("batch-order", ".csv");
+        SplittableRandom random = new SplittableRandom(42);
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                out.write("account,operation,amount,to\n");
+                for (int i = 0; i < rounds; i++) {
+                    int sender = random.nextInt(16) * workers;
+                    int receiver = sender + 1 + random.nextInt(workers - 1);
+                    long cents = 1 + random.nextInt(10_000);
+                    String amount = cents / 100 + "." + (cents % 100 < 10 ? "0" : "") + cents % 100;
+                    for (int j = 0; j < 3; j++) { out.write(sender + ",balance,0\n"); } // Keeps the sender's worker busy
+                    out.write(sender + ",transfer," + amount + "," + receiver + "\n");
+                    out.write(receiver + ",withdraw," + amount + "\n");
+                }
+            }
+            AtmService service = new AtmService(ledger);
+            long[] counts = new BatchRunner(service, workers).run(List.of(file));
+
+            long outOfOrder = counts[Ledger.Result.INSUFFICIENT_FUNDS.ordinal()];
+            long expected = total - ledger.totalBalance(); // What the withdrawals took out
+            long left = 0;
+            for (int account = 0; account < ledger.size(); account++) {
+                if (account % workers != 0) { left += ledger.balance(account); }
+            }
+            System.out.printf("%d workers, %d rounds: %d withdrawals ran before their transfer, %s left in receivers, %s withdrawn%n",
+                    workers, rounds, outOfOrder, Money.format(left), Money.format(expected));
+            if (outOfOrder > 0 || left != 0 || counts[Ledger.Result.OK.ordinal()] != rounds * 5L) { System.exit(1); }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
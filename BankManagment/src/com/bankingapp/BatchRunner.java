@@ -0,0 +1,226 @@
+package com.bankingapp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs transaction files through an {@link AtmService} without the console.
+ * <p>
+ * Each line of a file is {@code account,operation,amount}, with a fourth column naming the account to pay into
+ * for a transfer; a first line that does not start with a digit is taken as a header. The operations are those
+ * of {@link AtmService.Operation}, and amounts are in dollars, such as {@code 12.34}.
+ * <p>
+ * The work is a pipeline: this thread reads and parses lines into batches, while worker threads run the batches.
+ * Lines are handed to workers by account, so each account's lines run in file order. A transfer goes with its
+ * sender; when the receiver is on another worker, that worker stops where the transfer comes in the file until the
+ * transfer has run, so the receiver's lines before it run first and those after it see the money. Each worker has a
+ * small queue, which holds back reading when workers fall behind.
+ * Nothing is printed per line; {@link #run} returns the counts and the service reports the latencies.
+ */
+public final class BatchRunner {
+    private static final int BATCH_SIZE = 1024;
+    private static final int QUEUED_BATCHES = 8;
+
+    // Parsed lines, held column by column so that a batch is a handful of arrays rather than an object per line.
+    private static final class Batch {
+        final AtmService.Operation[] operations = new AtmService.Operation[BATCH_SIZE];
+        final int[] accounts = new int[BATCH_SIZE];
+        final long[] cents = new long[BATCH_SIZE];
+        final int[] targets = new int[BATCH_SIZE];
+        int size;
+        Handoff transfer; // Set when the last line is a transfer to another worker's account, which must wait for it
+        Handoff hold;     // Set when such a transfer into this worker's accounts follows the batch in the file
+    }
+
+    // Where a transfer meets the receiver's worker: that worker has run everything before it, and the transfer has run.
+    private static final class Handoff {
+        final CountDownLatch receiverReady = new CountDownLatch(1);
+        final CountDownLatch transferred = new CountDownLatch(1);
+    }
+
+    private static final Batch END = new Batch();
+
+    private final AtmService service;
+    private final int workers;
+
+    /**
+     * Creates a runner.
+     * @param service The service to run the operations on.
+     * @param workers The number of worker threads.
+     */
+    public BatchRunner(AtmService service, int workers) {
+        this.service = service;
+        this.workers = workers;
+    }
+
+    /**
+     * Runs every line of the files, in order.
+     * @param files The transaction files.
+     * @return The number of lines with each result, followed by the number of malformed lines.
+     * @throws IOException If a file cannot be read.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    public long[] run(List<Path> files) throws IOException, InterruptedException {
+        Ledger.Result[] results = Ledger.Result.values();
+        long[][] counts = new long[workers][results.length];
+        RuntimeException[] failures = new RuntimeException[workers];
+        List<BlockingQueue<Batch>> queues = new ArrayList<>();
+        Thread[] threads = new Thread[workers];
+        for (int w = 0; w < workers; w++) {
+            BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+            int worker = w;
+            queues.add(queue);
+            threads[w] = new Thread(() -> work(queue, counts[worker], failures, worker), "batch-worker-" + w);
+            threads[w].start();
+        }
+
+        long malformed = 0;
+        Batch[] filling = new Batch[workers];
+        try {
+            for (Path file : files) {
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    boolean first = true;
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isEmpty() || (first && !Character.isDigit(line.charAt(0)))) {
+                            first = false;
+                            continue;
+                        }
+                        first = false;
+                        int account = parseInt(line, 0);
+                        int worker = Math.floorMod(account, workers);
+                        Batch batch = filling[worker] == null ? (filling[worker] = new Batch()) : filling[worker];
+                        if (!parse(line, batch)) {
+                            malformed++;
+                            continue;
+                        }
+                        int last = batch.size - 1;
+                        // A transfer to an unknown account changes nothing, so it need not wait for anyone.
+                        int receiver = batch.operations[last] == AtmService.Operation.TRANSFER && batch.targets[last] < service.size()
+                                ? Math.floorMod(batch.targets[last], workers) : worker;
+                        if (receiver != worker) {
+                            // Both halves go out at once, in file order, so neither worker waits on a batch still being filled.
+                            Handoff handoff = new Handoff();
+                            Batch held = filling[receiver] == null ? new Batch() : filling[receiver];
+                            held.hold = handoff;
+                            queues.get(receiver).put(held);
+                            filling[receiver] = null;
+                            batch.transfer = handoff;
+                            queues.get(worker).put(batch);
+                            filling[worker] = null;
+                        } else if (batch.size == BATCH_SIZE) {
+                            queues.get(worker).put(batch);
+                            filling[worker] = null;
+                        }
+                    }
+                }
+            }
+        } finally {
+            for (int w = 0; w < workers; w++) {
+                if (filling[w] != null && filling[w].size > 0) { queues.get(w).put(filling[w]); }
+                queues.get(w).put(END);
+            }
+            for (Thread thread : threads) { thread.join(); }
+        }
+        for (RuntimeException failure : failures) {
+            if (failure != null) { throw failure; }
+        }
+
+        long[] totals = new long[results.length + 1];
+        for (long[] count : counts) {
+            for (int i = 0; i < results.length; i++) { totals[i] += count[i]; }
+        }
+        totals[results.length] = malformed;
+        return totals;
+    }
+
+    private void work(BlockingQueue<Batch> queue, long[] counts, RuntimeException[] failures, int worker) {
+        try {
+            for (Batch batch = queue.take(); batch != END; batch = queue.take()) {
+                // After a failure, such as the journal's disk filling up, keep taking batches so that reading can finish,
+                // and keep meeting the other workers at hand-offs so that they can finish too.
+                int before = batch.transfer == null ? batch.size : batch.size - 1;
+                execute(batch, 0, before, counts, failures, worker);
+                if (batch.transfer != null) {
+                    batch.transfer.receiverReady.await();
+                    try {
+                        execute(batch, before, batch.size, counts, failures, worker);
+                    } finally {
+                        batch.transfer.transferred.countDown();
+                    }
+                }
+                if (batch.hold != null) {
+                    batch.hold.receiverReady.countDown();
+                    batch.hold.transferred.await();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void execute(Batch batch, int from, int to, long[] counts, RuntimeException[] failures, int worker) {
+        if (failures[worker] != null) { return; }
+        try {
+            for (int i = from; i < to; i++) {
+                counts[service.execute(batch.operations[i], batch.accounts[i], batch.cents[i], batch.targets[i]).ordinal()]++;
+            }
+        } catch (RuntimeException e) {
+            failures[worker] = e;
+        }
+    }
+
+    // Adds a line to the batch, or returns false if it is malformed.
+    private static boolean parse(String line, Batch batch) {
+        int first = line.indexOf(',');
+        int second = first < 0 ? -1 : line.indexOf(',', first + 1);
+        if (second < 0) { return false; }
+        int third = line.indexOf(',', second + 1);
+        AtmService.Operation operation = AtmService.Operation.parse(line.substring(first + 1, second).trim());
+        if (operation == null) { return false; }
+        int account = parseInt(line, 0);
+        long cents = 0;
+        int target = -1;
+        try {
+            String amount = line.substring(second + 1, third < 0 ? line.length() : third).trim();
+            if (operation != AtmService.Operation.BALANCE) { cents = Money.parse(amount); }
+            if (operation == AtmService.Operation.TRANSFER) {
+                if (third < 0) { return false; }
+                target = parseInt(line, third + 1);
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (account < 0 || (operation == AtmService.Operation.TRANSFER && target < 0)) { return false; }
+
+        int i = batch.size++;
+        batch.operations[i] = operation;
+        batch.accounts[i] = account;
+        batch.cents[i] = cents;
+        batch.targets[i] = target;
+        return true;
+    }
+
+    // The non-negative number starting at a position and running to a comma or the end, or -1.
+    private static int parseInt(String line, int from) {
+        long value = 0;
+        int i = from;
+        while (i < line.length() && line.charAt(i) == ' ') { i++; }
+        int start = i;
+        for (; i < line.length() && Character.isDigit(line.charAt(i)); i++) {
+            value = value * 10 + (line.charAt(i) - '0');
+            if (value > Integer.MAX_VALUE) { return -1; }
+        }
+        if (i == start) { return -1; }
+        while (i < line.length() && line.charAt(i) == ' ') { i++; }
+        return i < line.length() && line.charAt(i) != ',' ? -1 : (int) value;
+    }
+}
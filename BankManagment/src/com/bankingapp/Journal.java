@@ -0,0 +1,669 @@
+package com.bankingapp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntToLongFunction;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only record of every change to a {@link Ledger}, kept on disk so that balances survive a restart.
+ * <p>
+ * The journal is a directory of segment files, each memory-mapped and holding {@link #RECORDS_PER_SEGMENT}
+ * records of {@link #RECORD_SIZE} bytes. A record is numbered by its position, so record {@code n} is found
+ * without searching. Each one carries the balance it left behind and a checksum.
+ * <p>
+ * Appending only copies the record into memory. A background thread writes appended records to disk in batches
+ * (group commit): one {@code force} covers every record appended since the last, however many threads wrote them.
+ * With {@code waitForDisk}, {@link #commit} waits for the batch holding a record, so nothing acknowledged is lost
+ * even if the machine fails; without it, records reach the disk within {@link #FLUSH_INTERVAL_MILLIS}.
+ * <p>
+ * Each account has an index of the records that touch it, which answers {@link #statement} queries with a binary
+ * search instead of a scan. Once a segment is full and on disk, the background thread writes a checkpoint next to
+ * it: every balance as of the segment's end, and the segment's part of the index. The checkpoint is memory-mapped
+ * and the heap keeps the index only for records since the last one, so heap use does not grow with the history.
+ * <p>
+ * On opening, the journal takes balances from the last checkpoint and reads back only the records after it, up to
+ * the first one that is missing or torn, discarding everything after that.
+ */
+public final class Journal implements Closeable {
+    /** Size of a record in bytes. */
+    public static final int RECORD_SIZE = 64;
+    /** Records in one segment file; 256K records make a 16 MB file. */
+    public static final int RECORDS_PER_SEGMENT = 1 << 18;
+    /** Longest a record waits in memory before it is written to disk. */
+    public static final long FLUSH_INTERVAL_MILLIS = 10;
+
+    // Record layout. The checksum covers every byte before it.
+    private static final int SEQUENCE = 0, TIME = 8, AMOUNT = 16, BALANCE = 24, COUNTER_BALANCE = 32;
+    private static final int TYPE = 40, ACCOUNT = 44, COUNTERPARTY = 48, CHECKSUM = 52;
+    private static final long SEGMENT_BYTES = (long) RECORDS_PER_SEGMENT * RECORD_SIZE;
+    // Checkpoint layout: a header, every balance, where each account's records start in the list, then the list of
+    // the segment's records by account, as positions within the segment.
+    private static final int CHECKPOINT_MAGIC = 0x424A4358; // "BJCX"
+    private static final int CHECKPOINT_VERSION = 1;
+    private static final int CHECKPOINT_HEADER = 32; // Magic, version, last time, accounts, entries, padding
+    private static final DateTimeFormatter STATEMENT_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    /** Kinds of change. A transfer is one record, so it is either recovered whole or not at all. */
+    public enum Type { OPEN, DEPOSIT, WITHDRAWAL, TRANSFER }
+
+    /** One line of an account's statement. */
+    public static final class Entry {
+        private final long sequence;
+        private final Instant time;
+        private final Type type;
+        private final int counterparty;
+        private final long cents;
+        private final long balance;
+
+        Entry(long sequence, Instant time, Type type, int counterparty, long cents, long balance) {
+            this.sequence = sequence;
+            this.time = time;
+            this.type = type;
+            this.counterparty = counterparty;
+            this.cents = cents;
+            this.balance = balance;
+        }
+
+        /** @return The record's number in the journal. */
+        public long getSequence() { return sequence; }
+
+        /** @return When the change was made. */
+        public Instant getTime() { return time; }
+
+        /** @return The kind of change. */
+        public Type getType() { return type; }
+
+        /** @return The other account of a transfer, or -1. */
+        public int getCounterparty() { return counterparty; }
+
+        /** @return The change to this account's balance in cents: negative for money going out. */
+        public long getCents() { return cents; }
+
+        /** @return This account's balance in cents after the change. */
+        public long getBalance() { return balance; }
+
+        @Override
+        public String toString() {
+            String what = type == Type.TRANSFER ? (cents < 0 ? "TRANSFER TO " : "TRANSFER FROM ") + counterparty : type.name();
+            return String.format("%s  %-20s %12s %12s", STATEMENT_TIME.format(time), what, Money.format(cents), Money.format(balance));
+        }
+    }
+
+    private final Path directory;
+    private final boolean waitForDisk;
+    private final CRC32C checksum = new CRC32C();
+    private final byte[] record = new byte[RECORD_SIZE];
+    private final ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+
+    // Appending: segments, the index and the counters below change only under appendLock.
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile long appended; // Records below this are in memory
+    private long lastTime;
+    private int accounts;
+    private long[] balances = new long[16];
+    private Checkpoint[] checkpoints = new Checkpoint[0]; // One per segment, for the segments before the index below
+    private long[][] index = new long[16][];              // Records since the last checkpoint, by account
+    private int[] indexSize = new int[16];
+
+    // Checkpointing, done by the flushing thread alone: the balances as of the last checkpoint's end.
+    private long[] checkpointBalances = new long[0];
+    private boolean checkpointing = true;
+
+    // Flushing: durable advances only under flushLock.
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushRequested = flushLock.newCondition();
+    private final Condition flushed = flushLock.newCondition();
+    private volatile long durable; // Records below this are on disk
+    private volatile IOException failure;
+    private volatile boolean closing;
+    private final Thread flusher;
+
+    private Journal(Path directory, boolean waitForDisk) {
+        this.directory = directory;
+        this.waitForDisk = waitForDisk;
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Opens the journal in a directory, creating it if needed, and recovers the records already there.
+     * @param directory The directory holding the segment files.
+     * @param waitForDisk Whether {@link #commit} waits until a record is on disk.
+     * @return The open journal.
+     * @throws IOException If the files cannot be read or created.
+     */
+    public static Journal open(Path directory, boolean waitForDisk) throws IOException {
+        Files.createDirectories(directory);
+        Journal journal = new Journal(directory, waitForDisk);
+        journal.recover();
+        journal.flusher.start();
+        return journal;
+    }
+
+    /** @return The number of accounts opened in the journal. */
+    public int accounts() {
+        appendLock.lock();
+        try {
+            return accounts;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /** @return The number of records in the journal. */
+    public long size() { return appended; }
+
+    /**
+     * Returns an account's balance as of its latest record.
+     * @param account The account number.
+     * @return The balance in cents.
+     */
+    public long balance(int account) {
+        appendLock.lock();
+        try {
+            checkAccount(account);
+            return balances[account];
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Appends a record; the caller must hold the ledger's locks on the accounts involved, so that each account's
+     * records are in the order its balance changed.
+     * @param type The kind of change.
+     * @param account The account opened, paid into, drawn from or transferred from.
+     * @param counterparty The account transferred to, or -1.
+     * @param cents The amount.
+     * @param balance The account's balance after the change.
+     * @param counterBalance The counterparty's balance after the change, or 0.
+     * @return The record's number, to pass to {@link #commit}.
+     * @throws UncheckedIOException If a new segment file cannot be created, or an earlier write failed.
+     */
+    long append(Type type, int account, int counterparty, long cents, long balance, long counterBalance) {
+        appendLock.lock();
+        try {
+            if (failure != null) { throw new UncheckedIOException("Journal could not be written", failure); }
+            if (closing) { throw new IllegalStateException("Journal is closed"); }
+            if (type == Type.OPEN && account != accounts) { throw new IllegalArgumentException("Accounts open in order, next is " + accounts); }
+            long sequence = appended;
+            int segment = (int) (sequence / RECORDS_PER_SEGMENT);
+            if (segment == segments.length) { addSegment(segment); }
+
+            lastTime = Math.max(lastTime, System.currentTimeMillis()); // Never backwards, so statements can binary search
+            recordBuffer.putLong(SEQUENCE, sequence).putLong(TIME, lastTime).putLong(AMOUNT, cents)
+                    .putLong(BALANCE, balance).putLong(COUNTER_BALANCE, counterBalance)
+                    .putInt(TYPE, type.ordinal() + 1).putInt(ACCOUNT, account).putInt(COUNTERPARTY, counterparty);
+            checksum.reset();
+            checksum.update(record, 0, CHECKSUM);
+            recordBuffer.putInt(CHECKSUM, (int) checksum.getValue());
+            segments[segment].put(offset(sequence), record);
+
+            if (type == Type.OPEN) { accounts++; }
+            addToIndex(account, sequence, balance);
+            if (type == Type.TRANSFER) { addToIndex(counterparty, sequence, counterBalance); }
+            appended = sequence + 1;
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal segment could not be created", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Makes a record durable. With {@code waitForDisk}, blocks until the record is on disk, sharing the write with
+     * every other record in its batch; otherwise returns at once.
+     * @param sequence The record's number, from {@link #append}.
+     * @throws UncheckedIOException If writing to disk failed.
+     */
+    public void commit(long sequence) {
+        if (!waitForDisk || sequence < durable) { return; }
+        flushLock.lock();
+        try {
+            while (sequence >= durable && failure == null) {
+                flushRequested.signal();
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        if (sequence >= durable) { throw new UncheckedIOException("Journal could not be written", failure); }
+    }
+
+    /**
+     * Lists the changes to an account within a period, oldest first.
+     * @param account The account number.
+     * @param from The start of the period, inclusive.
+     * @param to The end of the period, inclusive.
+     * @return The statement lines.
+     */
+    public List<Entry> statement(int account, Instant from, Instant to) {
+        Checkpoint[] sealed;
+        long[] sequences;
+        int count;
+        appendLock.lock();
+        try {
+            checkAccount(account);
+            // Entries below count never change; a later append or checkpoint may replace the array, but not these.
+            sealed = checkpoints;
+            sequences = index[account];
+            count = indexSize[account];
+        } finally {
+            appendLock.unlock();
+        }
+
+        // Times rise with sequence numbers, so skip the segments that end before the period, then read on from there.
+        long start = from.toEpochMilli(), end = to.toEpochMilli();
+        int low = 0, high = sealed.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timeOf(sealed[middle].base + RECORDS_PER_SEGMENT - 1) < start) { low = middle + 1; } else { high = middle; }
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (int segment = low; segment < sealed.length; segment++) {
+            Checkpoint checkpoint = sealed[segment];
+            if (!collect(account, checkpoint::sequence, checkpoint.first(account), checkpoint.first(account + 1), start, end, entries)) {
+                return entries;
+            }
+        }
+        collect(account, i -> sequences[i], 0, count, start, end, entries);
+        return entries;
+    }
+
+    // Adds the account's records from a run of its sequence numbers that fall in the period; false once past its end.
+    private boolean collect(int account, IntToLongFunction sequences, int from, int to, long start, long end, List<Entry> entries) {
+        int low = from, high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timeOf(sequences.applyAsLong(middle)) < start) { low = middle + 1; } else { high = middle; }
+        }
+        for (int i = low; i < to; i++) {
+            long sequence = sequences.applyAsLong(i);
+            ByteBuffer found = read(sequence);
+            if (found.getLong(TIME) > end) { return false; }
+            entries.add(toEntry(account, sequence, found));
+        }
+        return true;
+    }
+
+    /** Writes out every appended record and stops the background thread. */
+    @Override
+    public void close() throws IOException {
+        flushLock.lock();
+        try {
+            closing = true;
+            flushRequested.signal();
+        } finally {
+            flushLock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) { throw failure; }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            flushLock.lock();
+            try {
+                if (appended == durable) {
+                    if (closing) { return; }
+                    flushRequested.await(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                closing = true;
+            } finally {
+                flushLock.unlock();
+            }
+
+            checkpointFullSegments();
+
+            // Everything appended so far goes in this batch; records appended meanwhile wait for the next.
+            long target = appended;
+            if (target == durable) { continue; }
+            try {
+                force(durable, target);
+            } catch (IOException | UncheckedIOException e) {
+                failure = e instanceof IOException ? (IOException) e : ((UncheckedIOException) e).getCause();
+            }
+            flushLock.lock();
+            try {
+                if (failure == null) { durable = target; }
+                flushed.signalAll();
+                if (failure != null) { return; }
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    // Writes a checkpoint for each segment that is full and on disk, then lets the heap index forget its records.
+    private void checkpointFullSegments() {
+        while (checkpointing) {
+            int segment;
+            appendLock.lock();
+            try {
+                segment = checkpoints.length;
+            } finally {
+                appendLock.unlock();
+            }
+            if ((long) (segment + 1) * RECORDS_PER_SEGMENT > durable) { return; }
+            Checkpoint checkpoint;
+            try {
+                checkpoint = writeCheckpoint(segment);
+            } catch (IOException | UncheckedIOException e) {
+                // Nothing is lost: the heap index keeps every record, as before, and the next open tries again.
+                checkpointing = false;
+                return;
+            }
+            appendLock.lock();
+            try {
+                Checkpoint[] grown = Arrays.copyOf(checkpoints, segment + 1);
+                grown[segment] = checkpoint;
+                checkpoints = grown;
+                forgetBefore(checkpoint.base + RECORDS_PER_SEGMENT);
+            } finally {
+                appendLock.unlock();
+            }
+        }
+    }
+
+    // Builds a segment's checkpoint from its records, writes it beside the segment and maps it.
+    private Checkpoint writeCheckpoint(int segment) throws IOException {
+        MappedByteBuffer records = segments[segment];
+        long[] ending = checkpointBalances.clone();
+        int[] owners = new int[RECORDS_PER_SEGMENT * 2]; // A transfer is listed under both of its accounts
+        int[] positions = new int[owners.length];
+        int entries = 0;
+        long time = 0;
+        for (int i = 0; i < RECORDS_PER_SEGMENT; i++) {
+            int offset = i * RECORD_SIZE;
+            int type = records.getInt(offset + TYPE);
+            int account = records.getInt(offset + ACCOUNT);
+            ending = settle(ending, account, records.getLong(offset + BALANCE));
+            owners[entries] = account;
+            positions[entries++] = i;
+            if (type == Type.TRANSFER.ordinal() + 1) {
+                int counterparty = records.getInt(offset + COUNTERPARTY);
+                ending = settle(ending, counterparty, records.getLong(offset + COUNTER_BALANCE));
+                owners[entries] = counterparty;
+                positions[entries++] = i;
+            }
+            time = records.getLong(offset + TIME);
+        }
+
+        // Group the positions by account, keeping each account's in order.
+        int accountCount = ending.length;
+        int[] first = new int[accountCount + 1];
+        for (int i = 0; i < entries; i++) { first[owners[i] + 1]++; }
+        for (int a = 0; a < accountCount; a++) { first[a + 1] += first[a]; }
+        int[] next = Arrays.copyOf(first, accountCount);
+        int[] byAccount = new int[entries];
+        for (int i = 0; i < entries; i++) { byAccount[next[owners[i]]++] = positions[i]; }
+
+        ByteBuffer out = ByteBuffer.allocate(CHECKPOINT_HEADER + accountCount * Long.BYTES + (accountCount + 1 + entries) * Integer.BYTES);
+        out.putInt(CHECKPOINT_MAGIC).putInt(CHECKPOINT_VERSION).putLong(time).putInt(accountCount).putInt(entries);
+        out.position(CHECKPOINT_HEADER);
+        for (long balance : ending) { out.putLong(balance); }
+        for (int start : first) { out.putInt(start); }
+        for (int i = 0; i < entries; i++) { out.putInt(byAccount[i]); }
+        out.flip();
+
+        // Written in full under another name first, so a checkpoint that exists is always whole.
+        Path written = checkpointPath(segment);
+        Path partial = written.resolveSibling(written.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) { channel.write(out); }
+            channel.force(true);
+        }
+        Files.move(partial, written, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        checkpointBalances = ending;
+        return Checkpoint.open(written, segment);
+    }
+
+    // Sets an account's balance, growing the array when the account is new.
+    private static long[] settle(long[] balances, int account, long balance) {
+        long[] settled = account < balances.length ? balances : Arrays.copyOf(balances, account + 1);
+        settled[account] = balance;
+        return settled;
+    }
+
+    // Drops the heap index's entries for records before a sequence number, which a checkpoint now holds.
+    private void forgetBefore(long sequence) {
+        for (int account = 0; account < index.length; account++) {
+            long[] sequences = index[account];
+            if (sequences == null) { continue; }
+            int count = indexSize[account];
+            int kept = 0;
+            while (kept < count && sequences[kept] < sequence) { kept++; }
+            if (kept == 0) { continue; }
+            // A new array, as statements in progress may still be reading the old one.
+            index[account] = Arrays.copyOfRange(sequences, kept, kept + Math.max(4, count - kept));
+            indexSize[account] = count - kept;
+        }
+    }
+
+    private void force(long from, long to) throws IOException {
+        MappedByteBuffer[] mapped = segments;
+        for (int segment = (int) (from / RECORDS_PER_SEGMENT); segment <= (to - 1) / RECORDS_PER_SEGMENT; segment++) {
+            int start = segment == from / RECORDS_PER_SEGMENT ? offset(from) : 0;
+            int end = segment == (to - 1) / RECORDS_PER_SEGMENT ? offset(to - 1) + RECORD_SIZE : (int) SEGMENT_BYTES;
+            mapped[segment].force(start, end - start);
+        }
+    }
+
+    // Takes the segments the checkpoints cover as they stand, then reads the rest back, stopping at the first record
+    // that is missing, torn or out of sequence.
+    private void recover() throws IOException {
+        List<Checkpoint> loaded = new ArrayList<>();
+        for (int segment = 0; Files.exists(checkpointPath(segment)) && Files.exists(segmentPath(segment)); segment++) {
+            Checkpoint checkpoint = Checkpoint.open(checkpointPath(segment), segment);
+            if (checkpoint == null) { break; }
+            loaded.add(checkpoint);
+        }
+        // Any later checkpoints are written again once the segments before them have been read back.
+        for (int segment = loaded.size(); Files.exists(segmentPath(segment)) || Files.exists(checkpointPath(segment)); segment++) {
+            Files.deleteIfExists(checkpointPath(segment));
+        }
+
+        List<MappedByteBuffer> mapped = new ArrayList<>();
+        for (int segment = 0; segment < loaded.size(); segment++) { mapped.add(map(segment)); }
+        if (!loaded.isEmpty()) {
+            Checkpoint last = loaded.get(loaded.size() - 1);
+            accounts = last.accounts;
+            lastTime = last.lastTime;
+            checkpointBalances = last.balances();
+            balances = Arrays.copyOf(checkpointBalances, Math.max(balances.length, accounts));
+        }
+        checkpoints = loaded.toArray(new Checkpoint[0]);
+
+        long sequence = (long) loaded.size() * RECORDS_PER_SEGMENT;
+        boolean complete = true;
+        byte[] bytes = new byte[RECORD_SIZE];
+        ByteBuffer found = ByteBuffer.wrap(bytes);
+        for (int segment = loaded.size(); complete && Files.exists(segmentPath(segment)); segment++) {
+            MappedByteBuffer buffer = map(segment);
+            mapped.add(buffer);
+            for (int i = 0; i < RECORDS_PER_SEGMENT; i++) {
+                buffer.get(i * RECORD_SIZE, bytes);
+                checksum.reset();
+                checksum.update(bytes, 0, CHECKSUM);
+                int type = found.getInt(TYPE);
+                if (found.getLong(SEQUENCE) != sequence || found.getInt(CHECKSUM) != (int) checksum.getValue()
+                        || type < 1 || type > Type.values().length) {
+                    clearFrom(buffer, i);
+                    complete = false;
+                    break;
+                }
+                int account = found.getInt(ACCOUNT);
+                if (type == Type.OPEN.ordinal() + 1) { accounts = Math.max(accounts, account + 1); }
+                addToIndex(account, sequence, found.getLong(BALANCE));
+                if (type == Type.TRANSFER.ordinal() + 1) { addToIndex(found.getInt(COUNTERPARTY), sequence, found.getLong(COUNTER_BALANCE)); }
+                lastTime = Math.max(lastTime, found.getLong(TIME));
+                sequence++;
+            }
+        }
+        // Segments after a break hold nothing that was committed.
+        for (int segment = mapped.size(); Files.exists(segmentPath(segment)); segment++) { Files.delete(segmentPath(segment)); }
+        segments = mapped.toArray(new MappedByteBuffer[0]);
+        appended = sequence;
+        durable = sequence;
+    }
+
+    // Zeroes a segment from a record on, so that stale records past a break are never read back as new ones.
+    private static void clearFrom(MappedByteBuffer buffer, int record) {
+        byte[] zeroes = new byte[RECORD_SIZE];
+        boolean cleared = false;
+        for (int offset = record * RECORD_SIZE; offset < SEGMENT_BYTES; offset += RECORD_SIZE) {
+            // After a clean shutdown the rest is already zero, so this only reads.
+            for (int word = 0; word < RECORD_SIZE; word += Long.BYTES) {
+                if (buffer.getLong(offset + word) != 0) {
+                    buffer.put(offset, zeroes);
+                    cleared = true;
+                    break;
+                }
+            }
+        }
+        if (cleared) { buffer.force(); }
+    }
+
+    private void addSegment(int segment) throws IOException {
+        MappedByteBuffer[] grown = Arrays.copyOf(segments, segment + 1);
+        grown[segment] = map(segment);
+        segments = grown;
+    }
+
+    private MappedByteBuffer map(int segment) throws IOException {
+        // The mapping stays valid after the channel is closed.
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("journal-%06d.log", segment));
+    }
+
+    private Path checkpointPath(int segment) {
+        return directory.resolve(String.format("journal-%06d.idx", segment));
+    }
+
+    // Notes a record against an account, with the balance it left the account with.
+    private void addToIndex(int account, long sequence, long balance) {
+        if (account >= index.length) {
+            int length = Math.max(index.length * 2, account + 1);
+            index = Arrays.copyOf(index, length);
+            indexSize = Arrays.copyOf(indexSize, length);
+        }
+        if (account >= balances.length) { balances = Arrays.copyOf(balances, Math.max(balances.length * 2, account + 1)); }
+        balances[account] = balance;
+        long[] sequences = index[account];
+        if (sequences == null) {
+            sequences = index[account] = new long[4];
+        } else if (indexSize[account] == sequences.length) {
+            sequences = index[account] = Arrays.copyOf(sequences, sequences.length * 2);
+        }
+        sequences[indexSize[account]++] = sequence;
+    }
+
+    private void checkAccount(int account) {
+        if (account < 0 || account >= accounts) { throw new IllegalArgumentException("No account " + account); }
+    }
+
+    private static int offset(long sequence) {
+        return (int) (sequence % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+
+    private long timeOf(long sequence) {
+        return segments[(int) (sequence / RECORDS_PER_SEGMENT)].getLong(offset(sequence) + TIME);
+    }
+
+    private ByteBuffer read(long sequence) {
+        byte[] bytes = new byte[RECORD_SIZE];
+        segments[(int) (sequence / RECORDS_PER_SEGMENT)].get(offset(sequence), bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    // The record as seen from one of its accounts: a transfer is money out for its sender and in for its receiver.
+    private static Entry toEntry(int account, long sequence, ByteBuffer found) {
+        Type type = Type.values()[found.getInt(TYPE) - 1];
+        Instant time = Instant.ofEpochMilli(found.getLong(TIME));
+        long cents = found.getLong(AMOUNT);
+        if (found.getInt(ACCOUNT) != account) {
+            return new Entry(sequence, time, type, found.getInt(ACCOUNT), cents, found.getLong(COUNTER_BALANCE));
+        }
+        boolean out = type == Type.WITHDRAWAL || type == Type.TRANSFER;
+        return new Entry(sequence, time, type, found.getInt(COUNTERPARTY), out ? -cents : cents, found.getLong(BALANCE));
+    }
+
+    // A full segment's checkpoint, mapped read-only: balances as of its end, and its records grouped by account.
+    private static final class Checkpoint {
+        final long base; // The segment's first record
+        final long lastTime;
+        final int accounts;
+        private final MappedByteBuffer buffer;
+        private final int starts;
+        private final int positions;
+
+        private Checkpoint(int segment, MappedByteBuffer buffer) {
+            this.base = (long) segment * RECORDS_PER_SEGMENT;
+            this.buffer = buffer;
+            this.lastTime = buffer.getLong(8);
+            this.accounts = buffer.getInt(16);
+            this.starts = CHECKPOINT_HEADER + accounts * Long.BYTES;
+            this.positions = starts + (accounts + 1) * Integer.BYTES;
+        }
+
+        // Maps a checkpoint file, or returns null if it is not one this version wrote in full.
+        static Checkpoint open(Path path, int segment) throws IOException {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < CHECKPOINT_HEADER || size > Integer.MAX_VALUE) { return null; }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            if (buffer.getInt(0) != CHECKPOINT_MAGIC || buffer.getInt(4) != CHECKPOINT_VERSION) { return null; }
+            long accounts = buffer.getInt(16), entries = buffer.getInt(20);
+            long expected = CHECKPOINT_HEADER + accounts * Long.BYTES + (accounts + 1 + entries) * Integer.BYTES;
+            return accounts >= 0 && entries >= 0 && buffer.capacity() == expected ? new Checkpoint(segment, buffer) : null;
+        }
+
+        long[] balances() {
+            long[] balances = new long[accounts];
+            for (int account = 0; account < accounts; account++) { balances[account] = buffer.getLong(CHECKPOINT_HEADER + account * Long.BYTES); }
+            return balances;
+        }
+
+        // Where an account's records start in the list; accounts opened later have none.
+        int first(int account) {
+            return buffer.getInt(starts + Math.min(account, accounts) * Integer.BYTES);
+        }
+
+        long sequence(int i) {
+            return base + buffer.getInt(positions + i * Integer.BYTES);
+        }
+    }
+}
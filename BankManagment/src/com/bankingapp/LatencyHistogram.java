@@ -0,0 +1,85 @@
+package com.bankingapp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts operation latencies so that percentiles can be reported, safely from many threads at once.
+ * <p>
+ * Latencies go into buckets: exact below 16 ns, then 16 buckets for every power of two, so a reported
+ * percentile is never more than 1/16 (about 6%) above the true value. Recording is two atomic adds,
+ * with no locking or allocation.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 << SUB_BUCKET_BITS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one latency.
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) { nanos = 0; }
+        counts.incrementAndGet(bucket(nanos));
+        count.incrementAndGet();
+        long seen = max.get();
+        while (nanos > seen && !max.compareAndSet(seen, nanos)) { seen = max.get(); }
+    }
+
+    /** @return The number of latencies recorded. */
+    public long count() { return count.get(); }
+
+    /** @return The largest latency recorded, in nanoseconds. */
+    public long max() { return max.get(); }
+
+    /**
+     * Returns the latency that a share of the recorded ones do not exceed.
+     * @param percent The share, from 0 to 100, such as 99.9.
+     * @return The latency in nanoseconds, rounded up to its bucket; 0 if nothing was recorded.
+     */
+    public long percentile(double percent) {
+        long total = count();
+        if (total == 0) { return 0; }
+        long rank = Math.max(1, (long) Math.ceil(total * percent / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) { return Math.min(highestIn(i), max()); }
+        }
+        return max();
+    }
+
+    /**
+     * Describes throughput and latency over a period, such as "1,000 ops in 2.00 s: 500 ops/s, p50 1.2 us, ...".
+     * @param elapsedNanos How long the operations took, in nanoseconds.
+     * @return The description.
+     */
+    public String summary(long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        return String.format("%,d ops in %.2f s: %,.0f ops/s, latency p50 %s, p99 %s, p99.9 %s, max %s",
+                count(), seconds, count() / seconds, micros(percentile(50)), micros(percentile(99)),
+                micros(percentile(99.9)), micros(max()));
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f us", nanos / 1e3);
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) { return (int) nanos; }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + sub;
+    }
+
+    private static long highestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) { return bucket; }
+        int exponent = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) * width) + width - 1;
+    }
+}
@@ -0,0 +1,230 @@
+package com.bankingapp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Balances of many accounts, safe to change from many threads at once.
+ * <p>
+ * Accounts are numbered from 0 and balances are whole cents (see {@link Money}). Every change to an account
+ * happens under its lock stripe, one of {@link #STRIPES} locks shared by every {@code STRIPES}th account, so
+ * threads working on different accounts rarely meet. A transfer holds both accounts' stripes, taken in stripe
+ * order, which makes it atomic and keeps two opposite transfers from deadlocking. Balances can be read at any
+ * time without locking.
+ * <p>
+ * A ledger opened with {@link #open} writes every change to a {@link Journal} before making it, while still
+ * holding the accounts' locks, and recovers its balances from the journal when opened again.
+ */
+public class Ledger implements Closeable {
+    /** Number of lock stripes; a power of two so that an account's stripe is a mask of its number. */
+    public static final int STRIPES = 1024;
+
+    /** Outcome of a change to the ledger. Only {@code OK} changes anything. */
+    public enum Result { OK, INVALID_AMOUNT, INSUFFICIENT_FUNDS, UNKNOWN_ACCOUNT, SAME_ACCOUNT }
+
+    private final AtomicLongArray balances;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final ReentrantLock openLock = new ReentrantLock();
+    private volatile int count; // Accounts below this are open; raised only after the balance is set
+    private final Journal journal; // Null when balances are kept in memory only
+
+    /**
+     * Creates an empty ledger, kept in memory only.
+     * @param capacity The most accounts it can hold.
+     */
+    public Ledger(int capacity) {
+        this(capacity, null);
+    }
+
+    private Ledger(int capacity, Journal journal) {
+        this.balances = new AtomicLongArray(capacity);
+        this.journal = journal;
+        for (int i = 0; i < STRIPES; i++) { locks[i] = new ReentrantLock(); }
+    }
+
+    /**
+     * Opens a ledger kept in a journal directory, with the balances it held when last used.
+     * @param directory The journal directory; created if missing.
+     * @param capacity The most accounts it can hold.
+     * @param waitForDisk Whether each change waits until it is on disk before returning.
+     * @return The ledger.
+     * @throws IOException If the journal cannot be read or created.
+     */
+    public static Ledger open(Path directory, int capacity, boolean waitForDisk) throws IOException {
+        Journal journal = Journal.open(directory, waitForDisk);
+        int accounts = journal.accounts();
+        if (accounts > capacity) {
+            journal.close();
+            throw new IllegalStateException("Journal holds " + accounts + " accounts, more than " + capacity);
+        }
+        Ledger ledger = new Ledger(capacity, journal);
+        for (int i = 0; i < accounts; i++) { ledger.balances.set(i, journal.balance(i)); }
+        ledger.count = accounts;
+        return ledger;
+    }
+
+    /**
+     * Opens an account.
+     * @param initialCents The starting balance; must not be negative.
+     * @return The new account's number.
+     * @throws IllegalStateException If the ledger is full.
+     */
+    public int openAccount(long initialCents) {
+        if (initialCents < 0) { throw new IllegalArgumentException("Initial balance cannot be negative"); }
+        int account;
+        long record;
+        openLock.lock();
+        try {
+            account = count;
+            if (account == balances.length()) { throw new IllegalStateException("Ledger is full"); }
+            record = record(Journal.Type.OPEN, account, -1, initialCents, initialCents, 0);
+            balances.set(account, initialCents);
+            count = account + 1;
+        } finally {
+            openLock.unlock();
+        }
+        commit(record);
+        return account;
+    }
+
+    /** @return The number of open accounts. */
+    public int size() { return count; }
+
+    /**
+     * Returns an account's balance.
+     * @param account The account number.
+     * @return The balance in cents.
+     */
+    public long balance(int account) {
+        if (!exists(account)) { throw new IllegalArgumentException("No account " + account); }
+        return balances.get(account);
+    }
+
+    /**
+     * Sums every balance. Exact while no changes are running; during changes, transfers may be counted on either side.
+     * @return The total in cents.
+     */
+    public long totalBalance() {
+        long total = 0;
+        for (int i = 0, n = size(); i < n; i++) { total += balances.get(i); }
+        return total;
+    }
+
+    /**
+     * Adds money to an account.
+     * @param account The account number.
+     * @param cents The amount; must be positive.
+     * @return {@code OK}, or why nothing changed.
+     */
+    public Result deposit(int account, long cents) {
+        if (!exists(account)) { return Result.UNKNOWN_ACCOUNT; }
+        if (cents <= 0) { return Result.INVALID_AMOUNT; }
+        long record;
+        ReentrantLock lock = lockFor(account);
+        lock.lock();
+        try {
+            long balance = balances.get(account);
+            if (balance > Long.MAX_VALUE - cents) { return Result.INVALID_AMOUNT; }
+            record = record(Journal.Type.DEPOSIT, account, -1, cents, balance + cents, 0);
+            balances.set(account, balance + cents);
+        } finally {
+            lock.unlock();
+        }
+        return commit(record);
+    }
+
+    /**
+     * Takes money out of an account, if it holds enough.
+     * @param account The account number.
+     * @param cents The amount; must be positive.
+     * @return {@code OK}, or why nothing changed.
+     */
+    public Result withdraw(int account, long cents) {
+        if (!exists(account)) { return Result.UNKNOWN_ACCOUNT; }
+        if (cents <= 0) { return Result.INVALID_AMOUNT; }
+        long record;
+        ReentrantLock lock = lockFor(account);
+        lock.lock();
+        try {
+            long balance = balances.get(account);
+            if (cents > balance) { return Result.INSUFFICIENT_FUNDS; }
+            record = record(Journal.Type.WITHDRAWAL, account, -1, cents, balance - cents, 0);
+            balances.set(account, balance - cents);
+        } finally {
+            lock.unlock();
+        }
+        return commit(record);
+    }
+
+    /**
+     * Moves money between two accounts, both changing together or neither.
+     * @param from The account to take the money from; it must hold enough.
+     * @param to The account to pay it into.
+     * @param cents The amount; must be positive.
+     * @return {@code OK}, or why nothing changed.
+     */
+    public Result transfer(int from, int to, long cents) {
+        if (!exists(from) || !exists(to)) { return Result.UNKNOWN_ACCOUNT; }
+        if (from == to) { return Result.SAME_ACCOUNT; }
+        if (cents <= 0) { return Result.INVALID_AMOUNT; }
+        // Lower stripe first, so two transfers in opposite directions cannot each hold the lock the other needs.
+        int first = Math.min(from & (STRIPES - 1), to & (STRIPES - 1));
+        int second = Math.max(from & (STRIPES - 1), to & (STRIPES - 1));
+        long record;
+        locks[first].lock();
+        if (second != first) { locks[second].lock(); }
+        try {
+            long source = balances.get(from);
+            long target = balances.get(to);
+            if (cents > source) { return Result.INSUFFICIENT_FUNDS; }
+            if (target > Long.MAX_VALUE - cents) { return Result.INVALID_AMOUNT; }
+            record = record(Journal.Type.TRANSFER, from, to, cents, source - cents, target + cents);
+            balances.set(from, source - cents);
+            balances.set(to, target + cents);
+        } finally {
+            if (second != first) { locks[second].unlock(); }
+            locks[first].unlock();
+        }
+        return commit(record);
+    }
+
+    /**
+     * Lists the changes to an account within a period, oldest first.
+     * @param account The account number.
+     * @param from The start of the period, inclusive.
+     * @param to The end of the period, inclusive.
+     * @return The statement lines.
+     * @throws IllegalStateException If the ledger has no journal.
+     */
+    public List<Journal.Entry> statement(int account, Instant from, Instant to) {
+        if (journal == null) { throw new IllegalStateException("Ledger has no journal"); }
+        return journal.statement(account, from, to);
+    }
+
+    /** Writes out the journal, if there is one, and closes it. */
+    @Override
+    public void close() throws IOException {
+        if (journal != null) { journal.close(); }
+    }
+
+    // Journals a change before it is made, so that nothing is changed that could not be recovered. The caller holds
+    // the accounts' locks, which keeps each account's records in the order its balance changed.
+    private long record(Journal.Type type, int account, int counterparty, long cents, long balance, long counterBalance) {
+        return journal == null ? -1 : journal.append(type, account, counterparty, cents, balance, counterBalance);
+    }
+
+    // Waits, with the locks released, for the change to be durable; changes made meanwhile share the same disk write.
+    private Result commit(long record) {
+        if (journal != null) { journal.commit(record); }
+        return Result.OK;
+    }
+
+    private boolean exists(int account) { return account >= 0 && account < size(); }
+
+    private ReentrantLock lockFor(int account) { return locks[account & (STRIPES - 1)]; }
+}
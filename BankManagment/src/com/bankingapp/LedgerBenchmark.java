@@ -0,0 +1,132 @@
+package com.bankingapp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Throughput benchmark for {@link Ledger}, which also checks that no update is lost.
+ * <p>
+ * For each thread count, starting from 1 and doubling up to the number of cores, it opens the accounts afresh
+ * and has the threads run the operations between them: deposits, withdrawals and transfers between random
+ * accounts. Each thread counts the money its successful deposits and withdrawals moved in and out. Afterwards
+ * the ledger's total must equal the opening total plus deposits minus withdrawals, since transfers only move
+ * money around. It prints operations per second and the scaling against one thread.
+ * <p>
+ * Given a directory, each run keeps its ledger in a {@link Journal} there, waiting for every change to reach the
+ * disk when {@code sync} is also given. After the run it reopens the journal and checks that the recovered
+ * total matches.
+ * <pre>
+ * java -cp out com.bankingapp.LedgerBenchmark [accounts] [operations] [journal directory] [sync]
+ * </pre>
+ */
+public class LedgerBenchmark {
+    private static final long OPENING_BALANCE = 100_000; // $1000.00
+
+    /**
+     * Runs the benchmark.
+     * @param args Number of accounts (default 10,000), total operations per run (default 10,000,000), then
+     *             optionally a directory for journals and {@code sync}.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long operations = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000L;
+        Path journals = args.length > 2 ? Paths.get(args[2]) : null;
+        boolean sync = args.length > 3 && args[3].equals("sync");
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%d accounts, %d operations per run, %d cores, %s%n", accounts, operations, cores,
+                journals == null ? "in memory" : (sync ? "journal, waiting for disk" : "journal"));
+        double single = 0;
+        boolean consistent = true;
+        for (int threads = 1; threads <= cores; threads = threads == cores ? cores + 1 : Math.min(threads * 2, cores)) {
+            run(accounts, operations / 10, threads, journals, sync); // Warm up
+            Run result = run(accounts, operations, threads, journals, sync);
+            double perSecond = operations / (result.nanos / 1e9);
+            if (threads == 1) { single = perSecond; }
+            consistent &= result.consistent;
+            System.out.printf("threads=%-3d %,14.0f ops/s  scaling=%.2fx  total %s, expected %s%s%n", threads, perSecond,
+                    perSecond / single, Money.format(result.total), Money.format(result.expected), result.consistent ? "" : "  LOST UPDATES");
+        }
+        if (!consistent) { System.exit(1); }
+    }
+
+    private static final class Run {
+        long nanos;
+        long total;
+        long expected;
+        boolean consistent;
+    }
+
+    private static Run run(int accounts, long operations, int threads, Path journals, boolean sync) throws InterruptedException, IOException {
+        Path directory = null;
+        Ledger ledger;
+        if (journals == null) {
+            ledger = new Ledger(accounts);
+        } else {
+            directory = Files.createTempDirectory(Files.createDirectories(journals), "ledger");
+            ledger = Ledger.open(directory, accounts, sync);
+        }
+        for (int i = 0; i < accounts; i++) { ledger.openAccount(OPENING_BALANCE); }
+        long opening = ledger.totalBalance();
+
+        long[] netDeposits = new long[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            long share = operations / threads + (t < operations % threads ? 1 : 0);
+            Thread thread = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(worker);
+                long net = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < share; i++) {
+                    int account = random.nextInt(accounts);
+                    long cents = 1 + random.nextInt(10_000);
+                    int kind = random.nextInt(10);
+                    if (kind < 3) {
+                        if (ledger.deposit(account, cents) == Ledger.Result.OK) { net += cents; }
+                    } else if (kind < 6) {
+                        if (ledger.withdraw(account, cents) == Ledger.Result.OK) { net -= cents; }
+                    } else {
+                        ledger.transfer(account, random.nextInt(accounts), cents);
+                    }
+                }
+                netDeposits[worker] = net; // Read after join(), which makes the write visible
+            });
+            workers.add(thread);
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) { worker.join(); }
+
+        Run result = new Run();
+        result.nanos = System.nanoTime() - begin;
+        result.expected = opening;
+        for (long net : netDeposits) { result.expected += net; }
+        result.total = ledger.totalBalance();
+        result.consistent = result.total == result.expected;
+        ledger.close();
+
+        if (directory != null) {
+            try (Ledger recovered = Ledger.open(directory, accounts, false)) {
+                result.consistent &= recovered.totalBalance() == result.expected;
+            }
+            try (var files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) { Files.delete(file); }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+package com.bankingapp;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Helpers for amounts of money held as a whole number of cents in a {@code long}.
+ * Cents add and subtract exactly, where a {@code double} would drift: 0.10 + 0.20 is not 0.30 in binary.
+ */
+public final class Money {
+    private Money() { }
+
+    /**
+     * Parses an amount such as "12.34", "12.3" or "12".
+     * @param text The amount, with at most two decimal places.
+     * @return The amount in cents.
+     * @throws NumberFormatException If the text is not a number or has fractions of a cent.
+     */
+    public static long parse(String text) {
+        long cents = parsePlain(text);
+        if (cents >= 0) { return cents; }
+        try {
+            return new BigDecimal(text.trim()).setScale(2, RoundingMode.UNNECESSARY).movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Not a whole number of cents: " + text);
+        }
+    }
+
+    // The common case, digits with up to two decimals such as "12.34", without a BigDecimal; -1 for anything else.
+    private static long parsePlain(String text) {
+        int length = text.length();
+        if (length == 0 || length > 15) { return -1; }
+        long whole = 0;
+        int i = 0;
+        for (; i < length && text.charAt(i) != '.'; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) { return -1; }
+            whole = whole * 10 + digit;
+        }
+        if (i == 0) { return -1; }
+        int decimals = length - i - 1; // -1 when there is no point
+        if (decimals > 2 || decimals == 0) { return -1; }
+        long fraction = 0;
+        for (int j = i + 1; j < length; j++) {
+            int digit = text.charAt(j) - '0';
+            if (digit < 0 || digit > 9) { return -1; }
+            fraction = fraction * 10 + digit;
+        }
+        return whole * 100 + (decimals == 1 ? fraction * 10 : fraction);
+    }
+
+    /**
+     * Converts an amount typed as a double, rounding to the nearest cent.
+     * @param amount The amount in dollars.
+     * @return The amount in cents.
+     */
+    public static long fromDouble(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_EVEN).movePointRight(2).longValueExact();
+    }
+
+    /**
+     * Converts cents back to dollars, for display and for the double-based {@link BankAccount} methods.
+     * @param cents The amount in cents.
+     * @return The amount in dollars.
+     */
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Formats an amount the way the console shows it, such as "$1234.50" or "-$0.05".
+     * @param cents The amount in cents.
+     * @return The formatted amount.
+     */
+    public static String format(long cents) {
+        long whole = Math.abs(cents / 100);
+        long fraction = Math.abs(cents % 100);
+        return (cents < 0 ? "-$" : "$") + whole + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the quiz server and its clients, so the project needs no libraries.
+ * Objects parse to maps, arrays to lists, numbers to longs or doubles.
+ */
+public final class Json {
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /** Writes a string as a JSON string literal, quotes included. */
+    public static String quote(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) { out.append(String.format("\\u%04x", (int) c)); } else { out.append(c); }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    public static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.skipSpace();
+        if (json.position != text.length()) { throw json.error("Unexpected text after the value"); }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String text) {
+        Object value = parse(text);
+        if (!(value instanceof Map)) { throw new IllegalArgumentException("Not a JSON object: " + text); }
+        return (Map<String, Object>) value;
+    }
+
+    private Object value() {
+        skipSpace();
+        if (position == text.length()) { throw error("Missing value"); }
+        char c = text.charAt(position);
+        if (c == '{') { return object(); }
+        if (c == '[') { return array(); }
+        if (c == '"') { return string(); }
+        if (text.startsWith("true", position)) { position += 4; return Boolean.TRUE; }
+        if (text.startsWith("false", position)) { position += 5; return Boolean.FALSE; }
+        if (text.startsWith("null", position)) { position += 4; return null; }
+        return number();
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++; // {
+        skipSpace();
+        if (peek() == '}') { position++; return object; }
+        while (true) {
+            skipSpace();
+            String key = string();
+            skipSpace();
+            expect(':');
+            object.put(key, value());
+            skipSpace();
+            if (peek() == ',') { position++; continue; }
+            expect('}');
+            return object;
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> array = new ArrayList<>();
+        position++; // [
+        skipSpace();
+        if (peek() == ']') { position++; return array; }
+        while (true) {
+            array.add(value());
+            skipSpace();
+            if (peek() == ',') { position++; continue; }
+            expect(']');
+            return array;
+        }
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder out = new StringBuilder();
+        while (true) {
+            if (position == text.length()) { throw error("Unterminated string"); }
+            char c = text.charAt(position++);
+            if (c == '"') { return out.toString(); }
+            if (c != '\\') { out.append(c); continue; }
+            if (position == text.length()) { throw error("Unterminated string"); }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case 'n': out.append('\n'); break;
+                case 'r': out.append('\r'); break;
+                case 't': out.append('\t'); break;
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'u':
+                    if (position + 4 > text.length()) { throw error("Bad escape"); }
+                    out.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    position += 4;
+                    break;
+                default: out.append(escaped); // " \ /
+            }
+        }
+    }
+
+    private Number number() {
+        int start = position;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) { position++; }
+        String number = text.substring(start, position);
+        if (number.isEmpty()) { throw error("Unexpected character"); }
+        try {
+            return number.contains(".") || number.contains("e") || number.contains("E") ? (Number) Double.parseDouble(number) : (Number) Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error("Bad number " + number);
+        }
+    }
+
+    private void skipSpace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) { position++; }
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private void expect(char c) {
+        if (peek() != c) { throw error("Expected '" + c + "'"); }
+        position++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at " + position + " in JSON: " + text);
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * One multiple-choice question, with its four options and the index of the correct one.
+ */
+public class Question {
+    private final String topic;
+    private final String text;
+    private final String[] options;
+    private final int correctIndex;
+
+    public Question(String topic, String text, String[] options, int correctIndex) {
+        this.topic = topic;
+        this.text = text;
+        this.options = options;
+        this.correctIndex = correctIndex;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getOption(int index) {
+        return options[index];
+    }
+
+    // 0 to 3, parsed once when the bank is compiled rather than each time the quiz is graded
+    public int getCorrectIndex() {
+        return correctIndex;
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A compiled question bank, read lazily from a memory-mapped file.
+ *
+ * Opening reads only the header and the topic table. Each question is decoded from the file when it is asked
+ * for, so a bank of hundreds of thousands of questions costs no more to open, or to sample from, than a small one.
+ *
+ * File layout (big-endian), as written by {@link QuestionBankCompiler}:
+ * <pre>
+ * int magic, int version, long source size, long source modified time, int question count, int topic count
+ * per topic: short name length, name (UTF-8), int first index, int question count
+ * per question: long offset of its record
+ * per record: byte correct index, then the question and four options, each a short length and UTF-8 bytes
+ * </pre>
+ * Each topic's questions have consecutive indexes.
+ */
+public class QuestionBank {
+    public static final int MAGIC = 0x51424E4B; // "QBNK"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final String DEFAULT_TOPIC = "General";
+
+    private final MappedByteBuffer file;
+    private final int count;
+    private final int offsetsAt; // Where the per-question offsets start
+    private final Map<String, int[]> topics = new LinkedHashMap<>(); // name -> {first index, count}
+
+    private QuestionBank(MappedByteBuffer file) throws IOException {
+        this.file = file;
+        if (file.limit() < HEADER_SIZE || file.getInt(0) != MAGIC || file.getInt(4) != VERSION) {
+            throw new IOException("Not a question bank, or one from another version");
+        }
+        this.count = file.getInt(24);
+        int topicCount = file.getInt(28);
+        int position = HEADER_SIZE;
+        for (int t = 0; t < topicCount; t++) {
+            int length = Short.toUnsignedInt(file.getShort(position));
+            String name = decode(position + Short.BYTES, length);
+            position += Short.BYTES + length;
+            int first = file.getInt(position);
+            int size = file.getInt(position + Integer.BYTES);
+            position += 2 * Integer.BYTES;
+            if (size > 0) { topics.put(name, new int[] { first, size }); }
+        }
+        this.offsetsAt = position;
+    }
+
+    /**
+     * Opens a compiled bank.
+     */
+    public static QuestionBank open(Path bank) throws IOException {
+        try (FileChannel channel = FileChannel.open(bank, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) { throw new IOException(bank + " is larger than 2 GB"); }
+            // The mapping stays valid after the channel is closed.
+            return new QuestionBank(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Opens the compiled form of a text bank, compiling it first if it is missing or older than the text.
+     * With no text bank, an existing compiled bank is used as it is.
+     */
+    public static QuestionBank openOrCompile(Path text, Path bank) throws IOException {
+        if (Files.exists(text) && !isCurrent(text, bank)) { QuestionBankCompiler.compile(text, bank); }
+        return open(bank);
+    }
+
+    // Whether the compiled bank was built from the text as it is now.
+    private static boolean isCurrent(Path text, Path bank) throws IOException {
+        if (!Files.exists(bank) || Files.size(bank) < HEADER_SIZE) { return false; }
+        try (FileChannel channel = FileChannel.open(bank, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) { }
+            return header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                    && header.getLong(8) == Files.size(text) && header.getLong(16) == Files.getLastModifiedTime(text).toMillis();
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** The topics that have questions, in the order they first appear in the text. */
+    public List<String> getTopics() {
+        return new ArrayList<>(topics.keySet());
+    }
+
+    /** The number of questions in a topic, or 0 if there is no such topic. */
+    public int size(String topic) {
+        int[] range = topics.get(topic);
+        return range == null ? 0 : range[1];
+    }
+
+    /** Reads one question. */
+    public Question get(int index) {
+        if (index < 0 || index >= count) { throw new IndexOutOfBoundsException("Question " + index + " of " + count); }
+        int position = (int) file.getLong(offsetsAt + index * Long.BYTES);
+        int correct = file.get(position++);
+        String[] block = new String[5];
+        for (int i = 0; i < 5; i++) {
+            int length = Short.toUnsignedInt(file.getShort(position));
+            block[i] = decode(position + Short.BYTES, length);
+            position += Short.BYTES + length;
+        }
+        String[] options = { block[1], block[2], block[3], block[4] };
+        return new Question(topicOf(index), block[0], options, correct);
+    }
+
+    /** Reads the question at a position within a topic. */
+    public Question get(String topic, int index) {
+        int[] range = topics.get(topic);
+        if (range == null || index < 0 || index >= range[1]) { throw new IndexOutOfBoundsException("Question " + index + " of topic " + topic); }
+        return get(range[0] + index);
+    }
+
+    /** Reads only the index of a question's correct option. */
+    public int getCorrectIndex(int index) {
+        if (index < 0 || index >= count) { throw new IndexOutOfBoundsException("Question " + index + " of " + count); }
+        return file.get((int) file.getLong(offsetsAt + index * Long.BYTES));
+    }
+
+    /**
+     * Picks questions at random without repeats, reading only those picked.
+     * @param n How many to pick; fewer come back if the bank or topic is smaller.
+     * @param topic The topic to pick from, or null for the whole bank.
+     */
+    public List<Question> sample(int n, String topic, Random random) {
+        int[] indexes = sampleIndexes(n, topic, random);
+        List<Question> questions = new ArrayList<>(indexes.length);
+        for (int index : indexes) { questions.add(get(index)); }
+        return questions;
+    }
+
+    /** Like {@link #sample}, but gives the picked questions' indexes, in random order, without reading them. */
+    public int[] sampleIndexes(int n, String topic, Random random) {
+        int first = 0, size = count;
+        if (topic != null) {
+            int[] range = topics.get(topic);
+            if (range == null) { return new int[0]; }
+            first = range[0];
+            size = range[1];
+        }
+        n = Math.max(0, Math.min(n, size));
+
+        // Floyd's algorithm: n distinct indexes from size in n steps, without a list of all of them.
+        Set<Integer> picked = new HashSet<>();
+        for (int j = size - n; j < size; j++) {
+            int candidate = random.nextInt(j + 1);
+            picked.add(picked.contains(candidate) ? j : candidate);
+        }
+        int[] indexes = new int[n];
+        int i = 0;
+        for (int index : picked) { indexes[i++] = first + index; }
+        for (i = n - 1; i > 0; i--) { // Shuffle, as the set's order is not random
+            int j = random.nextInt(i + 1);
+            int swap = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = swap;
+        }
+        return indexes;
+    }
+
+    private String topicOf(int index) {
+        for (Map.Entry<String, int[]> topic : topics.entrySet()) {
+            int[] range = topic.getValue();
+            if (index >= range[0] && index < range[0] + range[1]) { return topic.getKey(); }
+        }
+        return DEFAULT_TOPIC;
+    }
+
+    private String decode(int position, int length) {
+        byte[] bytes = new byte[length];
+        file.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
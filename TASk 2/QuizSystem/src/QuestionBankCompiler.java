@@ -0,0 +1,164 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiles the text question format into the binary format read by {@link QuestionBank}.
+ *
+ * The text format is the one questions.txt has always used: a question line, four option lines, the index of
+ * the correct option (0 to 3) and a "---" separator. A line such as "[Science]" starts a topic; questions before
+ * any topic line are in {@link QuestionBank#DEFAULT_TOPIC}.
+ *
+ * The text is streamed: records are written out as they are read, and only their offsets and topics are kept,
+ * so banks of any size compile in little memory.
+ */
+public class QuestionBankCompiler {
+
+    public static void main(String[] args) throws IOException {
+        Path source = Paths.get(args.length > 0 ? args[0] : "questions.txt");
+        Path target = Paths.get(args.length > 1 ? args[1] : "questions.bank");
+        long start = System.nanoTime();
+        int count = compile(source, target);
+        System.out.printf("Compiled %d questions into %s in %d ms%n", count, target, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Compiles a text bank. The binary bank is replaced only once it is complete.
+     * @return The number of questions compiled.
+     */
+    public static int compile(Path source, Path target) throws IOException {
+        Path records = Files.createTempFile(target.toAbsolutePath().getParent(), "questions", ".records");
+        try {
+            Map<String, Integer> topics = new LinkedHashMap<>();
+            long[] offsets = new long[1024]; // Of each record, from the start of the records
+            int[] topicOf = new int[1024];
+            int count = 0;
+
+            try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8);
+                 CountingOutputStream counted = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(records), 1 << 16));
+                 DataOutputStream out = new DataOutputStream(counted)) {
+                int topic = topics.computeIfAbsent(QuestionBank.DEFAULT_TOPIC, name -> 0);
+                int lineNumber = 0;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.trim().isEmpty() || line.equals("---")) { continue; }
+                    if (line.startsWith("[") && line.endsWith("]")) {
+                        String name = line.substring(1, line.length() - 1).trim();
+                        topic = topics.computeIfAbsent(name, key -> topics.size());
+                        continue;
+                    }
+
+                    String[] block = new String[6];
+                    block[0] = line;
+                    for (int i = 1; i < 6; i++) {
+                        block[i] = reader.readLine();
+                        if (block[i] == null) { throw new IOException(source + " ends inside the question on line " + lineNumber); }
+                    }
+                    int correct;
+                    try {
+                        correct = Integer.parseInt(block[5].trim());
+                    } catch (NumberFormatException e) {
+                        correct = -1;
+                    }
+                    if (correct < 0 || correct > 3) {
+                        throw new IOException(source + " line " + (lineNumber + 5) + ": the correct answer must be 0 to 3, not \"" + block[5] + "\"");
+                    }
+                    lineNumber += 5;
+
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                        topicOf = Arrays.copyOf(topicOf, count * 2);
+                    }
+                    offsets[count] = counted.count;
+                    topicOf[count] = topic;
+                    count++;
+                    out.writeByte(correct);
+                    for (int i = 0; i < 5; i++) { writeString(out, block[i]); }
+                }
+            }
+
+            // Topics are contiguous runs of indexes: count the questions in each, then lay out the offsets in
+            // topic order. The records themselves stay where they are.
+            String[] names = topics.keySet().toArray(new String[0]);
+            int[] starts = new int[names.length + 1];
+            for (int i = 0; i < count; i++) { starts[topicOf[i] + 1]++; }
+            for (int t = 0; t < names.length; t++) { starts[t + 1] += starts[t]; }
+            int[] next = Arrays.copyOf(starts, names.length);
+            long[] ordered = new long[count];
+            for (int i = 0; i < count; i++) { ordered[next[topicOf[i]]++] = offsets[i]; }
+
+            byte[][] encodedNames = new byte[names.length][];
+            long headerSize = QuestionBank.HEADER_SIZE + (long) Long.BYTES * count;
+            for (int t = 0; t < names.length; t++) {
+                encodedNames[t] = names[t].getBytes(StandardCharsets.UTF_8);
+                headerSize += Short.BYTES + encodedNames[t].length + 2 * Integer.BYTES;
+            }
+
+            Path partial = target.resolveSibling(target.getFileName() + ".partial");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial), 1 << 16))) {
+                    out.writeInt(QuestionBank.MAGIC);
+                    out.writeInt(QuestionBank.VERSION);
+                    out.writeLong(Files.size(source));
+                    out.writeLong(Files.getLastModifiedTime(source).toMillis());
+                    out.writeInt(count);
+                    out.writeInt(names.length);
+                    for (int t = 0; t < names.length; t++) {
+                        out.writeShort(encodedNames[t].length);
+                        out.write(encodedNames[t]);
+                        out.writeInt(starts[t]);
+                        out.writeInt(starts[t + 1] - starts[t]);
+                    }
+                    for (int i = 0; i < count; i++) { out.writeLong(headerSize + ordered[i]); }
+                    Files.copy(records, out);
+                }
+                Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+            return count;
+        } finally {
+            Files.deleteIfExists(records);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) { throw new IOException("Question text longer than 65535 bytes: " + text.substring(0, 40) + "..."); }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    // Counts the bytes written through it, giving each record's offset without flushing the buffer.
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -1,208 +1,281 @@
-import javax.swing.*;
-import java.awt.*;
-import java.awt.event.*;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-public class QuizApp extends JFrame implements ActionListener {
-
-    // GUI Components
-    private JLabel questionLabel, timerLabel;
-    private JRadioButton[] optionButtons = new JRadioButton[4];
-    private ButtonGroup optionsGroup;
-    private JButton nextButton, prevButton, submitButton;
-    private Timer timer;
-
-    // Quiz Logic
-    private List<String[]> questions = new ArrayList<>(); // [question, opt1, opt2, opt3, opt4, correctAnsIndex]
-    private Map<Integer, Integer> userAnswers = new HashMap<>(); // <QuestionIndex, SelectedOptionIndex>
-    private int currentQuestionIndex = 0;
-    private int score = 0;
-    private int timeLeft = 15; // 15 seconds per question
-
-    public QuizApp() {
-        setTitle("Online Quiz System");
-        setSize(700, 400);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        setLayout(new BorderLayout());
-
-        loadQuestions();
-        initComponents();
-        displayQuestion();
-
-        setVisible(true);
-    }
-
-    private void loadQuestions() {
-        try (BufferedReader reader = new BufferedReader(new FileReader("questions.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] questionBlock = new String[6];
-                questionBlock[0] = line; // Question
-                for (int i = 1; i <= 4; i++) {
-                    questionBlock[i] = reader.readLine(); // Options
-                }
-                questionBlock[5] = reader.readLine(); // Correct Answer Index
-                questions.add(questionBlock);
-                reader.readLine(); // Skip separator "---"
-            }
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Error loading questions from file.", "Error", JOptionPane.ERROR_MESSAGE);
-            System.exit(1);
-        }
-    }
-
-    private void initComponents() {
-        // Top Panel for Timer
-        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-        timerLabel = new JLabel("Time Left: 15s");
-        timerLabel.setFont(new Font("Arial", Font.BOLD, 16));
-        timerLabel.setForeground(Color.RED);
-        topPanel.add(timerLabel);
-        add(topPanel, BorderLayout.NORTH);
-
-        // Center Panel for Question and Options
-        JPanel centerPanel = new JPanel();
-        centerPanel.setLayout(new BoxLayout(centerPanel, BoxLayout.Y_AXIS));
-        questionLabel = new JLabel("Question will be here.");
-        questionLabel.setFont(new Font("Arial", Font.BOLD, 18));
-        questionLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-        centerPanel.add(Box.createVerticalStrut(20));
-        centerPanel.add(questionLabel);
-        centerPanel.add(Box.createVerticalStrut(20));
-
-        optionsGroup = new ButtonGroup();
-        for (int i = 0; i < 4; i++) {
-            optionButtons[i] = new JRadioButton("Option " + (i + 1));
-            optionButtons[i].setFont(new Font("Arial", Font.PLAIN, 14));
-            optionsGroup.add(optionButtons[i]);
-            centerPanel.add(optionButtons[i]);
-        }
-        add(centerPanel, BorderLayout.CENTER);
-
-        // Bottom Panel for Navigation Buttons
-        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        prevButton = new JButton("Previous");
-        nextButton = new JButton("Next");
-        submitButton = new JButton("Submit");
-
-        prevButton.addActionListener(this);
-        nextButton.addActionListener(this);
-        submitButton.addActionListener(this);
-
-        bottomPanel.add(prevButton);
-        bottomPanel.add(nextButton);
-        bottomPanel.add(submitButton);
-        add(bottomPanel, BorderLayout.SOUTH);
-
-        // Initialize and start the timer
-        setupTimer();
-    }
-
-    private void setupTimer() {
-        timer = new Timer(1000, e -> {
-            timeLeft--;
-            timerLabel.setText("Time Left: " + timeLeft + "s");
-            if (timeLeft <= 0) {
-                timer.stop();
-                handleTimeUp();
-            }
-        });
-    }
-
-    private void handleTimeUp() {
-        storeAnswer(); // Store null if no answer is selected
-        if (currentQuestionIndex < questions.size() - 1) {
-            currentQuestionIndex++;
-            displayQuestion();
-        } else {
-            // Last question, so submit automatically
-            calculateAndShowResult();
-        }
-    }
-
-    private void displayQuestion() {
-        timer.stop();
-        timeLeft = 15;
-        timerLabel.setText("Time Left: " + timeLeft + "s");
-        timer.start();
-
-        String[] q = questions.get(currentQuestionIndex);
-        questionLabel.setText("<html>Q" + (currentQuestionIndex + 1) + ": " + q[0] + "</html>");
-        for (int i = 0; i < 4; i++) {
-            optionButtons[i].setText(q[i + 1]);
-        }
-
-        // Clear previous selection
-        optionsGroup.clearSelection();
-
-        // Restore user's previous answer if it exists
-        if(userAnswers.containsKey(currentQuestionIndex)) {
-            optionButtons[userAnswers.get(currentQuestionIndex)].setSelected(true);
-        }
-
-        // Update button states
-        prevButton.setEnabled(currentQuestionIndex > 0);
-        nextButton.setEnabled(currentQuestionIndex < questions.size() - 1);
-    }
-
-    private void storeAnswer() {
-        for (int i = 0; i < 4; i++) {
-            if (optionButtons[i].isSelected()) {
-                userAnswers.put(currentQuestionIndex, i);
-                return;
-            }
-        }
-    }
-
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        storeAnswer();
-
-        if (e.getSource() == nextButton) {
-            if (currentQuestionIndex < questions.size() - 1) {
-                currentQuestionIndex++;
-                displayQuestion();
-            }
-        } else if (e.getSource() == prevButton) {
-            if (currentQuestionIndex > 0) {
-                currentQuestionIndex--;
-                displayQuestion();
-            }
-        } else if (e.getSource() == submitButton) {
-            int choice = JOptionPane.showConfirmDialog(this, "Are you sure you want to submit?", "Confirm Submission", JOptionPane.YES_NO_OPTION);
-            if (choice == JOptionPane.YES_OPTION) {
-                calculateAndShowResult();
-            }
-        }
-    }
-
-    private void calculateAndShowResult() {
-        timer.stop();
-        score = 0;
-        for (int i = 0; i < questions.size(); i++) {
-            int correctAnswerIndex = Integer.parseInt(questions.get(i)[5]);
-            if (userAnswers.containsKey(i) && userAnswers.get(i) == correctAnswerIndex) {
-                score++;
-            }
-        }
-
-        // Display Result Summary
-        int totalQuestions = questions.size();
-        double percentage = ((double) score / totalQuestions) * 100;
-        String resultMessage = String.format(
-                "Quiz Finished!\n\nTotal Questions: %d\nCorrect Answers: %d\nIncorrect Answers: %d\nYour Score: %.2f%%",
-                totalQuestions, score, totalQuestions - score, percentage
-        );
-
-        JOptionPane.showMessageDialog(this, resultMessage, "Result Summary", JOptionPane.INFORMATION_MESSAGE);
-        System.exit(0);
-    }
-}
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+public class QuizApp extends JFrame implements ActionListener {
+
+    // GUI Components
+    private JLabel questionLabel, timerLabel;
+    private JRadioButton[] optionButtons = new JRadioButton[4];
+    private ButtonGroup optionsGroup;
+    private JButton nextButton, prevButton, submitButton;
+    private Timer timer;
+
+    // Quiz Logic: kept by the quiz server, which this window only shows and sends clicks to
+    private static final int QUIZ_SIZE = Integer.getInteger("quiz.size", 10); // Questions drawn from the bank
+    private static final String QUIZ_TOPIC = System.getProperty("quiz.topic"); // Null for every topic
+    private static final String QUIZ_SERVER = System.getProperty("quiz.server"); // Null to run one in this process
+    private QuizClient client;
+    private QuizClient.State state; // As the server last described the session
+    // Only touched on the event thread. While a click is in flight the controls are disabled, so clicks reach the
+    // server in order; a refresh is skipped while anything is in flight, and dropped if a click was sent after it.
+    private boolean clickPending, refreshPending, over;
+    private int clicksSent;
+
+    public QuizApp() {
+        setTitle("Online Quiz System");
+        setSize(700, 400);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+        setLayout(new BorderLayout());
+
+        initComponents();
+        setVisible(true);
+
+        // Show the window at once and load in the background; the quiz starts when the questions arrive.
+        questionLabel.setText("Loading questions...");
+        loadQuestions();
+    }
+
+    private void loadQuestions() {
+        prevButton.setEnabled(false);
+        nextButton.setEnabled(false);
+        submitButton.setEnabled(false);
+        new SwingWorker<QuizClient.State, Void>() {
+            @Override
+            protected QuizClient.State doInBackground() throws Exception {
+                client = new QuizClient(QUIZ_SERVER != null ? QUIZ_SERVER : startLocalServer());
+                return client.start(QUIZ_SIZE, QUIZ_TOPIC);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    state = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(QuizApp.this, "Error loading questions from file.", "Error", JOptionPane.ERROR_MESSAGE);
+                    System.exit(1);
+                }
+                submitButton.setEnabled(true);
+                displayQuestion();
+                timer.start();
+            }
+        }.execute();
+    }
+
+    // Runs the quiz server inside this process, for a single candidate, and returns its address.
+    private static String startLocalServer() throws IOException {
+        // Compiles questions.txt on first use or after it changes; later starts only map the compiled bank.
+        QuestionBank bank = QuestionBank.openOrCompile(Paths.get("questions.txt"), Paths.get("questions.bank"));
+        QuizServer server = new QuizServer(new QuizEngine(bank), 0, 2);
+        server.start();
+        return "http://127.0.0.1:" + server.getPort();
+    }
+
+    private void initComponents() {
+        // Top Panel for Timer
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        timerLabel = new JLabel("Time Left: 15s");
+        timerLabel.setFont(new Font("Arial", Font.BOLD, 16));
+        timerLabel.setForeground(Color.RED);
+        topPanel.add(timerLabel);
+        add(topPanel, BorderLayout.NORTH);
+
+        // Center Panel for Question and Options
+        JPanel centerPanel = new JPanel();
+        centerPanel.setLayout(new BoxLayout(centerPanel, BoxLayout.Y_AXIS));
+        questionLabel = new JLabel("Question will be here.");
+        questionLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        questionLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        centerPanel.add(Box.createVerticalStrut(20));
+        centerPanel.add(questionLabel);
+        centerPanel.add(Box.createVerticalStrut(20));
+
+        optionsGroup = new ButtonGroup();
+        for (int i = 0; i < 4; i++) {
+            optionButtons[i] = new JRadioButton("Option " + (i + 1));
+            optionButtons[i].setFont(new Font("Arial", Font.PLAIN, 14));
+            optionButtons[i].addActionListener(this);
+            optionsGroup.add(optionButtons[i]);
+            centerPanel.add(optionButtons[i]);
+        }
+        add(centerPanel, BorderLayout.CENTER);
+
+        // Bottom Panel for Navigation Buttons
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        prevButton = new JButton("Previous");
+        nextButton = new JButton("Next");
+        submitButton = new JButton("Submit");
+
+        prevButton.addActionListener(this);
+        nextButton.addActionListener(this);
+        submitButton.addActionListener(this);
+
+        bottomPanel.add(prevButton);
+        bottomPanel.add(nextButton);
+        bottomPanel.add(submitButton);
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        // Initialize and start the timer
+        setupTimer();
+    }
+
+    private void setupTimer() {
+        // Only refreshes the window: the countdown itself runs on the server, which moves on when it runs out.
+        timer = new Timer(1000, e -> {
+            if (clickPending || refreshPending) { return; }
+            refreshPending = true;
+            int clicksBefore = clicksSent;
+            String session = state.session;
+            send(() -> client.current(session), next -> {
+                refreshPending = false;
+                if (clicksSent != clicksBefore) { return; } // Stale: a click's answer describes the session better
+                if (next.finished) {
+                    showResult(next);
+                } else if (next.position != state.position) {
+                    state = next;
+                    displayQuestion();
+                } else {
+                    state = next;
+                    timerLabel.setText("Time Left: " + state.secondsLeft + "s");
+                }
+            });
+        });
+    }
+
+    private void displayQuestion() {
+        timerLabel.setText("Time Left: " + state.secondsLeft + "s");
+        questionLabel.setText("<html>Q" + (state.position + 1) + ": " + state.text + "</html>");
+        for (int i = 0; i < 4; i++) {
+            optionButtons[i].setText(state.options[i]);
+        }
+
+        // Clear previous selection
+        optionsGroup.clearSelection();
+
+        // Restore user's previous answer if it exists
+        if (state.selected >= 0) {
+            optionButtons[state.selected].setSelected(true);
+        }
+
+        // Update button states
+        updateButtons();
+    }
+
+    private void updateButtons() {
+        for (JRadioButton button : optionButtons) { button.setEnabled(!clickPending); }
+        prevButton.setEnabled(!clickPending && state.position > 0);
+        nextButton.setEnabled(!clickPending && state.position < state.total - 1);
+        submitButton.setEnabled(!clickPending);
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        // Answers go to the server as soon as they are chosen, so none is lost if the countdown moves on.
+        for (int i = 0; i < 4; i++) {
+            if (e.getSource() == optionButtons[i]) {
+                int option = i;
+                String session = state.session;
+                int position = state.position;
+                click(() -> client.answer(session, position, option), next -> {
+                    if (next.finished) { showResult(next); }
+                });
+                return;
+            }
+        }
+
+        if (e.getSource() == nextButton) {
+            if (state.position < state.total - 1) {
+                moveTo(state.position + 1);
+            }
+        } else if (e.getSource() == prevButton) {
+            if (state.position > 0) {
+                moveTo(state.position - 1);
+            }
+        } else if (e.getSource() == submitButton) {
+            int choice = JOptionPane.showConfirmDialog(this, "Are you sure you want to submit?", "Confirm Submission", JOptionPane.YES_NO_OPTION);
+            if (choice == JOptionPane.YES_OPTION) {
+                String session = state.session;
+                click(() -> client.submit(session), this::showResult);
+            }
+        }
+    }
+
+    private void moveTo(int position) {
+        String session = state.session;
+        click(() -> client.moveTo(session, position), next -> {
+            if (next.finished) {
+                showResult(next);
+            } else {
+                state = next;
+                displayQuestion();
+            }
+        });
+    }
+
+    private void showResult(QuizClient.State result) {
+        if (over) { return; } // A request still in flight may also report the end
+        over = true;
+        timer.stop();
+        int totalQuestions = result.total;
+        int score = result.correct;
+
+        // Display Result Summary
+        double percentage = ((double) score / totalQuestions) * 100;
+        String resultMessage = String.format(
+                "Quiz Finished!\n\nTotal Questions: %d\nCorrect Answers: %d\nIncorrect Answers: %d\nYour Score: %.2f%%",
+                totalQuestions, score, totalQuestions - score, percentage
+        );
+
+        JOptionPane.showMessageDialog(this, resultMessage, "Result Summary", JOptionPane.INFORMATION_MESSAGE);
+        System.exit(0);
+    }
+
+    private interface Request {
+        QuizClient.State send() throws IOException;
+    }
+
+    // Sends a click's request with the controls disabled until the server answers.
+    private void click(Request request, Consumer<QuizClient.State> then) {
+        clickPending = true;
+        clicksSent++;
+        updateButtons();
+        send(request, next -> {
+            clickPending = false;
+            updateButtons();
+            then.accept(next);
+        });
+    }
+
+    // The server may be on another machine, or slow, so requests never run on the event thread; the answer is
+    // handled back on it. The client's timeouts bound how long a request can take.
+    private void send(Request request, Consumer<QuizClient.State> then) {
+        new SwingWorker<QuizClient.State, Void>() {
+            @Override
+            protected QuizClient.State doInBackground() throws IOException {
+                return request.send();
+            }
+
+            @Override
+            protected void done() {
+                if (over) { return; }
+                QuizClient.State next;
+                try {
+                    next = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    over = true;
+                    timer.stop();
+                    JOptionPane.showMessageDialog(QuizApp.this, "Lost the connection to the quiz server.", "Error", JOptionPane.ERROR_MESSAGE);
+                    System.exit(1);
+                    return;
+                }
+                then.accept(next);
+            }
+        }.execute();
+    }
+}
@@ -0,0 +1,101 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Talks to a {@link QuizServer}; the quiz window uses it for everything, holding no quiz state of its own.
+ */
+public class QuizClient {
+
+    /** A session as the server last described it. */
+    public static class State {
+        public final String session;
+        public final boolean finished;
+        public final int total;
+        public final int position;
+        public final String text;
+        public final String[] options = new String[4];
+        public final int selected;
+        public final int secondsLeft;
+        public final int correct; // Once finished
+
+        State(Map<String, Object> json) {
+            session = (String) json.get("session");
+            finished = Boolean.TRUE.equals(json.get("finished"));
+            total = number(json, "total");
+            position = number(json, "position");
+            text = (String) json.get("text");
+            Object list = json.get("options");
+            if (list instanceof List) {
+                for (int i = 0; i < 4 && i < ((List<?>) list).size(); i++) { options[i] = (String) ((List<?>) list).get(i); }
+            }
+            selected = json.containsKey("selected") ? number(json, "selected") : -1;
+            secondsLeft = number(json, "secondsLeft");
+            correct = number(json, "correct");
+        }
+
+        private static int number(Map<String, Object> json, String key) {
+            Object value = json.get(key);
+            return value instanceof Number ? ((Number) value).intValue() : 0;
+        }
+    }
+
+    // A server that cannot be reached, or stops answering, fails the request instead of hanging it.
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build();
+    private final String base;
+
+    /** @param base The server's address, such as http://127.0.0.1:8090 */
+    public QuizClient(String base) {
+        this.base = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+    }
+
+    /** @param topic The topic to draw from, or null for the whole bank. */
+    public State start(int size, String topic) throws IOException {
+        String query = "size=" + size + (topic == null ? "" : "&topic=" + URLEncoder.encode(topic, StandardCharsets.UTF_8));
+        return call("POST", "/sessions?" + query);
+    }
+
+    public State current(String session) throws IOException {
+        return call("GET", "/sessions/" + session);
+    }
+
+    public State answer(String session, int position, int option) throws IOException {
+        return call("POST", "/sessions/" + session + "/answer?position=" + position + "&option=" + option);
+    }
+
+    public State moveTo(String session, int position) throws IOException {
+        return call("POST", "/sessions/" + session + "/goto?position=" + position);
+    }
+
+    public State submit(String session) throws IOException {
+        return call("POST", "/sessions/" + session + "/submit");
+    }
+
+    private State call(String method, String path) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + path)).timeout(REQUEST_TIMEOUT)
+                .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        HttpResponse<String> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        Map<String, Object> json = Json.parseObject(response.body());
+        // 409 still describes the session: the request came too late, as when the countdown moved on first.
+        if (response.statusCode() != 200 && response.statusCode() != 409) {
+            throw new IOException("Quiz server answered " + response.statusCode() + ": " + json.get("error"));
+        }
+        return new State(json);
+    }
+}
@@ -0,0 +1,236 @@
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs many quiz sessions at once, independent of any window.
+ *
+ * Each session's countdown is a timeout on one shared {@link TimerWheel}: when it runs out the session moves
+ * to the next question, as the window did, and the last one submits. Submitted sessions are graded on a pool
+ * of threads, one per core, so many candidates finishing together are graded in parallel. A session's fields
+ * change only under its lock, whether from a request or from the wheel.
+ */
+public class QuizEngine {
+    public static final int SECONDS_PER_QUESTION = 15;
+    private static final long KEEP_FINISHED_MILLIS = 10 * 60 * 1000; // Results stay readable this long
+
+    /** The outcome of a submitted session. */
+    public static class Result {
+        private final int total;
+        private final int correct;
+
+        Result(int total, int correct) {
+            this.total = total;
+            this.correct = correct;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getCorrect() {
+            return correct;
+        }
+
+        public double getPercentage() {
+            return total == 0 ? 0 : (double) correct / total * 100;
+        }
+    }
+
+    /** What a candidate sees at one moment: the current question, their answer to it and the time left. */
+    public static class View {
+        private final int position;
+        private final int total;
+        private final Question question;
+        private final int selected;
+        private final int secondsLeft;
+        private final boolean finished;
+
+        View(int position, int total, Question question, int selected, int secondsLeft, boolean finished) {
+            this.position = position;
+            this.total = total;
+            this.question = question;
+            this.selected = selected;
+            this.secondsLeft = secondsLeft;
+            this.finished = finished;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        // Null once the session is finished
+        public Question getQuestion() {
+            return question;
+        }
+
+        // The chosen option, or -1
+        public int getSelected() {
+            return selected;
+        }
+
+        public int getSecondsLeft() {
+            return secondsLeft;
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+    }
+
+    private final QuestionBank bank;
+    private final Map<String, QuizSession> sessions = new ConcurrentHashMap<>();
+    private final TimerWheel wheel = new TimerWheel(100, 512);
+    private final ExecutorService grading = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+        Thread thread = new Thread(task, "quiz-grading");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final SecureRandom ids = new SecureRandom();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder graded = new LongAdder();
+
+    public QuizEngine(QuestionBank bank) {
+        this.bank = bank;
+    }
+
+    /**
+     * Starts a session of questions drawn at random.
+     * @param topic The topic to draw from, or null for the whole bank.
+     * @return The session, or null if there are no questions to draw.
+     */
+    public QuizSession start(int size, String topic) {
+        int[] questions = bank.sampleIndexes(size, topic, ThreadLocalRandom.current());
+        if (questions.length == 0) { return null; }
+        byte[] correct = new byte[questions.length];
+        for (int i = 0; i < questions.length; i++) { correct[i] = (byte) bank.getCorrectIndex(questions[i]); }
+
+        QuizSession session = new QuizSession(Long.toHexString(ids.nextLong()), questions, correct);
+        synchronized (session) {
+            restartCountdown(session);
+        }
+        sessions.put(session.id, session);
+        started.increment();
+        return session;
+    }
+
+    /** The session with an id, or null if there is none or it finished long ago. */
+    public QuizSession get(String id) {
+        return sessions.get(id);
+    }
+
+    public View view(QuizSession session) {
+        int position, index, selected, secondsLeft;
+        synchronized (session) {
+            if (session.result != null) { return new View(session.position, session.size(), null, -1, 0, true); }
+            position = session.position;
+            index = session.questions[position];
+            selected = session.answers[position];
+            secondsLeft = (int) Math.max(0, (session.deadline - System.currentTimeMillis() + 999) / 1000);
+        }
+        return new View(position, session.size(), bank.get(index), selected, secondsLeft, false);
+    }
+
+    /**
+     * Records the option chosen for a question.
+     * @return False if the session is finished or the position or option is out of range.
+     */
+    public boolean answer(QuizSession session, int position, int option) {
+        if (option < 0 || option > 3) { return false; }
+        synchronized (session) {
+            if (session.result != null || position < 0 || position >= session.size()) { return false; }
+            session.answers[position] = (byte) option;
+            return true;
+        }
+    }
+
+    /**
+     * Shows another question, with a full countdown.
+     * @return False if the session is finished or the position is out of range.
+     */
+    public boolean moveTo(QuizSession session, int position) {
+        synchronized (session) {
+            if (session.result != null || position < 0 || position >= session.size()) { return false; }
+            session.position = position;
+            restartCountdown(session);
+            return true;
+        }
+    }
+
+    /** Ends the session and grades it; submitting again gives the same result. */
+    public CompletableFuture<Result> submit(QuizSession session) {
+        synchronized (session) {
+            return submitLocked(session);
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getStartedCount() {
+        return started.sum();
+    }
+
+    public long getGradedCount() {
+        return graded.sum();
+    }
+
+    public void shutdown() {
+        wheel.stop();
+        grading.shutdown();
+    }
+
+    // Caller holds the session's lock.
+    private void restartCountdown(QuizSession session) {
+        if (session.timeout != null) { session.timeout.cancel(); }
+        session.deadline = System.currentTimeMillis() + SECONDS_PER_QUESTION * 1000L;
+        TimerWheel.Timeout[] scheduled = new TimerWheel.Timeout[1];
+        scheduled[0] = wheel.schedule(SECONDS_PER_QUESTION * 1000L, () -> timedOut(session, scheduled));
+        session.timeout = scheduled[0];
+    }
+
+    // Caller holds the session's lock.
+    private CompletableFuture<Result> submitLocked(QuizSession session) {
+        if (session.result == null) {
+            session.timeout.cancel();
+            // Answers no longer change, so grading can read them without the lock.
+            session.result = CompletableFuture.supplyAsync(() -> grade(session), grading);
+            wheel.schedule(KEEP_FINISHED_MILLIS, () -> sessions.remove(session.id));
+        }
+        return session.result;
+    }
+
+    // Runs on the wheel's thread: moves on to the next question, or submits after the last.
+    private void timedOut(QuizSession session, TimerWheel.Timeout[] timeout) {
+        synchronized (session) {
+            // A request may have restarted the countdown between the timeout firing and this lock.
+            if (session.timeout != timeout[0] || session.result != null) { return; }
+            if (session.position < session.size() - 1) {
+                session.position++;
+                restartCountdown(session);
+            } else {
+                // Under the same lock as the check, so a request cannot restart the countdown in between.
+                submitLocked(session);
+            }
+        }
+    }
+
+    private Result grade(QuizSession session) {
+        int correct = 0;
+        for (int i = 0; i < session.answers.length; i++) {
+            if (session.answers[i] == session.correct[i]) { correct++; }
+        }
+        graded.increment();
+        return new Result(session.size(), correct);
+    }
+}
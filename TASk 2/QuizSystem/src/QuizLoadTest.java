@@ -0,0 +1,165 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs an exam for many simultaneous candidates against the quiz server and reports throughput and latency.
+ *
+ * First every session is started, so that all of them are live at once, each with its countdown on the server's
+ * timer wheel. Then client threads answer every question of every session, a question at a time across all the
+ * sessions, and finally submit them all, which the server grades in parallel.
+ * <pre>
+ * java QuizLoadTest [sessions] [questions per session] [client threads] [server address]
+ * </pre>
+ * Without an address it runs a server in this process, on questions.txt, and also reports the heap used per session.
+ * Answers that arrive after a session's countdown has moved past it, or submitted it, are counted as late.
+ */
+public class QuizLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        String address = args.length > 3 ? args[3] : null;
+
+        QuizServer server = null;
+        QuizEngine engine = null;
+        if (address == null) {
+            engine = new QuizEngine(QuestionBank.openOrCompile(Paths.get("questions.txt"), Paths.get("questions.bank")));
+            server = new QuizServer(engine, 0, Math.max(8, 4 * Runtime.getRuntime().availableProcessors()));
+            server.start();
+            address = "http://127.0.0.1:" + server.getPort();
+        }
+        String base = address;
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long heapBefore = usedHeap();
+
+        // Start every session, so that all of them are live together.
+        String[] ids = new String[sessions];
+        int[] sizes = new int[sessions];
+        long[][] latencies = new long[threads][];
+        AtomicLong late = new AtomicLong();
+        long start = System.nanoTime();
+        runPhase(threads, sessions, latencies, (thread, session) -> {
+            Map<String, Object> json = Json.parseObject(send(http, base + "/sessions?size=" + questions, late));
+            ids[session] = (String) json.get("session");
+            sizes[session] = ((Number) json.get("total")).intValue();
+            return true;
+        });
+        report("start", System.nanoTime() - start, latencies);
+        if (engine != null) {
+            System.out.printf("%,d live sessions, about %,d bytes of heap each%n", engine.getSessionCount(),
+                    (usedHeap() - heapBefore) / Math.max(1, engine.getSessionCount()));
+        }
+
+        // Answer question by question across all sessions.
+        late.set(0);
+        start = System.nanoTime();
+        for (int q = 0; q < questions; q++) {
+            int position = q;
+            long[][] phase = new long[threads][];
+            runPhase(threads, sessions, phase, (thread, session) -> {
+                if (position >= sizes[session]) { return false; } // The bank had fewer questions than asked for
+                int option = ThreadLocalRandom.current().nextInt(4);
+                send(http, base + "/sessions/" + ids[session] + "/answer?position=" + position + "&option=" + option, late);
+                return true;
+            });
+            for (int t = 0; t < threads; t++) { latencies[t] = concat(q == 0 ? new long[0] : latencies[t], phase[t]); }
+        }
+        report("answer", System.nanoTime() - start, latencies);
+        System.out.printf("%,d answers arrived late%n", late.get());
+
+        // Submit everything; each answer tells the score.
+        AtomicLong correct = new AtomicLong(), total = new AtomicLong();
+        start = System.nanoTime();
+        runPhase(threads, sessions, latencies, (thread, session) -> {
+            Map<String, Object> json = Json.parseObject(send(http, base + "/sessions/" + ids[session] + "/submit", late));
+            correct.addAndGet(((Number) json.get("correct")).longValue());
+            total.addAndGet(((Number) json.get("total")).longValue());
+            return true;
+        });
+        report("submit", System.nanoTime() - start, latencies);
+        System.out.printf("Graded %,d sessions: %,d of %,d answers correct (%.1f%%, about 25%% expected from random answers)%n",
+                sessions, correct.get(), total.get(), 100.0 * correct.get() / Math.max(1, total.get()));
+
+        if (server != null) {
+            server.stop();
+            engine.shutdown();
+        }
+    }
+
+    private interface Step {
+        // False if there was nothing to send for this session
+        boolean run(int thread, int session) throws Exception;
+    }
+
+    // Splits the sessions between the threads and times each request; fills in each thread's latencies.
+    private static void runPhase(int threads, int sessions, long[][] latencies, Step step) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        Throwable[] failure = new Throwable[1];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                long[] times = new long[(sessions - thread + threads - 1) / threads];
+                int n = 0;
+                try {
+                    for (int session = thread; session < sessions; session += threads) {
+                        long begin = System.nanoTime();
+                        if (step.run(thread, session)) { times[n++] = System.nanoTime() - begin; }
+                    }
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+                latencies[thread] = Arrays.copyOf(times, n);
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) { worker.join(); }
+        if (failure[0] != null) { throw new IllegalStateException("Load test request failed", failure[0]); }
+    }
+
+    private static String send(HttpClient http, String url, AtomicLong late) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).POST(HttpRequest.BodyPublishers.noBody()).build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 409) {
+            late.incrementAndGet();
+        } else if (response.statusCode() != 200) {
+            throw new IllegalStateException(url + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static void report(String phase, long nanos, long[][] latencies) {
+        long[] all = new long[0];
+        for (long[] thread : latencies) { all = concat(all, thread); }
+        Arrays.sort(all);
+        long requests = all.length;
+        System.out.printf("%-7s %,9d requests in %6.2f s: %,8.0f req/s, latency p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                phase, requests, nanos / 1e9, requests / (nanos / 1e9), percentile(all, 50), percentile(all, 99),
+                percentile(all, 99.9), all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) { return 0; }
+        int rank = (int) Math.ceil(sorted.length * percent / 100) - 1;
+        return sorted[Math.max(0, rank)] / 1e6;
+    }
+
+    private static long[] concat(long[] a, long[] b) {
+        long[] joined = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) { System.gc(); }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
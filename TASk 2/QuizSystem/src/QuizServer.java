@@ -0,0 +1,156 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves a {@link QuizEngine} over HTTP on the loopback interface, for the quiz window and for headless exams.
+ * <pre>
+ * POST /sessions?size=10&amp;topic=Science              start a session; answers with its first question
+ * GET  /sessions/{id}                                the current question, or the result once finished
+ * POST /sessions/{id}/answer?position=0&amp;option=2
+ * POST /sessions/{id}/goto?position=1                 show another question, restarting its countdown
+ * POST /sessions/{id}/submit                          the result
+ * GET  /stats
+ * </pre>
+ * A question answers {@code {"session":..,"finished":false,"position":0,"total":10,"text":..,"options":[..],
+ * "selected":-1,"secondsLeft":15}}; a result answers {@code {"session":..,"finished":true,"total":10,"correct":7}}.
+ */
+public class QuizServer {
+    private final QuizEngine engine;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param port The port to listen on, or 0 for any free port.
+     * @param threads The number of request threads.
+     */
+    public QuizServer(QuizEngine engine, int port, int threads) throws IOException {
+        this.engine = engine;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 4096);
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "quiz-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/sessions", this::sessions);
+        server.createContext("/stats", this::stats);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8090;
+        QuestionBank bank = QuestionBank.openOrCompile(Paths.get("questions.txt"), Paths.get("questions.bank"));
+        QuizEngine engine = new QuizEngine(bank);
+        QuizServer server = new QuizServer(engine, port, Math.max(8, 4 * Runtime.getRuntime().availableProcessors()));
+        server.start();
+        System.out.printf("Serving %d questions on http://127.0.0.1:%d/sessions%n", bank.size(), server.getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void sessions(HttpExchange exchange) throws IOException {
+        try {
+            // /sessions, /sessions/{id} or /sessions/{id}/{action}
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            boolean post = exchange.getRequestMethod().equals("POST");
+            if (path.length == 2 && post) {
+                QuizSession session = engine.start(intParameter(exchange, "size", 10), parameter(exchange, "topic"));
+                if (session == null) {
+                    send(exchange, 404, "{\"error\":\"No questions to draw\"}");
+                } else {
+                    send(exchange, 200, view(session));
+                }
+                return;
+            }
+            QuizSession session = path.length >= 3 ? engine.get(path[2]) : null;
+            if (session == null) {
+                send(exchange, 404, "{\"error\":\"No such session\"}");
+                return;
+            }
+            String action = path.length == 4 ? path[3] : "";
+            if (action.isEmpty() && !post) {
+                send(exchange, 200, view(session));
+            } else if (action.equals("answer") && post) {
+                boolean done = engine.answer(session, intParameter(exchange, "position", -1), intParameter(exchange, "option", -1));
+                send(exchange, done ? 200 : 409, view(session));
+            } else if (action.equals("goto") && post) {
+                boolean done = engine.moveTo(session, intParameter(exchange, "position", -1));
+                send(exchange, done ? 200 : 409, view(session));
+            } else if (action.equals("submit") && post) {
+                engine.submit(session);
+                send(exchange, 200, view(session));
+            } else {
+                send(exchange, 404, "{\"error\":\"Not found\"}");
+            }
+        } catch (NumberFormatException e) {
+            send(exchange, 400, "{\"error\":" + Json.quote(e.getMessage()) + "}");
+        }
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        send(exchange, 200, "{\"sessions\":" + engine.getSessionCount() + ",\"started\":" + engine.getStartedCount()
+                + ",\"graded\":" + engine.getGradedCount() + "}");
+    }
+
+    private String view(QuizSession session) {
+        QuizEngine.View view = engine.view(session);
+        StringBuilder json = new StringBuilder(256).append("{\"session\":").append(Json.quote(session.getId()))
+                .append(",\"finished\":").append(view.isFinished()).append(",\"total\":").append(view.getTotal());
+        if (view.isFinished()) {
+            QuizEngine.Result result = engine.submit(session).join(); // Already submitted; waits for grading
+            return json.append(",\"correct\":").append(result.getCorrect()).append('}').toString();
+        }
+        Question question = view.getQuestion();
+        json.append(",\"position\":").append(view.getPosition())
+                .append(",\"topic\":").append(Json.quote(question.getTopic()))
+                .append(",\"text\":").append(Json.quote(question.getText()))
+                .append(",\"options\":[");
+        for (int i = 0; i < 4; i++) { json.append(i == 0 ? "" : ",").append(Json.quote(question.getOption(i))); }
+        return json.append("],\"selected\":").append(view.getSelected())
+                .append(",\"secondsLeft\":").append(view.getSecondsLeft()).append('}').toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) { out.write(body); }
+    }
+
+    private static String parameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) { return null; }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static int intParameter(HttpExchange exchange, String name, int missing) {
+        String value = parameter(exchange, name);
+        return value == null ? missing : Integer.parseInt(value);
+    }
+}
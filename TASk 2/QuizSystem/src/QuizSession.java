@@ -0,0 +1,38 @@
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One candidate's quiz: which questions, what they answered and where they are.
+ *
+ * Questions are held as bank indexes and answers as one byte each, with the correct options copied in at the
+ * start, so a session is a few small arrays and thousands fit in little memory. Grading needs no bank reads.
+ * The fields change only while holding the session's lock; see {@link QuizEngine}.
+ */
+public class QuizSession {
+    public static final byte UNANSWERED = -1;
+
+    final String id;
+    final int[] questions;   // Bank indexes
+    final byte[] correct;    // Correct option of each question
+    final byte[] answers;    // Chosen option of each question, or UNANSWERED
+    int position;            // The question shown now
+    long deadline;           // When the shown question times out, in epoch millis
+    TimerWheel.Timeout timeout;
+    CompletableFuture<QuizEngine.Result> result; // Set once the session is submitted
+
+    QuizSession(String id, int[] questions, byte[] correct) {
+        this.id = id;
+        this.questions = questions;
+        this.correct = correct;
+        this.answers = new byte[questions.length];
+        Arrays.fill(answers, UNANSWERED);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int size() {
+        return questions.length;
+    }
+}
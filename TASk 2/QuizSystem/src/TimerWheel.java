@@ -0,0 +1,123 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One thread that runs many timeouts, such as the countdown of every quiz session, instead of a timer each.
+ *
+ * Timeouts go into the slot of the wheel for the tick they are due; each tick the thread visits one slot and
+ * runs what is due there. Scheduling and cancelling are constant time however many timeouts are pending. A timeout
+ * never fires before its delay, and fires up to one tick after it. Tasks run on the wheel's thread, so they must be
+ * quick.
+ */
+public class TimerWheel {
+    private static final Logger LOG = Logger.getLogger(TimerWheel.class.getName());
+
+    /** A scheduled task; cancelling it stops it from running. */
+    public static class Timeout {
+        private final Runnable task;
+        private long rounds; // Times the wheel must turn past its slot first
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long rounds) {
+            this.task = task;
+            this.rounds = rounds;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private final long tickNanos;
+    private final ArrayDeque<Timeout>[] slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Thread thread;
+    private final long startedAt = System.nanoTime();
+    private long tick; // The next tick to run; tick t runs once t + 1 ticks have passed since the start
+    private volatile boolean stopped;
+
+    /**
+     * @param tickMillis How often the wheel moves on.
+     * @param size The number of slots, a power of two; timeouts further off than a turn of the wheel wait extra turns.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public TimerWheel(long tickMillis, int size) {
+        if (Integer.bitCount(size) != 1) { throw new IllegalArgumentException("Wheel size must be a power of two"); }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.slots = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) { slots[i] = new ArrayDeque<>(); }
+        this.thread = new Thread(this::turn, "timer-wheel");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /** Runs a task once a delay has passed. */
+    public Timeout schedule(long delayMillis, Runnable task) {
+        long since = System.nanoTime() - startedAt + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        lock.lock();
+        try {
+            // The first tick that runs at or after the deadline; ticks are counted from the start, not from now, so
+            // a timeout scheduled partway through a tick still waits out its whole delay.
+            long due = Math.max(tick, (since + tickNanos - 1) / tickNanos - 1);
+            Timeout timeout = new Timeout(task, (due - tick) / slots.length);
+            slots[(int) (due & (slots.length - 1))].add(timeout);
+            return timeout;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void stop() {
+        stopped = true;
+        thread.interrupt();
+    }
+
+    private void turn() {
+        List<Runnable> due = new ArrayList<>();
+        while (!stopped) {
+            long wait = startedAt + (tick + 1) * tickNanos - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    // Stopping
+                }
+                continue; // Sleep can end early, so check again before running the tick
+            }
+
+            lock.lock();
+            try {
+                Iterator<Timeout> pending = slots[(int) (tick & (slots.length - 1))].iterator();
+                while (pending.hasNext()) {
+                    Timeout timeout = pending.next();
+                    if (timeout.cancelled) {
+                        pending.remove();
+                    } else if (timeout.rounds > 0) {
+                        timeout.rounds--;
+                    } else {
+                        pending.remove();
+                        due.add(timeout.task);
+                    }
+                }
+                tick++;
+            } finally {
+                lock.unlock();
+            }
+
+            for (Runnable task : due) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOG.log(Level.WARNING, "Timer task failed", e); // One failing task must not stop the others
+                }
+            }
+            due.clear();
+        }
+    }
+}
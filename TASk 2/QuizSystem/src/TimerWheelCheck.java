@@ -0,0 +1,44 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks that a {@link TimerWheel} never runs a timeout before its delay has passed.
+ *
+ * It schedules timeouts with random delays at random moments within a tick, including delays shorter than a tick
+ * and longer than a turn of the wheel, and times each one from the moment it was scheduled.
+ * <pre>
+ * java TimerWheelCheck [timeouts]
+ * </pre>
+ */
+public class TimerWheelCheck {
+
+    public static void main(String[] args) throws InterruptedException {
+        int timeouts = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        long tickMillis = 10;
+        TimerWheel wheel = new TimerWheel(tickMillis, 16); // A turn is 160 ms, so the longer delays wait extra turns
+        CountDownLatch fired = new CountDownLatch(timeouts);
+        AtomicLong early = new AtomicLong();
+        AtomicLong latest = new AtomicLong();
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < timeouts; i++) {
+            long delayMillis = random.nextLong(500);
+            long scheduledAt = System.nanoTime();
+            wheel.schedule(delayMillis, () -> {
+                long late = System.nanoTime() - scheduledAt - TimeUnit.MILLISECONDS.toNanos(delayMillis);
+                if (late < 0) { early.incrementAndGet(); }
+                latest.accumulateAndGet(late, Math::max);
+                fired.countDown();
+            });
+            TimeUnit.MICROSECONDS.sleep(random.nextLong(2_000)); // Land anywhere within a tick
+        }
+        boolean all = fired.await(10, TimeUnit.SECONDS);
+        wheel.stop();
+
+        System.out.printf("%d timeouts, %d-ms ticks: %d fired early, %d never fired, at most %.1f ms late%n",
+                timeouts, tickMillis, early.get(), fired.getCount(), latest.get() / 1e6);
+        if (!all || early.get() > 0) { System.exit(1); }
+    }
+}
@@ -1,4 +1,4 @@
-import React, { useState, useMemo, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
  import './App.css';
 
  // --- Helper Functions ---
@@ -144,25 +144,152 @@ import React, { useState, useMemo, useEffect } from 'react';
      const [members, setMembers] = useState([]);
      const [history, setHistory] = useState([]);
      const [searchTerm, setSearchTerm] = useState('');
+     const [query, setQuery] = useState(''); // The search term once typing pauses, which is what the server is asked for
      const [selectedGenre, setSelectedGenre] = useState('All');
      const [modals, setModals] = useState({ add: false, member: false, issue: false });
      const [bookToIssue, setBookToIssue] = useState(null);
      const [error, setError] = useState(null);
+     const [nextCursor, setNextCursor] = useState(null);
+     const [genres, setGenres] = useState(['All']);
      const API_URL = 'http://localhost:8080/api';
 
-     const fetchAllData = async () => {
+     const PAGE_SIZE = 50;
+
+     // Live updates: the server pushes each change, and we patch just the rows it touched.
+     const liveRef = useRef(false);       // Whether the change stream is connected
+     const pendingRef = useRef(null);     // Changes that arrive while loads are in flight, applied after the last
+     const fetchesRef = useRef(0);
+     const filtersRef = useRef({ query, selectedGenre });
+     filtersRef.current = { query, selectedGenre };
+     const fetchRef = useRef(null);
+     const reloadTimer = useRef(null);
+     const booksSeq = useRef(0);          // Bumped by each book page load, so an answer for older filters is dropped
+     const loadedRef = useRef(false);
+
+     const bookQuery = (cursor) => {
+         const params = new URLSearchParams({ limit: PAGE_SIZE });
+         if (query.trim()) params.set('q', query.trim());
+         if (selectedGenre !== 'All') params.set('genre', selectedGenre);
+         if (cursor) params.set('cursor', cursor);
+         return `${API_URL}/books?${params}`;
+     };
+
+     // Runs a load, holding back live changes until the last load in flight lands so none is overwritten.
+     const whileLoading = async (load) => {
+         if (fetchesRef.current++ === 0) pendingRef.current = [];
          try {
-             const res = await Promise.all([ fetch(`${API_URL}/books`), fetch(`${API_URL}/members`), fetch(`${API_URL}/history`) ]);
-             if (res.some(r => !r.ok)) throw new Error('Network response was not ok');
-             const [booksData, membersData, historyData] = await Promise.all(res.map(r => r.json()));
-             setBooks(booksData);
-             setMembers(membersData);
-             setHistory(historyData);
+             await load();
              setError(null);
          } catch (err) { setError('Could not connect to the server. Please ensure the Java backend is running.'); }
+         if (--fetchesRef.current > 0) return;
+         const pending = pendingRef.current;
+         pendingRef.current = null;
+         pending.forEach(applyChange);
+     };
+
+     const loadBooks = async () => {
+         const seq = ++booksSeq.current;
+         const res = await fetch(bookQuery());
+         if (!res.ok) throw new Error('Network response was not ok');
+         const booksPage = await res.json();
+         if (seq !== booksSeq.current) return;
+         setBooks(booksPage.items);
+         setNextCursor(booksPage.nextCursor);
+     };
+
+     const fetchBooks = () => whileLoading(loadBooks);
+
+     const fetchAllData = () => whileLoading(async () => {
+         const [, ...res] = await Promise.all([ loadBooks(), fetch(`${API_URL}/books/genres`), fetch(`${API_URL}/members`), fetch(`${API_URL}/history?limit=${PAGE_SIZE}`) ]);
+         if (res.some(r => !r.ok)) throw new Error('Network response was not ok');
+         const [genresData, membersData, historyPage] = await Promise.all(res.map(r => r.json()));
+         setGenres(['All', ...genresData]);
+         setMembers(membersData);
+         setHistory(historyPage.items);
+     });
+     fetchRef.current = fetchAllData;
+
+     const matchesFilters = (book) => {
+         const { query, selectedGenre } = filtersRef.current;
+         const needle = query.trim().toLowerCase();
+         if (selectedGenre !== 'All' && book.genre !== selectedGenre) return false;
+         return !needle || (book.title || '').toLowerCase().includes(needle) || (book.author || '').toLowerCase().includes(needle);
+     };
+
+     const scheduleReload = () => {
+         clearTimeout(reloadTimer.current);
+         reloadTimer.current = setTimeout(() => fetchRef.current(), 500); // Bulk imports send a burst of reloads
+     };
+
+     const applyChange = (change) => {
+         switch (change.type) {
+             case 'BOOK_ADDED':
+                 if (matchesFilters(change.book)) setBooks(prev => [change.book, ...prev.filter(b => b.id !== change.id)]);
+                 setGenres(prev => prev.includes(change.book.genre) ? prev : ['All', ...[...prev.slice(1), change.book.genre].sort()]);
+                 break;
+             case 'BOOK_UPDATED':
+                 setBooks(prev => prev.map(b => b.id === change.id ? change.book : b));
+                 break;
+             case 'BOOK_DELETED':
+                 setBooks(prev => prev.filter(b => b.id !== change.id));
+                 break;
+             case 'MEMBER_ADDED':
+                 setMembers(prev => prev.some(m => m.id === change.id) ? prev : [...prev, change.member]);
+                 break;
+             case 'MEMBER_DELETED':
+                 setMembers(prev => prev.filter(m => m.id !== change.id));
+                 break;
+             default:
+                 scheduleReload();
+                 return;
+         }
+         if (change.transaction) setHistory(prev => [change.transaction, ...prev].slice(0, PAGE_SIZE));
      };
 
-     useEffect(() => { fetchAllData(); }, []);
+     useEffect(() => {
+         const source = new EventSource(`${API_URL}/changes`);
+         // A fresh stream starts at the newest change, so load everything once it is open; a resumed one missed nothing.
+         source.addEventListener('ready', (e) => {
+             liveRef.current = true;
+             if (!JSON.parse(e.data).resumed) fetchRef.current();
+         });
+         source.onmessage = (e) => {
+             const change = JSON.parse(e.data);
+             if (pendingRef.current) pendingRef.current.push(change); else applyChange(change);
+         };
+         source.onerror = () => { liveRef.current = false; }; // The browser reconnects and resumes by itself
+         return () => { source.close(); clearTimeout(reloadTimer.current); };
+     }, []); // eslint-disable-line react-hooks/exhaustive-deps
+
+     const fetchMoreBooks = async () => {
+         const seq = booksSeq.current;
+         try {
+             const res = await fetch(bookQuery(nextCursor));
+             if (!res.ok) throw new Error('Network response was not ok');
+             const booksPage = await res.json();
+             if (seq !== booksSeq.current) return; // The filters changed, so the list was reloaded meanwhile
+             // Books added live are prepended, which shifts the server's pages, so a later page can repeat some.
+             setBooks(prev => {
+                 const shown = new Set(prev.map(b => b.id));
+                 return [...prev, ...booksPage.items.filter(b => !shown.has(b.id))];
+             });
+             setNextCursor(booksPage.nextCursor);
+         } catch (err) { setError('Could not load more books. Please check the server connection.'); }
+     };
+
+     // Wait for a pause in typing rather than asking the server on every keystroke.
+     useEffect(() => {
+         const timer = setTimeout(() => setQuery(searchTerm), 300);
+         return () => clearTimeout(timer);
+     }, [searchTerm]);
+
+     // Filtering happens on the server, so reload the book list whenever the search or genre changes; members,
+     // genres and history do not depend on the filters, so only the first load fetches them too.
+     useEffect(() => {
+         if (loadedRef.current) { fetchBooks(); return; }
+         loadedRef.current = true;
+         fetchAllData();
+     }, [query, selectedGenre]); // eslint-disable-line react-hooks/exhaustive-deps
 
      const handleApiCall = (url, options) => {
          fetch(url, options)
@@ -177,7 +304,7 @@ import React, { useState, useMemo, useEffect } from 'react';
              }
              return res.json();
          })
-         .then(fetchAllData)
+         .then(() => { if (!liveRef.current) fetchAllData(); }) // When live, the change stream brings the update
          .catch(err => { console.error(err); setError('An action failed. Please check the server connection.'); });
      };
 
@@ -197,15 +324,6 @@ import React, { useState, useMemo, useEffect } from 'react';
          }
      };
 
-     const genres = useMemo(() => ['All', ...new Set(books.map(b => b.genre))], [books]);
-
-     const filteredBooks = useMemo(() => {
-         return books.filter(book =>
-             (selectedGenre === 'All' || book.genre === selectedGenre) &&
-             (book.title.toLowerCase().includes(searchTerm.toLowerCase()) || book.author.toLowerCase().includes(searchTerm.toLowerCase()))
-         );
-     }, [books, searchTerm, selectedGenre]);
-
      return (
          <div>
              <header className="header"><div className="header-content"><h1 className="header-title"><BookIcon /> Library Management System</h1></div></header>
@@ -226,8 +344,9 @@ import React, { useState, useMemo, useEffect } from 'react';
                          <button className="add-button" onClick={() => setModals({...modals, add: true})}><PlusCircleIcon /> Add New Book</button>
                      </div>
                      {error && (<div className="error-box"><strong>Error: </strong><span>{error}</span></div>)}
-                     <div className="book-grid">{filteredBooks.map(book => (<BookCard key={book.id} book={book} members={members} onIssueClick={(b) => { setBookToIssue(b); setModals({...modals, issue: true}); }} onReturnBook={handleReturnBook} onDeleteBook={handleDeleteBook} />))}</div>
-                     {filteredBooks.length === 0 && !error && (<div style={{ textAlign: 'center', padding: '4rem 0' }}><h2>No Books Found</h2><p>{searchTerm ? "Try adjusting your search." : "The library is empty."}</p></div>)}
+                     <div className="book-grid">{books.map(book => (<BookCard key={book.id} book={book} members={members} onIssueClick={(b) => { setBookToIssue(b); setModals({...modals, issue: true}); }} onReturnBook={handleReturnBook} onDeleteBook={handleDeleteBook} />))}</div>
+                     {nextCursor && (<div style={{ textAlign: 'center', padding: '1rem 0' }}><button className="add-button" onClick={fetchMoreBooks}>Load More</button></div>)}
+                     {books.length === 0 && !error && (<div style={{ textAlign: 'center', padding: '4rem 0' }}><h2>No Books Found</h2><p>{searchTerm ? "Try adjusting your search." : "The library is empty."}</p></div>)}
                  </main>
              </div>
              {modals.add && <AddBookModal onAddBook={handleAddBook} onClose={() => setModals({...modals, add: false})} />}
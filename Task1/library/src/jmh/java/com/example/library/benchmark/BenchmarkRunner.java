@@ -0,0 +1,51 @@
+package com.example.library.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the benchmarks once per thread count. Started by {@code mvn -Pjmh test-compile exec:exec}.
+ * <p>
+ * {@code --threads 1,4,16} picks the thread counts (default: 1 and the number of cores); every other argument
+ * goes to JMH unchanged, e.g. {@code -Djmh.args="--threads 1,8 -p catalogSize=100000 -rf json LibraryService"}.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() { }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        List<Integer> threadCounts = new ArrayList<>();
+        List<String> jmhArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                for (String count : args[++i].split(",")) { threadCounts.add(Integer.parseInt(count.trim())); }
+            } else {
+                jmhArgs.add(args[i]);
+            }
+        }
+        if (threadCounts.isEmpty()) {
+            threadCounts.add(1);
+            int cores = Runtime.getRuntime().availableProcessors();
+            if (cores > 1) { threadCounts.add(cores); }
+        }
+
+        CommandLineOptions options = new CommandLineOptions(jmhArgs.toArray(String[]::new));
+        for (int threads : threadCounts) {
+            ChainedOptionsBuilder builder = new OptionsBuilder().parent(options).threads(threads);
+            if (options.getResult().hasValue() && threadCounts.size() > 1) { builder.result(suffixed(options.getResult().get(), threads)); }
+            new Runner(builder.build()).run();
+        }
+    }
+
+    // results.json -> results-t4.json, so each thread count keeps its own result file.
+    private static String suffixed(String file, int threads) {
+        int dot = file.lastIndexOf('.');
+        return dot < 0 ? file + "-t" + threads : file.substring(0, dot) + "-t" + threads + file.substring(dot);
+    }
+}
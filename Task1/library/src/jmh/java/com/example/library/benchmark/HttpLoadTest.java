@@ -0,0 +1,186 @@
+package com.example.library.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Closed-loop HTTP load generator for comparing request execution modes.
+ * <p>
+ * Opens {@code --clients} concurrent connections, each sending its next request as soon as the previous answer
+ * arrives, and after {@code --warmup} seconds measures for {@code --seconds}. A {@code --writes} fraction of the
+ * requests issue a book and then return it; the rest page through the catalog or search it. It prints
+ * throughput and latency percentiles.
+ * <p>
+ * To compare modes, run the server on Java 21 (built with {@code -Pjava21}) with the journal on, so writes
+ * block on fsync: once as is and once with {@code LIBRARY_VIRTUAL_THREADS=true}. Then run the same load against
+ * each. The modes diverge once the client count exceeds Tomcat's worker threads (200 by default).
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbenchmark.main=com.example.library.benchmark.HttpLoadTest \
+ *     -Djmh.args="--clients 2000 --seconds 30 --writes 0.2"
+ * </pre>
+ */
+public final class HttpLoadTest {
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient http;
+    private final URI base;
+    private final List<String> bookIds;
+    private final List<String> memberIds;
+    private final double writes;
+    private final long measureFrom;
+    private final long deadline;
+    private final CountDownLatch finished;
+
+    private HttpLoadTest(HttpClient http, URI base, List<String> bookIds, List<String> memberIds, double writes,
+                         long measureFrom, long deadline, int clients) {
+        this.http = http;
+        this.base = base;
+        this.bookIds = bookIds;
+        this.memberIds = memberIds;
+        this.writes = writes;
+        this.measureFrom = measureFrom;
+        this.deadline = deadline;
+        this.finished = new CountDownLatch(clients);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) { options.put(args[i].replaceFirst("^--", ""), args[i + 1]); }
+        URI base = URI.create(options.getOrDefault("url", "http://localhost:8080"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        double writes = Double.parseDouble(options.getOrDefault("writes", "0.1"));
+
+        ExecutorService callbacks = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10)).executor(callbacks).build();
+        List<String> bookIds = ids(http, base.resolve("/api/books?limit=500"), true);
+        List<String> memberIds = ids(http, base.resolve("/api/members"), false);
+        if (bookIds.isEmpty() || memberIds.isEmpty()) { throw new IllegalStateException("Need at least one book on the shelf and one member"); }
+
+        long start = System.nanoTime();
+        long measureFrom = start + Duration.ofSeconds(warmup).toNanos();
+        HttpLoadTest test = new HttpLoadTest(http, base, bookIds, memberIds, writes, measureFrom,
+                measureFrom + Duration.ofSeconds(seconds).toNanos(), clients);
+        List<Client> running = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            Client client = test.new Client(new SplittableRandom(i));
+            running.add(client);
+            client.next();
+        }
+        test.finished.await();
+        callbacks.shutdown();
+        report(running, clients, seconds);
+    }
+
+    // Ids from a JSON array or a page of books; for books, only those on the shelf.
+    private static List<String> ids(HttpClient http, URI uri, boolean shelvedOnly) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+        JsonNode body = JSON.readTree(response.body());
+        JsonNode items = body.isArray() ? body : body.path("items");
+        List<String> ids = new ArrayList<>();
+        for (JsonNode item : items) {
+            if (!shelvedOnly || !item.path("issued").asBoolean()) { ids.add(item.path("id").asText()); }
+        }
+        return ids;
+    }
+
+    private static void report(List<Client> clients, int clientCount, int seconds) {
+        long total = 0;
+        long errors = 0;
+        long rejected = 0;
+        for (Client client : clients) {
+            total += client.count;
+            errors += client.errors;
+            rejected += client.rejected;
+        }
+        long[] all = new long[(int) total];
+        int at = 0;
+        for (Client client : clients) {
+            System.arraycopy(client.latencies, 0, all, at, client.count);
+            at += client.count;
+        }
+        Arrays.sort(all);
+        System.out.printf("clients=%d requests=%d throughput=%.0f req/s errors=%d issue-conflicts=%d%n",
+                clientCount, total, total / (double) seconds, errors, rejected);
+        System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 0.999), percentile(all, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) { return 0; }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /** One connection's request loop. Its callbacks run one after another, so its counters need no synchronization. */
+    private final class Client {
+        private final SplittableRandom random;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private long rejected;
+        private String toReturn; // Book this client has issued and returns with its next request
+
+        Client(SplittableRandom random) { this.random = random; }
+
+        void next() {
+            if (System.nanoTime() >= deadline && toReturn == null) {
+                finished.countDown();
+                return;
+            }
+            String returning = toReturn;
+            String issuing = returning == null && random.nextDouble() < writes ? bookIds.get(random.nextInt(bookIds.size())) : null;
+            HttpRequest request = returning != null ? post("/api/books/return", "{\"bookId\":\"" + returning + "\"}")
+                    : issuing != null ? post("/api/books/issue", "{\"bookId\":\"" + issuing + "\",\"memberId\":\"" + memberIds.get(random.nextInt(memberIds.size())) + "\"}")
+                    : read();
+            long start = System.nanoTime();
+            http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                long end = System.nanoTime();
+                int status = failure == null ? response.statusCode() : -1;
+                if (returning != null) { toReturn = null; }
+                if (issuing != null && status == 200) { toReturn = issuing; }
+                if (start >= measureFrom && end <= deadline) {
+                    if (issuing != null && status == 400) {
+                        rejected++; // Someone else holds the book; an expected outcome, not a failure
+                    } else if (status < 200 || status >= 300) {
+                        errors++;
+                    }
+                    record(end - start);
+                }
+                next();
+            });
+        }
+
+        private HttpRequest read() {
+            String path = random.nextInt(4) == 0 ? "/api/books/search?q=the&limit=20" : "/api/books?limit=50&cursor=" + random.nextInt(100);
+            return HttpRequest.newBuilder(base.resolve(path)).timeout(Duration.ofSeconds(60)).build();
+        }
+
+        private HttpRequest post(String path, String body) {
+            return HttpRequest.newBuilder(base.resolve(path)).timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) { latencies = Arrays.copyOf(latencies, count * 2); }
+            latencies[count++] = nanos;
+        }
+    }
+}
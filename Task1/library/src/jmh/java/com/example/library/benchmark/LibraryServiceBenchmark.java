@@ -0,0 +1,63 @@
+package com.example.library.benchmark;
+
+import com.example.library.model.Book;
+import com.example.library.model.ResultPage;
+import com.example.library.service.BookSort;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Hot paths of {@link com.example.library.service.LibraryService}; run with several thread counts through {@link BenchmarkRunner}. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LibraryServiceBenchmark {
+
+    private static String pick(String[] ids) { return ids[ThreadLocalRandom.current().nextInt(ids.length)]; }
+
+    @Benchmark
+    public Optional<Book> findBookById(LibraryState state) { return state.library.findBookById(pick(state.bookIds)); }
+
+    /** Grows the catalog as it runs; at the larger sizes the growth over a trial is small relative to the catalog. */
+    @Benchmark
+    public Book addBook(LibraryState state) { return state.library.addBook("Benchmark title", "Benchmark author", "Benchmark genre"); }
+
+    /** One issue and the matching return; concurrent threads sometimes pick the same book, and the loser's issue fails. */
+    @Benchmark
+    public void issueAndReturn(LibraryState state, Blackhole blackhole) {
+        String bookId = pick(state.shelvedBookIds);
+        Optional<Book> issued = state.library.issueBook(bookId, pick(state.memberIds));
+        if (issued.isPresent()) { blackhole.consume(state.library.returnBook(bookId)); }
+    }
+
+    /** The full listing, fines included; they are precomputed, so this measures the copy out of the store. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Book> getAllBooks(LibraryState state) { return state.library.getAllBooks(); }
+
+    /** What GET /api/books serves now: the first page of the newest-first listing. */
+    @Benchmark
+    public ResultPage<Book> firstPage(LibraryState state) { return state.library.findBooks(null, null, BookSort.NEWEST, 0, 50); }
+
+    /** The daily fine refresh, which visits only the overdue books. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void refreshFines(LibraryState state) { state.library.refreshFines(); }
+
+    /** Every member holds books, so this is the "has books on loan" check and a refusal, with no state change. */
+    @Benchmark
+    public boolean deleteMemberWithLoans(LibraryState state) { return state.library.deleteMember(pick(state.memberIds)); }
+}
@@ -0,0 +1,99 @@
+package com.example.library.benchmark;
+
+import com.example.library.feed.ChangeFeed;
+import com.example.library.feed.FeedProperties;
+import com.example.library.history.HistoryRetention;
+import com.example.library.model.Book;
+import com.example.library.model.Member;
+import com.example.library.persistence.LibraryJournal;
+import com.example.library.persistence.PersistenceProperties;
+import com.example.library.service.BookStore;
+import com.example.library.service.FinePolicy;
+import com.example.library.service.InMemoryBookStore;
+import com.example.library.service.LibraryService;
+import com.example.library.service.LoanPolicy;
+import com.example.library.service.MappedBookStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A library with {@code catalogSize} books and {@link #MEMBERS} members, built once per trial with the journal off.
+ * One book in ten is on loan, spread over the members, so member and fine lookups have something to find.
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+    static final int MEMBERS = 1000;
+    private static final int BATCH = 10_000;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int catalogSize;
+
+    @Param({ "memory", "mapped" })
+    public String backend;
+
+    LibraryService library;
+    String[] bookIds;
+    String[] shelvedBookIds; // Never issued during setup, for the issue/return benchmark
+    String[] memberIds;
+    private BookStore store;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void build() throws IOException {
+        if (backend.equals("mapped")) {
+            directory = Files.createTempDirectory("library-bench");
+            store = MappedBookStore.open(directory, true);
+        } else {
+            store = new InMemoryBookStore();
+        }
+        library = new LibraryService(store, new FinePolicy(), new LoanPolicy(), new HistoryRetention(), new LibraryJournal(new PersistenceProperties()), new ChangeFeed(new FeedProperties()), new SimpleMeterRegistry());
+
+        List<Member> members = new ArrayList<>(MEMBERS);
+        for (int i = 0; i < MEMBERS; i++) { members.add(new Member(null, "Member " + i)); }
+        library.addMembers(members);
+        memberIds = members.stream().map(Member::getId).toArray(String[]::new);
+
+        bookIds = new String[catalogSize];
+        List<Book> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < catalogSize; i++) {
+            batch.add(new Book(null, "Title " + i, "Author " + (i % 5000), "Genre " + (i % 40)));
+            if (batch.size() == BATCH || i == catalogSize - 1) {
+                library.addBooks(batch);
+                for (int j = 0; j < batch.size(); j++) { bookIds[i - batch.size() + 1 + j] = batch.get(j).getId(); }
+                batch.clear();
+            }
+        }
+        List<String> shelved = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            if (i % 10 == 0) {
+                library.issueBook(bookIds[i], memberIds[i % MEMBERS]);
+            } else if (i % 10 == 5) {
+                shelved.add(bookIds[i]);
+            }
+        }
+        shelvedBookIds = shelved.toArray(String[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        if (store instanceof Closeable closeable) { closeable.close(); }
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) { Files.deleteIfExists(path); }
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.library.benchmark;
+
+import com.example.library.json.ColumnSchema;
+import com.example.library.json.ColumnarPage;
+import com.example.library.json.LibraryJsonModule;
+import com.example.library.json.ResponseFormat;
+import com.example.library.model.Book;
+import com.example.library.model.ResultPage;
+import com.example.library.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Jackson serialization of book and history pages, configured as Spring Boot configures it for the controllers.
+ * <p>
+ * {@code encoding} compares the reflective bean serializers ("reflective", the format before
+ * {@link LibraryJsonModule}), the precomputed serializers with the same output ("tuned") and the
+ * {@code ?format=columns} encoding ("columns"). Setup prints each payload's size, raw and gzipped, since
+ * bytes on the wire matter as much as CPU for large lists.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Pages {
+        @Param({ "reflective", "tuned", "columns" })
+        public String encoding;
+
+        ObjectWriter writer;
+        Object page;
+        Object all;
+        Object history;
+
+        @Setup(Level.Trial)
+        public void load(LibraryState state) throws IOException {
+            Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+            if (!encoding.equals("reflective")) { builder.modulesToInstall(new LibraryJsonModule()); }
+            writer = builder.build().writer();
+            ResponseFormat format = encoding.equals("columns") ? ResponseFormat.COLUMNS : ResponseFormat.JSON;
+
+            List<Book> books = state.library.getAllBooks();
+            page = ColumnarPage.of(format, new ResultPage<>(books.subList(0, Math.min(50, books.size())), books.size(), "50"), ColumnSchema.BOOKS);
+            all = ColumnarPage.of(format, new ResultPage<>(books, books.size(), null), ColumnSchema.BOOKS);
+            ResultPage<Transaction> transactions = state.library.findHistory(null, null, null, null, null, 500);
+            history = ColumnarPage.of(format, transactions, ColumnSchema.TRANSACTIONS);
+
+            System.out.printf("%n%s payload bytes (raw / gzip): page %s, all %s, history %s%n",
+                    encoding, sizes(page), sizes(all), sizes(history));
+        }
+
+        private String sizes(Object value) throws IOException {
+            byte[] raw = writer.writeValueAsBytes(value);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) { gzip.write(raw); }
+            return raw.length + " / " + compressed.size();
+        }
+    }
+
+    @Benchmark
+    public void serializePage(Pages pages) throws IOException { pages.writer.writeValue(OutputStream.nullOutputStream(), pages.page); }
+
+    @Benchmark
+    public void serializeHistory(Pages pages) throws IOException { pages.writer.writeValue(OutputStream.nullOutputStream(), pages.history); }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void serializeAll(Pages pages) throws IOException { pages.writer.writeValue(OutputStream.nullOutputStream(), pages.all); }
+}
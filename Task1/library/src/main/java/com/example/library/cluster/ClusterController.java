@@ -0,0 +1,144 @@
+package com.example.library.cluster;
+
+import com.example.library.model.ClusterPage;
+import com.example.library.service.BookSort;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The library as a whole, across every branch of a partitioned deployment; see {@link ClusterRouter}.
+ * Mirrors the branch endpoints under {@code /api/cluster}, adding a {@code branch} field to the books and members
+ * it returns. All of it answers 404 when no branches are configured.
+ */
+@RestController
+@RequestMapping("/api/cluster")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ClusterController {
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+
+    private final ClusterRouter router;
+    private final ClusterProperties properties;
+
+    @Autowired
+    public ClusterController(ClusterRouter router, ClusterProperties properties) {
+        this.router = router;
+        this.properties = properties;
+    }
+
+    @GetMapping("/branches")
+    public ResponseEntity<Map<String, Object>> getBranches() {
+        if (!router.enabled()) { return ResponseEntity.notFound().build(); }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("self", properties.getSelf());
+        body.put("branches", properties.getBranches());
+        return ResponseEntity.ok(body);
+    }
+
+    // Book Endpoints: listings and searches are gathered from every branch, single books routed to their branch
+    @GetMapping("/books")
+    public ResponseEntity<ClusterPage> getBooks(@RequestParam(required = false) String genre,
+                                                @RequestParam(required = false) String q,
+                                                @RequestParam(required = false) String sort,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (!router.enabled()) { return ResponseEntity.notFound().build(); }
+        BookSort order = BookSort.parse(sort);
+        if (order == null) { return ResponseEntity.badRequest().build(); }
+        Map<String, String> query = new LinkedHashMap<>();
+        query.put("genre", genre);
+        query.put("q", q);
+        query.put("sort", sort);
+        return page(router.gather("/api/books", query, order, cursor, pageSize(limit)));
+    }
+
+    @GetMapping("/books/search")
+    public ResponseEntity<ClusterPage> searchBooks(@RequestParam String q,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (!router.enabled()) { return ResponseEntity.notFound().build(); }
+        return page(router.gather("/api/books/search", Map.of("q", q), null, cursor, pageSize(limit)));
+    }
+
+    @GetMapping("/books/{id}")
+    public ResponseEntity<byte[]> getBook(@PathVariable String id) {
+        if (!router.enabled()) { return ResponseEntity.notFound().build(); }
+        return relay(router.getBook(id));
+    }
+
+    // As the branch endpoint, plus an optional "branch" naming where the book goes; this instance's branch by default
+    @PostMapping("/books")
+    public ResponseEntity<byte[]> addBook(@RequestBody Map<String, String> payload) {
+        if (!router.enabled()) { return ResponseEntity.notFound().build(); }
+        String branch = router.branchOrSelf(payload.get("branch"));
+        if (branch == null) { return ResponseEntity.badRequest().build(); }
+        Map<String, String> book = new LinkedHashMap<>(payload);
+        book.remove("branch");
+        return relay(router.addBook(branch, book));
+    }
+
+    @DeleteMapping("/books/{id}")
+    public ResponseEntity<byte[]> deleteBook(@PathVariable String id) {
+        if (!router.enabled()) { return ResponseEntity.notFound().build(); }
+        return relay(router.deleteBook(id));
+    }
+
+    @PostMapping("/books/issue")
+    public ResponseEntity<byte[]> issueBook(@RequestBody Map<String, String> payload) {
+        if (!router.enabled()) { return ResponseEntity.notFound().build(); }
+        return relay(router.issue(payload.get("bookId"), payload.get("memberId")));
+    }
+
+    @PostMapping("/books/return")
+    public ResponseEntity<byte[]> returnBook(@RequestBody Map<String, String> payload) {
+        if (!router.enabled()) { return ResponseEntity.notFound().build(); }
+        return relay(router.returnBook(payload.get("bookId")));
+    }
+
+    // Inter-branch transfer of a book on the shelf: {bookId, branch}. 409 while the book is on loan; 500, naming
+    // both branches, if a failed move could not be undone and the book needs repair by hand.
+    @PostMapping("/transfers")
+    public ResponseEntity<byte[]> transfer(@RequestBody Map<String, String> payload) {
+        if (!router.enabled()) { return ResponseEntity.notFound().build(); }
+        if (!router.hasBranch(payload.get("branch"))) { return ResponseEntity.badRequest().build(); }
+        return relay(router.transfer(payload.get("bookId"), payload.get("branch")));
+    }
+
+    // Member Endpoints
+    @GetMapping("/members")
+    public ResponseEntity<ClusterPage> getMembers() {
+        if (!router.enabled()) { return ResponseEntity.notFound().build(); }
+        return ResponseEntity.ok(router.members());
+    }
+
+    @PostMapping("/members")
+    public ResponseEntity<byte[]> addMember(@RequestBody Map<String, String> payload) {
+        if (!router.enabled()) { return ResponseEntity.notFound().build(); }
+        String branch = router.branchOrSelf(payload.get("branch"));
+        if (branch == null) { return ResponseEntity.badRequest().build(); }
+        return relay(router.addMember(branch, Map.of("name", String.valueOf(payload.get("name")))));
+    }
+
+    @DeleteMapping("/members/{id}")
+    public ResponseEntity<byte[]> deleteMember(@PathVariable String id) {
+        if (!router.enabled()) { return ResponseEntity.notFound().build(); }
+        return relay(router.deleteMember(id));
+    }
+
+    private static ResponseEntity<ClusterPage> page(Optional<ClusterPage> page) {
+        return page.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.badRequest().build());
+    }
+
+    // A branch's answer passed on as is; bodies of successful calls are JSON.
+    private static ResponseEntity<byte[]> relay(ClusterRouter.Reply reply) {
+        if (reply.body().length == 0) { return ResponseEntity.status(reply.status()).build(); }
+        return ResponseEntity.status(reply.status()).contentType(MediaType.APPLICATION_JSON).body(reply.body());
+    }
+
+    private static int pageSize(int limit) { return Math.max(1, Math.min(limit, MAX_PAGE_SIZE)); }
+}
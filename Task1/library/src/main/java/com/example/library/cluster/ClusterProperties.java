@@ -0,0 +1,28 @@
+package com.example.library.cluster;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Branches of a partitioned library, bound from the {@code library.cluster.*} properties. Each branch is a
+ * separate instance holding its own books; the {@code /api/cluster} endpoints of any instance route across all
+ * of them. With no branches configured the instance runs alone and those endpoints answer 404.
+ * <p>
+ * Three branches on one machine, each started with the same branch list and its own port and name:
+ * <pre>
+ * java -jar library.jar --server.port=8081 --library.cluster.self=north \
+ *     --library.cluster.branches.north=http://localhost:8081 \
+ *     --library.cluster.branches.south=http://localhost:8082 \
+ *     --library.cluster.branches.east=http://localhost:8083
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "library.cluster")
+public class ClusterProperties {
+    private String self;                                          // This instance's branch; the default target for new records
+    private Map<String, String> branches = new LinkedHashMap<>(); // Branch name -> base URL, this branch included
+    private int timeoutMillis = 5000;                             // Per call to a branch; slower branches count as unavailable
+    private int locationCacheSize = 100_000;                      // Book ids whose branch is remembered
+}
@@ -0,0 +1,445 @@
+package com.example.library.cluster;
+
+import com.example.library.model.ClusterPage;
+import com.example.library.service.BookSort;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Routes library calls across the branches of a partitioned library.
+ * <p>
+ * Every book lives on exactly one branch, the one it was added to or last transferred to. The router remembers
+ * where it has seen each book; for a book it has not seen, it asks every branch at once. Calls for one book go to
+ * its branch. Listings and searches go to every branch in parallel and are merged into one page, whose cursor
+ * carries an offset per branch.
+ * <p>
+ * Members are enrolled at a home branch, and are copied under the same id to any other branch they borrow from,
+ * since an issue must be checked against the book's branch alone. Loan limits therefore apply per branch.
+ * Branches talk to each other only through their public {@code /api} endpoints, so any instance can route.
+ */
+@Component
+public class ClusterRouter {
+    /** Status reported for a branch that could not be reached in time. */
+    public static final int UNREACHABLE = 502;
+    /** Status reported when a failed transfer could not be undone, leaving the book on two branches. */
+    public static final int NEEDS_REPAIR = 500;
+    private static final Logger log = LoggerFactory.getLogger(ClusterRouter.class);
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String JSON = "application/json";
+    // Search hits: the index's ranking, best score first and ties by id, which scores from any branch share.
+    private static final Comparator<JsonNode> BY_SCORE = Comparator.comparingInt((JsonNode node) -> node.path("score").asInt())
+            .reversed().thenComparing(node -> node.path("id").asText());
+
+    private final ClusterProperties properties;
+    private final ObjectMapper json;
+    private final HttpClient http;
+    private final List<String> names;
+    private final Map<String, String> locations = new ConcurrentHashMap<>(); // book id -> branch
+
+    /** A branch's answer: its status code and body. */
+    public record Reply(int status, byte[] body) {
+        public boolean ok() { return status >= 200 && status < 300; }
+    }
+
+    @Autowired
+    public ClusterRouter(ClusterProperties properties, ObjectMapper json) {
+        this.properties = properties;
+        this.json = json;
+        this.names = List.copyOf(properties.getBranches().keySet());
+        this.http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(properties.getTimeoutMillis())).build();
+    }
+
+    public boolean enabled() { return !names.isEmpty(); }
+    public List<String> branches() { return names; }
+    public boolean hasBranch(String name) { return name != null && properties.getBranches().containsKey(name); }
+
+    /** The named branch, or this instance's own branch when none is named; null if the name is unknown. */
+    public String branchOrSelf(String name) {
+        String branch = name == null || name.isBlank() ? properties.getSelf() : name;
+        return hasBranch(branch) ? branch : null;
+    }
+
+    // --- Books ---
+
+    /** The branch holding the book, from memory or by asking every branch; empty if none has it. */
+    public Optional<String> locate(String bookId) {
+        if (bookId == null || bookId.isBlank()) { return Optional.empty(); }
+        String known = locations.get(bookId);
+        if (known != null) { return Optional.of(known); }
+        Map<String, CompletableFuture<Reply>> replies = scatter("GET", "/api/books/" + encode(bookId));
+        for (Map.Entry<String, CompletableFuture<Reply>> reply : replies.entrySet()) {
+            if (reply.getValue().join().status() == 200) {
+                remember(bookId, reply.getKey());
+                return Optional.of(reply.getKey());
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Reply getBook(String bookId) {
+        return onOwner(bookId, branch -> withBranch(send(branch, "GET", "/api/books/" + encode(bookId), null, null).join(), branch));
+    }
+
+    public Reply addBook(String branch, Map<String, String> payload) {
+        Reply reply = send(branch, "POST", "/api/books", JSON, write(payload)).join();
+        if (reply.ok()) { remember(read(reply).path("id").asText(), branch); }
+        return withBranch(reply, branch);
+    }
+
+    public Reply deleteBook(String bookId) {
+        Reply reply = onOwner(bookId, branch -> send(branch, "DELETE", "/api/books/" + encode(bookId), null, null).join());
+        if (reply.ok()) { locations.remove(bookId); }
+        return reply;
+    }
+
+    /** Issues the book on its branch, first copying the member there from their home branch if needed. */
+    public Reply issue(String bookId, String memberId) {
+        return onOwner(bookId, branch -> {
+            Reply member = send(branch, "GET", "/api/members/" + encode(memberId), null, null).join();
+            if (member.status() == 404) {
+                Optional<JsonNode> found = findMember(memberId);
+                if (found.isEmpty()) { return new Reply(400, new byte[0]); }
+                Map<String, String> copy = Map.of("id", memberId, "name", found.get().path("name").asText());
+                Reply enrolled = send(branch, "POST", "/api/members/bulk", NDJSON, ndjson(copy)).join();
+                if (!enrolled.ok()) { return enrolled; }
+            } else if (!member.ok()) {
+                return member;
+            }
+            return withBranch(send(branch, "POST", "/api/books/issue", JSON, write(Map.of("bookId", bookId, "memberId", memberId))).join(), branch);
+        });
+    }
+
+    public Reply returnBook(String bookId) {
+        return onOwner(bookId, branch -> withBranch(send(branch, "POST", "/api/books/return", JSON, write(Map.of("bookId", bookId))).join(), branch));
+    }
+
+    /**
+     * Moves a book on the shelf to another branch, keeping its id: the target imports a copy, then the source
+     * deletes the original. The delete is the commit point; it fails if the book was issued or moved meanwhile,
+     * and the copy is then deleted again. Transfers racing through different routers settle the same way, since
+     * only one delete can succeed. History and statistics of the book's past loans stay with the source.
+     * <p>
+     * The copy can be issued on the target before the source delete runs. If the delete then fails, the copy is on
+     * loan and cannot be deleted, so the book is left on both branches; that is reported as {@link #NEEDS_REPAIR}
+     * and logged, rather than as an ordinary conflict, since someone has to settle which copy stays.
+     * @return 200 with the book at its new branch, 404 if there is no such book, 409 if it is on loan or was
+     * changed during the move, {@link #NEEDS_REPAIR} with both branches named if the move could not be undone,
+     * or the failing branch's status.
+     */
+    public Reply transfer(String bookId, String target) {
+        Optional<String> source = locate(bookId);
+        Reply original = source.isEmpty() ? null : send(source.get(), "GET", "/api/books/" + encode(bookId), null, null).join();
+        if (original != null && original.status() == 404) { // Moved since it was last seen
+            locations.remove(bookId, source.get());
+            source = locate(bookId);
+            original = source.isEmpty() ? null : send(source.get(), "GET", "/api/books/" + encode(bookId), null, null).join();
+        }
+        if (original == null) { return new Reply(404, new byte[0]); }
+        if (!original.ok()) { return original; }
+        if (source.get().equals(target)) { return withBranch(original, target); }
+        JsonNode book = read(original);
+        if (book.path("issued").asBoolean()) { return new Reply(409, new byte[0]); }
+
+        Map<String, String> copy = new LinkedHashMap<>();
+        for (String field : List.of("id", "title", "author", "genre")) {
+            if (book.hasNonNull(field)) { copy.put(field, book.get(field).asText()); }
+        }
+        Reply imported = send(target, "POST", "/api/books/bulk", NDJSON, ndjson(copy)).join();
+        if (!imported.ok()) { return imported; }
+        if (read(imported).path("imported").asInt() != 1) { return new Reply(409, new byte[0]); } // Id taken on the target
+
+        Reply deleted = send(source.get(), "DELETE", "/api/books/" + encode(bookId), null, null).join();
+        if (!deleted.ok()) {
+            Reply undone = send(target, "DELETE", "/api/books/" + encode(bookId), null, null).join();
+            locations.remove(bookId);
+            // A branch answers 404 both for a missing book and for one on loan, so ask whether the copy is still there.
+            if (!undone.ok() && send(target, "GET", "/api/books/" + encode(bookId), null, null).join().status() != 404) {
+                log.error("Transfer of book {} from {} to {} failed (delete answered {}) and could not be undone "
+                        + "(delete of the copy answered {}); the book is on both branches and needs manual repair",
+                        bookId, source.get(), target, deleted.status(), undone.status());
+                Map<String, Object> problem = new LinkedHashMap<>();
+                problem.put("error", "Transfer could not be undone; the book is on both branches");
+                problem.put("bookId", bookId);
+                problem.put("branches", List.of(source.get(), target));
+                return new Reply(NEEDS_REPAIR, write(problem));
+            }
+            return new Reply(deleted.status() == UNREACHABLE ? UNREACHABLE : 409, new byte[0]);
+        }
+        remember(bookId, target);
+        return withBranch(send(target, "GET", "/api/books/" + encode(bookId), null, null).join(), target);
+    }
+
+    /**
+     * One page of a branch listing, gathered from every branch and merged in the listing's order: by relevance for
+     * searches, whose pages carry each item's score (added to the merged items as {@code score}), by the sort key
+     * where there is one, otherwise taking from each branch in turn. Each branch is asked for a full page from its
+     * own offset in the cursor, so a page needs one round of parallel calls however the items fall.
+     * @param path a branch endpoint returning a page, such as {@code /api/books}
+     * @param query its parameters other than cursor and limit; null values are left out
+     * @return empty if the cursor is malformed
+     */
+    public Optional<ClusterPage> gather(String path, Map<String, String> query, BookSort sort, String cursor, int limit) {
+        long[] offsets = parseCursor(cursor);
+        if (offsets == null) { return Optional.empty(); }
+        Map<String, CompletableFuture<Reply>> replies = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            Map<String, String> params = new LinkedHashMap<>(query);
+            params.put("cursor", String.valueOf(offsets[i]));
+            params.put("limit", String.valueOf(limit));
+            replies.put(names.get(i), send(names.get(i), "GET", path + queryString(params), null, null));
+        }
+
+        List<String> unavailable = new ArrayList<>();
+        List<List<JsonNode>> items = new ArrayList<>();
+        long[] totals = new long[names.size()];
+        boolean ranked = false;
+        for (int i = 0; i < names.size(); i++) {
+            Reply reply = replies.get(names.get(i)).join();
+            List<JsonNode> branchItems = new ArrayList<>();
+            if (reply.ok()) {
+                JsonNode page = read(reply);
+                totals[i] = page.path("total").asLong();
+                JsonNode scores = page.path("scores");
+                ranked |= scores.isArray();
+                for (JsonNode item : page.path("items")) {
+                    JsonNode entry = tagged(item, names.get(i));
+                    if (scores.isArray() && entry.isObject()) { ((ObjectNode) entry).put("score", scores.path(branchItems.size()).asInt()); }
+                    branchItems.add(entry);
+                }
+            } else {
+                unavailable.add(names.get(i));
+            }
+            items.add(branchItems);
+        }
+
+        Comparator<JsonNode> order = ranked ? BY_SCORE : mergeOrder(sort);
+        int[] taken = new int[names.size()];
+        List<JsonNode> merged = new ArrayList<>(limit);
+        int turn = 0;
+        while (merged.size() < limit) {
+            int next = -1;
+            for (int k = 0; k < names.size(); k++) {
+                int i = order == null ? (turn + k) % names.size() : k;
+                if (taken[i] == items.get(i).size()) { continue; }
+                if (order == null) {
+                    next = i;
+                    break;
+                }
+                if (next < 0 || order.compare(items.get(i).get(taken[i]), items.get(next).get(taken[next])) < 0) { next = i; }
+            }
+            if (next < 0) { break; }
+            merged.add(items.get(next).get(taken[next]++));
+            turn = next + 1;
+        }
+
+        long total = 0;
+        boolean more = false;
+        StringBuilder nextCursor = new StringBuilder();
+        for (int i = 0; i < names.size(); i++) {
+            long offset = offsets[i] + taken[i];
+            total += totals[i];
+            more |= !unavailable.contains(names.get(i)) && offset < totals[i];
+            nextCursor.append(i == 0 ? "" : ".").append(offset);
+        }
+        if (path.startsWith("/api/books")) {
+            for (JsonNode book : merged) { remember(book.path("id").asText(), book.path("branch").asText()); }
+        }
+        return Optional.of(new ClusterPage(merged, total, more ? nextCursor.toString() : null, unavailable));
+    }
+
+    // --- Members ---
+
+    /** Every member of every branch, once each, with the branches that hold them. */
+    public ClusterPage members() {
+        Map<String, CompletableFuture<Reply>> replies = scatter("GET", "/api/members");
+        Map<String, ObjectNode> byId = new LinkedHashMap<>();
+        List<String> unavailable = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<Reply>> reply : replies.entrySet()) {
+            Reply answer = reply.getValue().join();
+            if (!answer.ok()) {
+                unavailable.add(reply.getKey());
+                continue;
+            }
+            for (JsonNode member : read(answer)) {
+                ObjectNode entry = byId.computeIfAbsent(member.path("id").asText(), id -> {
+                    ObjectNode node = member.deepCopy();
+                    node.putArray("branches");
+                    return node;
+                });
+                entry.withArray("branches").add(reply.getKey());
+            }
+        }
+        return new ClusterPage(new ArrayList<>(byId.values()), byId.size(), null, unavailable);
+    }
+
+    public Reply addMember(String branch, Map<String, String> payload) {
+        return withBranch(send(branch, "POST", "/api/members", JSON, write(payload)).join(), branch);
+    }
+
+    /**
+     * Deletes the member from every branch holding them, provided none of those branches has them on loan.
+     * @return 204, 404 if no branch has the member, 409 if they hold books (or took one out during the delete),
+     * or {@link #UNREACHABLE} if a branch could not be checked, in which case nothing is deleted.
+     */
+    public Reply deleteMember(String memberId) {
+        Map<String, CompletableFuture<Reply>> loans = scatter("GET", "/api/members/" + encode(memberId) + "/loans");
+        List<String> holding = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<Reply>> reply : loans.entrySet()) {
+            Reply answer = reply.getValue().join();
+            if (answer.status() == 404) { continue; }
+            if (!answer.ok()) { return new Reply(UNREACHABLE, new byte[0]); }
+            if (!read(answer).isEmpty()) { return new Reply(409, new byte[0]); }
+            holding.add(reply.getKey());
+        }
+        if (holding.isEmpty()) { return new Reply(404, new byte[0]); }
+        int status = 204;
+        for (String branch : holding) {
+            if (!send(branch, "DELETE", "/api/members/" + encode(memberId), null, null).join().ok()) { status = 409; }
+        }
+        return new Reply(status, new byte[0]);
+    }
+
+    private Optional<JsonNode> findMember(String memberId) {
+        for (CompletableFuture<Reply> reply : scatter("GET", "/api/members/" + encode(memberId)).values()) {
+            Reply answer = reply.join();
+            if (answer.status() == 200) { return Optional.of(read(answer)); }
+        }
+        return Optional.empty();
+    }
+
+    // --- Plumbing ---
+
+    // Runs the call on the book's branch. If it fails because the book has since moved, finds it again and retries once.
+    private Reply onOwner(String bookId, Function<String, Reply> call) {
+        Optional<String> owner = locate(bookId);
+        if (owner.isEmpty()) { return new Reply(404, new byte[0]); }
+        Reply reply = call.apply(owner.get());
+        if (reply.ok() || reply.status() == UNREACHABLE) { return reply; }
+        if (send(owner.get(), "GET", "/api/books/" + encode(bookId), null, null).join().status() != 404) { return reply; }
+        locations.remove(bookId, owner.get());
+        owner = locate(bookId);
+        return owner.isEmpty() ? new Reply(404, new byte[0]) : call.apply(owner.get());
+    }
+
+    private Map<String, CompletableFuture<Reply>> scatter(String method, String path) {
+        Map<String, CompletableFuture<Reply>> replies = new LinkedHashMap<>();
+        for (String branch : names) { replies.put(branch, send(branch, method, path, null, null)); }
+        return replies;
+    }
+
+    private CompletableFuture<Reply> send(String branch, String method, String path, String contentType, byte[] body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(properties.getBranches().get(branch) + path))
+                .timeout(Duration.ofMillis(properties.getTimeoutMillis()))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+        if (contentType != null) { request.header("Content-Type", contentType); }
+        return http.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> new Reply(response.statusCode(), response.body()))
+                .exceptionally(failure -> new Reply(UNREACHABLE, new byte[0]));
+    }
+
+    private void remember(String bookId, String branch) {
+        if (locations.size() >= properties.getLocationCacheSize()) { locations.clear(); }
+        locations.put(bookId, branch);
+    }
+
+    // A successful JSON object reply with the branch it came from added.
+    private Reply withBranch(Reply reply, String branch) {
+        if (!reply.ok() || reply.body().length == 0) { return reply; }
+        return new Reply(reply.status(), write(tagged(read(reply), branch)));
+    }
+
+    private static JsonNode tagged(JsonNode item, String branch) {
+        if (!item.isObject()) { return item; }
+        ObjectNode copy = ((ObjectNode) item).deepCopy();
+        copy.put("branch", branch);
+        return copy;
+    }
+
+    // Merge order for a listing sort; null where the branches' own order has no global meaning.
+    private static Comparator<JsonNode> mergeOrder(BookSort sort) {
+        String field = switch (sort == null ? BookSort.NEWEST : sort) {
+            case TITLE -> "title";
+            case AUTHOR -> "author";
+            case DUE_DATE -> "dueDate";
+            default -> null;
+        };
+        if (field == null) { return null; }
+        return Comparator.comparing(node -> node.hasNonNull(field) ? node.get(field).asText() : null,
+                Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+    }
+
+    // One offset per branch, dot-separated; null when malformed.
+    private long[] parseCursor(String cursor) {
+        long[] offsets = new long[names.size()];
+        if (cursor == null || cursor.isBlank()) { return offsets; }
+        String[] parts = cursor.split("\\.", -1);
+        if (parts.length != names.size()) { return null; }
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                offsets[i] = Long.parseLong(parts[i]);
+                if (offsets[i] < 0 || offsets[i] > Integer.MAX_VALUE) { return null; }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return offsets;
+    }
+
+    private static String queryString(Map<String, String> params) {
+        StringBuilder query = new StringBuilder();
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            if (param.getValue() == null) { continue; }
+            query.append(query.isEmpty() ? '?' : '&').append(encode(param.getKey())).append('=').append(encode(param.getValue()));
+        }
+        return query.toString();
+    }
+
+    private static String encode(String value) { return URLEncoder.encode(value == null ? "" : value, StandardCharsets.UTF_8); }
+
+    private byte[] ndjson(Map<String, String> row) {
+        byte[] line = write(row);
+        byte[] body = new byte[line.length + 1];
+        System.arraycopy(line, 0, body, 0, line.length);
+        body[line.length] = '\n';
+        return body;
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return json.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private JsonNode read(Reply reply) {
+        try {
+            return json.readTree(reply.body());
+        } catch (IOException e) {
+            throw new IllegalStateException("Branch sent malformed JSON", e);
+        }
+    }
+}
@@ -1,72 +1,382 @@
 package com.example.library.controller;
 
+import com.example.library.feed.ChangeStream;
+import com.example.library.json.ColumnSchema;
+import com.example.library.json.ColumnarPage;
+import com.example.library.json.ResponseFormat;
+import com.example.library.model.BatchItem;
+import com.example.library.model.BatchResult;
 import com.example.library.model.Book;
+import com.example.library.model.ImportResult;
 import com.example.library.model.Member;
-import com.example.library.model.Transaction;
+import com.example.library.model.ReminderBatch;
+import com.example.library.persistence.LibraryJournal;
+import com.example.library.service.BookSort;
 import com.example.library.service.LibraryService;
+import com.example.library.stats.CirculationStats;
+import com.example.library.transfer.BulkFormat;
+import com.example.library.transfer.CatalogTransfer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "http://localhost:3000")
 public class BookController {
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_BATCH_SIZE = 1000;
+    static final int MAX_TOP = 100;
+
     private final LibraryService libraryService;
+    private final CatalogTransfer catalogTransfer;
+    private final ChangeStream changeStream;
+    private final ResponseCache responseCache;
+    // Outcomes of the state-changing calls, exported as library.circulation{operation, outcome, status}
+    private final Counter issued, issueRejected, returned, returnRejected, bookDeleted, bookNotFound, memberDeleted, memberConflict;
 
     @Autowired
-    public BookController(LibraryService libraryService) { this.libraryService = libraryService; }
+    public BookController(LibraryService libraryService, CatalogTransfer catalogTransfer, ChangeStream changeStream, ResponseCache responseCache, MeterRegistry registry) {
+        this.libraryService = libraryService;
+        this.catalogTransfer = catalogTransfer;
+        this.changeStream = changeStream;
+        this.responseCache = responseCache;
+        this.issued = outcome(registry, "issue", "issued", HttpStatus.OK);
+        this.issueRejected = outcome(registry, "issue", "rejected", HttpStatus.BAD_REQUEST);
+        this.returned = outcome(registry, "return", "returned", HttpStatus.OK);
+        this.returnRejected = outcome(registry, "return", "rejected", HttpStatus.BAD_REQUEST);
+        this.bookDeleted = outcome(registry, "delete_book", "deleted", HttpStatus.NO_CONTENT);
+        this.bookNotFound = outcome(registry, "delete_book", "not_found", HttpStatus.NOT_FOUND);
+        this.memberDeleted = outcome(registry, "delete_member", "deleted", HttpStatus.NO_CONTENT);
+        this.memberConflict = outcome(registry, "delete_member", "conflict", HttpStatus.CONFLICT);
+    }
+
+    private static Counter outcome(MeterRegistry registry, String operation, String outcome, HttpStatus status) {
+        return Counter.builder("library.circulation")
+                .tag("operation", operation).tag("outcome", outcome).tag("status", String.valueOf(status.value()))
+                .register(registry);
+    }
 
     // Book Endpoints
+    // Read endpoints answer If-None-Match with 304 while the collection's version is unchanged.
+    // Paged ones also take ?format=columns for the compact array-of-columns encoding.
     @GetMapping("/books")
-    public List<Book> getAllBooks() { return libraryService.getAllBooks(); }
+    public ResponseEntity<byte[]> getBooks(@RequestParam(required = false) String genre,
+                                           @RequestParam(required = false) String q,
+                                           @RequestParam(required = false) String sort,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                           @RequestParam(required = false) String format,
+                                           ServletWebRequest request) throws JsonProcessingException {
+        Integer offset = parseCursor(cursor);
+        ResponseFormat shape = ResponseFormat.parse(format);
+        BookSort order = BookSort.parse(sort);
+        if (offset == null || shape == null || order == null) { return ResponseEntity.badRequest().build(); }
+        return conditional(request, libraryService.booksVersion(),
+                () -> ColumnarPage.of(shape, libraryService.findBooks(genre, q, order, offset, pageSize(limit)), ColumnSchema.BOOKS));
+    }
+
+    @GetMapping("/books/search")
+    public ResponseEntity<byte[]> searchBooks(@RequestParam String q,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                              @RequestParam(required = false) String format,
+                                              ServletWebRequest request) throws JsonProcessingException {
+        Integer offset = parseCursor(cursor);
+        ResponseFormat shape = ResponseFormat.parse(format);
+        if (offset == null || shape == null) { return ResponseEntity.badRequest().build(); }
+        return conditional(request, libraryService.booksVersion(),
+                () -> ColumnarPage.of(shape, libraryService.searchBooks(q, offset, pageSize(limit)), ColumnSchema.BOOKS));
+    }
+
+    // Issued books by due date, earliest first: all overdue ones, or those due within ?within=3d (or plain days)
+    @GetMapping("/books/overdue")
+    public ResponseEntity<byte[]> getOverdue(@RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                             @RequestParam(required = false) String format,
+                                             ServletWebRequest request) throws JsonProcessingException {
+        return dueBetween(null, LocalDate.now().minusDays(1), cursor, limit, format, request);
+    }
+
+    @GetMapping("/books/due")
+    public ResponseEntity<byte[]> getDue(@RequestParam(defaultValue = "3d") String within,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                         @RequestParam(required = false) String format,
+                                         ServletWebRequest request) throws JsonProcessingException {
+        Integer days = parseDays(within);
+        if (days == null) { return ResponseEntity.badRequest().build(); }
+        LocalDate today = LocalDate.now();
+        return dueBetween(today, today.plusDays(days), cursor, limit, format, request);
+    }
+
+    // Due lists depend on the date as well as the catalog, so the date is part of their version.
+    private ResponseEntity<byte[]> dueBetween(LocalDate from, LocalDate to, String cursor, int limit, String format, ServletWebRequest request) throws JsonProcessingException {
+        ResponseFormat shape = ResponseFormat.parse(format);
+        if (shape == null) { return ResponseEntity.badRequest().build(); }
+        String version = libraryService.booksVersion() + "-" + LocalDate.now();
+        try {
+            return conditional(request, version, () -> ColumnarPage.of(shape, libraryService.findDue(from, to, cursor, pageSize(limit)), ColumnSchema.BOOKS));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/books/genres")
+    public ResponseEntity<byte[]> getGenres(ServletWebRequest request) throws JsonProcessingException {
+        return conditional(request, libraryService.booksVersion(), libraryService::getGenres);
+    }
+
+    @GetMapping("/books/{id}")
+    public ResponseEntity<Book> getBook(@PathVariable String id) {
+        return libraryService.findBookById(id).map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
     @PostMapping("/books")
     public Book addBook(@RequestBody Map<String, String> payload) {
         return libraryService.addBook(payload.get("title"), payload.get("author"), payload.get("genre"));
     }
 
+    // Bulk transfer: NDJSON by default, CSV with ?format=csv or a text/csv body
+    @PostMapping("/books/bulk")
+    public ImportResult importBooks(InputStream body,
+                                    @RequestParam(required = false) String format,
+                                    @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType) throws IOException {
+        return catalogTransfer.importBooks(body, BulkFormat.of(format, contentType));
+    }
+
+    @GetMapping("/books/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam(required = false) String format) {
+        BulkFormat bulkFormat = BulkFormat.of(format, null);
+        return ResponseEntity.ok().contentType(bulkFormat.mediaType()).body(out -> catalogTransfer.exportBooks(out, bulkFormat));
+    }
+
     @DeleteMapping("/books/{id}")
     public ResponseEntity<Void> deleteBook(@PathVariable String id) {
-        return libraryService.deleteBook(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+        if (libraryService.deleteBook(id)) {
+            bookDeleted.increment();
+            return ResponseEntity.noContent().build();
+        }
+        bookNotFound.increment();
+        return ResponseEntity.notFound().build();
     }
 
     @PostMapping("/books/issue")
     public ResponseEntity<Book> issueBook(@RequestBody Map<String, String> payload) {
         Optional<Book> book = libraryService.issueBook(payload.get("bookId"), payload.get("memberId"));
+        (book.isPresent() ? issued : issueRejected).increment();
         return book.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.badRequest().build());
     }
 
     @PostMapping("/books/return")
     public ResponseEntity<Book> returnBook(@RequestBody Map<String, String> payload) {
         Optional<Book> book = libraryService.returnBook(payload.get("bookId"));
+        (book.isPresent() ? returned : returnRejected).increment();
         return book.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.badRequest().build());
     }
 
+    // Batch circulation: a list of {bookId, memberId} (just {bookId} for returns), applied all or nothing.
+    // 200 with every item's new book state, or 400 with the reason on each item that failed.
+    @PostMapping("/books/issue/batch")
+    public ResponseEntity<BatchResult> issueBooks(@RequestBody List<Map<String, String>> payload) {
+        if (payload.isEmpty() || payload.size() > MAX_BATCH_SIZE) { return ResponseEntity.badRequest().build(); }
+        return batchOutcome(libraryService.issueBooks(batchItems(payload)), issued, issueRejected);
+    }
+
+    @PostMapping("/books/return/batch")
+    public ResponseEntity<BatchResult> returnBooks(@RequestBody List<Map<String, String>> payload) {
+        if (payload.isEmpty() || payload.size() > MAX_BATCH_SIZE) { return ResponseEntity.badRequest().build(); }
+        return batchOutcome(libraryService.returnBooks(batchItems(payload)), returned, returnRejected);
+    }
+
+    private static List<BatchItem> batchItems(List<Map<String, String>> payload) {
+        List<BatchItem> items = new ArrayList<>(payload.size());
+        for (Map<String, String> item : payload) { items.add(new BatchItem(item.get("bookId"), item.get("memberId"))); }
+        return items;
+    }
+
+    private static ResponseEntity<BatchResult> batchOutcome(BatchResult result, Counter applied, Counter rejected) {
+        if (result.isApplied()) {
+            applied.increment(result.getItems().size());
+            return ResponseEntity.ok(result);
+        }
+        rejected.increment(result.getItems().size());
+        return ResponseEntity.badRequest().body(result);
+    }
+
     // Member Endpoints
     @GetMapping("/members")
-    public List<Member> getAllMembers() { return libraryService.getAllMembers(); }
+    public ResponseEntity<byte[]> getAllMembers(ServletWebRequest request) throws JsonProcessingException {
+        return conditional(request, libraryService.membersVersion(), libraryService::getAllMembers);
+    }
+
+    @GetMapping("/members/{id}")
+    public ResponseEntity<Member> getMember(@PathVariable String id) {
+        return libraryService.findMemberById(id).map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Books the member has on loan, soonest due first
+    @GetMapping("/members/{id}/loans")
+    public ResponseEntity<byte[]> getLoans(@PathVariable String id, ServletWebRequest request) throws JsonProcessingException {
+        String version = libraryService.booksVersion();
+        Optional<List<Book>> loans = libraryService.findLoans(id);
+        if (loans.isEmpty()) { return ResponseEntity.notFound().build(); }
+        return conditional(request, version, loans::get);
+    }
 
     @PostMapping("/members")
     public Member addMember(@RequestBody Map<String, String> payload) {
         return libraryService.addMember(payload.get("name"));
     }
 
+    @PostMapping("/members/bulk")
+    public ImportResult importMembers(InputStream body,
+                                      @RequestParam(required = false) String format,
+                                      @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType) throws IOException {
+        return catalogTransfer.importMembers(body, BulkFormat.of(format, contentType));
+    }
+
+    @GetMapping("/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMembers(@RequestParam(required = false) String format) {
+        BulkFormat bulkFormat = BulkFormat.of(format, null);
+        return ResponseEntity.ok().contentType(bulkFormat.mediaType()).body(out -> catalogTransfer.exportMembers(out, bulkFormat));
+    }
+
     @DeleteMapping("/members/{id}")
     public ResponseEntity<Void> deleteMember(@PathVariable String id) {
         boolean deleted = libraryService.deleteMember(id);
         if (deleted) {
+            memberDeleted.increment();
             return ResponseEntity.noContent().build();
         }
+        memberConflict.increment();
         return ResponseEntity.status(HttpStatus.CONFLICT).build(); // Conflict if member has books
     }
 
     // History Endpoint
     @GetMapping("/history")
-    public List<Transaction> getHistory() { return libraryService.getTransactionHistory(); }
+    public ResponseEntity<byte[]> getHistory(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                             @RequestParam(required = false) String memberId,
+                                             @RequestParam(required = false) String bookId,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                             @RequestParam(required = false) String format,
+                                             ServletWebRequest request) throws JsonProcessingException {
+        ResponseFormat shape = ResponseFormat.parse(format);
+        if (shape == null) { return ResponseEntity.badRequest().build(); }
+        Long sequence = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                sequence = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        Long after = sequence;
+        return conditional(request, libraryService.historyVersion(),
+                () -> ColumnarPage.of(shape, libraryService.findHistory(from, to, memberId, bookId, after, pageSize(limit)), ColumnSchema.TRANSACTIONS));
+    }
+
+    // Statistics Endpoints: served from incremental rollups, so their cost does not grow with the history
+    @GetMapping("/stats")
+    public ResponseEntity<byte[]> getStats(@RequestParam(defaultValue = "10") int limit, ServletWebRequest request) throws JsonProcessingException {
+        return conditional(request, libraryService.historyVersion(), () -> libraryService.getCirculationSummary(topSize(limit)));
+    }
+
+    @GetMapping("/stats/titles")
+    public ResponseEntity<byte[]> getTopTitles(@RequestParam(defaultValue = "10") int limit, ServletWebRequest request) throws JsonProcessingException {
+        return conditional(request, libraryService.historyVersion(), () -> libraryService.getTopTitles(topSize(limit)));
+    }
+
+    @GetMapping("/stats/borrowers")
+    public ResponseEntity<byte[]> getTopBorrowers(@RequestParam(defaultValue = "10") int limit, ServletWebRequest request) throws JsonProcessingException {
+        return conditional(request, libraryService.historyVersion(), () -> libraryService.getTopBorrowers(topSize(limit)));
+    }
+
+    // Issues per genre for each of the last ?days=30d days, today included
+    @GetMapping("/stats/genres")
+    public ResponseEntity<byte[]> getIssuesByGenre(@RequestParam(defaultValue = "30d") String days, ServletWebRequest request) throws JsonProcessingException {
+        Integer span = parseDays(days);
+        if (span == null || span < 1 || span > CirculationStats.DAYS_KEPT) { return ResponseEntity.badRequest().build(); }
+        LocalDate today = LocalDate.now();
+        String version = libraryService.historyVersion() + "-" + today;
+        return conditional(request, version, () -> libraryService.getIssuesByDay(today.minusDays(span - 1), today));
+    }
+
+    /**
+     * 304 if the client already holds {@code version}, otherwise the body at that version, serialized once per
+     * version and request. Callers read the version before the data, so a body is never older than its tag.
+     * The tag is weak: Tomcat will not gzip a response carrying a strong one, as the compressed bytes differ.
+     */
+    private ResponseEntity<byte[]> conditional(ServletWebRequest request, String version, Supplier<?> body) throws JsonProcessingException {
+        String etag = "W/\"" + version + '"';
+        if (request.checkNotModified(etag)) { return null; } // Spring has already answered 304
+        String query = request.getRequest().getQueryString();
+        String key = query == null ? request.getRequest().getRequestURI() : request.getRequest().getRequestURI() + '?' + query;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(etag).body(responseCache.get(key, version, body));
+    }
+
+    // Change feed: server-sent events, resumed after the Last-Event-ID header (sent by browsers on reconnect) or ?lastEventId=
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> changes(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                              @RequestParam(required = false) String lastEventId) {
+        return changeStream.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    // Latest reminder batch: per member, the books that are overdue or due soon
+    @GetMapping("/reminders")
+    public ReminderBatch getReminders() { return libraryService.getReminders(); }
+
+    // Changes are refused once the write-ahead log has failed; reads keep working.
+    @ExceptionHandler(LibraryJournal.ReadOnlyException.class)
+    public ResponseEntity<Void> readOnly() { return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build(); }
+
+    // Offset cursors are plain non-negative integers; returns null when the cursor is malformed.
+    private static Integer parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) { return 0; }
+        try {
+            int offset = Integer.parseInt(cursor);
+            return offset < 0 ? null : offset;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // A day count such as "3d" or "3"; null when malformed or negative.
+    private static Integer parseDays(String value) {
+        String digits = value.endsWith("d") ? value.substring(0, value.length() - 1) : value;
+        try {
+            int days = Integer.parseInt(digits);
+            return days < 0 ? null : days;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int pageSize(int limit) { return Math.max(1, Math.min(limit, MAX_PAGE_SIZE)); }
+    private static int topSize(int limit) { return Math.max(1, Math.min(limit, MAX_TOP)); }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.example.library.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Serialized JSON bodies of read endpoints, keyed by request and valid while the data version they were built
+ * from is current. Polling a collection that has not changed then costs a map lookup instead of a Jackson pass.
+ * Each key holds only its newest body, and the whole cache is dropped if it outgrows its entry limit.
+ */
+@Component
+public class ResponseCache {
+    private static final int MAX_ENTRIES = 4096;
+
+    private final ObjectMapper json;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Counter hits, misses;
+
+    private record Entry(String version, byte[] body) { }
+
+    @Autowired
+    public ResponseCache(ObjectMapper json, MeterRegistry registry) {
+        this.json = json;
+        this.hits = Counter.builder("library.response.cache").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("library.response.cache").tag("result", "miss").register(registry);
+    }
+
+    /** Returns the cached body for {@code key} at {@code version}, serializing {@code body} on a miss. */
+    public byte[] get(String key, String version, Supplier<?> body) throws JsonProcessingException {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version().equals(version)) {
+            hits.increment();
+            return entry.body();
+        }
+        misses.increment();
+        byte[] serialized = json.writeValueAsBytes(body.get());
+        if (entries.size() >= MAX_ENTRIES) { entries.clear(); }
+        entries.put(key, new Entry(version, serialized));
+        return serialized;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.library.feed;
+
+import com.example.library.model.ChangeEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ordered, bounded log of recent changes to library state, for pushing to clients.
+ * <p>
+ * The library publishes an event for every change while the change is still atomic, so the events for one book
+ * or member appear in the order the changes were made. Each event gets the next sequence number and goes into
+ * a ring holding the last {@code library.feed.buffer-size} events. A client that reconnects reads on from the
+ * last sequence number it saw, unless it fell so far behind that the ring has already moved past it.
+ * <p>
+ * Sequence numbers restart with the process, so a position is only meaningful together with the {@link #epoch()}.
+ */
+@Component
+public class ChangeFeed {
+    private final ChangeEvent[] ring;
+    private final int mask;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile long head; // Sequence number of the newest event, 0 before the first
+
+    @Autowired
+    public ChangeFeed(FeedProperties properties) {
+        int capacity = Integer.highestOneBit(Math.max(1, properties.getBufferSize() - 1)) << 1;
+        this.ring = new ChangeEvent[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /** Identifies this run of the server; positions from another epoch cannot be resumed. */
+    public String epoch() { return epoch; }
+
+    /** Sequence number of the newest event. */
+    public long head() { return head; }
+
+    public int capacity() { return ring.length; }
+
+    /** Numbers the event, appends it and wakes the listeners. The publishing thread never waits for subscribers. */
+    public void publish(ChangeEvent event) {
+        publishLock.lock();
+        try {
+            long sequence = head + 1;
+            event.setSequence(sequence);
+            ring[(int) (sequence & mask)] = event;
+            head = sequence; // Publishes the slot to readers, which read head first
+        } finally {
+            publishLock.unlock();
+        }
+        for (Runnable listener : listeners) { listener.run(); }
+    }
+
+    /** Registers a callback run on the publishing thread after every event, so it must return quickly. */
+    public void onPublish(Runnable listener) { listeners.add(listener); }
+
+    /**
+     * Returns up to {@code max} events published after {@code sequence}, oldest first. Lock-free.
+     * @return the events, empty if there are none yet, or null if some of them have already left the ring.
+     */
+    public List<ChangeEvent> after(long sequence, int max) {
+        long newest = head;
+        if (sequence >= newest) { return List.of(); }
+        if (newest - sequence > ring.length) { return null; }
+        long last = Math.min(newest, sequence + max);
+        List<ChangeEvent> events = new ArrayList<>((int) (last - sequence));
+        for (long next = sequence + 1; next <= last; next++) {
+            ChangeEvent event = ring[(int) (next & mask)];
+            // A slot can be overwritten while we read; a different sequence number means the event is gone.
+            if (event == null || event.getSequence() != next) { return null; }
+            events.add(event);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.library.feed;
+
+import com.example.library.model.ChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Server-sent-events fan-out of the {@link ChangeFeed}.
+ * <p>
+ * Subscribers are spread over a few dispatcher threads. A publish wakes the dispatchers, and each sends every
+ * subscriber of its own everything that subscriber has not seen yet, as one write. An event is serialized once
+ * per dispatcher, however many subscribers receive it, and a burst of events costs one wake-up, not one each.
+ * <p>
+ * A stream opens with a {@code ready} event. Change events carry ids of the form {@code epoch-sequence}, which
+ * browsers send back in the {@code Last-Event-ID} header when they reconnect, and the stream resumes after that
+ * event; {@code ready} says whether it did. If the client fell behind the feed's ring while connected, it gets
+ * a {@code RELOAD} change and continues from the newest event.
+ */
+@Component
+public class ChangeStream {
+    private static final int MAX_BATCH = 512; // Events per write, so one subscriber catching up cannot hog a dispatcher
+    private static final MediaType FRAMES = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    private final ChangeFeed feed;
+    private final ObjectMapper json;
+    private final FeedProperties properties;
+    private final Dispatcher[] dispatchers;
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicInteger nextDispatcher = new AtomicInteger();
+    private volatile boolean running = true;
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final boolean resumed;
+        long cursor;     // Sequence number of the last event sent; only the owning dispatcher touches it after subscribing
+        boolean greeted; // Whether the ready event has been sent
+
+        Subscriber(SseEmitter emitter, long cursor, boolean resumed) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.resumed = resumed;
+        }
+    }
+
+    @Autowired
+    public ChangeStream(ChangeFeed feed, ObjectMapper json, FeedProperties properties, MeterRegistry registry) {
+        this.feed = feed;
+        this.json = json;
+        this.properties = properties;
+        this.dispatchers = new Dispatcher[Math.max(1, properties.getDispatchers())];
+        for (int i = 0; i < dispatchers.length; i++) { dispatchers[i] = new Dispatcher(i); }
+        feed.onPublish(this::wakeAll);
+        Gauge.builder("library.feed.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Clients connected to the change feed").register(registry);
+    }
+
+    /**
+     * Opens a stream that resumes after {@code lastEventId}, or starts at the newest event if that is missing
+     * or cannot be resumed.
+     * @return the stream, or empty if the subscriber limit is reached.
+     */
+    public Optional<SseEmitter> subscribe(String lastEventId) {
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            return Optional.empty();
+        }
+        long resumeAfter = resumePosition(lastEventId);
+        Subscriber subscriber = resumeAfter >= 0 ? new Subscriber(newEmitter(), resumeAfter, true)
+                : new Subscriber(newEmitter(), feed.head(), false);
+        Dispatcher dispatcher = dispatchers[Math.floorMod(nextDispatcher.getAndIncrement(), dispatchers.length)];
+        subscriber.emitter.onCompletion(() -> dispatcher.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> dispatcher.remove(subscriber));
+        subscriber.emitter.onError(e -> dispatcher.remove(subscriber));
+        dispatcher.subscribers.add(subscriber);
+        dispatcher.wake();
+        return Optional.of(subscriber.emitter);
+    }
+
+    public int subscriberCount() { return subscriberCount.get(); }
+
+    private SseEmitter newEmitter() { return new SseEmitter(TimeUnit.MINUTES.toMillis(properties.getTimeoutMinutes())); }
+
+    // The sequence number to resume after, or -1 if the id is missing, malformed, or from another run of the server.
+    private long resumePosition(String lastEventId) {
+        if (lastEventId == null) { return -1; }
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !lastEventId.substring(0, dash).equals(feed.epoch())) { return -1; }
+        try {
+            long sequence = Long.parseLong(lastEventId.substring(dash + 1));
+            return sequence >= 0 && sequence <= feed.head() ? sequence : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String eventId(long sequence) { return feed.epoch() + "-" + sequence; }
+
+    private void wakeAll() {
+        for (Dispatcher dispatcher : dispatchers) { dispatcher.wake(); }
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        for (Dispatcher dispatcher : dispatchers) {
+            dispatcher.wake();
+            for (Subscriber subscriber : dispatcher.subscribers) { subscriber.emitter.complete(); }
+        }
+    }
+
+    private final class Dispatcher implements Runnable {
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final Thread thread;
+        // Serialized events by ring slot; only this dispatcher's thread touches them.
+        private final String[] frames = new String[feed.capacity()];
+        private final long[] frameSequences = new long[feed.capacity()];
+        private long lastHeartbeat = System.nanoTime();
+
+        Dispatcher(int index) {
+            thread = new Thread(this, "library-change-feed-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void wake() { LockSupport.unpark(thread); }
+
+        void remove(Subscriber subscriber) {
+            if (subscribers.remove(subscriber)) { subscriberCount.decrementAndGet(); }
+        }
+
+        @Override
+        public void run() {
+            long heartbeatNanos = TimeUnit.SECONDS.toNanos(properties.getHeartbeatSeconds());
+            while (running) {
+                LockSupport.parkNanos(this, heartbeatNanos);
+                long now = System.nanoTime();
+                boolean heartbeat = now - lastHeartbeat >= heartbeatNanos;
+                if (heartbeat) { lastHeartbeat = now; }
+                boolean behind = false;
+                for (Subscriber subscriber : subscribers) {
+                    try {
+                        behind |= deliver(subscriber, heartbeat);
+                    } catch (IOException | RuntimeException e) {
+                        remove(subscriber); // The client went away or its stream already ended
+                        subscriber.emitter.completeWithError(e);
+                    }
+                }
+                if (behind) { wake(); } // Go round again without waiting for the next publish
+            }
+        }
+
+        // Sends the subscriber everything it has not seen in one write; returns true if more is waiting.
+        private boolean deliver(Subscriber subscriber, boolean heartbeat) throws IOException {
+            StringBuilder out = new StringBuilder();
+            if (!subscriber.greeted) {
+                out.append("event:ready\nid:").append(eventId(subscriber.cursor))
+                        .append("\ndata:{\"resumed\":").append(subscriber.resumed).append("}\n\n");
+                subscriber.greeted = true;
+            }
+            List<ChangeEvent> events = feed.after(subscriber.cursor, MAX_BATCH);
+            if (events == null) {
+                ChangeEvent reload = ChangeEvent.reload();
+                reload.setSequence(feed.head());
+                out.append(encode(reload));
+                subscriber.cursor = reload.getSequence();
+                events = List.of();
+            }
+            for (ChangeEvent event : events) {
+                out.append(frame(event));
+                subscriber.cursor = event.getSequence();
+            }
+            if (out.length() == 0 && heartbeat) { out.append(":\n\n"); }
+            if (out.length() > 0) { subscriber.emitter.send(Set.of(new ResponseBodyEmitter.DataWithMediaType(out.toString(), FRAMES))); }
+            return events.size() == MAX_BATCH;
+        }
+
+        private String frame(ChangeEvent event) throws IOException {
+            int slot = (int) (event.getSequence() & (frames.length - 1));
+            if (frameSequences[slot] != event.getSequence() || frames[slot] == null) {
+                frames[slot] = encode(event);
+                frameSequences[slot] = event.getSequence();
+            }
+            return frames[slot];
+        }
+
+        private String encode(ChangeEvent event) throws IOException {
+            return "id:" + eventId(event.getSequence()) + "\ndata:" + json.writeValueAsString(event) + "\n\n";
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.library.feed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the change feed, bound from the {@code library.feed.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "library.feed")
+public class FeedProperties {
+    private int bufferSize = 8192;       // Recent events kept for resuming clients; rounded up to a power of two
+    private int maxSubscribers = 10_000;
+    private int dispatchers = 4;         // Threads writing to subscribers; a stalled client holds up only its own
+    private int heartbeatSeconds = 15;   // Keeps idle connections open through proxies
+    private int timeoutMinutes = 30;     // Clients reconnect after this and resume where they left off
+}
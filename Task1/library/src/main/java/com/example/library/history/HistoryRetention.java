@@ -0,0 +1,15 @@
+package com.example.library.history;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How much transaction history is kept, bound from the {@code library.history.*} properties.
+ * Entries are dropped a whole segment at a time, oldest first.
+ */
+@Data
+@ConfigurationProperties(prefix = "library.history")
+public class HistoryRetention {
+    private long maxEntries = 1_000_000;
+    private int maxAgeDays = 0; // 0 keeps entries regardless of age
+}
@@ -0,0 +1,157 @@
+package com.example.library.history;
+
+import com.example.library.model.ResultPage;
+import com.example.library.model.Transaction;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Append-only transaction history stored in fixed-size segments.
+ * <p>
+ * Every entry gets a sequence number that doubles as its pagination cursor. Appends are O(1) and never
+ * copy existing entries; readers are lock-free and only see entries whose sequence has been published.
+ * Timestamps are non-decreasing in sequence order, so time-range queries binary search for their bounds.
+ * Retention drops whole segments from the old end once the log exceeds its size or age limit.
+ */
+public class TransactionLog {
+    static final int SEGMENT_SIZE = 4096;
+    // Upper bound on entries examined per filtered page, so sparse filters cannot turn into full scans.
+    static final int MAX_SCAN = 64 * 1024;
+
+    private final HistoryRetention retention;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile long firstSequence = 0; // oldest retained entry
+    private volatile long nextSequence = 0;  // one past the newest published entry
+    private Segment tail;
+
+    private static final class Segment {
+        final long base;
+        final Transaction[] entries = new Transaction[SEGMENT_SIZE];
+
+        Segment(long base) { this.base = base; }
+    }
+
+    public TransactionLog(HistoryRetention retention) { this.retention = retention; }
+
+    public void append(Transaction transaction) {
+        appendLock.lock();
+        try {
+            long sequence = nextSequence;
+            if (tail == null || sequence - tail.base == SEGMENT_SIZE) {
+                tail = new Segment(sequence);
+                segments.put(sequence, tail);
+                enforceRetention(transaction.getTimestamp(), sequence);
+            }
+            tail.entries[(int) (sequence - tail.base)] = transaction;
+            nextSequence = sequence + 1; // publishes the entry to readers
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /** Appends the entries under one lock acquisition; readers see all of them or none. */
+    public void appendAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) { return; }
+        appendLock.lock();
+        try {
+            long sequence = nextSequence;
+            for (Transaction transaction : transactions) {
+                if (tail == null || sequence - tail.base == SEGMENT_SIZE) {
+                    tail = new Segment(sequence);
+                    segments.put(sequence, tail);
+                    enforceRetention(transaction.getTimestamp(), sequence);
+                }
+                tail.entries[(int) (sequence - tail.base)] = transaction;
+                sequence++;
+            }
+            nextSequence = sequence; // publishes the whole batch at once
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long size() { return nextSequence - firstSequence; }
+
+    /** Copy of every retained entry, oldest first. */
+    public List<Transaction> snapshot() {
+        long start = firstSequence;
+        long end = nextSequence;
+        List<Transaction> entries = new ArrayList<>((int) Math.min(end - start, Integer.MAX_VALUE));
+        for (long sequence = start; sequence < end; sequence++) {
+            Transaction transaction = get(sequence);
+            if (transaction != null) { entries.add(transaction); }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns up to {@code limit} entries, newest first, that fall inside the optional time range and match the
+     * optional member and book ids. {@code cursor} is the {@code nextCursor} of the previous page.
+     * A filtered page may hold fewer than {@code limit} entries while {@code nextCursor} is still set, when the
+     * scan budget ran out before the range did.
+     * {@code total} is the number of entries in the time range, or -1 when member or book filters apply.
+     */
+    public ResultPage<Transaction> find(LocalDateTime from, LocalDateTime to, String memberId, String bookId, Long cursor, int limit) {
+        long start = firstSequence;
+        long end = nextSequence;
+        if (to != null) { end = firstSequenceWhere(t -> t.getTimestamp().isAfter(to), start, end); }
+        if (from != null) { start = firstSequenceWhere(t -> !t.getTimestamp().isBefore(from), start, end); }
+
+        boolean filtered = memberId != null || bookId != null;
+        List<Transaction> items = new ArrayList<>(Math.min(limit, 256));
+        long sequence = (cursor == null ? end : Math.min(end, cursor)) - 1;
+        int budget = filtered ? MAX_SCAN : limit;
+        for (; sequence >= start && items.size() < limit && budget > 0; sequence--, budget--) {
+            Transaction transaction = get(sequence);
+            if (transaction == null) { break; } // Dropped by retention while we were reading
+            if ((memberId == null || memberId.equals(transaction.getMemberId()))
+                    && (bookId == null || bookId.equals(transaction.getBookId()))) {
+                items.add(transaction);
+            }
+        }
+        boolean more = sequence >= start && get(sequence) != null;
+        return new ResultPage<>(items, filtered ? -1 : end - start, more ? String.valueOf(sequence + 1) : null);
+    }
+
+    private Transaction get(long sequence) {
+        Map.Entry<Long, Segment> segment = segments.floorEntry(sequence);
+        if (segment == null) { return null; }
+        long offset = sequence - segment.getValue().base;
+        return offset < SEGMENT_SIZE ? segment.getValue().entries[(int) offset] : null;
+    }
+
+    // Binary search for the first sequence in [low, high) whose entry satisfies a condition that is monotonic in time.
+    private long firstSequenceWhere(Predicate<Transaction> condition, long low, long high) {
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            Transaction transaction = get(mid);
+            if (transaction == null || condition.test(transaction)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    // Called with the append lock held, right after a new tail segment is created.
+    private void enforceRetention(LocalDateTime now, long next) {
+        LocalDateTime oldestAllowed = retention.getMaxAgeDays() > 0 ? now.minusDays(retention.getMaxAgeDays()) : null;
+        while (segments.size() > 1) {
+            Segment oldest = segments.firstEntry().getValue();
+            long retained = next - oldest.base;
+            Transaction newestInOldest = oldest.entries[SEGMENT_SIZE - 1];
+            boolean tooMany = retained - SEGMENT_SIZE >= retention.getMaxEntries();
+            boolean tooOld = oldestAllowed != null && newestInOldest.getTimestamp().isBefore(oldestAllowed);
+            if (!tooMany && !tooOld) { break; }
+            firstSequence = oldest.base + SEGMENT_SIZE;
+            segments.remove(oldest.base);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.library.json;
+
+import com.example.library.model.Book;
+import com.example.library.model.Transaction;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * The columns of a type in the compact {@link ColumnarPage} encoding, in output order.
+ * <p>
+ * Each column is a JSON array with one value per item. A string column whose values repeat (at most one distinct
+ * value per two items, as genres, member names and actions usually do) is dictionary-encoded instead:
+ * {@code {"dict": [distinct values], "codes": [index into dict per item]}}.
+ */
+public final class ColumnSchema<T> {
+    public static final ColumnSchema<Book> BOOKS = new ColumnSchema<Book>()
+            .string("id", Book::getId)
+            .string("title", Book::getTitle)
+            .string("author", Book::getAuthor)
+            .string("genre", Book::getGenre)
+            .bool("issued", Book::isIssued)
+            .string("issuedToMemberId", Book::getIssuedToMemberId)
+            .date("issueDate", Book::getIssueDate)
+            .date("dueDate", Book::getDueDate)
+            .number("fine", Book::getFine);
+
+    public static final ColumnSchema<Transaction> TRANSACTIONS = new ColumnSchema<Transaction>()
+            .string("bookId", Transaction::getBookId)
+            .string("bookTitle", Transaction::getBookTitle)
+            .string("memberId", Transaction::getMemberId)
+            .string("memberName", Transaction::getMemberName)
+            .string("action", Transaction::getAction)
+            .dateTime("timestamp", Transaction::getTimestamp);
+
+    private static final SerializedString DICT = new SerializedString("dict");
+    private static final SerializedString CODES = new SerializedString("codes");
+    private static final int MIN_DICTIONARY_ITEMS = 4;
+
+    private final List<Column<T>> columns = new ArrayList<>();
+
+    private interface Column<T> {
+        SerializedString name();
+        void write(List<T> items, JsonGenerator gen, SerializerProvider provider) throws IOException;
+    }
+
+    private ColumnSchema() { }
+
+    /** Writes one field per column, named after it, into the object being generated. */
+    void write(List<T> items, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        for (Column<T> column : columns) {
+            gen.writeFieldName(column.name());
+            column.write(items, gen, provider);
+        }
+    }
+
+    private ColumnSchema<T> string(String name, Function<T, String> value) {
+        SerializedString field = new SerializedString(name);
+        columns.add(new Column<>() {
+            public SerializedString name() { return field; }
+            public void write(List<T> items, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                writeStrings(items, value, gen);
+            }
+        });
+        return this;
+    }
+
+    private ColumnSchema<T> bool(String name, Predicate<T> value) {
+        SerializedString field = new SerializedString(name);
+        columns.add(new Column<>() {
+            public SerializedString name() { return field; }
+            public void write(List<T> items, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartArray(items, items.size());
+                for (T item : items) { gen.writeBoolean(value.test(item)); }
+                gen.writeEndArray();
+            }
+        });
+        return this;
+    }
+
+    private ColumnSchema<T> number(String name, ToLongFunction<T> value) {
+        SerializedString field = new SerializedString(name);
+        columns.add(new Column<>() {
+            public SerializedString name() { return field; }
+            public void write(List<T> items, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartArray(items, items.size());
+                for (T item : items) { gen.writeNumber(value.applyAsLong(item)); }
+                gen.writeEndArray();
+            }
+        });
+        return this;
+    }
+
+    private ColumnSchema<T> date(String name, Function<T, LocalDate> value) {
+        SerializedString field = new SerializedString(name);
+        columns.add(new Column<>() {
+            public SerializedString name() { return field; }
+            public void write(List<T> items, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartArray(items, items.size());
+                for (T item : items) { LibraryJsonModule.writeDate(gen, provider, value.apply(item)); }
+                gen.writeEndArray();
+            }
+        });
+        return this;
+    }
+
+    private ColumnSchema<T> dateTime(String name, Function<T, LocalDateTime> value) {
+        SerializedString field = new SerializedString(name);
+        columns.add(new Column<>() {
+            public SerializedString name() { return field; }
+            public void write(List<T> items, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartArray(items, items.size());
+                for (T item : items) { LibraryJsonModule.writeDateTime(gen, provider, value.apply(item)); }
+                gen.writeEndArray();
+            }
+        });
+        return this;
+    }
+
+    private static <T> void writeStrings(List<T> items, Function<T, String> value, JsonGenerator gen) throws IOException {
+        String[] values = new String[items.size()];
+        Map<String, Integer> codes = new HashMap<>();
+        boolean repetitive = values.length >= MIN_DICTIONARY_ITEMS;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = value.apply(items.get(i));
+            if (repetitive) {
+                codes.putIfAbsent(values[i], codes.size());
+                repetitive = codes.size() * 2 <= values.length; // Give up once there are too many distinct values
+            }
+        }
+        if (!repetitive) {
+            gen.writeArray(values, 0, values.length);
+            return;
+        }
+        String[] dictionary = new String[codes.size()];
+        codes.forEach((text, code) -> dictionary[code] = text);
+        gen.writeStartObject();
+        gen.writeFieldName(DICT);
+        gen.writeArray(dictionary, 0, dictionary.length);
+        gen.writeFieldName(CODES);
+        gen.writeStartArray(values, values.length);
+        for (String text : values) { gen.writeNumber(codes.get(text)); }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+}
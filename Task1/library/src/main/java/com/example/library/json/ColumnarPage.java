@@ -0,0 +1,57 @@
+package com.example.library.json;
+
+import com.example.library.model.ResultPage;
+import com.example.library.model.ScoredPage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link ResultPage} in array-of-columns form, for clients that ask for {@code ?format=columns}:
+ * <pre>
+ * {"total": 120, "nextCursor": "50", "size": 50, "columns": {"id": [...], "genre": {"dict": [...], "codes": [...]}, ...}}
+ * </pre>
+ * Search pages also carry their {@code "scores"} array, as in the plain form.
+ * Field names appear once per page rather than once per item, and repeated strings once per column, which
+ * makes large pages markedly smaller before compression and cheaper to write. See {@link ColumnSchema}.
+ */
+public final class ColumnarPage<T> implements JsonSerializable {
+    private final ResultPage<T> page;
+    private final ColumnSchema<T> schema;
+
+    public ColumnarPage(ResultPage<T> page, ColumnSchema<T> schema) {
+        this.page = page;
+        this.schema = schema;
+    }
+
+    /** The page in the requested format: itself for {@link ResponseFormat#JSON}, columnar otherwise. */
+    public static <T> Object of(ResponseFormat format, ResultPage<T> page, ColumnSchema<T> schema) {
+        return format == ResponseFormat.COLUMNS ? new ColumnarPage<>(page, schema) : page;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        List<T> items = page.getItems();
+        gen.writeStartObject(this);
+        gen.writeNumberField("total", page.getTotal());
+        gen.writeStringField("nextCursor", page.getNextCursor());
+        gen.writeNumberField("size", items.size());
+        if (page instanceof ScoredPage<T> scored) {
+            gen.writeArrayFieldStart("scores");
+            for (int score : scored.getScores()) { gen.writeNumber(score); }
+            gen.writeEndArray();
+        }
+        gen.writeObjectFieldStart("columns");
+        schema.write(items, gen, provider);
+        gen.writeEndObject();
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+        serialize(gen, provider);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.library.json;
+
+import com.example.library.model.Book;
+import com.example.library.model.Transaction;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Hand-written serializers for the two types every list endpoint returns in bulk: {@link Book} and
+ * {@link Transaction}. They write exactly what Jackson's reflective bean serializers write, field for field, but
+ * with field names encoded once up front and no per-property lookups or getter reflection.
+ * <p>
+ * Spring Boot registers every {@code Module} bean with the application's {@code ObjectMapper}, so controllers,
+ * the change feed and exports all pick these up.
+ */
+@Component
+public class LibraryJsonModule extends SimpleModule {
+    private static final long serialVersionUID = 1L;
+
+    public LibraryJsonModule() {
+        super("library-json");
+        addSerializer(Book.class, new BookSerializer());
+        addSerializer(Transaction.class, new TransactionSerializer());
+    }
+
+    // Dates as the JavaTimeModule writes them when timestamps are off, as Spring Boot configures it.
+    static void writeDate(JsonGenerator gen, SerializerProvider provider, LocalDate date) throws IOException {
+        if (date == null) {
+            gen.writeNull();
+        } else if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            provider.defaultSerializeValue(date, gen);
+        } else {
+            gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE.format(date));
+        }
+    }
+
+    static void writeDateTime(JsonGenerator gen, SerializerProvider provider, LocalDateTime dateTime) throws IOException {
+        if (dateTime == null) {
+            gen.writeNull();
+        } else if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            provider.defaultSerializeValue(dateTime, gen);
+        } else {
+            gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime));
+        }
+    }
+
+    static final class BookSerializer extends StdSerializer<Book> {
+        private static final long serialVersionUID = 1L;
+        private static final SerializedString ID = new SerializedString("id");
+        private static final SerializedString TITLE = new SerializedString("title");
+        private static final SerializedString AUTHOR = new SerializedString("author");
+        private static final SerializedString GENRE = new SerializedString("genre");
+        private static final SerializedString ISSUED_TO = new SerializedString("issuedToMemberId");
+        private static final SerializedString ISSUE_DATE = new SerializedString("issueDate");
+        private static final SerializedString DUE_DATE = new SerializedString("dueDate");
+        private static final SerializedString FINE = new SerializedString("fine");
+        private static final SerializedString ISSUED = new SerializedString("issued");
+
+        BookSerializer() { super(Book.class); }
+
+        @Override
+        public void serialize(Book book, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(book);
+            gen.writeFieldName(ID);
+            gen.writeString(book.getId());
+            gen.writeFieldName(TITLE);
+            gen.writeString(book.getTitle());
+            gen.writeFieldName(AUTHOR);
+            gen.writeString(book.getAuthor());
+            gen.writeFieldName(GENRE);
+            gen.writeString(book.getGenre());
+            gen.writeFieldName(ISSUED_TO);
+            gen.writeString(book.getIssuedToMemberId());
+            gen.writeFieldName(ISSUE_DATE);
+            writeDate(gen, provider, book.getIssueDate());
+            gen.writeFieldName(DUE_DATE);
+            writeDate(gen, provider, book.getDueDate());
+            gen.writeFieldName(FINE);
+            gen.writeNumber(book.getFine());
+            gen.writeFieldName(ISSUED); // Last, as the bean serializer orders it: no field is named "issued"
+            gen.writeBoolean(book.isIssued());
+            gen.writeEndObject();
+        }
+    }
+
+    static final class TransactionSerializer extends StdSerializer<Transaction> {
+        private static final long serialVersionUID = 1L;
+        private static final SerializedString BOOK_ID = new SerializedString("bookId");
+        private static final SerializedString BOOK_TITLE = new SerializedString("bookTitle");
+        private static final SerializedString MEMBER_ID = new SerializedString("memberId");
+        private static final SerializedString MEMBER_NAME = new SerializedString("memberName");
+        private static final SerializedString ACTION = new SerializedString("action");
+        private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+
+        TransactionSerializer() { super(Transaction.class); }
+
+        @Override
+        public void serialize(Transaction transaction, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(transaction);
+            gen.writeFieldName(BOOK_ID);
+            gen.writeString(transaction.getBookId());
+            gen.writeFieldName(BOOK_TITLE);
+            gen.writeString(transaction.getBookTitle());
+            gen.writeFieldName(MEMBER_ID);
+            gen.writeString(transaction.getMemberId());
+            gen.writeFieldName(MEMBER_NAME);
+            gen.writeString(transaction.getMemberName());
+            gen.writeFieldName(ACTION);
+            gen.writeString(transaction.getAction());
+            gen.writeFieldName(TIMESTAMP);
+            writeDateTime(gen, provider, transaction.getTimestamp());
+            gen.writeEndObject();
+        }
+    }
+}
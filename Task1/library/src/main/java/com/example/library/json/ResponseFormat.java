@@ -0,0 +1,20 @@
+package com.example.library.json;
+
+/**
+ * Body formats offered by the list endpoints through {@code ?format=}.
+ * JSON is the default: one object per item. COLUMNS is the compact {@link ColumnarPage} encoding.
+ */
+public enum ResponseFormat {
+    JSON,
+    COLUMNS;
+
+    /** Parses "json" or "columns", case-insensitively; missing means JSON, anything else null. */
+    public static ResponseFormat parse(String value) {
+        if (value == null || value.isBlank()) { return JSON; }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
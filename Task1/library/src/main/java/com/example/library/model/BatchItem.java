@@ -0,0 +1,12 @@
+package com.example.library.model;
+
+import lombok.Data;
+
+/** One book in a batch issue or return, with its outcome. */
+@Data
+public class BatchItem {
+    private final String bookId;
+    private final String memberId; // Who the book goes to; unused for returns
+    private String error;          // Why this item failed, if it did
+    private Book book;             // The book after the change, when the batch was applied
+}
@@ -0,0 +1,11 @@
+package com.example.library.model;
+
+import lombok.Data;
+import java.util.List;
+
+/** Outcome of an all-or-nothing batch: either every item was applied, or none was and the failing items say why. */
+@Data
+public class BatchResult {
+    private final boolean applied;
+    private final List<BatchItem> items;
+}
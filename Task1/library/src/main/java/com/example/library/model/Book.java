@@ -24,4 +24,14 @@ public class Book {
         this.genre = genre;
         this.isIssued = false;
     }
+
+    /** Copy used by the book stores, which replace stored books instead of changing them in place. */
+    public Book(Book other) {
+        this(other.id, other.title, other.author, other.genre);
+        this.isIssued = other.isIssued;
+        this.issuedToMemberId = other.issuedToMemberId;
+        this.issueDate = other.issueDate;
+        this.dueDate = other.dueDate;
+        this.fine = other.fine;
+    }
 }
\ No newline at end of file
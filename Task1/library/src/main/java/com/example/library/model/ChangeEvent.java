@@ -0,0 +1,28 @@
+package com.example.library.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * One change to library state, as pushed to clients by the change feed. Carries the changed row itself,
+ * so a client can patch its copy instead of refetching; {@code RELOAD} means "refetch everything".
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeEvent {
+    public enum Type { BOOK_ADDED, BOOK_UPDATED, BOOK_DELETED, MEMBER_ADDED, MEMBER_DELETED, RELOAD }
+
+    private long sequence;                  // Assigned by the feed on publish
+    private final Type type;
+    private final String id;                // Of the book or member that changed
+    private final Book book;                // New state of an added or updated book
+    private final Member member;            // Added member
+    private final Transaction transaction;  // History entry the change produced, if any
+
+    public static ChangeEvent bookAdded(Book book) { return new ChangeEvent(Type.BOOK_ADDED, book.getId(), book, null, null); }
+    public static ChangeEvent bookUpdated(Book book, Transaction transaction) { return new ChangeEvent(Type.BOOK_UPDATED, book.getId(), book, null, transaction); }
+    public static ChangeEvent bookDeleted(Transaction transaction) { return new ChangeEvent(Type.BOOK_DELETED, transaction.getBookId(), null, null, transaction); }
+    public static ChangeEvent memberAdded(Member member) { return new ChangeEvent(Type.MEMBER_ADDED, member.getId(), null, member, null); }
+    public static ChangeEvent memberDeleted(String id) { return new ChangeEvent(Type.MEMBER_DELETED, id, null, null, null); }
+    public static ChangeEvent reload() { return new ChangeEvent(Type.RELOAD, null, null, null, null); }
+}
@@ -0,0 +1,14 @@
+package com.example.library.model;
+
+import lombok.Data;
+import java.util.List;
+
+/** Circulation totals since the history began, with the most borrowed titles and the most active borrowers. */
+@Data
+public class CirculationSummary {
+    private final long issues;
+    private final long returns;
+    private final double averageLoanDays;
+    private final List<RankedCount> topTitles;
+    private final List<RankedCount> topBorrowers;
+}
@@ -0,0 +1,17 @@
+package com.example.library.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * One page gathered from every branch. Items are the branches' own JSON with a {@code branch} field added.
+ * Branches that did not answer are listed in {@code unavailable}, and their items are missing from the page.
+ */
+@Data
+public class ClusterPage {
+    private final List<JsonNode> items;
+    private final long total;          // Sum of the answering branches' totals
+    private final String nextCursor;   // Per-branch offsets; null once every answering branch is exhausted
+    private final List<String> unavailable;
+}
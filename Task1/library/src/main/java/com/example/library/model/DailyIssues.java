@@ -0,0 +1,13 @@
+package com.example.library.model;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.Map;
+
+/** Books issued on one day, in total and per genre. */
+@Data
+public class DailyIssues {
+    private final LocalDate date;
+    private final long total;
+    private final Map<String, Long> byGenre;
+}
@@ -0,0 +1,13 @@
+package com.example.library.model;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class ImportResult {
+    private final long imported;
+    private final long rejected;
+    private final List<String> errors; // First few rejection reasons, with their line numbers
+    private final long elapsedMillis;
+    private final long rowsPerSecond;
+}
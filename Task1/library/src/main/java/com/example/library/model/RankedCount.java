@@ -0,0 +1,12 @@
+package com.example.library.model;
+
+import lombok.Data;
+
+/** One entry of a most-frequent list. The true count lies between {@code count - error} and {@code count}. */
+@Data
+public class RankedCount {
+    private final String id;
+    private final String name;
+    private final long count;
+    private final long error;
+}
@@ -0,0 +1,13 @@
+package com.example.library.model;
+
+import lombok.Data;
+import java.util.List;
+
+/** What one member is reminded about: books past their due date, and books falling due soon. */
+@Data
+public class Reminder {
+    private final String memberId;
+    private final String memberName;
+    private final List<Book> overdue;
+    private final List<Book> dueSoon;
+}
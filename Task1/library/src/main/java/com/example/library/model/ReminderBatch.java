@@ -0,0 +1,13 @@
+package com.example.library.model;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class ReminderBatch {
+    private final LocalDate forDate;
+    private final LocalDateTime generatedAt;
+    private final List<Reminder> reminders; // One per member with something to be reminded of, most overdue first
+}
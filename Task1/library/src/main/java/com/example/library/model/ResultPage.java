@@ -0,0 +1,11 @@
+package com.example.library.model;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class ResultPage<T> {
+    private final List<T> items;
+    private final long total;        // Number of matching items across all pages, or -1 when not counted
+    private final String nextCursor; // Pass back to fetch the next page; null on the last page
+}
@@ -0,0 +1,22 @@
+package com.example.library.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import java.util.List;
+
+/**
+ * A page of ranked search results. {@code scores} holds each item's relevance in item order, higher first, so pages
+ * ranked on different branches can be merged into one ranking.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class ScoredPage<T> extends ResultPage<T> {
+    private final List<Integer> scores;
+
+    public ScoredPage(List<T> items, long total, String nextCursor, List<Integer> scores) {
+        super(items, total, nextCursor);
+        this.scores = scores;
+    }
+}
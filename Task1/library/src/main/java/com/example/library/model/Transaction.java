@@ -5,16 +5,23 @@ import java.time.LocalDateTime;
 
 @Data
 public class Transaction {
+    private final String bookId;
     private final String bookTitle;
+    private final String memberId;   // null for system actions such as deletes
     private final String memberName; // <-- NEW FIELD
     private final String action;
     private final LocalDateTime timestamp;
 
-    public Transaction(String bookTitle, String memberName, String action) {
+    public Transaction(String bookId, String bookTitle, String memberId, String memberName, String action) {
+        this(bookId, bookTitle, memberId, memberName, action, LocalDateTime.now());
+    }
+
+    public Transaction(String bookId, String bookTitle, String memberId, String memberName, String action, LocalDateTime timestamp) {
+        this.bookId = bookId;
         this.bookTitle = bookTitle;
+        this.memberId = memberId;
         this.memberName = memberName;
         this.action = action;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
     }
 }
-
@@ -0,0 +1,146 @@
+package com.example.library.persistence;
+
+import com.example.library.model.Book;
+import com.example.library.model.Member;
+import com.example.library.model.Transaction;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of journal records and snapshots.
+ * Strings carry a presence flag so nulls survive the round trip; dates are stored as epoch days.
+ * Fields added to records later go at the end, so records written before them still decode.
+ */
+final class JournalCodec {
+    static final int SNAPSHOT_MAGIC = 0x4C494253; // "LIBS"
+    static final int SNAPSHOT_VERSION = 1;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private JournalCodec() { }
+
+    static byte[] encode(JournalRecord record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(record.getType().ordinal());
+            writeString(out, record.getBookId());
+            writeString(out, record.getTitle());
+            writeString(out, record.getAuthor());
+            writeString(out, record.getGenre());
+            writeString(out, record.getMemberId());
+            writeString(out, record.getMemberName());
+            writeDate(out, record.getIssueDate());
+            writeTimestamp(out, record.getTimestamp());
+            writeDate(out, record.getDueDate());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournalRecord decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int type = in.readUnsignedByte();
+        if (type >= JournalRecord.Type.values().length) { throw new IOException("Unknown record type " + type); }
+        return new JournalRecord(JournalRecord.Type.values()[type], readString(in), readString(in), readString(in), readString(in),
+                readString(in), readString(in), readDate(in), readTimestamp(in), in.available() > 0 ? readDate(in) : null);
+    }
+
+    static void writeSnapshot(DataOutput out, LibrarySnapshot snapshot) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(snapshot.getBooks().size());
+        for (Book book : snapshot.getBooks()) {
+            writeString(out, book.getId());
+            writeString(out, book.getTitle());
+            writeString(out, book.getAuthor());
+            writeString(out, book.getGenre());
+            out.writeBoolean(book.isIssued());
+            writeString(out, book.getIssuedToMemberId());
+            writeDate(out, book.getIssueDate());
+            writeDate(out, book.getDueDate());
+        }
+        out.writeInt(snapshot.getMembers().size());
+        for (Member member : snapshot.getMembers()) {
+            writeString(out, member.getId());
+            writeString(out, member.getName());
+        }
+        out.writeInt(snapshot.getHistory().size());
+        for (Transaction transaction : snapshot.getHistory()) {
+            writeString(out, transaction.getBookId());
+            writeString(out, transaction.getBookTitle());
+            writeString(out, transaction.getMemberId());
+            writeString(out, transaction.getMemberName());
+            writeString(out, transaction.getAction());
+            writeTimestamp(out, transaction.getTimestamp());
+        }
+    }
+
+    static LibrarySnapshot readSnapshot(DataInput in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) { throw new IOException("Not a library snapshot"); }
+        int version = in.readInt();
+        if (version != SNAPSHOT_VERSION) { throw new IOException("Unsupported snapshot version " + version); }
+
+        int bookCount = in.readInt();
+        List<Book> books = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            Book book = new Book(readString(in), readString(in), readString(in), readString(in));
+            book.setIssued(in.readBoolean());
+            book.setIssuedToMemberId(readString(in));
+            book.setIssueDate(readDate(in));
+            book.setDueDate(readDate(in));
+            books.add(book);
+        }
+        int memberCount = in.readInt();
+        List<Member> members = new ArrayList<>(memberCount);
+        for (int i = 0; i < memberCount; i++) {
+            members.add(new Member(readString(in), readString(in)));
+        }
+        int historyCount = in.readInt();
+        List<Transaction> history = new ArrayList<>(historyCount);
+        for (int i = 0; i < historyCount; i++) {
+            history.add(new Transaction(readString(in), readString(in), readString(in), readString(in), readString(in), readTimestamp(in)));
+        }
+        return new LibrarySnapshot(books, members, history);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) { out.writeUTF(value); }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(DataInput in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static void writeTimestamp(DataOutput out, LocalDateTime timestamp) throws IOException {
+        out.writeLong(timestamp == null ? NO_DATE : timestamp.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(timestamp == null ? 0 : timestamp.getNano());
+    }
+
+    private static LocalDateTime readTimestamp(DataInput in) throws IOException {
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return seconds == NO_DATE ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.library.persistence;
+
+import com.example.library.model.Book;
+import com.example.library.model.Member;
+import com.example.library.model.Transaction;
+import lombok.Data;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One state change as written to the write-ahead log.
+ * Records are self-contained: replaying one never needs to look up other state, so the log
+ * replays the same way regardless of how concurrent operations on different books interleaved.
+ */
+@Data
+public class JournalRecord {
+    public enum Type { ADD_BOOK, DELETE_BOOK, ISSUE, RETURN, ADD_MEMBER, DELETE_MEMBER }
+
+    private final Type type;
+    private final String bookId;
+    private final String title;
+    private final String author;
+    private final String genre;
+    private final String memberId;
+    private final String memberName;
+    private final LocalDate issueDate;
+    private final LocalDateTime timestamp;
+    private final LocalDate dueDate; // Logged with each issue, so replay keeps it even if the loan period changes
+
+    public static JournalRecord addBook(Book book) {
+        return new JournalRecord(Type.ADD_BOOK, book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(), null, null, null, null, null);
+    }
+
+    public static JournalRecord deleteBook(Transaction deleted) {
+        return new JournalRecord(Type.DELETE_BOOK, deleted.getBookId(), deleted.getBookTitle(), null, null, null, null, null, deleted.getTimestamp(), null);
+    }
+
+    public static JournalRecord issue(Transaction issued, Book book) {
+        return new JournalRecord(Type.ISSUE, issued.getBookId(), issued.getBookTitle(), null, null, issued.getMemberId(), issued.getMemberName(),
+                book.getIssueDate(), issued.getTimestamp(), book.getDueDate());
+    }
+
+    public static JournalRecord returned(Transaction returned) {
+        return new JournalRecord(Type.RETURN, returned.getBookId(), returned.getBookTitle(), null, null, returned.getMemberId(), returned.getMemberName(), null, returned.getTimestamp(), null);
+    }
+
+    public static JournalRecord addMember(Member member) {
+        return new JournalRecord(Type.ADD_MEMBER, null, null, null, null, member.getId(), member.getName(), null, null, null);
+    }
+
+    public static JournalRecord deleteMember(String memberId) {
+        return new JournalRecord(Type.DELETE_MEMBER, null, null, null, null, memberId, null, null, null, null);
+    }
+}
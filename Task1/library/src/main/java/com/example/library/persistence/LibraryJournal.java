@@ -0,0 +1,208 @@
+package com.example.library.persistence;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Durability for library state: a write-ahead log of every mutation plus periodic snapshots.
+ * <p>
+ * Mutations run inside a {@link Mutation}: they apply their change in memory, log it while still holding
+ * whatever makes the change atomic, and only wait for the fsync after releasing it. A snapshot briefly
+ * excludes all mutations to roll the log and copy state, then writes the copy in the background, so
+ * recovery loads the newest snapshot and replays only the log written after it.
+ * <p>
+ * Once a log write fails the journal turns read-only: {@link #begin()} refuses every later mutation before it
+ * changes anything, since a change that cannot be logged would be visible now and lost on restart.
+ * <p>
+ * When {@code library.persistence.enabled} is false every method is a no-op and state lives on the heap only.
+ */
+@Component
+public class LibraryJournal {
+    private static final Logger log = LoggerFactory.getLogger(LibraryJournal.class);
+    private static final Mutation NO_OP = new Mutation(null);
+
+    private final PersistenceProperties properties;
+    private final Path directory;
+    // Mutations share the read side; taking a snapshot holds the write side.
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private final ReentrantLock checkpointInProgress = new ReentrantLock();
+    private final AtomicLong sinceSnapshot = new AtomicLong();
+    private final AtomicBoolean snapshotQueued = new AtomicBoolean();
+    private ExecutorService snapshotter;
+    private WriteAheadLog wal;
+    private Supplier<LibrarySnapshot> snapshotSource;
+    private volatile long recoveryMillis;
+    private volatile long recoveredRecords;
+
+    @Autowired
+    public LibraryJournal(PersistenceProperties properties) {
+        this.properties = properties;
+        this.directory = Paths.get(properties.getDirectory());
+    }
+
+    public boolean isEnabled() { return properties.isEnabled(); }
+    public long getRecoveryMillis() { return recoveryMillis; }
+    public long getRecoveredRecords() { return recoveredRecords; }
+    public long getRecordsWritten() { return wal == null ? 0 : wal.recordsWritten(); }
+    public long getBatchesWritten() { return wal == null ? 0 : wal.batchesWritten(); }
+    public boolean isReadOnly() { return wal != null && wal.failure() != null; }
+
+    /**
+     * Restores the newest snapshot and replays the log written after it, then opens the log for appends.
+     * Must be called once, before any mutation.
+     * @param snapshotSource captures the current state; called with all mutations excluded.
+     * @return true if any persisted state was found.
+     */
+    public boolean recover(Consumer<LibrarySnapshot> restore, Consumer<JournalRecord> replay, Supplier<LibrarySnapshot> snapshotSource) {
+        if (!isEnabled()) { return false; }
+        this.snapshotSource = snapshotSource;
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            Optional<SnapshotFiles.Loaded> snapshot = SnapshotFiles.readLatest(directory);
+            long fromLsn = snapshot.map(SnapshotFiles.Loaded::lsn).orElse(0L);
+            snapshot.ifPresent(loaded -> restore.accept(loaded.snapshot()));
+            WriteAheadLog.ReplayResult replayed = WriteAheadLog.replay(directory, fromLsn, payload -> {
+                try {
+                    replay.accept(JournalCodec.decode(payload));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            wal = new WriteAheadLog(directory, properties.getMaxBatch(), replayed.nextLsn());
+            snapshotter = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "library-snapshotter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sinceSnapshot.set(replayed.records());
+            recoveredRecords = replayed.records();
+            recoveryMillis = (System.nanoTime() - start) / 1_000_000;
+            log.info("Recovered library state from {}: snapshot at LSN {}, {} log records replayed in {} ms",
+                    directory.toAbsolutePath(), fromLsn, replayed.records(), recoveryMillis);
+            return snapshot.isPresent() || replayed.records() > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover library state from " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Starts a mutation; use with try-with-resources.
+     * @throws ReadOnlyException if the log has failed, before anything is changed.
+     */
+    public Mutation begin() {
+        if (wal == null) { return NO_OP; }
+        if (wal.failure() != null) { throw new ReadOnlyException(wal.failure()); }
+        checkpointLock.readLock().lock();
+        return new Mutation(this);
+    }
+
+    /** Writes a snapshot of the current state and drops the log segments and snapshots it supersedes. */
+    public void checkpoint() {
+        if (wal == null || wal.failure() != null) { return; } // Memory may hold changes the log never got
+        checkpointInProgress.lock();
+        try {
+            CompletableFuture<Long> boundary;
+            LibrarySnapshot snapshot;
+            checkpointLock.writeLock().lock();
+            try {
+                boundary = wal.roll();
+                snapshot = snapshotSource.get();
+                sinceSnapshot.set(0);
+            } finally {
+                checkpointLock.writeLock().unlock();
+            }
+            long lsn = boundary.join();
+            long start = System.nanoTime();
+            SnapshotFiles.write(directory, lsn, snapshot);
+            wal.deleteSegmentsBefore(lsn);
+            SnapshotFiles.deleteOlderThan(directory, lsn);
+            log.info("Wrote library snapshot at LSN {} ({} books, {} history entries) in {} ms", lsn,
+                    snapshot.getBooks().size(), snapshot.getHistory().size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            log.error("Library snapshot failed; the write-ahead log is kept and will be replayed instead", e);
+        } catch (CompletionException e) {
+            log.error("Library snapshot abandoned: the write-ahead log could not be rolled", e.getCause());
+        } finally {
+            checkpointInProgress.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (wal == null) { return; }
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkpoint();
+        wal.close();
+        wal = null;
+    }
+
+    private void logged() {
+        if (sinceSnapshot.incrementAndGet() >= properties.getSnapshotEvery() && snapshotQueued.compareAndSet(false, true)) {
+            snapshotter.execute(() -> {
+                snapshotQueued.set(false);
+                checkpoint();
+            });
+        }
+    }
+
+    /**
+     * One logical change. Records logged through it become durable before {@link #close()} returns;
+     * the wait happens after the snapshot exclusion is released so slow disks never block snapshots.
+     */
+    public static final class Mutation implements AutoCloseable {
+        private final LibraryJournal journal;
+        private CompletableFuture<Long> lastWrite;
+
+        private Mutation(LibraryJournal journal) { this.journal = journal; }
+
+        public void log(JournalRecord record) {
+            if (journal == null) { return; }
+            lastWrite = journal.wal.append(JournalCodec.encode(record));
+            journal.logged();
+        }
+
+        @Override
+        public void close() {
+            if (journal == null) { return; }
+            journal.checkpointLock.readLock().unlock();
+            // The writer completes records in order, so the last one being durable covers the rest.
+            if (lastWrite != null) { lastWrite.join(); }
+        }
+    }
+
+    /** Thrown by {@link #begin()} once the log has failed; the library keeps serving reads. */
+    public static final class ReadOnlyException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        private ReadOnlyException(IOException cause) {
+            super("Library is read-only: the write-ahead log failed", cause);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.library.persistence;
+
+import com.example.library.model.Book;
+import com.example.library.model.Member;
+import com.example.library.model.Transaction;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * Point-in-time copy of the whole library, written periodically so recovery only replays the log tail.
+ * Books are listed oldest first and history oldest first, the order they were originally added in.
+ */
+@Data
+public class LibrarySnapshot {
+    private final List<Book> books;
+    private final List<Member> members;
+    private final List<Transaction> history;
+}
@@ -0,0 +1,16 @@
+package com.example.library.persistence;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the on-disk journal, bound from the {@code library.persistence.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "library.persistence")
+public class PersistenceProperties {
+    private boolean enabled = false;
+    private String directory = "data";
+    private int maxBatch = 1024;           // Records written per fsync at most
+    private long snapshotEvery = 100_000;  // Records logged between snapshots
+}
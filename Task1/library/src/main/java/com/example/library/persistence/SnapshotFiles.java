@@ -0,0 +1,95 @@
+package com.example.library.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot files named after the first log sequence number they do not cover.
+ * A snapshot is written to a temporary file, fsynced and then atomically renamed, so a crash mid-write
+ * leaves the previous snapshot in place. A CRC32 trailer guards against partially copied or damaged files.
+ */
+final class SnapshotFiles {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotFiles.class);
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{20})\\.bin");
+
+    record Loaded(long lsn, LibrarySnapshot snapshot) { }
+
+    private SnapshotFiles() { }
+
+    static void write(Path directory, long lsn, LibrarySnapshot snapshot) throws IOException {
+        Path target = directory.resolve(String.format("snapshot-%020d.bin", lsn));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            JournalCodec.writeSnapshot(out, snapshot);
+            out.flush();
+            long crc = checked.getChecksum().getValue();
+            out.writeLong(crc);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        WriteAheadLog.syncDirectory(directory);
+    }
+
+    /** Loads the newest snapshot that passes its checksum, skipping damaged ones. */
+    static Optional<Loaded> readLatest(Path directory) throws IOException {
+        for (Path file : snapshots(directory)) {
+            try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+                CheckedInputStream checked = new CheckedInputStream(raw, new CRC32());
+                LibrarySnapshot snapshot = JournalCodec.readSnapshot(new DataInputStream(checked));
+                long expected = checked.getChecksum().getValue();
+                if (new DataInputStream(raw).readLong() != expected) { throw new IOException("Checksum mismatch"); }
+                return Optional.of(new Loaded(lsn(file), snapshot));
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable snapshot {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** Removes snapshots older than {@code lsn} and leftovers from interrupted writes. */
+    static void deleteOlderThan(Path directory, long lsn) throws IOException {
+        for (Path file : snapshots(directory)) {
+            if (lsn(file) < lsn) { Files.deleteIfExists(file); }
+        }
+        try (var files = Files.list(directory)) {
+            for (Path temp : files.filter(path -> path.getFileName().toString().endsWith(".bin.tmp")).toList()) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    // Newest first
+    private static List<Path> snapshots(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> SNAPSHOT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted(Comparator.reverseOrder()).toList();
+        }
+    }
+
+    private static long lsn(Path file) {
+        Matcher matcher = SNAPSHOT_NAME.matcher(file.getFileName().toString());
+        if (!matcher.matches()) { throw new IllegalArgumentException("Not a snapshot: " + file); }
+        return Long.parseLong(matcher.group(1));
+    }
+}
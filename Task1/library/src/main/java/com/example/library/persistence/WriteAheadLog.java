@@ -0,0 +1,276 @@
+package com.example.library.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented write-ahead log with group commit.
+ * <p>
+ * Callers enqueue encoded records and get a future that completes once the record is on disk. A single
+ * writer thread drains everything queued so far, writes it as one batch and issues one fsync for the whole
+ * batch, so concurrent writers share the cost of each sync.
+ * <p>
+ * Each record is framed as {@code [length][crc32][payload]}. Segment files are named after the log sequence
+ * number (LSN) of their first record. On replay, the first short or corrupt frame is treated as the torn tail
+ * of an interrupted write: the segment is truncated there and anything after it is discarded.
+ */
+final class WriteAheadLog implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d{20})\\.log");
+    private static final int FRAME_HEADER = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final int maxBatch;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final AtomicLong recordsWritten = new AtomicLong();
+    private final AtomicLong batchesWritten = new AtomicLong();
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    // Owned by the writer thread
+    private FileChannel channel;
+    private long nextLsn;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    private static final class Pending {
+        final byte[] payload; // null marks a segment roll
+        final CompletableFuture<Long> done = new CompletableFuture<>();
+
+        Pending(byte[] payload) { this.payload = payload; }
+    }
+
+    /** Result of replaying the log: the LSN the next appended record will get, and how many records were read. */
+    record ReplayResult(long nextLsn, long records) { }
+
+    WriteAheadLog(Path directory, int maxBatch, long firstLsn) throws IOException {
+        this.directory = directory;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.nextLsn = firstLsn;
+        openSegment(firstLsn);
+        this.writer = new Thread(this::run, "library-wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /** Queues a record; the future completes with its LSN once it has been fsynced. */
+    CompletableFuture<Long> append(byte[] payload) {
+        return enqueue(new Pending(payload));
+    }
+
+    /**
+     * Ends the current segment after everything queued before this call, and starts a new one.
+     * The future completes with the first LSN of the new segment once the old one is durable.
+     */
+    CompletableFuture<Long> roll() {
+        return enqueue(new Pending(null));
+    }
+
+    long recordsWritten() { return recordsWritten.get(); }
+    long batchesWritten() { return batchesWritten.get(); }
+    /** The write error that stopped the log, or null while it is healthy; once set, every later append fails. */
+    IOException failure() { return failure; }
+
+    /** Deletes segments whose records all precede {@code lsn}; only valid for an LSN returned by {@link #roll()}. */
+    void deleteSegmentsBefore(long lsn) throws IOException {
+        for (Path segment : segments(directory)) {
+            if (baseLsn(segment) < lsn) { Files.deleteIfExists(segment); }
+        }
+    }
+
+    /**
+     * Feeds every intact record with an LSN of at least {@code fromLsn} to {@code sink}, oldest first,
+     * and truncates the log at the first torn or corrupt record.
+     */
+    static ReplayResult replay(Path directory, long fromLsn, Consumer<byte[]> sink) throws IOException {
+        long lsn = fromLsn;
+        long replayed = 0;
+        boolean truncated = false;
+        for (Path segment : segments(directory)) {
+            long base = baseLsn(segment);
+            if (truncated || base > lsn) {
+                // Either an earlier segment was cut short or there is a gap; nothing here can be trusted.
+                log.warn("Discarding write-ahead log segment {} after LSN {}", segment.getFileName(), lsn);
+                Files.delete(segment);
+                truncated = true;
+                continue;
+            }
+            try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+                long position = 0;
+                long segmentLsn = base;
+                while (true) {
+                    header.clear();
+                    if (readFully(in, header, position) < FRAME_HEADER) { break; }
+                    header.flip();
+                    int length = header.getInt();
+                    int crc = header.getInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) { break; }
+                    ByteBuffer payload = ByteBuffer.allocate(length);
+                    if (readFully(in, payload, position + FRAME_HEADER) < length || checksum(payload.array()) != crc) { break; }
+                    if (segmentLsn >= fromLsn) {
+                        sink.accept(payload.array());
+                        replayed++;
+                    }
+                    position += FRAME_HEADER + length;
+                    segmentLsn++;
+                }
+                if (position < in.size()) {
+                    log.warn("Truncating torn write-ahead log record in {} at byte {}", segment.getFileName(), position);
+                    in.truncate(position);
+                    in.force(true);
+                    truncated = true;
+                }
+                lsn = Math.max(lsn, segmentLsn);
+            }
+        }
+        return new ReplayResult(lsn, replayed);
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private CompletableFuture<Long> enqueue(Pending pending) {
+        if (failure != null) {
+            pending.done.completeExceptionally(failure);
+        } else if (!running) {
+            pending.done.completeExceptionally(new IOException("Write-ahead log is closed"));
+        } else {
+            queue.add(pending);
+        }
+        return pending.done;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) { continue; }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Write-ahead log write failed; further writes will be rejected", e);
+                failure = e;
+                batch.forEach(pending -> pending.done.completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) throws IOException {
+        int from = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i).payload == null) {
+                sync(batch, from, i);
+                channel.close();
+                openSegment(nextLsn);
+                batch.get(i).done.complete(nextLsn);
+                from = i + 1;
+            }
+        }
+        sync(batch, from, batch.size());
+    }
+
+    // Writes batch[from, to) and fsyncs it, then completes each record's future with its LSN.
+    private void sync(List<Pending> batch, int from, int to) throws IOException {
+        if (from == to) { return; }
+        CRC32 crc = new CRC32();
+        for (int i = from; i < to; i++) {
+            byte[] payload = batch.get(i).payload;
+            if (buffer.remaining() < FRAME_HEADER + payload.length) {
+                drain();
+                if (buffer.capacity() < FRAME_HEADER + payload.length) { buffer = ByteBuffer.allocateDirect(FRAME_HEADER + payload.length); }
+            }
+            crc.reset();
+            crc.update(payload);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        drain();
+        channel.force(false);
+        for (int i = from; i < to; i++) { batch.get(i).done.complete(nextLsn++); }
+        recordsWritten.addAndGet(to - from);
+        batchesWritten.incrementAndGet();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) { channel.write(buffer); }
+        buffer.clear();
+    }
+
+    private void openSegment(long firstLsn) throws IOException {
+        // A segment with this name can only exist if it held no intact records, so it is safe to overwrite.
+        channel = FileChannel.open(directory.resolve(String.format("wal-%020d.log", firstLsn)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        syncDirectory(directory);
+    }
+
+    /** Makes file creations, renames and deletions in {@code directory} durable, where the platform allows it. */
+    static void syncDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Some platforms cannot open or sync a directory; the file contents themselves are already synced.
+        }
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches()).sorted().toList();
+        }
+    }
+
+    private static long baseLsn(Path segment) {
+        Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        if (!matcher.matches()) { throw new IllegalArgumentException("Not a log segment: " + segment); }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static int readFully(FileChannel in, ByteBuffer target, long position) throws IOException {
+        int total = 0;
+        while (target.hasRemaining()) {
+            int read = in.read(target, position + total);
+            if (read < 0) { break; }
+            total += read;
+        }
+        return total;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.library.search;
+
+import com.example.library.model.Book;
+import com.example.library.model.ResultPage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Inverted index over book title, author and genre.
+ * <p>
+ * Text is case-folded and split on anything that is not a letter or digit. Every query token must match
+ * (AND semantics), either as a whole term or, for tokens of {@link #MIN_PREFIX_LENGTH} or more characters,
+ * as a prefix of a term. Hits are ranked by which field matched (title over author over genre) and by
+ * whether the match was exact or a prefix.
+ * <p>
+ * The posting lists of the most selective token produce the candidate set; the remaining tokens are
+ * checked against each candidate's own terms, so query cost follows the rarest token rather than the
+ * catalog size.
+ */
+public class BookSearchIndex {
+    public static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 2;
+    private static final int GENRE = 4;
+    private static final int EXACT_BONUS = 2;
+
+    // term -> (book id -> bit mask of the fields containing the term)
+    private final Map<String, Map<String, Integer>> postings = new ConcurrentHashMap<>();
+    // Sorted term dictionary for prefix expansion
+    private final NavigableSet<String> terms = new ConcurrentSkipListSet<>();
+    // book id -> tokenized fields, used to check the remaining query tokens against a candidate
+    private final Map<String, IndexedBook> documents = new ConcurrentHashMap<>();
+
+    private record IndexedBook(String[] title, String[] author, String[] genre) {
+        int score(String token) {
+            int best = fieldScore(title, token, weight(TITLE));
+            best = Math.max(best, fieldScore(author, token, weight(AUTHOR)));
+            return Math.max(best, fieldScore(genre, token, weight(GENRE)));
+        }
+
+        private static int fieldScore(String[] fieldTerms, String token, int weight) {
+            int best = 0;
+            for (String term : fieldTerms) {
+                if (term.equals(token)) { return weight * EXACT_BONUS; }
+                if (token.length() >= MIN_PREFIX_LENGTH && term.startsWith(token)) { best = weight; }
+            }
+            return best;
+        }
+    }
+
+    /** A matching book and its relevance; higher scores rank first, and scores compare across indexes. */
+    public record Hit(String id, int score) { }
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed().thenComparing(Hit::id);
+
+    public void add(Book book) {
+        IndexedBook doc = new IndexedBook(tokenize(book.getTitle()), tokenize(book.getAuthor()), tokenize(book.getGenre()));
+        if (documents.putIfAbsent(book.getId(), doc) != null) { return; }
+        fieldMasks(doc).forEach((term, mask) -> postings.compute(term, (t, ids) -> {
+            Map<String, Integer> posting = ids == null ? new ConcurrentHashMap<>() : ids;
+            if (ids == null) { terms.add(t); }
+            posting.merge(book.getId(), mask, (a, b) -> a | b);
+            return posting;
+        }));
+    }
+
+    public void remove(String bookId) {
+        IndexedBook doc = documents.remove(bookId);
+        if (doc == null) { return; }
+        for (String term : fieldMasks(doc).keySet()) {
+            postings.computeIfPresent(term, (t, ids) -> {
+                ids.remove(bookId);
+                if (!ids.isEmpty()) { return ids; }
+                terms.remove(t);
+                return null;
+            });
+        }
+    }
+
+    public int size() { return documents.size(); }
+
+    /**
+     * Returns the ids of the books matching every token of {@code query}, best match first.
+     * {@code nextCursor} is the offset of the following page, or null when there are no more hits.
+     */
+    public ResultPage<String> search(String query, int offset, int limit) {
+        ResultPage<Hit> hits = rank(query, offset, limit);
+        return new ResultPage<>(hits.getItems().stream().map(Hit::id).toList(), hits.getTotal(), hits.getNextCursor());
+    }
+
+    /** As {@link #search}, with each book's score, so results ranked by separate indexes can be merged. */
+    public ResultPage<Hit> rank(String query, int offset, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(List.of(tokenize(query))));
+        if (tokens.isEmpty() || limit <= 0) { return new ResultPage<>(List.of(), 0, null); }
+
+        // Seed candidates from the most selective token, then narrow them with the rest.
+        String seed = tokens.get(0);
+        int seedCost = Integer.MAX_VALUE;
+        for (String token : tokens) {
+            int cost = estimateMatches(token, seedCost);
+            if (cost < seedCost) {
+                seed = token;
+                seedCost = cost;
+            }
+        }
+        if (seedCost == 0) { return new ResultPage<>(List.of(), 0, null); }
+        tokens.remove(seed);
+
+        Map<String, Integer> candidates = new HashMap<>();
+        for (String term : expand(seed)) {
+            Map<String, Integer> posting = postings.get(term);
+            if (posting == null) { continue; }
+            int bonus = term.equals(seed) ? EXACT_BONUS : 1;
+            posting.forEach((id, mask) -> candidates.merge(id, weight(mask) * bonus, Math::max));
+        }
+
+        int wanted = Math.max(offset, 0) + limit;
+        PriorityQueue<Hit> top = new PriorityQueue<>(RANKING.reversed());
+        int total = 0;
+        for (Map.Entry<String, Integer> candidate : candidates.entrySet()) {
+            int score = candidate.getValue();
+            if (!tokens.isEmpty()) {
+                IndexedBook doc = documents.get(candidate.getKey());
+                if (doc == null) { continue; }
+                for (Iterator<String> it = tokens.iterator(); it.hasNext() && score > 0; ) {
+                    int tokenScore = doc.score(it.next());
+                    score = tokenScore == 0 ? 0 : score + tokenScore;
+                }
+                if (score == 0) { continue; }
+            }
+            total++;
+            top.offer(new Hit(candidate.getKey(), score));
+            if (top.size() > wanted) { top.poll(); }
+        }
+
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        List<Hit> page = ranked.subList(Math.min(Math.max(offset, 0), ranked.size()), ranked.size());
+        String nextCursor = wanted < total ? String.valueOf(wanted) : null;
+        return new ResultPage<>(page, total, nextCursor);
+    }
+
+    /** Splits text into lower-case letter/digit runs. */
+    public static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) { return new String[0]; }
+        List<String> tokens = new ArrayList<>();
+        String folded = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private Set<String> expand(String token) {
+        if (token.length() < MIN_PREFIX_LENGTH) { return postings.containsKey(token) ? Set.of(token) : Set.of(); }
+        return terms.subSet(token, true, token + Character.MAX_VALUE, false);
+    }
+
+    // Number of postings the token expands to, counting no further than the current best estimate.
+    private int estimateMatches(String token, int bound) {
+        int count = 0;
+        for (String term : expand(token)) {
+            Map<String, Integer> posting = postings.get(term);
+            if (posting != null) { count += posting.size(); }
+            if (count >= bound) { break; }
+        }
+        return count;
+    }
+
+    private static Map<String, Integer> fieldMasks(IndexedBook doc) {
+        Map<String, Integer> masks = new HashMap<>();
+        for (String term : doc.title()) { masks.merge(term, TITLE, (a, b) -> a | b); }
+        for (String term : doc.author()) { masks.merge(term, AUTHOR, (a, b) -> a | b); }
+        for (String term : doc.genre()) { masks.merge(term, GENRE, (a, b) -> a | b); }
+        return masks;
+    }
+
+    private static int weight(int mask) {
+        if ((mask & TITLE) != 0) { return 3; }
+        if ((mask & AUTHOR) != 0) { return 2; }
+        return 1;
+    }
+}
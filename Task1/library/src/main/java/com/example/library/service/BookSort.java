@@ -0,0 +1,33 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import java.time.LocalDate;
+import java.util.Comparator;
+
+/**
+ * Sort keys accepted by the book listing endpoint.
+ * NEWEST and OLDEST follow catalog insertion order, so they need no comparator.
+ */
+public enum BookSort {
+    NEWEST(null),
+    OLDEST(null),
+    TITLE(Comparator.comparing(Book::getTitle, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))),
+    AUTHOR(Comparator.comparing(Book::getAuthor, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))),
+    DUE_DATE(Comparator.comparing(Book::getDueDate, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder())));
+
+    private final Comparator<Book> comparator;
+
+    BookSort(Comparator<Book> comparator) { this.comparator = comparator; }
+
+    public Comparator<Book> comparator() { return comparator; }
+
+    /** Parses a sort key such as "title" or "due-date", case-insensitively; missing means NEWEST, anything else null. */
+    public static BookSort parse(String key) {
+        if (key == null || key.isBlank()) { return NEWEST; }
+        try {
+            return valueOf(key.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Book catalog storage, selected with {@code library.catalog.backend}.
+ * Implementations index books by id, by the member they are issued to and by genre, keep insertion
+ * order for listings, and make every single-book change atomic. Stored books are treated as immutable:
+ * a change produces a new version, so a reader always sees a book either wholly before or after it.
+ */
+public interface BookStore {
+
+    /**
+     * Adds a book to the catalog. Returns false if a book with the same id is already present.
+     * The store takes ownership of the book; callers must not change it afterwards.
+     */
+    boolean add(Book book);
+
+    Optional<Book> get(String id);
+
+    /**
+     * Atomically applies {@code change} to the book with the given id and re-indexes it.
+     * The function is given a private copy, which it may change and return; returning null leaves the book
+     * untouched. Books handed out by the store are never modified afterwards, so readers need no locking.
+     * @return the book as stored after the change, or empty if no book has this id.
+     */
+    Optional<Book> update(String id, UnaryOperator<Book> change);
+
+    /**
+     * Atomically applies {@code change} to several distinct books together. All of them are locked while
+     * {@code change} runs on private copies, given in the order of {@code ids} with null for ids not in the catalog.
+     * It returns the list with its changes, and every book in it is stored; returning null leaves them all untouched.
+     * @return the books as stored after the change, or empty if {@code change} returned null.
+     */
+    Optional<List<Book>> updateAll(List<String> ids, UnaryOperator<List<Book>> change);
+
+    /**
+     * Atomically removes the book with the given id if it satisfies {@code condition}.
+     * @return the removed book, or empty if it was absent or the condition did not hold.
+     */
+    Optional<Book> removeIf(String id, Predicate<Book> condition);
+
+    /** All books, newest first. */
+    List<Book> list();
+
+    /**
+     * Up to {@code limit} books after skipping {@code offset}, in insertion order, optionally restricted to one genre.
+     * Only the returned books are materialized.
+     */
+    List<Book> page(String genre, boolean oldestFirst, int offset, int limit);
+
+    /** Visits every book oldest first without building a list; books added or removed meanwhile may or may not be seen. */
+    void forEach(Consumer<Book> action);
+
+    /** Books issued to the given member, newest first. */
+    List<Book> findByMember(String memberId);
+
+    /** Books in the given genre, newest first. */
+    List<Book> findByGenre(String genre);
+
+    boolean hasBooksIssuedTo(String memberId);
+
+    Set<String> genres();
+
+    /** Number of books, or of books in {@code genre} when it is not null. */
+    int count(String genre);
+
+    int size();
+}
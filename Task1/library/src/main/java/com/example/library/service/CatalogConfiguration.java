@@ -0,0 +1,21 @@
+package com.example.library.service;
+
+import com.example.library.persistence.PersistenceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+public class CatalogConfiguration {
+
+    /** The mapped store is closed on shutdown through Spring's inferred {@code close()} destroy method. */
+    @Bean
+    public BookStore bookStore(CatalogProperties catalog, PersistenceProperties persistence) throws IOException {
+        if (catalog.getBackend() == CatalogProperties.Backend.MAPPED) {
+            // With the journal on, it is the source of truth and recovery refills the catalog from it.
+            return MappedBookStore.open(Paths.get(catalog.getDirectory()), persistence.isEnabled());
+        }
+        return new InMemoryBookStore();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.library.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Where the book catalog lives, bound from the {@code library.catalog.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "library.catalog")
+public class CatalogProperties {
+    public enum Backend { MEMORY, MAPPED }
+
+    private Backend backend = Backend.MEMORY;
+    private String directory = "catalog"; // Used by the mapped backend only
+}
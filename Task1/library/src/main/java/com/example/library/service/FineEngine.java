@@ -0,0 +1,100 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * Keeps issued books ordered by due date so fines can be refreshed once per day for the overdue
+ * books only. Between refreshes the fine stored on each {@link Book} is served as-is, so listings
+ * never do date arithmetic.
+ */
+public class FineEngine {
+    private final FinePolicy policy;
+    private final NavigableSet<DueEntry> byDueDate = new ConcurrentSkipListSet<>(
+            Comparator.comparing(DueEntry::dueDate).thenComparing(DueEntry::bookId));
+
+    // Entries can briefly outlive a return or trail an issue, so readers check them against the book.
+    record DueEntry(LocalDate dueDate, String bookId) {
+        /** Opaque position after this entry, for paging through {@link #due}. */
+        String cursor() { return dueDate + "/" + bookId; }
+
+        /** @throws IllegalArgumentException if the cursor was not made by {@link #cursor()}. */
+        static DueEntry fromCursor(String cursor) {
+            int slash = cursor.indexOf('/');
+            if (slash < 0) { throw new IllegalArgumentException("Malformed cursor: " + cursor); }
+            try {
+                return new DueEntry(LocalDate.parse(cursor.substring(0, slash)), cursor.substring(slash + 1));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Malformed cursor: " + cursor, e);
+            }
+        }
+    }
+
+    public FineEngine(FinePolicy policy) { this.policy = policy; }
+
+    /** Starts tracking a book that has just been issued. Call while holding the book's store update. */
+    public void track(Book book) {
+        if (book.getDueDate() != null) { byDueDate.add(new DueEntry(book.getDueDate(), book.getId())); }
+    }
+
+    /** Stops tracking a book that is being returned. Call before its due date is cleared. */
+    public void untrack(Book book) {
+        if (book.getDueDate() != null) { byDueDate.remove(new DueEntry(book.getDueDate(), book.getId())); }
+    }
+
+    public long fineFor(Book book, LocalDate today) {
+        return book.isIssued() ? policy.fineFor(book.getDueDate(), today) : 0;
+    }
+
+    /** Number of issued books. Walks the index, so meant for metrics scrapes rather than request paths. */
+    public int trackedCount() { return byDueDate.size(); }
+
+    /** Number of issued books past their due date on {@code today}; walks the overdue part of the index. */
+    public int overdueCount(LocalDate today) { return byDueDate.headSet(new DueEntry(today, ""), false).size(); }
+
+    /**
+     * Issued books due from {@code from} to {@code to} inclusive, earliest first, starting after {@code after}.
+     * Either bound may be null for an open end. The result is a live view of the index, so walking k entries
+     * costs O(log n + k) and nothing is copied.
+     */
+    NavigableSet<DueEntry> due(LocalDate from, LocalDate to, DueEntry after) {
+        NavigableSet<DueEntry> range = byDueDate;
+        if (after != null) {
+            range = range.tailSet(after, false);
+        } else if (from != null) {
+            range = range.tailSet(new DueEntry(from, ""), true);
+        }
+        // "" sorts before every id, so this excludes everything due after the end date.
+        return to == null ? range : range.headSet(new DueEntry(to.plusDays(1), ""), false);
+    }
+
+    /**
+     * Brings the fine of every overdue book up to date for {@code today}.
+     * Only books whose due date is past the grace period are visited.
+     * @param onChange called with the new version of each book whose fine changed, while that change is still atomic.
+     * @return the number of books whose fine changed.
+     */
+    public int refresh(BookStore books, LocalDate today, Consumer<Book> onChange) {
+        // "" sorts before every id, so this excludes all books due on the cutoff date itself.
+        DueEntry cutoff = new DueEntry(policy.earliestUnfinedDueDate(today), "");
+        int changed = 0;
+        for (DueEntry entry : byDueDate.headSet(cutoff, false)) {
+            long fine = policy.fineFor(entry.dueDate(), today);
+            boolean[] updated = { false };
+            books.update(entry.bookId(), book -> {
+                if (!book.isIssued() || !entry.dueDate().equals(book.getDueDate()) || book.getFine() == fine) { return null; }
+                book.setFine(fine);
+                onChange.accept(book);
+                updated[0] = true;
+                return book;
+            });
+            if (updated[0]) { changed++; }
+        }
+        return changed;
+    }
+}
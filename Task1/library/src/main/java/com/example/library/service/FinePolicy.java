@@ -0,0 +1,28 @@
+package com.example.library.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Overdue fine rules, bound from the {@code library.fines.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "library.fines")
+public class FinePolicy {
+    private long ratePerDay = 5; // ₹ per overdue day
+    private int graceDays = 0;   // Days past the due date before fines start to accrue
+    private long maxFine = 0;    // Cap per book; 0 means no cap
+
+    /** Books due on or after this date carry no fine on {@code today}. */
+    public LocalDate earliestUnfinedDueDate(LocalDate today) { return today.minusDays(graceDays); }
+
+    public long fineFor(LocalDate dueDate, LocalDate today) {
+        if (dueDate == null) { return 0; }
+        long chargeableDays = ChronoUnit.DAYS.between(dueDate, today) - graceDays;
+        if (chargeableDays <= 0) { return 0; }
+        long fine = chargeableDays * ratePerDay;
+        return maxFine > 0 ? Math.min(fine, maxFine) : fine;
+    }
+}
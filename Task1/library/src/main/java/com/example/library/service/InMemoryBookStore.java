@@ -0,0 +1,220 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Heap-resident book catalog, the default backend.
+ * Books are keyed by id for O(1) lookup, with secondary indexes on the member a book is issued to
+ * and on genre, plus an insertion-ordered view used for listings.
+ * Changes to a book, and all index maintenance for it, happen under that book's lock stripe, so concurrent
+ * writers to the same book are serialized while writers to different books rarely meet. The stripes are
+ * plain locks rather than the map's internal monitors, so update functions may block (on the journal, say)
+ * without pinning a virtual thread. Updates swap in a changed copy, so readers work lock-free on books that
+ * never change under them.
+ */
+public class InMemoryBookStore implements BookStore {
+    private static final int LOCK_STRIPES = 1024;
+
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Book> bySequence = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<String>> byMember = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byGenre = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LockStripes locks = new LockStripes(LOCK_STRIPES);
+
+    private record Entry(long sequence, Book book) { }
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator.comparingLong(Entry::sequence).reversed();
+
+    @Override
+    public boolean add(Book book) {
+        String id = book.getId();
+        ReentrantLock lock = locks.lockFor(id);
+        lock.lock();
+        try {
+            if (byId.containsKey(id)) { return false; }
+            long seq = sequence.incrementAndGet();
+            index(byGenre, book.getGenre(), id);
+            index(byMember, book.getIssuedToMemberId(), id);
+            bySequence.put(seq, book);
+            byId.put(id, new Entry(seq, book));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Book> get(String id) {
+        if (id == null) { return Optional.empty(); }
+        Entry entry = byId.get(id);
+        return entry == null ? Optional.empty() : Optional.of(entry.book());
+    }
+
+    @Override
+    public Optional<Book> update(String id, UnaryOperator<Book> change) {
+        if (id == null) { return Optional.empty(); }
+        ReentrantLock lock = locks.lockFor(id);
+        lock.lock();
+        try {
+            Entry entry = byId.get(id);
+            if (entry == null) { return Optional.empty(); }
+            Book before = entry.book();
+            Book after = change.apply(new Book(before));
+            if (after == null) { return Optional.of(before); }
+            reindex(byMember, before.getIssuedToMemberId(), after.getIssuedToMemberId(), id);
+            reindex(byGenre, before.getGenre(), after.getGenre(), id);
+            bySequence.put(entry.sequence(), after);
+            byId.put(id, new Entry(entry.sequence(), after));
+            return Optional.of(after);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<List<Book>> updateAll(List<String> ids, UnaryOperator<List<Book>> change) {
+        List<ReentrantLock> held = locks.lockAll(ids);
+        try {
+            List<Entry> entries = new ArrayList<>(ids.size());
+            List<Book> copies = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Entry entry = id == null ? null : byId.get(id);
+                entries.add(entry);
+                copies.add(entry == null ? null : new Book(entry.book()));
+            }
+            List<Book> after = change.apply(copies);
+            if (after == null) { return Optional.empty(); }
+            for (int i = 0; i < ids.size(); i++) {
+                Entry entry = entries.get(i);
+                if (entry == null) { continue; }
+                Book before = entry.book();
+                Book changed = after.get(i);
+                reindex(byMember, before.getIssuedToMemberId(), changed.getIssuedToMemberId(), before.getId());
+                reindex(byGenre, before.getGenre(), changed.getGenre(), before.getId());
+                bySequence.put(entry.sequence(), changed);
+                byId.put(before.getId(), new Entry(entry.sequence(), changed));
+            }
+            return Optional.of(after);
+        } finally {
+            LockStripes.unlockAll(held);
+        }
+    }
+
+    @Override
+    public Optional<Book> removeIf(String id, Predicate<Book> condition) {
+        if (id == null) { return Optional.empty(); }
+        ReentrantLock lock = locks.lockFor(id);
+        lock.lock();
+        try {
+            Entry entry = byId.get(id);
+            if (entry == null || !condition.test(entry.book())) { return Optional.empty(); }
+            Book book = entry.book();
+            byId.remove(id);
+            bySequence.remove(entry.sequence());
+            unindex(byGenre, book.getGenre(), id);
+            unindex(byMember, book.getIssuedToMemberId(), id);
+            return Optional.of(book);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Book> list() { return new ArrayList<>(bySequence.descendingMap().values()); }
+
+    @Override
+    public List<Book> page(String genre, boolean oldestFirst, int offset, int limit) {
+        if (genre != null) {
+            List<Book> inGenre = findByGenre(genre);
+            if (oldestFirst) { Collections.reverse(inGenre); }
+            int from = Math.min(Math.max(offset, 0), inGenre.size());
+            return new ArrayList<>(inGenre.subList(from, Math.min(from + limit, inGenre.size())));
+        }
+        Collection<Book> ordered = oldestFirst ? bySequence.values() : bySequence.descendingMap().values();
+        List<Book> page = new ArrayList<>(Math.min(limit, 256));
+        Iterator<Book> it = ordered.iterator();
+        for (int skipped = 0; skipped < offset && it.hasNext(); skipped++) { it.next(); }
+        while (page.size() < limit && it.hasNext()) { page.add(it.next()); }
+        return page;
+    }
+
+    @Override
+    public void forEach(Consumer<Book> action) { bySequence.values().forEach(action); }
+
+    @Override
+    public List<Book> findByMember(String memberId) { return resolve(byMember, memberId); }
+    @Override
+    public List<Book> findByGenre(String genre) { return resolve(byGenre, genre); }
+    @Override
+    public boolean hasBooksIssuedTo(String memberId) {
+        Set<String> ids = memberId == null ? null : byMember.get(memberId);
+        return ids != null && !ids.isEmpty();
+    }
+
+    @Override
+    public Set<String> genres() { return new TreeSet<>(byGenre.keySet()); }
+
+    @Override
+    public int count(String genre) {
+        if (genre == null) { return byId.size(); }
+        Set<String> ids = byGenre.get(genre);
+        return ids == null ? 0 : ids.size();
+    }
+
+    @Override
+    public int size() { return byId.size(); }
+
+    private List<Book> resolve(Map<String, Set<String>> index, String key) {
+        Set<String> ids = key == null ? null : index.get(key);
+        if (ids == null) { return new ArrayList<>(); }
+        List<Entry> entries = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Entry entry = byId.get(id);
+            if (entry != null) { entries.add(entry); }
+        }
+        entries.sort(NEWEST_FIRST);
+        List<Book> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries) { result.add(entry.book()); }
+        return result;
+    }
+
+    private static void reindex(Map<String, Set<String>> index, String oldKey, String newKey, String id) {
+        if (oldKey == null ? newKey == null : oldKey.equals(newKey)) { return; }
+        unindex(index, oldKey, id);
+        index(index, newKey, id);
+    }
+
+    private static void index(Map<String, Set<String>> index, String key, String id) {
+        if (key == null) { return; }
+        index.compute(key, (k, ids) -> {
+            Set<String> set = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            set.add(id);
+            return set;
+        });
+    }
+
+    private static void unindex(Map<String, Set<String>> index, String key, String id) {
+        if (key == null) { return; }
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
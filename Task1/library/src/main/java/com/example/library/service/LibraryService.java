@@ -1,125 +1,792 @@
 package com.example.library.service;
 
+import com.example.library.feed.ChangeFeed;
+import com.example.library.history.HistoryRetention;
+import com.example.library.history.TransactionLog;
+import com.example.library.model.BatchItem;
+import com.example.library.model.BatchResult;
 import com.example.library.model.Book;
+import com.example.library.model.ChangeEvent;
+import com.example.library.model.CirculationSummary;
+import com.example.library.model.DailyIssues;
 import com.example.library.model.Member;
+import com.example.library.model.RankedCount;
+import com.example.library.model.Reminder;
+import com.example.library.model.ReminderBatch;
+import com.example.library.model.ResultPage;
+import com.example.library.model.ScoredPage;
 import com.example.library.model.Transaction;
+import com.example.library.persistence.JournalRecord;
+import com.example.library.persistence.LibraryJournal;
+import com.example.library.persistence.LibrarySnapshot;
+import com.example.library.search.BookSearchIndex;
+import com.example.library.stats.CirculationStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class LibraryService {
-    private final List<Book> books = new CopyOnWriteArrayList<>();
-    private final List<Member> members = new CopyOnWriteArrayList<>();
-    private final List<Transaction> transactionHistory = new CopyOnWriteArrayList<>();
+    private static final Logger log = LoggerFactory.getLogger(LibraryService.class);
+    private static final int MEMBER_LOCK_STRIPES = 64;
 
-    public LibraryService() {
+    private final BookStore books;
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
+    private final FineEngine fineEngine;
+    private final LoanPolicy loanPolicy;
+    private final MemberDirectory members = new MemberDirectory();
+    // Serializes issuing to a member against deleting that member and against their other issues, which keeps the
+    // loan limit exact. Each book is made atomic by the store.
+    private final LockStripes memberLocks = new LockStripes(MEMBER_LOCK_STRIPES);
+    private final TransactionLog transactionHistory;
+    // Rollups fed alongside the history, so statistics never rescan it
+    private final CirculationStats stats = new CirculationStats();
+    private final LibraryJournal journal;
+    private final ChangeFeed changes;
+    // Modification counters behind the read endpoints' ETags. Each is bumped after its change is visible to readers,
+    // so a response built after reading a version is never older than that version.
+    private final AtomicLong booksVersion = new AtomicLong();
+    private final AtomicLong membersVersion = new AtomicLong();
+    private final AtomicLong historyVersion = new AtomicLong();
+    private volatile ReminderBatch reminders;
+
+    // Timings of the operations below, exported as library.service{operation=...}; recording allocates nothing.
+    private enum Operation { FIND_BOOKS, SEARCH, ADD_BOOK, IMPORT_BOOKS, DELETE_BOOK, ADD_MEMBER, IMPORT_MEMBERS, DELETE_MEMBER, ISSUE, ISSUE_BATCH, RETURN, RETURN_BATCH, HISTORY, DUE, REMINDERS, STATS, REFRESH_FINES }
+    private final Timer[] timers = new Timer[Operation.values().length];
+
+    @Autowired
+    public LibraryService(BookStore books, FinePolicy finePolicy, LoanPolicy loanPolicy, HistoryRetention historyRetention, LibraryJournal journal, ChangeFeed changes, MeterRegistry registry) {
+        this.books = books;
+        this.fineEngine = new FineEngine(finePolicy);
+        this.loanPolicy = loanPolicy;
+        this.transactionHistory = new TransactionLog(historyRetention);
+        this.journal = journal;
+        this.changes = changes;
+        registerMetrics(registry);
+
+        if (!journal.recover(this::restore, this::replay, this::captureSnapshot)) {
+            if (books.size() == 0) {
+                seed();
+            } else {
+                reindex(); // A persistent catalog without the journal: only the derived indexes need rebuilding.
+            }
+        }
+        refreshFines();
+    }
+
+    private void seed() {
         // Initial Data
-        members.add(new Member(generateId(), "Alice Johnson"));
-        members.add(new Member(generateId(), "Bob Williams"));
+        Member alice = addMember("Alice Johnson");
+        Member bob = addMember("Bob Williams");
 
-        books.add(new Book(generateId(), "The Great Gatsby", "F. Scott Fitzgerald", "Fiction"));
+        // Listings are newest first, so seed in reverse display order.
+        Book overdueBook = addBook("1984", "George Orwell", "Dystopian");
+        issueBook(overdueBook.getId(), bob, LocalDate.now().minusDays(25)); // This book is 10 days overdue
 
-        Book issuedBook = new Book(generateId(), "To Kill a Mockingbird", "Harper Lee", "Classic");
-        issueBook(issuedBook, members.get(0));
-        books.add(issuedBook);
+        Book issuedBook = addBook("To Kill a Mockingbird", "Harper Lee", "Classic");
+        issueBook(issuedBook.getId(), alice, LocalDate.now());
+
+        addBook("The Great Gatsby", "F. Scott Fitzgerald", "Fiction");
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        for (Operation operation : Operation.values()) {
+            timers[operation.ordinal()] = Timer.builder("library.service")
+                    .description("Time spent in library operations, including the journal sync for changes")
+                    .tag("operation", operation.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        // Gauges are read at scrape time, never on a request path.
+        Gauge.builder("library.books", books, BookStore::size).description("Books in the catalog").register(registry);
+        Gauge.builder("library.books.issued", fineEngine, FineEngine::trackedCount).description("Books on loan").register(registry);
+        Gauge.builder("library.books.overdue", fineEngine, engine -> engine.overdueCount(LocalDate.now()))
+                .description("Books on loan past their due date").register(registry);
+        Gauge.builder("library.members", members, MemberDirectory::size).description("Registered members").register(registry);
+        Gauge.builder("library.history.entries", transactionHistory, TransactionLog::size).description("Transactions in the history").register(registry);
+        FunctionCounter.builder("library.journal.records", journal, LibraryJournal::getRecordsWritten)
+                .description("Records written to the write-ahead log").register(registry);
+        FunctionCounter.builder("library.journal.syncs", journal, LibraryJournal::getBatchesWritten)
+                .description("Write-ahead log fsyncs, each covering a batch of records").register(registry);
+        Gauge.builder("library.journal.read_only", journal, j -> j.isReadOnly() ? 1 : 0)
+                .description("1 once a write-ahead log failure has made the library refuse changes").register(registry);
+    }
 
-        Book overdueBook = new Book(generateId(), "1984", "George Orwell", "Dystopian");
-        issueBook(overdueBook, members.get(1));
-        overdueBook.setIssueDate(LocalDate.now().minusDays(25));
-        overdueBook.setDueDate(LocalDate.now().minusDays(10)); // This book is 10 days overdue
-        books.add(overdueBook);
+    private void time(Operation operation, long startNanos) {
+        timers[operation.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
     }
 
     private String generateId() { return UUID.randomUUID().toString().substring(0, 8); }
 
+    /**
+     * Current version of the catalog, changing whenever any book does. Versions include the change feed's epoch,
+     * so they never repeat across restarts. Read the version before the data it describes.
+     */
+    public String booksVersion() { return changes.epoch() + "-" + booksVersion.get(); }
+    public String membersVersion() { return changes.epoch() + "-" + membersVersion.get(); }
+    public String historyVersion() { return changes.epoch() + "-" + historyVersion.get(); }
+
     // --- Book Methods ---
-    public List<Book> getAllBooks() {
-        // Calculate fines every time books are fetched to ensure they are up-to-date
-        books.forEach(this::calculateFine);
-        return books;
+    public List<Book> getAllBooks() { return books.list(); }
+
+    /**
+     * Returns one page of books matching the optional genre and title/author substring filters.
+     */
+    public ResultPage<Book> findBooks(String genre, String query, BookSort sort, int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            String genreFilter = genre == null || genre.isBlank() ? null : genre;
+            if ((query == null || query.isBlank()) && sort.comparator() == null) {
+                // Insertion order needs no sorting, so let the store read just this page.
+                int from = Math.max(offset, 0);
+                int total = books.count(genreFilter);
+                List<Book> page = books.page(genreFilter, sort == BookSort.OLDEST, from, limit);
+                String nextCursor = from + page.size() < total ? String.valueOf(from + page.size()) : null;
+                return new ResultPage<>(page, total, nextCursor);
+            }
+            List<Book> matches = genreFilter == null ? books.list() : books.findByGenre(genreFilter);
+            if (query != null && !query.isBlank()) {
+                String needle = query.trim().toLowerCase();
+                matches.removeIf(book -> !containsIgnoreCase(book.getTitle(), needle) && !containsIgnoreCase(book.getAuthor(), needle));
+            }
+            if (sort == BookSort.OLDEST) {
+                Collections.reverse(matches);
+            } else if (sort.comparator() != null) {
+                matches.sort(sort.comparator());
+            }
+
+            int from = Math.min(Math.max(offset, 0), matches.size());
+            int to = Math.min(from + limit, matches.size());
+            List<Book> page = new ArrayList<>(matches.subList(from, to));
+            String nextCursor = to < matches.size() ? String.valueOf(to) : null;
+            return new ResultPage<>(page, matches.size(), nextCursor);
+        } finally {
+            time(Operation.FIND_BOOKS, start);
+        }
+    }
+
+    public Set<String> getGenres() { return books.genres(); }
+
+    /**
+     * Ranked full-text search over title, author and genre, with each book's score. See {@link BookSearchIndex}
+     * for query semantics.
+     */
+    public ScoredPage<Book> searchBooks(String query, int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            ResultPage<BookSearchIndex.Hit> hits = searchIndex.rank(query, offset, limit);
+            List<Book> page = new ArrayList<>(hits.getItems().size());
+            List<Integer> scores = new ArrayList<>(hits.getItems().size());
+            for (BookSearchIndex.Hit hit : hits.getItems()) {
+                books.get(hit.id()).ifPresent(book -> {
+                    page.add(book);
+                    scores.add(hit.score());
+                });
+            }
+            return new ScoredPage<>(page, hits.getTotal(), hits.getNextCursor(), scores);
+        } finally {
+            time(Operation.SEARCH, start);
+        }
+    }
+
+    private static boolean containsIgnoreCase(String value, String lowerCaseNeedle) {
+        return value != null && value.toLowerCase().contains(lowerCaseNeedle);
+    }
+
+    /**
+     * Recomputes fines for overdue books. Fines only change when the date does, so this runs once a day
+     * and the stored fines are served unchanged in between.
+     */
+    @Scheduled(cron = "${library.fines.refresh-cron:0 0 0 * * *}")
+    public void refreshFines() {
+        long start = System.nanoTime();
+        try {
+            if (fineEngine.refresh(books, LocalDate.now(), book -> changes.publish(ChangeEvent.bookUpdated(book, null))) > 0) {
+                booksVersion.incrementAndGet();
+            }
+        } finally {
+            time(Operation.REFRESH_FINES, start);
+        }
     }
 
-    private void calculateFine(Book book) {
-        if (book.isIssued() && book.getDueDate() != null && LocalDate.now().isAfter(book.getDueDate())) {
-            long daysOverdue = ChronoUnit.DAYS.between(book.getDueDate(), LocalDate.now());
-            book.setFine(daysOverdue * 5); // ₹5 per day
-        } else {
-            book.setFine(0);
+    /**
+     * Issued books due from {@code from} to {@code to} inclusive (null for an open end), earliest first.
+     * Reads the fine engine's due-date index, so a page costs O(log n + limit) however large the catalog.
+     * {@code total} is not counted and is always -1.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public ResultPage<Book> findDue(LocalDate from, LocalDate to, String cursor, int limit) {
+        long start = System.nanoTime();
+        try {
+            FineEngine.DueEntry after = cursor == null || cursor.isBlank() ? null : FineEngine.DueEntry.fromCursor(cursor);
+            List<Book> page = new ArrayList<>(Math.min(limit, 256));
+            FineEngine.DueEntry last = null;
+            String nextCursor = null;
+            for (FineEngine.DueEntry entry : fineEngine.due(from, to, after)) {
+                Optional<Book> book = books.get(entry.bookId()).filter(b -> b.isIssued() && entry.dueDate().equals(b.getDueDate()));
+                if (book.isEmpty()) { continue; } // Returned since the entry was read
+                if (page.size() == limit) {
+                    nextCursor = last.cursor();
+                    break;
+                }
+                page.add(book.get());
+                last = entry;
+            }
+            return new ResultPage<>(page, -1, nextCursor);
+        } finally {
+            time(Operation.DUE, start);
         }
     }
 
-    public Optional<Book> findBookById(String id) { return books.stream().filter(b -> b.getId().equals(id)).findFirst(); }
+    /** The most recent reminder batch, generating one first if none has been made yet. */
+    public ReminderBatch getReminders() {
+        ReminderBatch latest = reminders;
+        return latest != null ? latest : generateReminders();
+    }
+
+    /**
+     * Builds the day's reminders: for each member, the books they hold that are overdue or due within
+     * {@code library.loans.reminder-days}. One walk over that stretch of the due-date index, never the catalog.
+     */
+    @Scheduled(cron = "${library.loans.reminder-cron:0 0 8 * * *}")
+    public ReminderBatch generateReminders() {
+        long start = System.nanoTime();
+        try {
+            LocalDate today = LocalDate.now();
+            Map<String, List<Book>> overdue = new LinkedHashMap<>();
+            Map<String, List<Book>> dueSoon = new LinkedHashMap<>();
+            for (FineEngine.DueEntry entry : fineEngine.due(null, today.plusDays(loanPolicy.getReminderDays()), null)) {
+                Optional<Book> book = books.get(entry.bookId()).filter(b -> b.isIssued() && entry.dueDate().equals(b.getDueDate()));
+                if (book.isEmpty()) { continue; }
+                Map<String, List<Book>> bucket = entry.dueDate().isBefore(today) ? overdue : dueSoon;
+                bucket.computeIfAbsent(book.get().getIssuedToMemberId(), k -> new ArrayList<>()).add(book.get());
+            }
+            // Members with overdue books come first, most overdue first, since the walk was in due-date order.
+            Set<String> memberIds = new LinkedHashSet<>(overdue.keySet());
+            memberIds.addAll(dueSoon.keySet());
+            List<Reminder> batch = new ArrayList<>(memberIds.size());
+            for (String memberId : memberIds) {
+                String name = findMemberById(memberId).map(Member::getName).orElse("Unknown");
+                batch.add(new Reminder(memberId, name, overdue.getOrDefault(memberId, List.of()), dueSoon.getOrDefault(memberId, List.of())));
+            }
+            ReminderBatch generated = new ReminderBatch(today, LocalDateTime.now(), batch);
+            reminders = generated;
+            log.info("Generated {} loan reminders ({} members with overdue books) in {} ms",
+                    batch.size(), overdue.size(), (System.nanoTime() - start) / 1_000_000);
+            return generated;
+        } finally {
+            time(Operation.REMINDERS, start);
+        }
+    }
+
+    public Optional<Book> findBookById(String id) { return books.get(id); }
     public Book addBook(String title, String author, String genre) {
-        Book newBook = new Book(generateId(), title, author, genre);
-        books.add(0, newBook);
-        return newBook;
+        long start = System.nanoTime();
+        try {
+            Book newBook = new Book(generateId(), title, author, genre);
+            try (LibraryJournal.Mutation mutation = journal.begin()) {
+                catalog(newBook);
+                mutation.log(JournalRecord.addBook(newBook));
+                changes.publish(ChangeEvent.bookAdded(newBook));
+                booksVersion.incrementAndGet();
+            }
+            return newBook;
+        } finally {
+            time(Operation.ADD_BOOK, start);
+        }
+    }
+    private void catalog(Book book) {
+        if (books.add(book)) { searchIndex.add(book); }
+    }
+
+    /**
+     * Adds a batch of books under one journal mutation, so the whole batch shares one log sync.
+     * Books keep the id they arrive with; a missing id is generated.
+     * @return the books that were not added because their id is taken or cannot be stored.
+     */
+    public List<Book> addBooks(List<Book> batch) {
+        long start = System.nanoTime();
+        try {
+            List<Book> rejected = new ArrayList<>();
+            try (LibraryJournal.Mutation mutation = journal.begin()) {
+                for (Book book : batch) {
+                    boolean generated = book.getId() == null || book.getId().isBlank();
+                    if (generated) { book.setId(generateId()); }
+                    boolean added;
+                    try {
+                        added = books.add(book);
+                        while (!added && generated) {
+                            book.setId(generateId());
+                            added = books.add(book);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        added = false; // The backend cannot store this id
+                    }
+                    if (!added) {
+                        rejected.add(book);
+                        continue;
+                    }
+                    searchIndex.add(book);
+                    mutation.log(JournalRecord.addBook(book));
+                }
+                // One event per batch: for a bulk load, refetching is cheaper for clients than thousands of deltas.
+                if (rejected.size() < batch.size()) {
+                    booksVersion.incrementAndGet();
+                    changes.publish(ChangeEvent.reload());
+                }
+            }
+            return rejected;
+        } finally {
+            time(Operation.IMPORT_BOOKS, start);
+        }
     }
+
+    /** Visits every book oldest first, for streaming exports. */
+    public void forEachBook(Consumer<Book> action) { books.forEach(action); }
     public boolean deleteBook(String id) {
-        Optional<Book> bookOpt = findBookById(id);
-        if (bookOpt.isPresent() && !bookOpt.get().isIssued()) {
-            books.remove(bookOpt.get());
-            transactionHistory.add(0, new Transaction(bookOpt.get().getTitle(), "System", "Deleted"));
-            return true;
+        long start = System.nanoTime();
+        try (LibraryJournal.Mutation mutation = journal.begin()) {
+            Optional<Book> deleted = books.removeIf(id, book -> !book.isIssued());
+            deleted.ifPresent(book -> {
+                searchIndex.remove(book.getId());
+                Transaction transaction = new Transaction(book.getId(), book.getTitle(), null, "System", "Deleted");
+                transactionHistory.append(transaction);
+                mutation.log(JournalRecord.deleteBook(transaction));
+                changes.publish(ChangeEvent.bookDeleted(transaction));
+                booksVersion.incrementAndGet();
+                historyVersion.incrementAndGet();
+            });
+            return deleted.isPresent();
+        } finally {
+            time(Operation.DELETE_BOOK, start);
         }
-        return false;
     }
 
     // --- Member Methods ---
-    public List<Member> getAllMembers() { return members; }
-    public Optional<Member> findMemberById(String id) { return members.stream().filter(m -> m.getId().equals(id)).findFirst(); }
+    public List<Member> getAllMembers() { return members.list(); }
+    public Optional<Member> findMemberById(String id) { return members.find(id); }
     public Member addMember(String name) {
-        Member newMember = new Member(generateId(), name);
-        members.add(newMember);
-        return newMember;
+        long start = System.nanoTime();
+        try {
+            Member newMember = new Member(generateId(), name);
+            try (LibraryJournal.Mutation mutation = journal.begin()) {
+                members.enroll(newMember);
+                mutation.log(JournalRecord.addMember(newMember));
+                changes.publish(ChangeEvent.memberAdded(newMember));
+                membersVersion.incrementAndGet();
+            }
+            return newMember;
+        } finally {
+            time(Operation.ADD_MEMBER, start);
+        }
     }
     public boolean deleteMember(String id) {
-        boolean hasBooksIssued = books.stream().anyMatch(b -> id.equals(b.getIssuedToMemberId()));
-        if (hasBooksIssued) { return false; }
-        return members.removeIf(member -> member.getId().equals(id));
+        long start = System.nanoTime();
+        try {
+            ReentrantLock memberLock = memberLocks.lockFor(id);
+            memberLock.lock();
+            try (LibraryJournal.Mutation mutation = journal.begin()) {
+                if (members.hasLoans(id)) { return false; }
+                boolean removed = members.unenroll(id);
+                if (removed) {
+                    mutation.log(JournalRecord.deleteMember(id));
+                    changes.publish(ChangeEvent.memberDeleted(id));
+                    membersVersion.incrementAndGet();
+                }
+                return removed;
+            } finally {
+                memberLock.unlock();
+            }
+        } finally {
+            time(Operation.DELETE_MEMBER, start);
+        }
+    }
+
+    /**
+     * Adds a batch of members under one journal mutation. Members keep the id they arrive with; a missing id is generated.
+     * @return the members that were not added because their id is already taken.
+     */
+    public List<Member> addMembers(List<Member> batch) {
+        long start = System.nanoTime();
+        try {
+            List<Member> rejected = new ArrayList<>();
+            List<Member> accepted = new ArrayList<>(batch.size());
+            try (LibraryJournal.Mutation mutation = journal.begin()) {
+                for (Member member : batch) {
+                    boolean generated = member.getId() == null || member.getId().isBlank();
+                    if (generated) { member.setId(generateId()); }
+                    boolean reserved = members.reserve(member);
+                    while (!reserved && generated) {
+                        member.setId(generateId());
+                        reserved = members.reserve(member);
+                    }
+                    if (!reserved) {
+                        rejected.add(member);
+                        continue;
+                    }
+                    accepted.add(member);
+                    mutation.log(JournalRecord.addMember(member));
+                }
+                members.list(accepted); // One copy of the listing per batch instead of one per member
+                if (!accepted.isEmpty()) {
+                    membersVersion.incrementAndGet();
+                    changes.publish(ChangeEvent.reload());
+                }
+            }
+            return rejected;
+        } finally {
+            time(Operation.IMPORT_MEMBERS, start);
+        }
     }
 
     // --- Transaction Methods ---
-    public List<Transaction> getTransactionHistory() { return transactionHistory; }
+    /** History newest first; see {@link TransactionLog#find} for the filter and cursor semantics. */
+    public ResultPage<Transaction> findHistory(LocalDateTime from, LocalDateTime to, String memberId, String bookId, Long cursor, int limit) {
+        long start = System.nanoTime();
+        try {
+            return transactionHistory.find(from, to, memberId, bookId, cursor, limit);
+        } finally {
+            time(Operation.HISTORY, start);
+        }
+    }
+
+    // --- Statistics ---
+    // Read from the rollups in CirculationStats; they move with historyVersion, apart from the daily window's date.
+    public CirculationSummary getCirculationSummary(int limit) {
+        long start = System.nanoTime();
+        try {
+            return stats.summary(limit);
+        } finally {
+            time(Operation.STATS, start);
+        }
+    }
+
+    public List<RankedCount> getTopTitles(int limit) { return stats.topTitles(limit); }
+    public List<RankedCount> getTopBorrowers(int limit) { return stats.topBorrowers(limit); }
+
+    public List<DailyIssues> getIssuesByDay(LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        try {
+            return stats.issuesByDay(from, to);
+        } finally {
+            time(Operation.STATS, start);
+        }
+    }
+
+    public List<Book> findBooksIssuedTo(String memberId) { return books.findByMember(memberId); }
 
+    /**
+     * The books a member has on loan, soonest due first, read from the member's loan ledger rather than the catalog.
+     * @return empty if there is no such member.
+     */
+    public Optional<List<Book>> findLoans(String memberId) {
+        if (members.find(memberId).isEmpty()) { return Optional.empty(); }
+        List<Book> loans = new ArrayList<>();
+        for (String bookId : members.loansOf(memberId)) { books.get(bookId).ifPresent(loans::add); }
+        loans.sort(Comparator.comparing(Book::getDueDate, Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(Book::getId));
+        return Optional.of(loans);
+    }
+
+    /**
+     * Issues a book if it is on the shelf and the member is under the loan limit. The availability check and the
+     * issue happen in one atomic store update, so of any number of concurrent requests for the same book exactly
+     * one succeeds; the member's stripe is held throughout, so concurrent issues cannot overshoot the limit.
+     */
     public Optional<Book> issueBook(String bookId, String memberId) {
-        Optional<Book> bookOpt = findBookById(bookId);
-        Optional<Member> memberOpt = findMemberById(memberId);
-        if (bookOpt.isPresent() && memberOpt.isPresent() && !bookOpt.get().isIssued()) {
-            Book book = bookOpt.get();
-            issueBook(book, memberOpt.get());
-            return Optional.of(book);
+        long start = System.nanoTime();
+        try {
+            ReentrantLock memberLock = memberLocks.lockFor(memberId);
+            memberLock.lock();
+            try {
+                Optional<Member> memberOpt = findMemberById(memberId);
+                if (memberOpt.isEmpty() || !loanPolicy.allowsAnotherLoan(members.loanCount(memberId))) { return Optional.empty(); }
+                return issueBook(bookId, memberOpt.get(), LocalDate.now());
+            } finally {
+                memberLock.unlock();
+            }
+        } finally {
+            time(Operation.ISSUE, start);
         }
-        return Optional.empty();
     }
 
     public Optional<Book> returnBook(String bookId) {
-        Optional<Book> bookOpt = findBookById(bookId);
-        if (bookOpt.isPresent() && bookOpt.get().isIssued()) {
-            Book book = bookOpt.get();
-            Optional<Member> memberOpt = findMemberById(book.getIssuedToMemberId());
-            String memberName = memberOpt.map(Member::getName).orElse("Unknown");
+        long start = System.nanoTime();
+        try (LibraryJournal.Mutation mutation = journal.begin()) {
+            boolean[] returned = { false };
+            Optional<Book> bookOpt = books.update(bookId, book -> {
+                if (!book.isIssued()) { return null; }
+                String memberId = book.getIssuedToMemberId();
+                String memberName = findMemberById(memberId).map(Member::getName).orElse("Unknown");
+                LocalDate issueDate = book.getIssueDate();
+
+                applyReturn(book);
+                Transaction transaction = new Transaction(book.getId(), book.getTitle(), memberId, memberName, "Returned");
+                transactionHistory.append(transaction);
+                stats.returned(transaction, issueDate);
+                mutation.log(JournalRecord.returned(transaction));
+                changes.publish(ChangeEvent.bookUpdated(book, transaction));
+                returned[0] = true;
+                return book;
+            });
+            if (!returned[0]) { return Optional.empty(); }
+            booksVersion.incrementAndGet();
+            historyVersion.incrementAndGet();
+            return bookOpt;
+        } finally {
+            time(Operation.RETURN, start);
+        }
+    }
+
+    /**
+     * Issues every book in the batch to its member, or none of them. All the members' stripes and all the books are
+     * locked together, each once, and every item is checked against the same state before anything changes: the
+     * book is on the shelf, the member exists and stays within the loan limit, and no book appears twice. The
+     * history entries are appended as one batch and the journal records share one sync.
+     * When the batch is refused, the items that failed carry the reason and the rest are left without one.
+     */
+    public BatchResult issueBooks(List<BatchItem> items) {
+        long start = System.nanoTime();
+        try {
+            Set<String> memberIds = new HashSet<>();
+            for (BatchItem item : items) { memberIds.add(item.getMemberId()); }
+            List<ReentrantLock> memberStripes = memberLocks.lockAll(memberIds);
+            try (LibraryJournal.Mutation mutation = journal.begin()) {
+                boolean valid = rejectDuplicates(items);
+                Map<String, Integer> requested = new HashMap<>();
+                for (BatchItem item : items) {
+                    if (members.find(item.getMemberId()).isEmpty()) {
+                        item.setError("unknown member");
+                        valid = false;
+                        continue;
+                    }
+                    int held = members.loanCount(item.getMemberId()) + requested.getOrDefault(item.getMemberId(), 0);
+                    requested.merge(item.getMemberId(), 1, Integer::sum);
+                    if (!loanPolicy.allowsAnotherLoan(held)) {
+                        item.setError("loan limit reached");
+                        valid = false;
+                    }
+                }
+                if (!valid) { return new BatchResult(false, items); }
+
+                LocalDate today = LocalDate.now();
+                List<Transaction> transactions = new ArrayList<>(items.size());
+                Optional<List<Book>> issued = books.updateAll(bookIds(items), copies -> {
+                    if (!checkEach(items, copies, book -> book.isIssued() ? "already issued" : null)) { return null; }
+                    for (int i = 0; i < copies.size(); i++) {
+                        Book book = copies.get(i);
+                        Member member = members.find(items.get(i).getMemberId()).orElseThrow();
+                        applyIssue(book, member.getId(), today, loanPolicy.dueDateFor(today));
+                        Transaction transaction = new Transaction(book.getId(), book.getTitle(), member.getId(), member.getName(), "Issued");
+                        transactions.add(transaction);
+                        stats.issued(transaction, book.getGenre());
+                        mutation.log(JournalRecord.issue(transaction, book));
+                        changes.publish(ChangeEvent.bookUpdated(book, transaction));
+                    }
+                    transactionHistory.appendAll(transactions);
+                    return copies;
+                });
+                return applied(items, issued);
+            } finally {
+                LockStripes.unlockAll(memberStripes);
+            }
+        } finally {
+            time(Operation.ISSUE_BATCH, start);
+        }
+    }
+
+    /** Returns every book in the batch, or none of them; see {@link #issueBooks} for how a batch is applied. */
+    public BatchResult returnBooks(List<BatchItem> items) {
+        long start = System.nanoTime();
+        try (LibraryJournal.Mutation mutation = journal.begin()) {
+            if (!rejectDuplicates(items)) { return new BatchResult(false, items); }
+            List<Transaction> transactions = new ArrayList<>(items.size());
+            Optional<List<Book>> returned = books.updateAll(bookIds(items), copies -> {
+                if (!checkEach(items, copies, book -> book.isIssued() ? null : "not issued")) { return null; }
+                for (Book book : copies) {
+                    String memberId = book.getIssuedToMemberId();
+                    String memberName = findMemberById(memberId).map(Member::getName).orElse("Unknown");
+                    LocalDate issueDate = book.getIssueDate();
+                    applyReturn(book);
+                    Transaction transaction = new Transaction(book.getId(), book.getTitle(), memberId, memberName, "Returned");
+                    transactions.add(transaction);
+                    stats.returned(transaction, issueDate);
+                    mutation.log(JournalRecord.returned(transaction));
+                    changes.publish(ChangeEvent.bookUpdated(book, transaction));
+                }
+                transactionHistory.appendAll(transactions);
+                return copies;
+            });
+            return applied(items, returned);
+        } finally {
+            time(Operation.RETURN_BATCH, start);
+        }
+    }
+
+    private static List<String> bookIds(List<BatchItem> items) {
+        List<String> ids = new ArrayList<>(items.size());
+        for (BatchItem item : items) { ids.add(item.getBookId()); }
+        return ids;
+    }
+
+    private static boolean rejectDuplicates(List<BatchItem> items) {
+        Set<String> seen = new HashSet<>();
+        boolean valid = true;
+        for (BatchItem item : items) {
+            if (!seen.add(item.getBookId())) {
+                item.setError("book appears more than once");
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    // Marks items whose book is missing or fails the check with the reason; true if none did.
+    private static boolean checkEach(List<BatchItem> items, List<Book> books, Function<Book, String> problem) {
+        boolean valid = true;
+        for (int i = 0; i < items.size(); i++) {
+            String error = books.get(i) == null ? "unknown book" : problem.apply(books.get(i));
+            if (error != null) {
+                items.get(i).setError(error);
+                valid = false;
+            }
+        }
+        return valid;
+    }
 
-            book.setIssued(false);
-            book.setIssueDate(null);
-            book.setDueDate(null);
-            book.setIssuedToMemberId(null);
-            book.setFine(0);
-            transactionHistory.add(0, new Transaction(book.getTitle(), memberName, "Returned"));
-            return Optional.of(book);
+    private BatchResult applied(List<BatchItem> items, Optional<List<Book>> stored) {
+        if (stored.isEmpty()) { return new BatchResult(false, items); }
+        for (int i = 0; i < items.size(); i++) { items.get(i).setBook(stored.get().get(i)); }
+        if (!items.isEmpty()) {
+            booksVersion.incrementAndGet();
+            historyVersion.incrementAndGet();
         }
-        return Optional.empty();
+        return new BatchResult(true, items);
     }
 
-    private void issueBook(Book book, Member member) {
+    private Optional<Book> issueBook(String bookId, Member member, LocalDate issueDate) {
+        try (LibraryJournal.Mutation mutation = journal.begin()) {
+            boolean[] issued = { false };
+            Optional<Book> bookOpt = books.update(bookId, book -> {
+                if (book.isIssued()) { return null; }
+                applyIssue(book, member.getId(), issueDate, loanPolicy.dueDateFor(issueDate));
+                Transaction transaction = new Transaction(book.getId(), book.getTitle(), member.getId(), member.getName(), "Issued");
+                transactionHistory.append(transaction);
+                stats.issued(transaction, book.getGenre());
+                mutation.log(JournalRecord.issue(transaction, book));
+                changes.publish(ChangeEvent.bookUpdated(book, transaction));
+                issued[0] = true;
+                return book;
+            });
+            if (!issued[0]) { return Optional.empty(); }
+            booksVersion.incrementAndGet();
+            historyVersion.incrementAndGet();
+            return bookOpt;
+        }
+    }
+
+    private void applyIssue(Book book, String memberId, LocalDate issueDate, LocalDate dueDate) {
         book.setIssued(true);
-        book.setIssuedToMemberId(member.getId());
-        book.setIssueDate(LocalDate.now());
-        book.setDueDate(LocalDate.now().plusDays(15));
-        transactionHistory.add(0, new Transaction(book.getTitle(), member.getName(), "Issued"));
+        book.setIssuedToMemberId(memberId);
+        book.setIssueDate(issueDate);
+        book.setDueDate(dueDate);
+        book.setFine(fineEngine.fineFor(book, LocalDate.now()));
+        trackLoan(book);
+    }
+
+    private void applyReturn(Book book) {
+        fineEngine.untrack(book);
+        members.giveBack(book.getIssuedToMemberId(), book.getId());
+        book.setIssued(false);
+        book.setIssueDate(null);
+        book.setDueDate(null);
+        book.setIssuedToMemberId(null);
+        book.setFine(0);
+    }
+
+    // --- Persistence ---
+    private void reindex() {
+        for (Book book : books.list()) {
+            searchIndex.add(book);
+            if (book.isIssued()) { trackLoan(book); }
+        }
+    }
+
+    private void trackLoan(Book book) {
+        fineEngine.track(book);
+        members.lend(book.getIssuedToMemberId(), book.getId());
+    }
+
+    private void restore(LibrarySnapshot snapshot) {
+        for (Book book : snapshot.getBooks()) {
+            catalog(book);
+            if (book.isIssued()) { trackLoan(book); }
+        }
+        snapshot.getMembers().forEach(members::enroll);
+        snapshot.getHistory().forEach(transactionHistory::append);
+        stats.rebuild(snapshot.getHistory(), id -> books.get(id).map(Book::getGenre).orElse(CirculationStats.UNKNOWN_GENRE));
+    }
+
+    // Applies a logged change without validating it again; it was validated when it was first made.
+    private void replay(JournalRecord record) {
+        switch (record.getType()) {
+            case ADD_BOOK -> catalog(new Book(record.getBookId(), record.getTitle(), record.getAuthor(), record.getGenre()));
+            case DELETE_BOOK -> {
+                books.removeIf(record.getBookId(), book -> true).ifPresent(book -> searchIndex.remove(book.getId()));
+                transactionHistory.append(new Transaction(record.getBookId(), record.getTitle(), null, "System", "Deleted", record.getTimestamp()));
+            }
+            case ISSUE -> {
+                Transaction transaction = new Transaction(record.getBookId(), record.getTitle(), record.getMemberId(), record.getMemberName(), "Issued", record.getTimestamp());
+                books.update(record.getBookId(), book -> {
+                    // Logs written before due dates were recorded fall back to the current loan period.
+                    LocalDate dueDate = record.getDueDate() != null ? record.getDueDate() : loanPolicy.dueDateFor(record.getIssueDate());
+                    applyIssue(book, record.getMemberId(), record.getIssueDate(), dueDate);
+                    stats.issued(transaction, book.getGenre());
+                    return book;
+                });
+                transactionHistory.append(transaction);
+            }
+            case RETURN -> {
+                Transaction transaction = new Transaction(record.getBookId(), record.getTitle(), record.getMemberId(), record.getMemberName(), "Returned", record.getTimestamp());
+                books.update(record.getBookId(), book -> {
+                    stats.returned(transaction, book.getIssueDate());
+                    applyReturn(book);
+                    return book;
+                });
+                transactionHistory.append(transaction);
+            }
+            case ADD_MEMBER -> members.enroll(new Member(record.getMemberId(), record.getMemberName()));
+            case DELETE_MEMBER -> members.unenroll(record.getMemberId());
+        }
+    }
+
+    // Called by the journal while no mutation is running. Stored books are never changed in place, so no copies are needed.
+    private LibrarySnapshot captureSnapshot() {
+        List<Book> catalog = books.page(null, true, 0, Integer.MAX_VALUE);
+        return new LibrarySnapshot(catalog, new ArrayList<>(members.list()), transactionHistory.snapshot());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package com.example.library.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.LocalDate;
+
+/**
+ * Borrowing rules, bound from the {@code library.loans.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "library.loans")
+public class LoanPolicy {
+    private int loanDays = 15;     // Days from issue to due date
+    private int maxPerMember = 0;  // Books a member may hold at once; 0 means no limit
+    private int reminderDays = 3;  // Reminders cover books due within this many days, besides overdue ones
+
+    public boolean allowsAnotherLoan(int booksHeld) { return maxPerMember <= 0 || booksHeld < maxPerMember; }
+
+    public LocalDate dueDateFor(LocalDate issueDate) { return issueDate.plusDays(loanDays); }
+}
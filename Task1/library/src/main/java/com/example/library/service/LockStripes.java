@@ -0,0 +1,48 @@
+package com.example.library.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed pool of locks shared out by key hash, for serializing work on one key without a lock per key.
+ * Unrelated keys only contend when they land on the same stripe. These are ordinary locks, so a virtual
+ * thread that blocks while holding one is unmounted rather than pinned.
+ * Lock order: member stripes are taken before a journal mutation starts, book stripes inside it.
+ */
+final class LockStripes {
+    private final ReentrantLock[] locks;
+
+    LockStripes(int stripes) {
+        locks = new ReentrantLock[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+        for (int i = 0; i < locks.length; i++) { locks[i] = new ReentrantLock(); }
+    }
+
+    ReentrantLock lockFor(String key) { return locks[index(key)]; }
+
+    /**
+     * Locks the stripes of all the keys, each once, in stripe order, so that two threads locking overlapping
+     * sets cannot deadlock. Pass the result to {@link #unlockAll}.
+     */
+    List<ReentrantLock> lockAll(Collection<String> keys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (String key : keys) { indexes.add(index(key)); }
+        List<ReentrantLock> held = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            locks[index].lock();
+            held.add(locks[index]);
+        }
+        return held;
+    }
+
+    static void unlockAll(List<ReentrantLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) { held.get(i).unlock(); }
+    }
+
+    private int index(String key) {
+        int h = key == null ? 0 : key.hashCode();
+        return (h ^ (h >>> 16)) & (locks.length - 1);
+    }
+}
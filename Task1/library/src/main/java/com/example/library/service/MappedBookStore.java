@@ -0,0 +1,646 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Book catalog kept in memory-mapped files instead of on the heap.
+ * <p>
+ * {@code books.dat} holds one fixed-size record per book in insertion order: flags, dictionary codes for genre
+ * and author, issue and due dates as epoch days, the fine, a reference to the title in {@code strings.dat}, and
+ * the book and member ids as fixed-width ASCII. Each distinct author and genre is stored once and referenced by
+ * code. {@link Book} objects are only built for the records a caller asks for, so a listing page touches a page's
+ * worth of records, and the heap holds little more than an open-addressing id table and the issued-book index.
+ * <p>
+ * Deleted books leave a dead record behind and slots are not reused. Files are flushed on close, not after every
+ * write: crash safety is the journal's job, and when it is enabled the catalog is rebuilt from it on startup.
+ */
+public class MappedBookStore implements BookStore, Closeable {
+    static final int MAX_ID_BYTES = 16;
+
+    private static final int MAGIC = 0x4C494243; // "LIBC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_COUNT = 8;  // books.dat: records written; strings.dat: bytes used (long)
+    private static final int RECORDS_PER_CHUNK = 1 << 16;
+    private static final int STRING_CHUNK = 1 << 24;
+    private static final int LOCK_STRIPES = 256;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int NO_CODE = -1;
+    private static final long NO_STRING = -1;
+
+    // Record layout
+    private static final int RECORD_SIZE = 80;
+    private static final int FLAGS = 0;       // byte
+    private static final int GENRE = 4;       // int dictionary code
+    private static final int AUTHOR = 8;      // int dictionary code
+    private static final int ISSUE_DATE = 12; // int epoch day
+    private static final int DUE_DATE = 16;   // int epoch day
+    private static final int TITLE = 24;      // long reference into strings.dat
+    private static final int FINE = 32;       // long
+    private static final int ID = 40;         // 16 bytes
+    private static final int MEMBER = 56;     // 16 bytes
+    private static final byte LIVE = 1;
+    private static final byte ISSUED = 2;
+
+    private static final int DICTIONARY_ENTRY = 9; // kind byte + string reference
+    private static final byte GENRE_KIND = 0;
+    private static final byte AUTHOR_KIND = 1;
+
+    private final MappedFile records;
+    private final MappedFile strings;
+    private final FileChannel dictionaryFile;
+    private final Dictionary genres = new Dictionary(GENRE_KIND);
+    private final Dictionary authors = new Dictionary(AUTHOR_KIND);
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    // Locks rather than monitors throughout, so file I/O under them never pins a virtual thread.
+    private final ReentrantLock stringLock = new ReentrantLock();
+    private final ReentrantLock dictionaryLock = new ReentrantLock();
+    private final Map<String, Set<Integer>> byMember = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> genreCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger live = new AtomicInteger();
+
+    // Id table: open addressing on the id's hash, holding slot + 1 (0 = empty, -1 = deleted).
+    private final StampedLock indexLock = new StampedLock();
+    private int[] table = new int[1024];
+    private int tableUsed;
+    private volatile int slotCount; // records written; publishes them to scanning readers
+
+    private MappedBookStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        records = new MappedFile(directory.resolve("books.dat"), (long) RECORDS_PER_CHUNK * RECORD_SIZE);
+        strings = new MappedFile(directory.resolve("strings.dat"), STRING_CHUNK);
+        dictionaryFile = FileChannel.open(directory.resolve("dictionary.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        for (int i = 0; i < LOCK_STRIPES; i++) { stripes[i] = new ReentrantLock(); }
+    }
+
+    /**
+     * Opens the catalog in {@code directory}, creating it if needed.
+     * @param reset discard any existing contents, for when another source (the journal) will repopulate it.
+     */
+    public static MappedBookStore open(Path directory, boolean reset) throws IOException {
+        if (reset) {
+            for (String name : List.of("books.dat", "strings.dat", "dictionary.dat")) { Files.deleteIfExists(directory.resolve(name)); }
+        }
+        MappedBookStore store = new MappedBookStore(directory);
+        store.load();
+        return store;
+    }
+
+    // --- BookStore ---
+    @Override
+    public boolean add(Book book) {
+        long[] key = encodeId(book.getId());
+        int slot;
+        long stamp = indexLock.writeLock();
+        try {
+            if (probe(table, key, true) >= 0) { return false; }
+            slot = slotCount;
+            writeRecord(slot, book, null);
+            records.header().putInt(HEADER_COUNT, slot + 1);
+            slotCount = slot + 1;
+            insert(key, slot);
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
+        indexBook(book, slot);
+        live.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public Optional<Book> get(String id) {
+        int slot = lookup(id);
+        if (slot < 0) { return Optional.empty(); }
+        ReentrantLock stripe = stripe(slot);
+        stripe.lock();
+        try {
+            return isLive(slot) ? Optional.of(readRecord(slot)) : Optional.empty();
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Book> update(String id, UnaryOperator<Book> change) {
+        int slot = lookup(id);
+        if (slot < 0) { return Optional.empty(); }
+        ReentrantLock stripe = stripe(slot);
+        stripe.lock();
+        try {
+            if (!isLive(slot)) { return Optional.empty(); }
+            Book before = readRecord(slot);
+            String oldMember = before.getIssuedToMemberId();
+            String oldGenre = before.getGenre();
+            String oldTitle = before.getTitle();
+            Book after = change.apply(before);
+            if (after == null) { return Optional.of(before); }
+            writeRecord(slot, after, oldTitle);
+            unindexBook(slot, oldMember, oldGenre);
+            indexBook(after, slot);
+            return Optional.of(after);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public Optional<List<Book>> updateAll(List<String> ids, UnaryOperator<List<Book>> change) {
+        int[] slots = new int[ids.size()];
+        TreeSet<Integer> stripeIndexes = new TreeSet<>();
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = lookup(ids.get(i));
+            if (slots[i] >= 0) { stripeIndexes.add(slots[i] % LOCK_STRIPES); }
+        }
+        List<ReentrantLock> held = new ArrayList<>(stripeIndexes.size());
+        try {
+            for (int index : stripeIndexes) { // In stripe order, so overlapping batches cannot deadlock
+                stripes[index].lock();
+                held.add(stripes[index]);
+            }
+            List<Book> before = new ArrayList<>(slots.length);
+            List<Book> copies = new ArrayList<>(slots.length);
+            for (int slot : slots) {
+                Book book = slot >= 0 && isLive(slot) ? readRecord(slot) : null;
+                before.add(book);
+                copies.add(book == null ? null : new Book(book));
+            }
+            List<Book> after = change.apply(copies);
+            if (after == null) { return Optional.empty(); }
+            for (int i = 0; i < slots.length; i++) {
+                Book old = before.get(i);
+                if (old == null) { continue; }
+                writeRecord(slots[i], after.get(i), old.getTitle());
+                unindexBook(slots[i], old.getIssuedToMemberId(), old.getGenre());
+                indexBook(after.get(i), slots[i]);
+            }
+            return Optional.of(after);
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) { held.get(i).unlock(); }
+        }
+    }
+
+    @Override
+    public Optional<Book> removeIf(String id, Predicate<Book> condition) {
+        int slot = lookup(id);
+        if (slot < 0) { return Optional.empty(); }
+        Book removed;
+        ReentrantLock stripe = stripe(slot);
+        stripe.lock();
+        try {
+            if (!isLive(slot)) { return Optional.empty(); }
+            removed = readRecord(slot);
+            if (!condition.test(removed)) { return Optional.empty(); }
+            records.buffer(recordOffset(slot)).put(recordPosition(slot) + FLAGS, (byte) 0);
+            unindexBook(slot, removed.getIssuedToMemberId(), removed.getGenre());
+            live.decrementAndGet();
+        } finally {
+            stripe.unlock();
+        }
+        long stamp = indexLock.writeLock();
+        try {
+            tombstone(encodeId(id), slot);
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
+        return Optional.of(removed);
+    }
+
+    @Override
+    public List<Book> list() { return page(null, false, 0, Integer.MAX_VALUE); }
+
+    @Override
+    public List<Book> page(String genre, boolean oldestFirst, int offset, int limit) {
+        int genreCode = NO_CODE;
+        if (genre != null) {
+            genreCode = genres.find(genre);
+            if (genreCode == NO_CODE) { return new ArrayList<>(); }
+        }
+        int count = slotCount;
+        List<Book> page = new ArrayList<>(Math.min(limit, 256));
+        int skipped = 0;
+        for (int i = 0; i < count && page.size() < limit; i++) {
+            int slot = oldestFirst ? i : count - 1 - i;
+            ByteBuffer chunk = records.buffer(recordOffset(slot));
+            int position = recordPosition(slot);
+            if ((chunk.get(position + FLAGS) & LIVE) == 0) { continue; }
+            if (genre != null && chunk.getInt(position + GENRE) != genreCode) { continue; }
+            if (skipped++ < offset) { continue; }
+            get(slot).ifPresent(page::add);
+        }
+        return page;
+    }
+
+    @Override
+    public void forEach(Consumer<Book> action) {
+        int count = slotCount;
+        for (int slot = 0; slot < count; slot++) { get(slot).ifPresent(action); }
+    }
+
+    @Override
+    public List<Book> findByMember(String memberId) {
+        Set<Integer> slots = memberId == null ? null : byMember.get(memberId);
+        if (slots == null) { return new ArrayList<>(); }
+        List<Integer> newestFirst = new ArrayList<>(slots);
+        newestFirst.sort(Comparator.reverseOrder());
+        List<Book> result = new ArrayList<>(newestFirst.size());
+        for (int slot : newestFirst) { get(slot).ifPresent(result::add); }
+        return result;
+    }
+
+    @Override
+    public List<Book> findByGenre(String genre) { return page(genre, false, 0, Integer.MAX_VALUE); }
+
+    @Override
+    public boolean hasBooksIssuedTo(String memberId) {
+        Set<Integer> slots = memberId == null ? null : byMember.get(memberId);
+        return slots != null && !slots.isEmpty();
+    }
+
+    @Override
+    public Set<String> genres() {
+        Set<String> names = new TreeSet<>();
+        genreCounts.forEach((code, count) -> {
+            if (code != NO_CODE && count.get() > 0) { names.add(genres.value(code)); } // Books without a genre have no name to list
+        });
+        return names;
+    }
+
+    @Override
+    public int count(String genre) {
+        if (genre == null) { return live.get(); }
+        AtomicInteger count = genreCounts.get(genres.find(genre));
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public int size() { return live.get(); }
+
+    @Override
+    public void close() throws IOException {
+        records.close();
+        strings.close();
+        dictionaryFile.force(true);
+        dictionaryFile.close();
+    }
+
+    // --- Records ---
+    private Optional<Book> get(int slot) {
+        ReentrantLock stripe = stripe(slot);
+        stripe.lock();
+        try {
+            return isLive(slot) ? Optional.of(readRecord(slot)) : Optional.empty();
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private boolean isLive(int slot) {
+        return (records.buffer(recordOffset(slot)).get(recordPosition(slot) + FLAGS) & LIVE) != 0;
+    }
+
+    private Book readRecord(int slot) {
+        ByteBuffer chunk = records.buffer(recordOffset(slot));
+        int position = recordPosition(slot);
+        byte flags = chunk.get(position + FLAGS);
+        Book book = new Book(readId(chunk, position + ID), readString(chunk.getLong(position + TITLE)),
+                authors.value(chunk.getInt(position + AUTHOR)), genres.value(chunk.getInt(position + GENRE)));
+        book.setIssued((flags & ISSUED) != 0);
+        book.setIssuedToMemberId(readId(chunk, position + MEMBER));
+        book.setIssueDate(readDate(chunk.getInt(position + ISSUE_DATE)));
+        book.setDueDate(readDate(chunk.getInt(position + DUE_DATE)));
+        book.setFine(chunk.getLong(position + FINE));
+        return book;
+    }
+
+    // previousTitle lets an update reuse the stored title instead of appending an identical copy.
+    private void writeRecord(int slot, Book book, String previousTitle) {
+        ByteBuffer chunk = records.buffer(recordOffset(slot));
+        int position = recordPosition(slot);
+        long titleRef = previousTitle != null && previousTitle.equals(book.getTitle())
+                ? chunk.getLong(position + TITLE) : appendString(book.getTitle());
+        chunk.put(position + FLAGS, (byte) (LIVE | (book.isIssued() ? ISSUED : 0)));
+        chunk.putInt(position + GENRE, genres.encode(book.getGenre()));
+        chunk.putInt(position + AUTHOR, authors.encode(book.getAuthor()));
+        chunk.putInt(position + ISSUE_DATE, book.getIssueDate() == null ? NO_DATE : (int) book.getIssueDate().toEpochDay());
+        chunk.putInt(position + DUE_DATE, book.getDueDate() == null ? NO_DATE : (int) book.getDueDate().toEpochDay());
+        chunk.putLong(position + TITLE, titleRef);
+        chunk.putLong(position + FINE, book.getFine());
+        writeId(chunk, position + ID, book.getId());
+        writeId(chunk, position + MEMBER, book.getIssuedToMemberId());
+    }
+
+    private static long recordOffset(int slot) { return (long) slot * RECORD_SIZE; }
+    private static int recordPosition(int slot) { return (slot % RECORDS_PER_CHUNK) * RECORD_SIZE; }
+    private ReentrantLock stripe(int slot) { return stripes[slot % LOCK_STRIPES]; }
+
+    private static LocalDate readDate(int epochDay) { return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay); }
+
+    private void indexBook(Book book, int slot) {
+        if (book.getIssuedToMemberId() != null) {
+            byMember.computeIfAbsent(book.getIssuedToMemberId(), k -> ConcurrentHashMap.newKeySet()).add(slot);
+        }
+        genreCounts.computeIfAbsent(genres.encode(book.getGenre()), k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private void unindexBook(int slot, String memberId, String genre) {
+        if (memberId != null) {
+            byMember.computeIfPresent(memberId, (k, slots) -> {
+                slots.remove(slot);
+                return slots.isEmpty() ? null : slots;
+            });
+        }
+        AtomicInteger count = genreCounts.get(genres.encode(genre));
+        if (count != null) { count.decrementAndGet(); }
+    }
+
+    // --- Id table ---
+    private int lookup(String id) {
+        if (id == null) { return -1; }
+        long[] key;
+        try {
+            key = encodeId(id);
+        } catch (IllegalArgumentException e) {
+            return -1; // Cannot be stored here, so it is not here.
+        }
+        long stamp = indexLock.tryOptimisticRead();
+        int slot = probe(table, key, false);
+        if (!indexLock.validate(stamp)) {
+            stamp = indexLock.readLock();
+            try {
+                slot = probe(table, key, false);
+            } finally {
+                indexLock.unlockRead(stamp);
+            }
+        }
+        return slot;
+    }
+
+    // Returns the live slot holding this id, or -1. Bounded so a torn optimistic read cannot loop forever.
+    private int probe(int[] entries, long[] key, boolean liveOnly) {
+        int mask = entries.length - 1;
+        int count = slotCount;
+        for (int i = hash(key) & mask, steps = 0; steps < entries.length; i = (i + 1) & mask, steps++) {
+            int entry = entries[i];
+            if (entry == 0) { return -1; }
+            int slot = entry - 1;
+            if (entry < 0 || slot >= count) { continue; }
+            ByteBuffer chunk = records.buffer(recordOffset(slot));
+            int position = recordPosition(slot);
+            if (chunk.getLong(position + ID) == key[0] && chunk.getLong(position + ID + 8) == key[1]) {
+                if (!liveOnly || (chunk.get(position + FLAGS) & LIVE) != 0) { return slot; }
+            }
+        }
+        return -1;
+    }
+
+    // Called with the index write lock held.
+    private void insert(long[] key, int slot) {
+        if ((tableUsed + 1) * 2 > table.length) { rehash(); }
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        while (table[i] > 0) { i = (i + 1) & mask; }
+        if (table[i] == 0) { tableUsed++; }
+        table[i] = slot + 1;
+    }
+
+    // Called with the index write lock held. Walks the id's probe chain, as probe() does, to the entry for this slot.
+    private void tombstone(long[] key, int slot) {
+        int mask = table.length - 1;
+        for (int i = hash(key) & mask; table[i] != 0; i = (i + 1) & mask) {
+            if (table[i] == slot + 1) {
+                table[i] = -1;
+                return;
+            }
+        }
+    }
+
+    private void rehash() {
+        int liveEntries = 0;
+        for (int entry : table) { if (entry > 0) { liveEntries++; } }
+        int[] resized = new int[Math.max(1024, Integer.highestOneBit(Math.max(1, liveEntries * 4 - 1)) << 1)];
+        int mask = resized.length - 1;
+        for (int entry : table) {
+            if (entry <= 0) { continue; }
+            ByteBuffer chunk = records.buffer(recordOffset(entry - 1));
+            int position = recordPosition(entry - 1);
+            long[] key = { chunk.getLong(position + ID), chunk.getLong(position + ID + 8) };
+            int i = hash(key) & mask;
+            while (resized[i] != 0) { i = (i + 1) & mask; }
+            resized[i] = entry;
+        }
+        table = resized;
+        tableUsed = liveEntries;
+    }
+
+    private static int hash(long[] key) {
+        long h = key[0] * 0x9E3779B97F4A7C15L ^ key[1] * 0xC2B2AE3D27D4EB4FL;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static long[] encodeId(String id) {
+        if (id == null) { throw new IllegalArgumentException("Book id is required"); }
+        byte[] bytes = id.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > MAX_ID_BYTES || !id.chars().allMatch(c -> c > 0 && c < 128)) {
+            throw new IllegalArgumentException("Ids must be at most " + MAX_ID_BYTES + " ASCII characters: " + id);
+        }
+        byte[] padded = new byte[MAX_ID_BYTES];
+        System.arraycopy(bytes, 0, padded, 0, bytes.length);
+        ByteBuffer buffer = ByteBuffer.wrap(padded);
+        return new long[] { buffer.getLong(), buffer.getLong() };
+    }
+
+    private static void writeId(ByteBuffer chunk, int position, String id) {
+        long[] key = id == null ? new long[2] : encodeId(id);
+        chunk.putLong(position, key[0]);
+        chunk.putLong(position + 8, key[1]);
+    }
+
+    private static String readId(ByteBuffer chunk, int position) {
+        byte[] bytes = new byte[MAX_ID_BYTES];
+        chunk.get(position, bytes);
+        int length = 0;
+        while (length < bytes.length && bytes[length] != 0) { length++; }
+        return length == 0 ? null : new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    // --- Strings and dictionaries ---
+    private long appendString(String value) {
+        if (value == null) { return NO_STRING; }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length + 4 > STRING_CHUNK) { throw new IllegalArgumentException("String too long to store"); }
+        stringLock.lock();
+        try {
+            long used = strings.header().getLong(HEADER_COUNT);
+            if (used % STRING_CHUNK + 4 + bytes.length > STRING_CHUNK) { used = (used / STRING_CHUNK + 1) * STRING_CHUNK; }
+            ByteBuffer chunk = strings.buffer(used);
+            int position = (int) (used % STRING_CHUNK);
+            chunk.putInt(position, bytes.length);
+            chunk.put(position + 4, bytes);
+            strings.header().putLong(HEADER_COUNT, used + 4 + bytes.length);
+            return used;
+        } finally {
+            stringLock.unlock();
+        }
+    }
+
+    private String readString(long reference) {
+        if (reference == NO_STRING) { return null; }
+        ByteBuffer chunk = strings.buffer(reference);
+        int position = (int) (reference % STRING_CHUNK);
+        byte[] bytes = new byte[chunk.getInt(position)];
+        chunk.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private final class Dictionary {
+        private final byte kind;
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private final Map<Integer, String> values = new ConcurrentHashMap<>();
+
+        Dictionary(byte kind) { this.kind = kind; }
+
+        int find(String value) { return value == null ? NO_CODE : codes.getOrDefault(value, NO_CODE); }
+
+        String value(int code) { return code == NO_CODE ? null : values.get(code); }
+
+        int encode(String value) {
+            if (value == null) { return NO_CODE; }
+            Integer code = codes.get(value);
+            return code != null ? code : register(value);
+        }
+
+        private int register(String value) {
+            dictionaryLock.lock();
+            try {
+                Integer existing = codes.get(value);
+                if (existing != null) { return existing; }
+                long reference = appendString(value);
+                ByteBuffer entry = ByteBuffer.allocate(DICTIONARY_ENTRY).put(kind).putLong(reference).flip();
+                dictionaryFile.write(entry, dictionaryFile.size());
+                load(value);
+                return codes.get(value);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not extend the catalog dictionary", e);
+            } finally {
+                dictionaryLock.unlock();
+            }
+        }
+
+        void load(String value) {
+            int code = values.size();
+            values.put(code, value);
+            codes.put(value, code);
+        }
+    }
+
+    // Rebuilds the in-memory structures from existing files: the dictionaries, then one pass over the records.
+    private void load() throws IOException {
+        ByteBuffer header = records.header();
+        if (header.getInt(HEADER_MAGIC) == 0) {
+            header.putInt(HEADER_MAGIC, MAGIC).putInt(HEADER_VERSION, VERSION).putInt(HEADER_COUNT, 0);
+            strings.header().putInt(HEADER_MAGIC, MAGIC).putInt(HEADER_VERSION, VERSION).putLong(HEADER_COUNT, 0);
+        } else if (header.getInt(HEADER_MAGIC) != MAGIC || header.getInt(HEADER_VERSION) != VERSION) {
+            throw new IOException("Unrecognized catalog file format");
+        }
+
+        ByteBuffer entries = ByteBuffer.allocate((int) dictionaryFile.size());
+        dictionaryFile.read(entries, 0);
+        entries.flip();
+        while (entries.remaining() >= DICTIONARY_ENTRY) {
+            byte kind = entries.get();
+            String value = readString(entries.getLong());
+            (kind == GENRE_KIND ? genres : authors).load(value);
+        }
+
+        int count = header.getInt(HEADER_COUNT);
+        slotCount = count;
+        for (int slot = 0; slot < count; slot++) {
+            if (!isLive(slot)) { continue; }
+            ByteBuffer chunk = records.buffer(recordOffset(slot));
+            int position = recordPosition(slot);
+            insert(new long[] { chunk.getLong(position + ID), chunk.getLong(position + ID + 8) }, slot);
+            String memberId = readId(chunk, position + MEMBER);
+            if (memberId != null) { byMember.computeIfAbsent(memberId, k -> ConcurrentHashMap.newKeySet()).add(slot); }
+            genreCounts.computeIfAbsent(chunk.getInt(position + GENRE), k -> new AtomicInteger()).incrementAndGet();
+            live.incrementAndGet();
+        }
+    }
+
+    /** A file mapped in fixed-size chunks after a small header, growing one chunk at a time. */
+    private static final class MappedFile implements Closeable {
+        private final FileChannel channel;
+        private final long chunkSize;
+        private final MappedByteBuffer header;
+        private final ReentrantLock growLock = new ReentrantLock();
+        private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+        MappedFile(Path path, long chunkSize) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.chunkSize = chunkSize;
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        }
+
+        ByteBuffer header() { return header; }
+
+        /** The chunk containing {@code offset}, mapping it (and growing the file) on first use. */
+        ByteBuffer buffer(long offset) {
+            int index = (int) (offset / chunkSize);
+            MappedByteBuffer[] current = chunks;
+            if (index < current.length) { return current[index]; }
+            return grow(index);
+        }
+
+        private ByteBuffer grow(int index) {
+            growLock.lock();
+            try {
+                MappedByteBuffer[] current = chunks;
+                if (index < current.length) { return current[index]; }
+                MappedByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+                for (int i = current.length; i <= index; i++) {
+                    grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + i * chunkSize, chunkSize);
+                }
+                chunks = grown;
+                return grown[index];
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not map catalog file", e);
+            } finally {
+                growLock.unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (MappedByteBuffer chunk : chunks) { chunk.force(); }
+            header.force();
+            channel.close();
+        }
+    }
+}
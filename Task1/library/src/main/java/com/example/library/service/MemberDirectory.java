@@ -0,0 +1,70 @@
+package com.example.library.service;
+
+import com.example.library.model.Member;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registered members and the books each one has on loan.
+ * Lookup by id, a member's loan count and the outstanding-loans check that guards deletion are O(1) and never
+ * touch the catalog. The listing is copy-on-write, as it is read far more often than members join or leave.
+ * Loans are recorded and cleared inside the book's store update, so they always agree with the catalog.
+ */
+final class MemberDirectory {
+    private final List<Member> listing = new CopyOnWriteArrayList<>();
+    private final Map<String, Member> byId = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> loans = new ConcurrentHashMap<>(); // Member id -> ids of books on loan
+
+    /** A read-only view: members only join or leave through {@link #enroll} and {@link #unenroll}. */
+    List<Member> list() { return Collections.unmodifiableList(listing); }
+    int size() { return byId.size(); }
+
+    Optional<Member> find(String id) { return id == null ? Optional.empty() : Optional.ofNullable(byId.get(id)); }
+
+    void enroll(Member member) {
+        byId.put(member.getId(), member);
+        listing.add(member);
+    }
+
+    /** Claims the member's id without listing it yet; see {@link #list(Collection)}. */
+    boolean reserve(Member member) { return byId.putIfAbsent(member.getId(), member) == null; }
+
+    /** Lists reserved members, copying the listing once for the whole batch. */
+    void list(Collection<Member> reserved) { listing.addAll(reserved); }
+
+    boolean unenroll(String id) {
+        if (id == null || byId.remove(id) == null) { return false; }
+        return listing.removeIf(member -> member.getId().equals(id));
+    }
+
+    void lend(String memberId, String bookId) {
+        if (memberId != null) { loans.computeIfAbsent(memberId, k -> ConcurrentHashMap.newKeySet()).add(bookId); }
+    }
+
+    void giveBack(String memberId, String bookId) {
+        if (memberId == null) { return; }
+        loans.computeIfPresent(memberId, (k, ids) -> {
+            ids.remove(bookId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    int loanCount(String memberId) {
+        Set<String> ids = memberId == null ? null : loans.get(memberId);
+        return ids == null ? 0 : ids.size();
+    }
+
+    boolean hasLoans(String memberId) { return loanCount(memberId) > 0; }
+
+    /** Ids of the books the member has on loan, in no particular order. */
+    Set<String> loansOf(String memberId) {
+        Set<String> ids = memberId == null ? null : loans.get(memberId);
+        return ids == null ? Set.of() : Set.copyOf(ids);
+    }
+}
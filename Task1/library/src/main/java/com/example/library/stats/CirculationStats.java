@@ -0,0 +1,111 @@
+package com.example.library.stats;
+
+import com.example.library.model.CirculationSummary;
+import com.example.library.model.DailyIssues;
+import com.example.library.model.RankedCount;
+import com.example.library.model.Transaction;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Circulation rollups kept up to date as transactions happen, so statistics never rescan the history.
+ * <p>
+ * Holds issue and return totals, the summed length of completed loans, issues per genre for each of the last
+ * {@link #DAYS_KEPT} days, and {@link TopK} sketches of the most borrowed books and the most active borrowers.
+ * Recording is O(log sketch size); reading the summary costs O(limit), and a daily breakdown O(days × genres),
+ * whatever the size of the history.
+ * <p>
+ * Nothing here is journalled: after a restart the rollups are rebuilt from the retained history, so they
+ * cover what retention kept, and issues of books deleted since then count under {@link #UNKNOWN_GENRE}.
+ */
+public class CirculationStats {
+    public static final int DAYS_KEPT = 366;
+    public static final String UNKNOWN_GENRE = "Unknown";
+    static final int SKETCH_CAPACITY = 1024;
+
+    private final LongAdder issues = new LongAdder();
+    private final LongAdder returns = new LongAdder();
+    private final LongAdder loans = new LongAdder();      // completed loans with a known start
+    private final LongAdder loanDays = new LongAdder();   // their summed length in days
+    private final ConcurrentSkipListMap<LocalDate, Map<String, LongAdder>> issuesByDay = new ConcurrentSkipListMap<>();
+    private final TopK titles = new TopK(SKETCH_CAPACITY);
+    private final TopK borrowers = new TopK(SKETCH_CAPACITY);
+
+    /** Counts an issue of a book in {@code genre}, on the day of the transaction. */
+    public void issued(Transaction transaction, String genre) {
+        issues.increment();
+        LocalDate day = transaction.getTimestamp().toLocalDate();
+        Map<String, LongAdder> genres = issuesByDay.get(day);
+        if (genres == null) {
+            genres = issuesByDay.computeIfAbsent(day, d -> new ConcurrentHashMap<>());
+            issuesByDay.headMap(day.minusDays(DAYS_KEPT - 1)).clear();
+        }
+        genres.computeIfAbsent(genre == null ? UNKNOWN_GENRE : genre, g -> new LongAdder()).increment();
+        titles.offer(transaction.getBookId(), transaction.getBookTitle());
+        borrowers.offer(transaction.getMemberId(), transaction.getMemberName());
+    }
+
+    /** Counts a return of a book issued on {@code issueDate}, or of unknown length when it is null. */
+    public void returned(Transaction transaction, LocalDate issueDate) {
+        returns.increment();
+        if (issueDate == null) { return; }
+        loans.increment();
+        loanDays.add(Math.max(0, ChronoUnit.DAYS.between(issueDate, transaction.getTimestamp().toLocalDate())));
+    }
+
+    /** Starts over from {@code history}, oldest first; loan lengths come from pairing each return with its issue. */
+    public void rebuild(List<Transaction> history, Function<String, String> genreOf) {
+        issues.reset();
+        returns.reset();
+        loans.reset();
+        loanDays.reset();
+        issuesByDay.clear();
+        titles.clear();
+        borrowers.clear();
+        Map<String, LocalDate> open = new HashMap<>();
+        for (Transaction transaction : history) {
+            switch (transaction.getAction()) {
+                case "Issued" -> {
+                    issued(transaction, genreOf.apply(transaction.getBookId()));
+                    open.put(transaction.getBookId(), transaction.getTimestamp().toLocalDate());
+                }
+                case "Returned" -> returned(transaction, open.remove(transaction.getBookId()));
+                default -> { }
+            }
+        }
+    }
+
+    public CirculationSummary summary(int limit) {
+        long completed = loans.sum();
+        double average = completed == 0 ? 0 : (double) loanDays.sum() / completed;
+        return new CirculationSummary(issues.sum(), returns.sum(), average, titles.top(limit), borrowers.top(limit));
+    }
+
+    public List<RankedCount> topTitles(int limit) { return titles.top(limit); }
+    public List<RankedCount> topBorrowers(int limit) { return borrowers.top(limit); }
+
+    /** Issues per day from {@code from} to {@code to} inclusive, oldest first; days without issues are left out. */
+    public List<DailyIssues> issuesByDay(LocalDate from, LocalDate to) {
+        List<DailyIssues> days = new ArrayList<>();
+        for (Map.Entry<LocalDate, Map<String, LongAdder>> day : issuesByDay.subMap(from, true, to, true).entrySet()) {
+            Map<String, Long> byGenre = new TreeMap<>();
+            long total = 0;
+            for (Map.Entry<String, LongAdder> genre : day.getValue().entrySet()) {
+                long count = genre.getValue().sum();
+                byGenre.put(genre.getKey(), count);
+                total += count;
+            }
+            days.add(new DailyIssues(day.getKey(), total, byGenre));
+        }
+        return days;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.library.stats;
+
+import com.example.library.model.RankedCount;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Space-Saving sketch of the most frequent keys in a stream.
+ * <p>
+ * At most {@code capacity} keys are counted. When a new key arrives and the sketch is full, it takes over the
+ * least counted slot and inherits that count as its error, so every reported count is an upper bound that is
+ * off by at most its error. Any key seen more than {@code total / capacity} times is guaranteed to be present.
+ * Counters are kept ordered by count, so an offer is O(log capacity) and the top n are read in O(n).
+ */
+final class TopK {
+    private static final Comparator<Counter> BY_COUNT = Comparator.comparingLong((Counter c) -> c.count)
+            .thenComparing(c -> c.key);
+
+    private final int capacity;
+    private final Map<String, Counter> byKey = new HashMap<>();
+    private final TreeSet<Counter> ordered = new TreeSet<>(BY_COUNT);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private static final class Counter {
+        final String key;
+        String label;
+        long count;
+        long error;
+
+        Counter(String key) { this.key = key; }
+    }
+
+    TopK(int capacity) { this.capacity = capacity; }
+
+    /** Counts one occurrence of {@code key}; {@code label} is what listings show for it, latest wins. */
+    void offer(String key, String label) {
+        if (key == null) { return; }
+        lock.lock();
+        try {
+            Counter counter = byKey.get(key);
+            if (counter != null) {
+                ordered.remove(counter);
+            } else if (byKey.size() < capacity) {
+                counter = new Counter(key);
+                byKey.put(key, counter);
+            } else {
+                Counter smallest = ordered.pollFirst();
+                byKey.remove(smallest.key);
+                counter = new Counter(key);
+                counter.count = smallest.count;
+                counter.error = smallest.count;
+                byKey.put(key, counter);
+            }
+            counter.label = label;
+            counter.count++;
+            ordered.add(counter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The {@code n} highest counts, highest first. */
+    List<RankedCount> top(int n) {
+        lock.lock();
+        try {
+            List<RankedCount> top = new ArrayList<>(Math.min(n, ordered.size()));
+            Iterator<Counter> it = ordered.descendingIterator();
+            while (top.size() < n && it.hasNext()) {
+                Counter counter = it.next();
+                top.add(new RankedCount(counter.key, counter.label, counter.count, counter.error));
+            }
+            return top;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            byKey.clear();
+            ordered.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.library.transfer;
+
+import org.springframework.http.MediaType;
+
+/** Wire formats for bulk import and export. */
+public enum BulkFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+    CSV(MediaType.parseMediaType("text/csv"));
+
+    private final MediaType mediaType;
+
+    BulkFormat(MediaType mediaType) { this.mediaType = mediaType; }
+
+    public MediaType mediaType() { return mediaType; }
+
+    /**
+     * Picks the format from an explicit {@code format} parameter, falling back to the request's content type.
+     * Anything that is not CSV is read as NDJSON.
+     */
+    public static BulkFormat of(String format, String contentType) {
+        if (format != null && !format.isBlank()) { return format.trim().equalsIgnoreCase("csv") ? CSV : NDJSON; }
+        return contentType != null && contentType.toLowerCase().contains("csv") ? CSV : NDJSON;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.library.transfer;
+
+import com.example.library.model.Book;
+import com.example.library.model.ImportResult;
+import com.example.library.model.Member;
+import com.example.library.service.LibraryService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Streaming bulk import and export of books and members as NDJSON or CSV.
+ * <p>
+ * Input is parsed one row at a time and handed to the library in batches of {@value #BATCH_SIZE}, each
+ * added under a single journal mutation; output is written straight from the store one row at a time.
+ * Neither direction holds a whole document in memory. Imported books always start on the shelf: loan
+ * columns in the input (as written by the export) are ignored.
+ */
+@Service
+public class CatalogTransfer {
+    static final int BATCH_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String[] BOOK_COLUMNS = { "id", "title", "author", "genre", "issued", "issuedToMemberId", "issueDate", "dueDate", "fine" };
+    private static final String[] MEMBER_COLUMNS = { "id", "name" };
+
+    private final LibraryService libraryService;
+    private final ObjectWriter jsonWriter;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CatalogTransfer(LibraryService libraryService, ObjectMapper objectMapper) {
+        this.libraryService = libraryService;
+        this.objectMapper = objectMapper;
+        this.jsonWriter = objectMapper.writer();
+    }
+
+    // --- Import ---
+    public ImportResult importBooks(InputStream in, BulkFormat format) throws IOException {
+        Importer<Book> importer = new Importer<>(libraryService::addBooks, Book::getId);
+        read(in, format, importer, (row, line) -> {
+            String title = row.get("title");
+            if (title == null || title.isBlank()) {
+                importer.reject(line, "title is required");
+                return;
+            }
+            importer.add(new Book(row.get("id"), title.trim(), row.get("author"), row.get("genre")), line);
+        });
+        return importer.finish();
+    }
+
+    public ImportResult importMembers(InputStream in, BulkFormat format) throws IOException {
+        Importer<Member> importer = new Importer<>(libraryService::addMembers, Member::getId);
+        read(in, format, importer, (row, line) -> {
+            String name = row.get("name");
+            if (name == null || name.isBlank()) {
+                importer.reject(line, "name is required");
+                return;
+            }
+            importer.add(new Member(row.get("id"), name.trim()), line);
+        });
+        return importer.finish();
+    }
+
+    // Feeds each row to the handler as column name -> value, with empty values as null.
+    private void read(InputStream in, BulkFormat format, Importer<?> importer, BiConsumer<Map<String, String>, Integer> rows) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == BulkFormat.CSV) {
+            readCsv(reader, importer, rows);
+            return;
+        }
+        String text;
+        int line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) { continue; }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                importer.reject(line, "malformed JSON");
+                continue;
+            }
+            if (!node.isObject()) {
+                importer.reject(line, "expected a JSON object");
+                continue;
+            }
+            Map<String, String> row = new HashMap<>();
+            for (Map.Entry<String, JsonNode> field : node.properties()) {
+                JsonNode value = field.getValue();
+                if (!value.isNull() && !value.asText().isEmpty()) { row.put(field.getKey(), value.asText()); }
+            }
+            rows.accept(row, line);
+        }
+    }
+
+    private static void readCsv(BufferedReader reader, Importer<?> importer, BiConsumer<Map<String, String>, Integer> rows) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        try {
+            List<String> header = csv.next();
+            if (header == null) { return; }
+            header.replaceAll(column -> column.replace("\uFEFF", "").trim());
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) { continue; }
+                Map<String, String> row = new HashMap<>();
+                for (int i = 0; i < Math.min(header.size(), record.size()); i++) {
+                    if (!record.get(i).isEmpty()) { row.put(header.get(i), record.get(i)); }
+                }
+                rows.accept(row, csv.line());
+            }
+        } catch (CsvReader.MalformedCsvException e) {
+            importer.reject(csv.line(), e.getMessage() + "; import stopped");
+        }
+    }
+
+    /** Collects rows into batches, hands each batch to the library, and keeps the tally for the response. */
+    private static final class Importer<T> {
+        private final Function<List<T>, List<T>> sink;
+        private final Function<T, String> idOf;
+        private final long start = System.nanoTime();
+        private final List<T> batch = new ArrayList<>(BATCH_SIZE);
+        private final Map<T, Integer> lines = new IdentityHashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        Importer(Function<List<T>, List<T>> sink, Function<T, String> idOf) {
+            this.sink = sink;
+            this.idOf = idOf;
+        }
+
+        void add(T row, int line) {
+            batch.add(row);
+            lines.put(row, line);
+            if (batch.size() == BATCH_SIZE) { flush(); }
+        }
+
+        void reject(int line, String reason) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) { errors.add("line " + line + ": " + reason); }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) { return; }
+            List<T> refused = sink.apply(batch);
+            for (T row : refused) { reject(lines.get(row), "id " + idOf.apply(row) + " is already taken or not valid"); }
+            imported += batch.size() - refused.size();
+            batch.clear();
+            lines.clear();
+        }
+
+        ImportResult finish() {
+            flush();
+            long nanos = Math.max(1, System.nanoTime() - start);
+            long rows = imported + rejected;
+            return new ImportResult(imported, rejected, errors, nanos / 1_000_000, rows * 1_000_000_000L / nanos);
+        }
+    }
+
+    // --- Export ---
+    /** Writes every book, oldest first. The caller owns and closes {@code out}. */
+    public void exportBooks(OutputStream out, BulkFormat format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == BulkFormat.CSV) { writeCsvRow(writer, BOOK_COLUMNS); }
+        try {
+            libraryService.forEachBook(book -> {
+                try {
+                    if (format == BulkFormat.CSV) {
+                        writeCsvRow(writer, book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(), String.valueOf(book.isIssued()),
+                                book.getIssuedToMemberId(), toString(book.getIssueDate()), toString(book.getDueDate()), String.valueOf(book.getFine()));
+                    } else {
+                        writeJsonRow(writer, book);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /** Writes every member in registration order. The caller owns and closes {@code out}. */
+    public void exportMembers(OutputStream out, BulkFormat format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == BulkFormat.CSV) { writeCsvRow(writer, MEMBER_COLUMNS); }
+        for (Member member : libraryService.getAllMembers()) {
+            if (format == BulkFormat.CSV) {
+                writeCsvRow(writer, member.getId(), member.getName());
+            } else {
+                writeJsonRow(writer, member);
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeJsonRow(Writer writer, Object value) throws IOException {
+        writer.write(jsonWriter.writeValueAsString(value));
+        writer.write('\n');
+    }
+
+    private static void writeCsvRow(Writer writer, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) { writer.write(','); }
+            writer.write(CsvReader.escape(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String toString(Object value) { return value == null ? null : value.toString(); }
+}
@@ -0,0 +1,75 @@
+package com.example.library.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 reader that returns one record at a time, so input of any size is read in constant memory.
+ * Quoted fields may contain commas, doubled quotes and line breaks; CRLF and LF line endings are both accepted.
+ */
+final class CsvReader {
+    /** The input is not valid CSV; unlike other I/O errors, reading cannot usefully continue past it. */
+    static final class MalformedCsvException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        MalformedCsvException(String message) { super(message); }
+    }
+
+    private final Reader in;
+    private int line = 1;
+    private int recordLine;
+
+    CsvReader(Reader in) { this.in = in instanceof BufferedReader ? in : new BufferedReader(in, 64 * 1024); }
+
+    /** Line number on which the last record returned by {@link #next()} started. */
+    int line() { return recordLine; }
+
+    /** The next record's fields, or null at end of input. A blank line is returned as a single empty field. */
+    List<String> next() throws IOException {
+        int c = in.read();
+        if (c == -1) { return null; }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) { throw new MalformedCsvException("Unterminated quoted field starting on line " + recordLine); }
+                if (c == '"') {
+                    int next = in.read();
+                    if (next != '"') {
+                        inQuotes = false;
+                        c = next;
+                        continue;
+                    }
+                    field.append('"');
+                } else {
+                    if (c == '\n') { line++; }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                if (c == '\n') { line++; }
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+
+    /** Quotes a value for output when it contains a delimiter, quote or line break; null becomes an empty field. */
+    static String escape(String value) {
+        if (value == null) { return ""; }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) { return value; }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.library.cluster;
+
+import com.example.library.LibraryBackendApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two branches on one machine, as in a local cluster: each a full instance on its own port.
+class ClusterTests {
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final HttpClient HTTP = HttpClient.newHttpClient();
+	private static final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+	private static String north, south;
+
+	@BeforeAll
+	static void start() throws IOException {
+		int[] ports = { freePort(), freePort() };
+		north = "http://localhost:" + ports[0];
+		south = "http://localhost:" + ports[1];
+		String[] names = { "north", "south" };
+		for (int i = 0; i < 2; i++) {
+			instances.add(new SpringApplicationBuilder(LibraryBackendApplication.class).run(
+					"--server.port=" + ports[i],
+					"--library.cluster.self=" + names[i],
+					"--library.cluster.branches.north=" + north,
+					"--library.cluster.branches.south=" + south));
+		}
+	}
+
+	@AfterAll
+	static void stop() { instances.forEach(ConfigurableApplicationContext::close); }
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) { return socket.getLocalPort(); }
+	}
+
+	private static HttpResponse<String> call(String method, String url, String body) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+				.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+		if (body != null) { request.header("Content-Type", "application/json"); }
+		return HTTP.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static JsonNode json(HttpResponse<String> response) throws IOException { return JSON.readTree(response.body()); }
+
+	@Test
+	void listingsGatherEveryBranchAndPageAcrossThem() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			assertEquals(200, call("POST", north + "/api/cluster/books", "{\"title\":\"Paging N" + i + "\",\"author\":\"A\",\"genre\":\"Paging\",\"branch\":\"north\"}").statusCode());
+			assertEquals(200, call("POST", north + "/api/cluster/books", "{\"title\":\"Paging S" + i + "\",\"author\":\"A\",\"genre\":\"Paging\",\"branch\":\"south\"}").statusCode());
+		}
+		// Title order across both branches, three at a time, through the other instance.
+		List<String> titles = new ArrayList<>();
+		Set<String> branches = new HashSet<>();
+		String cursor = "";
+		do {
+			JsonNode page = json(call("GET", south + "/api/cluster/books?genre=Paging&sort=title&limit=3&cursor=" + cursor, null));
+			assertEquals(10, page.path("total").asLong());
+			assertTrue(page.path("unavailable").isEmpty());
+			for (JsonNode book : page.path("items")) {
+				titles.add(book.path("title").asText());
+				branches.add(book.path("branch").asText());
+			}
+			cursor = page.path("nextCursor").isNull() ? null : page.path("nextCursor").asText();
+		} while (cursor != null);
+		assertEquals(List.of("Paging N0", "Paging N1", "Paging N2", "Paging N3", "Paging N4",
+				"Paging S0", "Paging S1", "Paging S2", "Paging S3", "Paging S4"), titles);
+		assertEquals(Set.of("north", "south"), branches);
+
+		JsonNode hits = json(call("GET", north + "/api/cluster/books/search?q=paging&limit=20", null));
+		assertEquals(10, hits.path("items").size());
+		assertEquals(400, call("GET", north + "/api/cluster/books?cursor=1.x", null).statusCode());
+	}
+
+	@Test
+	void searchesMergeBranchesByRelevance() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			assertEquals(200, call("POST", north + "/api/cluster/books", "{\"title\":\"Weak " + i + "\",\"author\":\"A\",\"genre\":\"Zephyrs\",\"branch\":\"north\"}").statusCode());
+		}
+		assertEquals(200, call("POST", north + "/api/cluster/books", "{\"title\":\"Zephyr\",\"author\":\"A\",\"genre\":\"Wind\",\"branch\":\"south\"}").statusCode());
+		// The exact title match on south outranks the genre prefix matches on north, though north is asked first.
+		JsonNode hits = json(call("GET", north + "/api/cluster/books/search?q=zephyr&limit=2", null)).path("items");
+		assertEquals(2, hits.size());
+		assertEquals("Zephyr", hits.get(0).path("title").asText());
+		assertEquals("south", hits.get(0).path("branch").asText());
+		assertTrue(hits.get(0).path("score").asInt() > hits.get(1).path("score").asInt());
+	}
+
+	@Test
+	void membersBorrowFromAnyBranchAndBooksMoveBetweenThem() throws Exception {
+		String memberId = json(call("POST", north + "/api/cluster/members", "{\"name\":\"Dana\",\"branch\":\"north\"}")).path("id").asText();
+		JsonNode book = json(call("POST", north + "/api/cluster/books", "{\"title\":\"Travelling\",\"author\":\"A\",\"genre\":\"G\",\"branch\":\"south\"}"));
+		String bookId = book.path("id").asText();
+		assertEquals("south", book.path("branch").asText());
+
+		// A north member borrows a south book: the member is copied to south first.
+		HttpResponse<String> issued = call("POST", north + "/api/cluster/books/issue", "{\"bookId\":\"" + bookId + "\",\"memberId\":\"" + memberId + "\"}");
+		assertEquals(200, issued.statusCode());
+		assertEquals(memberId, json(issued).path("issuedToMemberId").asText());
+		assertEquals(200, call("GET", south + "/api/members/" + memberId, null).statusCode());
+		assertEquals(409, call("POST", north + "/api/cluster/transfers", "{\"bookId\":\"" + bookId + "\",\"branch\":\"north\"}").statusCode());
+		assertEquals(409, call("DELETE", south + "/api/cluster/members/" + memberId, null).statusCode());
+		assertEquals(200, call("POST", south + "/api/cluster/books/return", "{\"bookId\":\"" + bookId + "\"}").statusCode());
+
+		// Back on the shelf, it moves north under the same id; the router that placed it finds it there.
+		HttpResponse<String> moved = call("POST", south + "/api/cluster/transfers", "{\"bookId\":\"" + bookId + "\",\"branch\":\"north\"}");
+		assertEquals(200, moved.statusCode());
+		assertEquals("north", json(moved).path("branch").asText());
+		assertEquals(404, call("GET", south + "/api/books/" + bookId, null).statusCode());
+		assertEquals("north", json(call("GET", north + "/api/cluster/books/" + bookId, null)).path("branch").asText());
+		assertEquals(200, call("POST", north + "/api/cluster/books/issue", "{\"bookId\":\"" + bookId + "\",\"memberId\":\"" + memberId + "\"}").statusCode());
+		assertEquals(200, call("POST", north + "/api/cluster/books/return", "{\"bookId\":\"" + bookId + "\"}").statusCode());
+
+		JsonNode members = json(call("GET", south + "/api/cluster/members", null));
+		for (JsonNode member : members.path("items")) {
+			if (member.path("id").asText().equals(memberId)) { assertEquals(2, member.path("branches").size()); }
+		}
+		assertEquals(204, call("DELETE", south + "/api/cluster/members/" + memberId, null).statusCode());
+		assertEquals(404, call("GET", north + "/api/members/" + memberId, null).statusCode());
+		assertEquals(404, call("GET", south + "/api/members/" + memberId, null).statusCode());
+		assertEquals(400, call("POST", north + "/api/cluster/transfers", "{\"bookId\":\"" + bookId + "\",\"branch\":\"west\"}").statusCode());
+	}
+
+	@Test
+	void aSingleInstanceHasNoClusterEndpoints() throws Exception {
+		ClusterController alone = new ClusterController(new ClusterRouter(new ClusterProperties(), JSON), new ClusterProperties());
+		assertEquals(404, alone.getBooks(null, null, null, null, 10).getStatusCode().value());
+		assertFalse(json(call("GET", north + "/api/cluster/branches", null)).path("branches").isEmpty());
+		assertNull(new ClusterRouter(new ClusterProperties(), JSON).branchOrSelf(null));
+	}
+}
@@ -0,0 +1,25 @@
+package com.example.library.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookListingTests {
+
+	@Autowired
+	MockMvc mvc;
+
+	@Test
+	void unknownSortKeysAreRejected() throws Exception {
+		mvc.perform(get("/api/books?sort=titel")).andExpect(status().isBadRequest());
+		mvc.perform(get("/api/books?sort=Due-Date")).andExpect(status().isOk());
+		mvc.perform(get("/api/books")).andExpect(status().isOk());
+	}
+}
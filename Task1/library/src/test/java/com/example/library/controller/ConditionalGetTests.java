@@ -0,0 +1,45 @@
+package com.example.library.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTests {
+
+	@Autowired
+	MockMvc mvc;
+
+	@Test
+	void unchangedCollectionsAnswerNotModified() throws Exception {
+		String members = etag("/api/members");
+		String books = etag("/api/books?limit=2");
+		mvc.perform(get("/api/members").header(HttpHeaders.IF_NONE_MATCH, members)).andExpect(status().isNotModified());
+		mvc.perform(get("/api/books?limit=2").header(HttpHeaders.IF_NONE_MATCH, books)).andExpect(status().isNotModified());
+
+		mvc.perform(post("/api/members").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Dana\"}")).andExpect(status().isOk());
+		mvc.perform(get("/api/members").header(HttpHeaders.IF_NONE_MATCH, members))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(content().string(containsString("\"name\":\"Dana\"")));
+		assertNotEquals(members, etag("/api/members"));
+		// Books did not change, so their tag still holds.
+		mvc.perform(get("/api/books?limit=2").header(HttpHeaders.IF_NONE_MATCH, books)).andExpect(status().isNotModified());
+	}
+
+	private String etag(String uri) throws Exception {
+		return mvc.perform(get(uri)).andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+	}
+}
@@ -0,0 +1,57 @@
+package com.example.library.feed;
+
+import com.example.library.model.Book;
+import com.example.library.model.ChangeEvent;
+import com.example.library.model.Member;
+import com.example.library.service.LibraryService;
+import com.example.library.service.TestLibrary;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeFeedTests {
+
+	@Test
+	void mutationsPublishDeltasInOrder() {
+		ChangeFeed feed = new ChangeFeed(new FeedProperties());
+		LibraryService library = TestLibrary.builder().changes(feed).build();
+		long start = feed.head();
+
+		Book book = library.addBook("Dune", "Frank Herbert", "Sci-Fi");
+		Member member = library.addMember("Carol");
+		library.issueBook(book.getId(), member.getId());
+		library.issueBook(book.getId(), member.getId()); // Rejected, so no event
+		library.returnBook(book.getId());
+		library.deleteBook(book.getId());
+		library.deleteMember(member.getId());
+
+		List<ChangeEvent> events = feed.after(start, 100);
+		assertEquals(List.of(ChangeEvent.Type.BOOK_ADDED, ChangeEvent.Type.MEMBER_ADDED, ChangeEvent.Type.BOOK_UPDATED,
+				ChangeEvent.Type.BOOK_UPDATED, ChangeEvent.Type.BOOK_DELETED, ChangeEvent.Type.MEMBER_DELETED),
+				events.stream().map(ChangeEvent::getType).toList());
+		for (int i = 0; i < events.size(); i++) { assertEquals(start + i + 1, events.get(i).getSequence()); }
+		assertTrue(events.get(2).getBook().isIssued());
+		assertEquals("Issued", events.get(2).getTransaction().getAction());
+		assertEquals("Returned", events.get(3).getTransaction().getAction());
+		assertEquals(book.getId(), events.get(4).getId());
+		assertEquals(member.getId(), events.get(5).getId());
+		assertEquals(2, feed.after(start, 2).size());
+	}
+
+	@Test
+	void clientsBehindTheRingAreToldToReload() {
+		FeedProperties properties = new FeedProperties();
+		properties.setBufferSize(16);
+		ChangeFeed feed = new ChangeFeed(properties);
+		for (int i = 0; i < 40; i++) { feed.publish(ChangeEvent.memberDeleted("m" + i)); }
+
+		assertEquals(40, feed.head());
+		assertNull(feed.after(10, 100));
+		assertEquals(16, feed.after(24, 100).size());
+		assertEquals("m39", feed.after(39, 100).get(0).getId());
+		assertTrue(feed.after(40, 100).isEmpty());
+	}
+}
@@ -0,0 +1,64 @@
+package com.example.library.history;
+
+import com.example.library.model.ResultPage;
+import com.example.library.model.Transaction;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TransactionLogTests {
+
+	private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+	private static TransactionLog logWith(int entries, long maxEntries) {
+		HistoryRetention retention = new HistoryRetention();
+		retention.setMaxEntries(maxEntries);
+		TransactionLog log = new TransactionLog(retention);
+		for (int i = 0; i < entries; i++) {
+			String member = i % 2 == 0 ? "even" : "odd";
+			log.append(new Transaction("book-" + i, "Title " + i, member, member, "Issued", START.plusMinutes(i)));
+		}
+		return log;
+	}
+
+	@Test
+	void cursorWalksNewestToOldest() {
+		TransactionLog log = logWith(10, 100);
+		List<String> seen = new ArrayList<>();
+		String cursor = null;
+		do {
+			ResultPage<Transaction> page = log.find(null, null, null, null, cursor == null ? null : Long.parseLong(cursor), 3);
+			assertEquals(10, page.getTotal());
+			page.getItems().forEach(t -> seen.add(t.getBookId()));
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+		assertEquals(List.of("book-9", "book-8", "book-7", "book-6", "book-5", "book-4", "book-3", "book-2", "book-1", "book-0"), seen);
+	}
+
+	@Test
+	void filtersByTimeRangeAndMember() {
+		TransactionLog log = logWith(10, 100);
+		ResultPage<Transaction> range = log.find(START.plusMinutes(2), START.plusMinutes(5), null, null, null, 10);
+		assertEquals(4, range.getTotal());
+		assertEquals("book-5", range.getItems().get(0).getBookId());
+		assertEquals("book-2", range.getItems().get(3).getBookId());
+
+		ResultPage<Transaction> odd = log.find(null, null, "odd", null, null, 10);
+		assertEquals(5, odd.getItems().size());
+		assertNull(odd.getNextCursor());
+	}
+
+	@Test
+	void retentionDropsWholeOldSegments() {
+		TransactionLog log = logWith(TransactionLog.SEGMENT_SIZE * 3 + 1, TransactionLog.SEGMENT_SIZE);
+		assertEquals(TransactionLog.SEGMENT_SIZE + 1, log.size());
+		ResultPage<Transaction> oldest = log.find(null, null, null, null, (long) TransactionLog.SEGMENT_SIZE * 2 + 1, 5);
+		assertEquals("book-" + TransactionLog.SEGMENT_SIZE * 2, oldest.getItems().get(0).getBookId());
+		assertEquals(1, oldest.getItems().size());
+		assertNull(oldest.getNextCursor());
+	}
+}
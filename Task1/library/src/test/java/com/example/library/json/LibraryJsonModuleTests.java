@@ -0,0 +1,94 @@
+package com.example.library.json;
+
+import com.example.library.model.Book;
+import com.example.library.model.ChangeEvent;
+import com.example.library.model.ResultPage;
+import com.example.library.model.Transaction;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LibraryJsonModuleTests {
+	// Dates as strings, as Spring Boot configures the application's mapper
+	private static final ObjectMapper REFLECTIVE = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+	private static final ObjectMapper TUNED = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.modulesToInstall(new LibraryJsonModule()).build();
+
+	private static List<Book> books() {
+		List<Book> books = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			Book book = new Book("b" + i, "Title \"" + i + "\"", "Author " + i, i % 2 == 0 ? "Fiction" : null);
+			if (i % 3 == 0) {
+				book.setIssued(true);
+				book.setIssuedToMemberId("m1");
+				book.setIssueDate(LocalDate.of(2024, 2, 29));
+				book.setDueDate(LocalDate.of(2024, 3, 15));
+				book.setFine(i * 5L);
+			}
+			books.add(book);
+		}
+		return books;
+	}
+
+	@Test
+	void writesWhatTheBeanSerializersWrite() throws Exception {
+		List<Book> books = books();
+		List<Transaction> history = List.of(
+				new Transaction("b0", "Title", "m1", "Carol", "Issued", LocalDateTime.of(2024, 3, 1, 10, 0)),
+				new Transaction("b0", "Title", "m1", "Carol", "Returned", LocalDateTime.of(2024, 3, 2, 9, 30, 15, 123_000_000)),
+				new Transaction("b1", "Other", null, "System", "Deleted", null));
+		ResultPage<Book> page = new ResultPage<>(books, 42, "10");
+		ChangeEvent event = ChangeEvent.bookUpdated(books.get(0), history.get(0));
+
+		assertEquals(REFLECTIVE.writeValueAsString(page), TUNED.writeValueAsString(page));
+		assertEquals(REFLECTIVE.writeValueAsString(history), TUNED.writeValueAsString(history));
+		assertEquals(REFLECTIVE.writeValueAsString(event), TUNED.writeValueAsString(event));
+
+		// With timestamps on, dates fall back to the default serializers and come out as arrays.
+		ObjectMapper timestamps = Jackson2ObjectMapperBuilder.json().modulesToInstall(new LibraryJsonModule()).build();
+		assertEquals(Jackson2ObjectMapperBuilder.json().build().writeValueAsString(page), timestamps.writeValueAsString(page));
+	}
+
+	@Test
+	void columnsEncodeOneArrayPerField() throws Exception {
+		ResultPage<Book> page = new ResultPage<>(books(), 42, "10");
+		JsonNode json = TUNED.readTree(TUNED.writeValueAsBytes(new ColumnarPage<>(page, ColumnSchema.BOOKS)));
+
+		assertEquals(42, json.path("total").asLong());
+		assertEquals("10", json.path("nextCursor").asText());
+		assertEquals(10, json.path("size").asInt());
+		JsonNode columns = json.path("columns");
+		assertEquals(9, columns.size());
+		assertEquals("b3", columns.path("id").get(3).asText());
+		assertTrue(columns.path("issued").get(3).asBoolean());
+		assertEquals("2024-03-15", columns.path("dueDate").get(3).asText());
+		assertTrue(columns.path("dueDate").get(1).isNull());
+		assertEquals(15, columns.path("fine").get(3).asLong());
+
+		// Two distinct genres over ten books: dictionary-encoded, with null as a value like any other.
+		JsonNode genre = columns.path("genre");
+		assertEquals(2, genre.path("dict").size());
+		assertEquals("Fiction", genre.path("dict").get(genre.path("codes").get(0).asInt()).asText());
+		assertTrue(genre.path("dict").get(genre.path("codes").get(1).asInt()).isNull());
+
+		// Every value distinct: a plain array.
+		assertTrue(columns.path("title").isArray());
+		assertTrue(TUNED.writeValueAsBytes(new ColumnarPage<>(page, ColumnSchema.BOOKS)).length < TUNED.writeValueAsBytes(page).length);
+	}
+
+	@Test
+	void unknownFormatsAreRejected() {
+		assertEquals(ResponseFormat.JSON, ResponseFormat.parse(null));
+		assertEquals(ResponseFormat.COLUMNS, ResponseFormat.parse("Columns"));
+		assertEquals(null, ResponseFormat.parse("xml"));
+	}
+}
@@ -0,0 +1,125 @@
+package com.example.library.persistence;
+
+import com.example.library.model.BatchItem;
+import com.example.library.model.Book;
+import com.example.library.model.Member;
+import com.example.library.service.BookSort;
+import com.example.library.service.LibraryService;
+import com.example.library.service.TestLibrary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.FileSystemUtils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LibraryJournalTests {
+
+	@TempDir
+	Path directory;
+
+	private LibraryJournal journal(long snapshotEvery) {
+		PersistenceProperties properties = new PersistenceProperties();
+		properties.setEnabled(true);
+		properties.setDirectory(directory.toString());
+		properties.setSnapshotEvery(snapshotEvery);
+		return new LibraryJournal(properties);
+	}
+
+	private static LibraryService service(LibraryJournal journal) {
+		return TestLibrary.builder().journal(journal).build();
+	}
+
+	@Test
+	void restartReplaysTheLog() throws IOException {
+		LibraryJournal journal = journal(Long.MAX_VALUE);
+		LibraryService library = service(journal);
+		Member carol = library.addMember("Carol");
+		Book dune = library.addBook("Dune", "Frank Herbert", "Sci-Fi");
+		library.issueBook(dune.getId(), carol.getId());
+		String gatsbyId = library.findBooks(null, "gatsby", BookSort.NEWEST, 0, 10).getItems().get(0).getId();
+		assertTrue(library.deleteBook(gatsbyId));
+		// No close(): reopen as if the process had crashed, so recovery has to replay every record.
+		LibraryJournal reopened = journal(Long.MAX_VALUE);
+		LibraryService recovered = service(reopened);
+		assertTrue(reopened.getRecoveredRecords() > 0);
+		assertEquals(library.getAllBooks().size(), recovered.getAllBooks().size());
+		assertEquals(carol.getId(), recovered.findBookById(dune.getId()).orElseThrow().getIssuedToMemberId());
+		assertFalse(recovered.findBookById(gatsbyId).isPresent());
+		assertEquals(library.findHistory(null, null, null, null, null, 100).getItems(),
+				recovered.findHistory(null, null, null, null, null, 100).getItems());
+		reopened.close();
+	}
+
+	@Test
+	void snapshotPlusTailSurvivesATornWrite() throws IOException {
+		LibraryJournal journal = journal(5);
+		LibraryService library = service(journal);
+		for (int i = 0; i < 20; i++) { library.addBook("Title " + i, "Author", "Genre"); }
+		journal.checkpoint();
+		Book last = library.addBook("After snapshot", "Author", "Genre");
+
+		// Simulate a crash halfway through writing the next record.
+		List<Path> segments;
+		try (var files = Files.list(directory)) {
+			segments = files.filter(p -> p.getFileName().toString().startsWith("wal-")).sorted().toList();
+		}
+		Files.write(segments.get(segments.size() - 1), new byte[] { 0, 0, 0, 42, 1, 2 }, StandardOpenOption.APPEND);
+
+		LibraryJournal reopened = journal(Long.MAX_VALUE);
+		LibraryService recovered = service(reopened);
+		assertEquals(1, reopened.getRecoveredRecords());
+		assertEquals(library.getAllBooks().size(), recovered.getAllBooks().size());
+		assertTrue(recovered.findBookById(last.getId()).isPresent());
+		reopened.close();
+	}
+
+	@Test
+	void replayKeepsDueDatesWhenTheLoanPeriodChanges() throws IOException {
+		LibraryJournal journal = journal(Long.MAX_VALUE);
+		LibraryService library = TestLibrary.builder().journal(journal).loanDays(15).build();
+		Member carol = library.addMember("Carol");
+		Book dune = library.addBook("Dune", "Frank Herbert", "Sci-Fi");
+		Book emma = library.addBook("Emma", "Jane Austen", "Classic");
+		Book issued = library.issueBook(dune.getId(), carol.getId()).orElseThrow();
+		assertTrue(library.issueBooks(List.of(new BatchItem(emma.getId(), carol.getId()))).isApplied());
+
+		// Reopen without a snapshot, under a longer loan period: both loans come back from the log as they were made.
+		LibraryJournal reopened = journal(Long.MAX_VALUE);
+		LibraryService recovered = TestLibrary.builder().journal(reopened).loanDays(30).build();
+		assertEquals(issued.getDueDate(), recovered.findBookById(dune.getId()).orElseThrow().getDueDate());
+		assertEquals(issued.getDueDate(), recovered.findBookById(emma.getId()).orElseThrow().getDueDate());
+		reopened.close();
+	}
+
+	@Test
+	void failedLogRefusesChangesBeforeApplyingThem() throws IOException {
+		LibraryJournal journal = journal(Long.MAX_VALUE);
+		LibraryService library = service(journal);
+		Member carol = library.addMember("Carol");
+		Book dune = library.addBook("Dune", "Frank Herbert", "Sci-Fi");
+		// Pull the directory out from under the log, so rolling to a new segment fails.
+		FileSystemUtils.deleteRecursively(directory);
+		journal.checkpoint();
+		assertTrue(journal.isReadOnly());
+
+		int books = library.getAllBooks().size();
+		String booksVersion = library.booksVersion();
+		String historyVersion = library.historyVersion();
+		assertThrows(LibraryJournal.ReadOnlyException.class, () -> library.addBook("Emma", "Jane Austen", "Classic"));
+		assertThrows(LibraryJournal.ReadOnlyException.class, () -> library.issueBook(dune.getId(), carol.getId()));
+		assertThrows(LibraryJournal.ReadOnlyException.class, () -> library.deleteBook(dune.getId()));
+		assertEquals(books, library.getAllBooks().size());
+		assertFalse(library.findBookById(dune.getId()).orElseThrow().isIssued());
+		assertEquals(booksVersion, library.booksVersion());
+		assertEquals(historyVersion, library.historyVersion());
+		Files.createDirectories(directory);
+	}
+}
@@ -0,0 +1,59 @@
+package com.example.library.search;
+
+import com.example.library.model.Book;
+import com.example.library.model.ResultPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSearchIndexTests {
+
+	private BookSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new BookSearchIndex();
+		index.add(new Book("b1", "The Great Gatsby", "F. Scott Fitzgerald", "Fiction"));
+		index.add(new Book("b2", "Great Expectations", "Charles Dickens", "Classic"));
+		index.add(new Book("b3", "A Tale of Two Cities", "Charles Dickens", "Classic"));
+		index.add(new Book("b4", "The Greatest Showman", "Jenny Bicks", "Musical"));
+	}
+
+	@Test
+	void exactTitleMatchesRankAbovePrefixMatches() {
+		ResultPage<String> hits = index.search("great", 0, 10);
+		assertEquals(3, hits.getTotal());
+		assertEquals("b4", hits.getItems().get(2));
+	}
+
+	@Test
+	void everyTokenMustMatch() {
+		assertEquals(List.of("b2"), index.search("dickens GREAT", 0, 10).getItems());
+		assertEquals(0, index.search("dickens gatsby", 0, 10).getTotal());
+	}
+
+	@Test
+	void prefixQueriesExpandTerms() {
+		assertEquals(List.of("b2", "b3"), index.search("dick", 0, 10).getItems());
+		assertTrue(index.search("d", 0, 10).getItems().isEmpty());
+	}
+
+	@Test
+	void removedBooksNoLongerMatch() {
+		index.remove("b2");
+		assertEquals(List.of("b3"), index.search("dickens", 0, 10).getItems());
+	}
+
+	@Test
+	void pagesThroughRankedHits() {
+		ResultPage<String> first = index.search("great", 0, 2);
+		assertEquals("2", first.getNextCursor());
+		ResultPage<String> second = index.search("great", 2, 2);
+		assertEquals(List.of("b4"), second.getItems());
+		assertNull(second.getNextCursor());
+	}
+}
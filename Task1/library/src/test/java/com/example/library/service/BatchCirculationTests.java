@@ -0,0 +1,140 @@
+package com.example.library.service;
+
+import com.example.library.model.BatchItem;
+import com.example.library.model.BatchResult;
+import com.example.library.model.Member;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchCirculationTests {
+
+	@TempDir
+	Path directory;
+
+	private static LibraryService library(BookStore store, int maxPerMember) {
+		return TestLibrary.builder().books(store).maxLoansPerMember(maxPerMember).build();
+	}
+
+	private static List<BatchItem> issues(List<String> bookIds, String memberId) {
+		List<BatchItem> items = new ArrayList<>();
+		for (String id : bookIds) { items.add(new BatchItem(id, memberId)); }
+		return items;
+	}
+
+	private static List<String> addBooks(LibraryService library, int count) {
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < count; i++) { ids.add(library.addBook("Book " + i, "Author", "Genre").getId()); }
+		return ids;
+	}
+
+	private static long historySize(LibraryService library) {
+		return library.findHistory(null, null, null, null, null, Integer.MAX_VALUE).getItems().size();
+	}
+
+	@Test
+	void batchesApplyAllOrNothingInMemory() {
+		allOrNothing(new InMemoryBookStore());
+	}
+
+	@Test
+	void batchesApplyAllOrNothingMapped() throws IOException {
+		try (MappedBookStore store = MappedBookStore.open(directory, false)) {
+			allOrNothing(store);
+		}
+	}
+
+	private void allOrNothing(BookStore store) {
+		LibraryService library = library(store, 0);
+		Member member = library.addMember("Gail");
+		List<String> ids = addBooks(library, 5);
+		library.issueBook(ids.get(3), member.getId());
+		long history = historySize(library);
+
+		BatchResult refused = library.issueBooks(issues(ids, member.getId()));
+		assertFalse(refused.isApplied());
+		assertEquals("already issued", refused.getItems().get(3).getError());
+		assertNull(refused.getItems().get(0).getError());
+		assertFalse(library.findBookById(ids.get(0)).orElseThrow().isIssued());
+		assertEquals(history, historySize(library));
+
+		List<String> shelved = new ArrayList<>(ids);
+		shelved.remove(3);
+		BatchResult issued = library.issueBooks(issues(shelved, member.getId()));
+		assertTrue(issued.isApplied());
+		for (BatchItem item : issued.getItems()) { assertTrue(item.getBook().isIssued()); }
+		assertEquals(5, library.findLoans(member.getId()).orElseThrow().size());
+		assertEquals(history + 4, historySize(library));
+
+		List<BatchItem> returns = issues(List.of(ids.get(0), "missing"), null);
+		assertEquals("unknown book", library.returnBooks(returns).getItems().get(1).getError());
+		assertTrue(library.findBookById(ids.get(0)).orElseThrow().isIssued());
+		assertTrue(library.returnBooks(issues(ids, null)).isApplied());
+		assertTrue(library.findLoans(member.getId()).orElseThrow().isEmpty());
+		assertEquals(history + 9, historySize(library));
+	}
+
+	@Test
+	void batchesRespectTheLoanLimitAndRejectDuplicates() {
+		LibraryService library = library(new InMemoryBookStore(), 3);
+		Member member = library.addMember("Hal");
+		List<String> ids = addBooks(library, 4);
+
+		BatchResult overLimit = library.issueBooks(issues(ids, member.getId()));
+		assertFalse(overLimit.isApplied());
+		assertEquals("loan limit reached", overLimit.getItems().get(3).getError());
+		assertEquals("book appears more than once",
+				library.issueBooks(issues(List.of(ids.get(0), ids.get(0)), member.getId())).getItems().get(1).getError());
+		assertEquals("unknown member", library.issueBooks(issues(ids.subList(0, 1), "nobody")).getItems().get(0).getError());
+		assertTrue(library.issueBooks(issues(ids.subList(0, 3), member.getId())).isApplied());
+	}
+
+	// Overlapping batches race for the same books; each book must end up issued by exactly one of them.
+	@Test
+	void overlappingBatchesNeverShareABook() throws Exception {
+		LibraryService library = library(new InMemoryBookStore(), 0);
+		List<String> ids = addBooks(library, 64);
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i < 8; i++) { members.add(library.addMember("Member " + i)); }
+
+		ExecutorService pool = Executors.newFixedThreadPool(members.size());
+		List<Future<Integer>> workers = new ArrayList<>();
+		for (Member member : members) {
+			workers.add(pool.submit(() -> {
+				int won = 0;
+				for (int round = 0; round < 200; round++) {
+					List<String> shuffled = new ArrayList<>(ids);
+					Collections.shuffle(shuffled);
+					List<String> picked = shuffled.subList(0, 4);
+					if (library.issueBooks(issues(picked, member.getId())).isApplied()) {
+						won += picked.size();
+						assertTrue(library.returnBooks(issues(picked, null)).isApplied());
+					}
+				}
+				return won;
+			}));
+		}
+		int issued = 0;
+		for (Future<Integer> worker : workers) { issued += worker.get(2, TimeUnit.MINUTES); }
+		pool.shutdown();
+
+		assertTrue(issued > 0);
+		for (String id : ids) { assertFalse(library.findBookById(id).orElseThrow().isIssued()); }
+		List<String> loansLeft = new ArrayList<>();
+		for (Member member : members) { library.findLoans(member.getId()).orElseThrow().forEach(book -> loansLeft.add(book.getId())); }
+		assertTrue(loansLeft.isEmpty());
+	}
+}
@@ -0,0 +1,87 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import com.example.library.model.Member;
+import com.example.library.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CirculationStressTests {
+	private static final int THREADS = 16;
+	private static final int BOOKS = 8;
+	private static final int ROUNDS = 5_000;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void noDoubleIssuesInMemory() throws Exception {
+		hammer(new InMemoryBookStore());
+	}
+
+	@Test
+	void noDoubleIssuesMapped() throws Exception {
+		try (MappedBookStore store = MappedBookStore.open(directory, false)) {
+			hammer(store);
+		}
+	}
+
+	// Many members race for a handful of books. Each successful issue must be the only one outstanding for its book.
+	private void hammer(BookStore store) throws Exception {
+		LibraryService library = TestLibrary.builder().books(store).build();
+		List<String> bookIds = new ArrayList<>();
+		for (int i = 0; i < BOOKS; i++) { bookIds.add(library.addBook("Book " + i, "Author", "Genre").getId()); }
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) { members.add(library.addMember("Member " + i)); }
+
+		ConcurrentHashMap<String, AtomicInteger> holders = new ConcurrentHashMap<>();
+		bookIds.forEach(id -> holders.put(id, new AtomicInteger()));
+		AtomicInteger issues = new AtomicInteger();
+		AtomicInteger returns = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> workers = new ArrayList<>();
+		for (Member member : members) {
+			workers.add(pool.submit(() -> {
+				start.await();
+				for (int round = 0; round < ROUNDS; round++) {
+					String bookId = bookIds.get(ThreadLocalRandom.current().nextInt(BOOKS));
+					if (library.issueBook(bookId, member.getId()).isEmpty()) { continue; }
+					issues.incrementAndGet();
+					assertEquals(1, holders.get(bookId).incrementAndGet(), "book issued twice");
+					Book current = library.findBookById(bookId).orElseThrow();
+					assertTrue(current.isIssued());
+					assertEquals(member.getId(), current.getIssuedToMemberId());
+					holders.get(bookId).decrementAndGet();
+					assertTrue(library.returnBook(bookId).isPresent());
+					returns.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> worker : workers) { worker.get(2, TimeUnit.MINUTES); }
+		pool.shutdown();
+
+		assertTrue(issues.get() > 0);
+		assertEquals(issues.get(), returns.get());
+		for (String id : bookIds) { assertTrue(!library.findBookById(id).orElseThrow().isIssued()); }
+		List<Transaction> history = library.findHistory(null, null, null, null, null, Integer.MAX_VALUE).getItems();
+		assertEquals(issues.get(), history.stream().filter(t -> t.getAction().equals("Issued") && bookIds.contains(t.getBookId())).count());
+		assertEquals(returns.get(), history.stream().filter(t -> t.getAction().equals("Returned") && bookIds.contains(t.getBookId())).count());
+	}
+}
@@ -0,0 +1,71 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import com.example.library.model.Member;
+import com.example.library.model.Reminder;
+import com.example.library.model.ResultPage;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DueDateQueryTests {
+
+	private static LibraryService library(int loanDays) {
+		return TestLibrary.builder().loanDays(loanDays).build();
+	}
+
+	@Test
+	void overdueAndDueSoonComeFromTheIndexInDueOrder() {
+		LibraryService library = library(2);
+		LocalDate today = LocalDate.now();
+		// The seed data holds one overdue book ("1984") and one issued today, now due within the window below.
+		ResultPage<Book> overdue = library.findDue(null, today.minusDays(1), null, 50);
+		assertEquals(List.of("1984"), overdue.getItems().stream().map(Book::getTitle).toList());
+
+		Member member = library.addMember("Ivy");
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			String id = library.addBook("Soon " + i, "A", "G").getId();
+			library.issueBook(id, member.getId());
+			ids.add(id);
+		}
+		List<String> seen = new ArrayList<>();
+		String cursor = null;
+		do {
+			ResultPage<Book> page = library.findDue(today, today.plusDays(3), cursor, 2);
+			page.getItems().forEach(book -> seen.add(book.getId()));
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+		assertEquals(4, seen.size());
+		assertEquals(seen.stream().sorted().toList(), seen); // Same due date, so ordered by id
+		assertTrue(seen.containsAll(ids));
+
+		library.returnBook(ids.get(0));
+		assertEquals(3, library.findDue(today, today.plusDays(3), null, 50).getItems().size());
+		assertThrows(IllegalArgumentException.class, () -> library.findDue(today, null, "garbage", 50));
+	}
+
+	@Test
+	void remindersGroupLoansByMember() {
+		LibraryService library = library(2);
+		Member member = library.addMember("Jay");
+		Book book = library.addBook("Due Soon", "A", "G");
+		library.issueBook(book.getId(), member.getId());
+
+		List<Reminder> reminders = library.generateReminders().getReminders();
+		Reminder first = reminders.get(0);
+		assertEquals("Bob Williams", first.getMemberName()); // Holds the overdue seed book, so comes first
+		assertEquals("1984", first.getOverdue().get(0).getTitle());
+		Reminder jay = reminders.stream().filter(r -> r.getMemberId().equals(member.getId())).findFirst().orElseThrow();
+		assertTrue(jay.getOverdue().isEmpty());
+		assertEquals(book.getId(), jay.getDueSoon().get(0).getId());
+		assertEquals(reminders, library.getReminders().getReminders());
+		Reminder alice = reminders.stream().filter(r -> r.getMemberName().equals("Alice Johnson")).findFirst().orElseThrow();
+		assertEquals("To Kill a Mockingbird", alice.getDueSoon().get(0).getTitle());
+	}
+}
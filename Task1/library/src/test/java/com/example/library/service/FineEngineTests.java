@@ -0,0 +1,121 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class FineEngineTests {
+
+	private static final LocalDate TODAY = LocalDate.of(2024, 3, 20);
+
+	// Records which books a refresh asks the store to update, and can run something just before each update.
+	private static final class WatchedStore extends InMemoryBookStore {
+		final List<String> updated = new ArrayList<>();
+		Runnable beforeNextUpdate;
+
+		@Override
+		public Optional<Book> update(String id, UnaryOperator<Book> change) {
+			updated.add(id);
+			Runnable hook = beforeNextUpdate;
+			beforeNextUpdate = null;
+			if (hook != null) { hook.run(); }
+			return super.update(id, change);
+		}
+	}
+
+	private static FinePolicy policy(int graceDays, long maxFine) {
+		FinePolicy policy = new FinePolicy();
+		policy.setRatePerDay(5);
+		policy.setGraceDays(graceDays);
+		policy.setMaxFine(maxFine);
+		return policy;
+	}
+
+	private static Book issue(BookStore store, FineEngine engine, String id, LocalDate dueDate) {
+		Book book = new Book(id, "Title " + id, "Author", "Genre");
+		book.setIssued(true);
+		book.setIssuedToMemberId("m1");
+		book.setIssueDate(dueDate.minusDays(14));
+		book.setDueDate(dueDate);
+		store.add(book);
+		engine.track(book);
+		return book;
+	}
+
+	@Test
+	void finesStartTheDayAfterTheGracePeriod() {
+		FinePolicy policy = policy(2, 0);
+		assertEquals(TODAY.minusDays(2), policy.earliestUnfinedDueDate(TODAY));
+		assertEquals(0, policy.fineFor(TODAY, TODAY));
+		assertEquals(0, policy.fineFor(TODAY.minusDays(2), TODAY));
+		assertEquals(5, policy.fineFor(TODAY.minusDays(3), TODAY));
+		assertEquals(50, policy.fineFor(TODAY.minusDays(12), TODAY));
+		assertEquals(0, policy.fineFor(null, TODAY));
+	}
+
+	@Test
+	void finesStopAtTheCap() {
+		FinePolicy policy = policy(0, 12);
+		assertEquals(10, policy.fineFor(TODAY.minusDays(2), TODAY));
+		assertEquals(12, policy.fineFor(TODAY.minusDays(3), TODAY));
+		assertEquals(12, policy.fineFor(TODAY.minusDays(300), TODAY));
+	}
+
+	@Test
+	void refreshVisitsOnlyBooksPastTheCutoff() {
+		WatchedStore store = new WatchedStore();
+		FineEngine engine = new FineEngine(policy(2, 0));
+		issue(store, engine, "within-grace", TODAY.minusDays(2));
+		issue(store, engine, "not-due", TODAY.plusDays(5));
+		issue(store, engine, "late", TODAY.minusDays(3));
+		issue(store, engine, "very-late", TODAY.minusDays(12));
+
+		List<String> changed = new ArrayList<>();
+		assertEquals(2, engine.refresh(store, TODAY, book -> changed.add(book.getId())));
+		assertEquals(List.of("very-late", "late"), store.updated);
+		assertEquals(List.of("very-late", "late"), changed);
+		assertEquals(50, store.get("very-late").orElseThrow().getFine());
+		assertEquals(5, store.get("late").orElseThrow().getFine());
+		assertEquals(0, store.get("within-grace").orElseThrow().getFine());
+
+		// Nothing changes on a second run the same day.
+		store.updated.clear();
+		assertEquals(0, engine.refresh(store, TODAY, book -> changed.add(book.getId())));
+		assertEquals(List.of("very-late", "late"), store.updated);
+	}
+
+	@Test
+	void aBookReturnedDuringARefreshKeepsNoFine() {
+		WatchedStore store = new WatchedStore();
+		FineEngine engine = new FineEngine(policy(0, 0));
+		issue(store, engine, "first", TODAY.minusDays(10));
+		issue(store, engine, "returning", TODAY.minusDays(4));
+
+		// The second book comes back once the refresh is under way. Its index entry is still there, as it can be
+		// for a moment around a return, so the refresh reaches it and must leave the returned book alone.
+		store.beforeNextUpdate = () -> {
+			store.update("returning", book -> {
+				book.setIssued(false);
+				book.setIssuedToMemberId(null);
+				book.setIssueDate(null);
+				book.setDueDate(null);
+				book.setFine(0);
+				return book;
+			});
+		};
+		List<String> changed = new ArrayList<>();
+		assertEquals(1, engine.refresh(store, TODAY, book -> changed.add(book.getId())));
+		assertEquals(List.of("first"), changed);
+		assertEquals(List.of("first", "returning", "returning"), store.updated);
+		Book returned = store.get("returning").orElseThrow();
+		assertFalse(returned.isIssued());
+		assertEquals(0, returned.getFine());
+	}
+}
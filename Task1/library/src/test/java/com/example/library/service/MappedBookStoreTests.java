@@ -0,0 +1,104 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedBookStoreTests {
+
+	@TempDir
+	Path directory;
+
+	private static Book book(int i) {
+		return new Book("b" + i, "Title " + i, "Author " + (i % 7), i % 2 == 0 ? "Even" : "Odd");
+	}
+
+	@Test
+	void behavesLikeTheInMemoryStore() throws IOException {
+		try (MappedBookStore mapped = MappedBookStore.open(directory, false)) {
+			BookStore memory = new InMemoryBookStore();
+			for (int i = 0; i < 5000; i++) {
+				assertTrue(mapped.add(book(i)));
+				memory.add(book(i));
+			}
+			assertFalse(mapped.add(book(3)));
+			for (BookStore store : List.of(mapped, memory)) {
+				store.update("b10", b -> {
+					b.setIssued(true);
+					b.setIssuedToMemberId("m1");
+					b.setIssueDate(LocalDate.of(2024, 1, 1));
+					b.setDueDate(LocalDate.of(2024, 1, 16));
+					b.setFine(25);
+					return b;
+				});
+				store.removeIf("b11", b -> true);
+				store.removeIf("b10", b -> !b.isIssued());
+			}
+
+			assertEquals(memory.size(), mapped.size());
+			assertEquals(memory.get("b10"), mapped.get("b10"));
+			assertFalse(mapped.get("b11").isPresent());
+			assertEquals(memory.findByMember("m1"), mapped.findByMember("m1"));
+			assertTrue(mapped.hasBooksIssuedTo("m1"));
+			assertEquals(Set.of("Even", "Odd"), mapped.genres());
+			assertEquals(memory.count("Odd"), mapped.count("Odd"));
+			assertEquals(memory.page(null, false, 100, 20), mapped.page(null, false, 100, 20));
+			assertEquals(memory.page("Odd", true, 5, 20), mapped.page("Odd", true, 5, 20));
+			assertEquals(memory.list(), mapped.list());
+		}
+	}
+
+	@Test
+	void reopeningKeepsTheCatalog() throws IOException {
+		try (MappedBookStore store = MappedBookStore.open(directory, false)) {
+			for (int i = 0; i < 100; i++) { store.add(book(i)); }
+			store.removeIf("b5", b -> true);
+			store.update("b6", b -> {
+				b.setTitle("Renamed");
+				return b;
+			});
+		}
+		try (MappedBookStore reopened = MappedBookStore.open(directory, false)) {
+			assertEquals(99, reopened.size());
+			assertFalse(reopened.get("b5").isPresent());
+			assertEquals("Renamed", reopened.get("b6").orElseThrow().getTitle());
+			assertEquals("b99", reopened.list().get(0).getId());
+			assertTrue(reopened.add(book(5)));
+		}
+		try (MappedBookStore reset = MappedBookStore.open(directory, true)) {
+			assertEquals(0, reset.size());
+		}
+	}
+
+	@Test
+	void booksWithoutAGenreAreNotListedAsOne() throws IOException {
+		try (MappedBookStore store = MappedBookStore.open(directory, false)) {
+			assertTrue(store.add(new Book("B1", "t", "a", null)));
+			assertTrue(store.add(book(2)));
+			assertEquals(Set.of("Even"), store.genres());
+			assertEquals(2, store.count(null));
+		}
+	}
+
+	@Test
+	void deletesLeaveTheOtherIdsReachable() throws IOException {
+		try (MappedBookStore store = MappedBookStore.open(directory, false)) {
+			// Enough books to grow the id table, so probe chains cross rehashes.
+			for (int i = 0; i < 3000; i++) { store.add(book(i)); }
+			for (int i = 0; i < 3000; i += 3) { assertTrue(store.removeIf("b" + i, b -> true).isPresent()); }
+			for (int i = 0; i < 3000; i++) { assertEquals(i % 3 != 0, store.get("b" + i).isPresent()); }
+			assertFalse(store.removeIf("b3", b -> true).isPresent());
+			assertTrue(store.add(book(3)));
+			assertEquals("Title 3", store.get("b3").orElseThrow().getTitle());
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import com.example.library.model.Member;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemberLoansTests {
+
+	private static LibraryService library(int maxPerMember) {
+		return TestLibrary.builder().maxLoansPerMember(maxPerMember).build();
+	}
+
+	@Test
+	void loanLimitIsEnforcedAndFreedByReturns() {
+		LibraryService library = library(2);
+		Member member = library.addMember("Erin");
+		Book first = library.addBook("One", "A", "G");
+		Book second = library.addBook("Two", "A", "G");
+		Book third = library.addBook("Three", "A", "G");
+
+		assertTrue(library.issueBook(first.getId(), member.getId()).isPresent());
+		assertTrue(library.issueBook(second.getId(), member.getId()).isPresent());
+		assertFalse(library.issueBook(third.getId(), member.getId()).isPresent());
+		assertFalse(library.findBookById(third.getId()).orElseThrow().isIssued());
+
+		assertTrue(library.returnBook(first.getId()).isPresent());
+		assertTrue(library.issueBook(third.getId(), member.getId()).isPresent());
+		assertEquals(List.of(second.getId(), third.getId()).stream().sorted().toList(),
+				library.findLoans(member.getId()).orElseThrow().stream().map(Book::getId).sorted().toList());
+	}
+
+	@Test
+	void membersWithLoansCannotBeDeleted() {
+		LibraryService library = library(0);
+		Member member = library.addMember("Frank");
+		Book book = library.addBook("Held", "A", "G");
+		library.issueBook(book.getId(), member.getId());
+
+		assertFalse(library.deleteMember(member.getId()));
+		library.returnBook(book.getId());
+		assertTrue(library.findLoans(member.getId()).orElseThrow().isEmpty());
+		assertTrue(library.deleteMember(member.getId()));
+		assertTrue(library.findLoans(member.getId()).isEmpty());
+	}
+
+	@Test
+	void theMemberListingIsReadOnly() {
+		LibraryService library = library(0);
+		List<Member> listing = library.getAllMembers();
+		assertThrows(UnsupportedOperationException.class, () -> listing.add(new Member("m-rogue", "Rogue")));
+		assertThrows(UnsupportedOperationException.class, () -> listing.remove(0));
+		assertTrue(library.findLoans("m-rogue").isEmpty());
+	}
+
+	@Test
+	void seededLoansAreTracked() {
+		LibraryService library = library(0);
+		for (Member member : library.getAllMembers()) {
+			assertEquals(library.findBooksIssuedTo(member.getId()).size(), library.findLoans(member.getId()).orElseThrow().size());
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.library.service;
+
+import com.example.library.feed.ChangeFeed;
+import com.example.library.feed.FeedProperties;
+import com.example.library.history.HistoryRetention;
+import com.example.library.persistence.LibraryJournal;
+import com.example.library.persistence.PersistenceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Builds a {@link LibraryService} for tests, outside Spring: an in-memory catalog, default policies, no journal,
+ * a private change feed and a simple meter registry, each replaceable. Tests that only need a working library
+ * call {@code TestLibrary.builder().build()}; constructor changes are made here once.
+ */
+public final class TestLibrary {
+	private BookStore books = new InMemoryBookStore();
+	private FinePolicy finePolicy = new FinePolicy();
+	private LoanPolicy loanPolicy = new LoanPolicy();
+	private HistoryRetention historyRetention = new HistoryRetention();
+	private LibraryJournal journal = new LibraryJournal(new PersistenceProperties());
+	private ChangeFeed changes = new ChangeFeed(new FeedProperties());
+	private MeterRegistry registry = new SimpleMeterRegistry();
+
+	private TestLibrary() { }
+
+	public static TestLibrary builder() { return new TestLibrary(); }
+
+	public TestLibrary books(BookStore books) {
+		this.books = books;
+		return this;
+	}
+
+	public TestLibrary finePolicy(FinePolicy finePolicy) {
+		this.finePolicy = finePolicy;
+		return this;
+	}
+
+	public TestLibrary loanPolicy(LoanPolicy loanPolicy) {
+		this.loanPolicy = loanPolicy;
+		return this;
+	}
+
+	public TestLibrary maxLoansPerMember(int maxPerMember) {
+		loanPolicy.setMaxPerMember(maxPerMember);
+		return this;
+	}
+
+	public TestLibrary loanDays(int loanDays) {
+		loanPolicy.setLoanDays(loanDays);
+		return this;
+	}
+
+	public TestLibrary historyRetention(HistoryRetention historyRetention) {
+		this.historyRetention = historyRetention;
+		return this;
+	}
+
+	public TestLibrary journal(LibraryJournal journal) {
+		this.journal = journal;
+		return this;
+	}
+
+	public TestLibrary changes(ChangeFeed changes) {
+		this.changes = changes;
+		return this;
+	}
+
+	public TestLibrary registry(MeterRegistry registry) {
+		this.registry = registry;
+		return this;
+	}
+
+	public LibraryService build() {
+		return new LibraryService(books, finePolicy, loanPolicy, historyRetention, journal, changes, registry);
+	}
+}
@@ -0,0 +1,102 @@
+package com.example.library.stats;
+
+import com.example.library.model.Book;
+import com.example.library.model.CirculationSummary;
+import com.example.library.model.DailyIssues;
+import com.example.library.model.Member;
+import com.example.library.model.RankedCount;
+import com.example.library.persistence.LibraryJournal;
+import com.example.library.persistence.PersistenceProperties;
+import com.example.library.service.BookSort;
+import com.example.library.service.LibraryService;
+import com.example.library.service.TestLibrary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CirculationStatsTests {
+
+	@TempDir
+	Path directory;
+
+	private LibraryJournal journal() {
+		PersistenceProperties properties = new PersistenceProperties();
+		properties.setEnabled(true);
+		properties.setDirectory(directory.toString());
+		properties.setSnapshotEvery(Long.MAX_VALUE);
+		return new LibraryJournal(properties);
+	}
+
+	private static LibraryService service(LibraryJournal journal) {
+		return TestLibrary.builder().journal(journal).build();
+	}
+
+	@Test
+	void sketchKeepsTheHeavyHitters() {
+		TopK sketch = new TopK(16);
+		SplittableRandom random = new SplittableRandom(7);
+		int[] heavy = new int[3];
+		for (int i = 0; i < 20_000; i++) {
+			int pick = random.nextInt(10);
+			if (pick < 3) {
+				heavy[pick]++;
+				sketch.offer("heavy-" + pick, "Heavy " + pick);
+			} else {
+				sketch.offer("noise-" + random.nextInt(5_000), "Noise");
+			}
+		}
+		List<RankedCount> top = sketch.top(3);
+		assertEquals(3, top.size());
+		for (RankedCount entry : top) {
+			assertTrue(entry.getId().startsWith("heavy-"), entry.getId());
+			int actual = heavy[Integer.parseInt(entry.getId().substring("heavy-".length()))];
+			assertTrue(entry.getCount() >= actual && entry.getCount() - entry.getError() <= actual);
+		}
+	}
+
+	@Test
+	void rollupsFollowCirculationAndSurviveARestart() throws IOException {
+		LibraryJournal journal = journal();
+		LibraryService library = service(journal);
+		Member carol = library.addMember("Carol");
+		Book dune = library.addBook("Dune", "Frank Herbert", "Sci-Fi");
+		for (int i = 0; i < 3; i++) {
+			assertTrue(library.issueBook(dune.getId(), carol.getId()).isPresent());
+			assertTrue(library.returnBook(dune.getId()).isPresent());
+		}
+		journal.checkpoint();
+		// The seed's "1984" went out 25 days ago; returning it after the snapshot exercises replay.
+		String orwellId = library.findBooks(null, "1984", BookSort.NEWEST, 0, 10).getItems().get(0).getId();
+		assertTrue(library.returnBook(orwellId).isPresent());
+
+		CirculationSummary summary = library.getCirculationSummary(2);
+		assertEquals(5, summary.getIssues()); // two seed issues and Carol's three
+		assertEquals(4, summary.getReturns());
+		assertEquals(25 / 4.0, summary.getAverageLoanDays(), 1e-9);
+		assertEquals(2, summary.getTopTitles().size());
+		assertEquals("Dune", summary.getTopTitles().get(0).getName());
+		assertEquals(3, summary.getTopTitles().get(0).getCount());
+		assertEquals("Carol", summary.getTopBorrowers().get(0).getName());
+
+		LocalDate today = LocalDate.now();
+		List<DailyIssues> days = library.getIssuesByDay(today.minusDays(6), today);
+		assertEquals(1, days.size());
+		assertEquals(5, days.get(0).getTotal());
+		assertEquals(Map.of("Sci-Fi", 3L, "Dystopian", 1L, "Classic", 1L), days.get(0).getByGenre());
+
+		// No close(): recovery restores the snapshot, rebuilds the rollups from its history, then replays the tail.
+		LibraryJournal reopened = journal();
+		LibraryService recovered = service(reopened);
+		assertEquals(summary, recovered.getCirculationSummary(2));
+		assertEquals(days, recovered.getIssuesByDay(today.minusDays(6), today));
+		reopened.close();
+	}
+}
@@ -0,0 +1,84 @@
+package com.example.library.transfer;
+
+import com.example.library.model.Book;
+import com.example.library.model.ImportResult;
+import com.example.library.service.LibraryService;
+import com.example.library.service.TestLibrary;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogTransferTests {
+
+	private static LibraryService library() {
+		return TestLibrary.builder().build();
+	}
+
+	private static CatalogTransfer transfer(LibraryService library) {
+		return new CatalogTransfer(library, Jackson2ObjectMapperBuilder.json().build());
+	}
+
+	private static ByteArrayInputStream input(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void csvImportHandlesQuotingAndReportsBadRows() throws IOException {
+		LibraryService library = library();
+		String csv = "\uFEFFtitle,author,genre,id\r\n"
+				+ "\"Dune, Part One\",Frank Herbert,Sci-Fi,dune\r\n"
+				+ "\"A \"\"Quoted\"\"\nTitle\",Someone,Misc,\r\n"
+				+ ",No Title,Misc,\r\n"
+				+ "Dune Again,Frank Herbert,Sci-Fi,dune\r\n";
+		ImportResult result = transfer(library).importBooks(input(csv), BulkFormat.CSV);
+
+		assertEquals(2, result.getImported());
+		assertEquals(2, result.getRejected());
+		assertEquals(List.of("line 5: title is required", "line 6: id dune is already taken or not valid"), result.getErrors());
+		assertEquals("Dune, Part One", library.findBookById("dune").orElseThrow().getTitle());
+		assertEquals(1, library.searchBooks("quoted", 0, 10).getItems().size());
+		assertEquals("A \"Quoted\"\nTitle", library.searchBooks("quoted", 0, 10).getItems().get(0).getTitle());
+	}
+
+	@Test
+	void ndjsonExportRoundTrips() throws IOException {
+		LibraryService source = library();
+		StringBuilder ndjson = new StringBuilder();
+		for (int i = 0; i < 2500; i++) { ndjson.append("{\"title\":\"Book ").append(i).append("\",\"author\":\"A\",\"genre\":\"G\"}\n"); }
+		ndjson.append("not json\n");
+		ImportResult imported = transfer(source).importBooks(input(ndjson.toString()), BulkFormat.NDJSON);
+		assertEquals(2500, imported.getImported());
+		assertEquals(List.of("line 2501: malformed JSON"), imported.getErrors());
+		assertTrue(imported.getRowsPerSecond() > 0);
+
+		ByteArrayOutputStream exported = new ByteArrayOutputStream();
+		transfer(source).exportBooks(exported, BulkFormat.NDJSON);
+		LibraryService target = library();
+		int before = target.getAllBooks().size();
+		ImportResult copied = transfer(target).importBooks(new ByteArrayInputStream(exported.toByteArray()), BulkFormat.NDJSON);
+
+		// The export includes the three seed books, which arrive on the shelf under their original ids.
+		assertEquals(2503, copied.getImported());
+		assertEquals(before + 2503, target.getAllBooks().size());
+		Book first = source.getAllBooks().get(0);
+		assertEquals(first.getTitle(), target.findBookById(first.getId()).orElseThrow().getTitle());
+	}
+
+	@Test
+	void csvExportQuotesFields() throws IOException {
+		LibraryService library = library();
+		library.addBook("Title, with comma", "Author", "Genre");
+		ByteArrayOutputStream exported = new ByteArrayOutputStream();
+		transfer(library).exportBooks(exported, BulkFormat.CSV);
+		String[] lines = exported.toString(StandardCharsets.UTF_8).split("\r\n");
+		assertEquals("id,title,author,genre,issued,issuedToMemberId,issueDate,dueDate,fine", lines[0]);
+		assertTrue(lines[lines.length - 1].contains(",\"Title, with comma\",Author,Genre,false,,,,0"));
+	}
+}